@@ -3,6 +3,8 @@ package com.nike.wingtips.apache.httpclient;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.apache.httpclient.util.WingtipsApacheHttpClientUtil;
+import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 
 import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
@@ -129,7 +131,7 @@ public class WingtipsApacheHttpClientInterceptor implements HttpRequestIntercept
             context.setAttribute(SPAN_TO_CLOSE_HTTP_CONTEXT_ATTR_KEY, spanToClose);
         }
 
-        propagateTracingHeaders(request, tracer.getCurrentSpan());
+        propagateTracingHeaders(request, tracer.getCurrentSpan(), getPropagation());
     }
 
     @Override
@@ -159,6 +161,17 @@ public class WingtipsApacheHttpClientInterceptor implements HttpRequestIntercept
         return WingtipsApacheHttpClientUtil.getSubspanSpanName(request);
     }
 
+    /**
+     * Returns the {@link Propagation} that determines which tracing header format(s) are sent on downstream calls. Defaults to
+     * {@link HttpRequestTracingUtils#getDefaultPropagation()}. You can override this method to send a different format, e.g. W3C Trace Context
+     * headers via {@link com.nike.wingtips.http.W3CTraceContextPropagation}.
+     *
+     * @return The {@link Propagation} to use when setting tracing headers on downstream calls. Should never return null.
+     */
+    protected Propagation getPropagation() {
+        return HttpRequestTracingUtils.getDefaultPropagation();
+    }
+
     /**
      * Helper method for adding a default instance of this interceptor to the given builder's request *and* response
      * interceptors. The interceptors will have their subspan option turned on.
@@ -4,6 +4,8 @@ import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.apache.httpclient.util.WingtipsApacheHttpClientUtil;
+import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 
 import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
@@ -127,7 +129,7 @@ public class WingtipsHttpClientBuilder extends HttpClientBuilder {
                 }
 
                 try {
-                    propagateTracingHeaders(request, tracer.getCurrentSpan());
+                    propagateTracingHeaders(request, tracer.getCurrentSpan(), getPropagation());
                     return protocolExec.execute(route, request, clientContext, execAware);
                 }
                 finally {
@@ -156,6 +158,17 @@ public class WingtipsHttpClientBuilder extends HttpClientBuilder {
         return WingtipsApacheHttpClientUtil.getSubspanSpanName(request);
     }
 
+    /**
+     * Returns the {@link Propagation} that determines which tracing header format(s) are sent on downstream calls. Defaults to
+     * {@link HttpRequestTracingUtils#getDefaultPropagation()}. You can override this method to send a different format, e.g. W3C Trace Context
+     * headers via {@link com.nike.wingtips.http.W3CTraceContextPropagation}.
+     *
+     * @return The {@link Propagation} to use when setting tracing headers on downstream calls. Should never return null.
+     */
+    protected Propagation getPropagation() {
+        return HttpRequestTracingUtils.getDefaultPropagation();
+    }
+
     /**
      * @return The current value of the subspan option.
      */
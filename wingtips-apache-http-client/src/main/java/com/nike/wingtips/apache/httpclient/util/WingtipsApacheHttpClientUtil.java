@@ -4,6 +4,7 @@ import com.nike.wingtips.Span;
 import com.nike.wingtips.apache.httpclient.WingtipsApacheHttpClientInterceptor;
 import com.nike.wingtips.apache.httpclient.WingtipsHttpClientBuilder;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 
 import org.apache.http.HttpRequest;
 import org.apache.http.RequestLine;
@@ -36,7 +37,8 @@ public class WingtipsApacheHttpClientUtil {
      * Usually you'd want to use {@link WingtipsHttpClientBuilder} or {@link WingtipsApacheHttpClientInterceptor}
      * to handle tracing propagation for you, however you can call this method to do manual propagation if needed.
      *
-     * <p>This method conforms to the <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a>.
+     * <p>The headers sent are determined by {@link HttpRequestTracingUtils#getDefaultPropagation()}, which conforms to the
+     * <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a> unless it has been changed.
      *
      * @param request The {@link HttpRequest} to set tracing headers on. Can be null - if this is null then this
      * method will do nothing.
@@ -50,6 +52,23 @@ public class WingtipsApacheHttpClientUtil {
         HttpRequestTracingUtils.propagateTracingHeaders(requestForPropagation, span);
     }
 
+    /**
+     * The same as {@link #propagateTracingHeaders(HttpRequest, Span)} except the given {@link Propagation} determines which header format(s) are
+     * sent rather than {@link HttpRequestTracingUtils#getDefaultPropagation()}.
+     *
+     * @param request The {@link HttpRequest} to set tracing headers on. Can be null - if this is null then this
+     * method will do nothing.
+     * @param span The {@link Span} to get the tracing info from to set on the headers. Can be null - if this is null
+     * then this method will do nothing.
+     * @param propagation The {@link Propagation} to set the headers with. Cannot be null.
+     */
+    public static void propagateTracingHeaders(HttpRequest request, Span span, Propagation propagation) {
+        HttpRequestForPropagation requestForPropagation = (request == null)
+                                                          ? null
+                                                          : new HttpRequestForPropagation(request);
+        HttpRequestTracingUtils.propagateTracingHeaders(requestForPropagation, span, propagation);
+    }
+
     /**
      * Returns the name that should be used for the subspan surrounding the given request. This method returns {@code
      * apachehttpclient_downstream_call-[HTTP_METHOD]_[REQUEST_URI]} with any query string stripped, e.g. for a GET
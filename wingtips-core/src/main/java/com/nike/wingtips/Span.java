@@ -1,5 +1,9 @@
 package com.nike.wingtips;
 
+import com.nike.wingtips.resourceusage.GcPauseTracker;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSampler;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
 
 import org.slf4j.Logger;
@@ -68,6 +72,18 @@ public class Span implements Closeable {
     public static final String START_TIME_EPOCH_MICROS_FIELD = "startTimeEpochMicros";
     /** The name of the duration-in-nanoseconds field when serializing to JSON (see {@link #toJSON()}. Corresponds to {@link #getDurationNanos()}. */
     public static final String DURATION_NANOS_FIELD = "durationNanos";
+    /** The name of the CPU time field when serializing/deserializing to/from JSON (see {@link #toJSON()} and {@link #fromJSON(String)}). Corresponds to {@link SpanResourceUsage#getCpuTimeNanos()}. */
+    public static final String CPU_TIME_NANOS_FIELD = "cpuTimeNanos";
+    /** The name of the allocated bytes field when serializing/deserializing to/from JSON (see {@link #toJSON()} and {@link #fromJSON(String)}). Corresponds to {@link SpanResourceUsage#getAllocatedBytes()}. */
+    public static final String ALLOCATED_BYTES_FIELD = "allocatedBytes";
+    /** The name of the blocked time field when serializing/deserializing to/from JSON (see {@link #toJSON()} and {@link #fromJSON(String)}). Corresponds to {@link SpanResourceUsage#getBlockedTimeMillis()}. */
+    public static final String BLOCKED_TIME_MILLIS_FIELD = "blockedTimeMillis";
+    /** The name of the waited time field when serializing/deserializing to/from JSON (see {@link #toJSON()} and {@link #fromJSON(String)}). Corresponds to {@link SpanResourceUsage#getWaitedTimeMillis()}. */
+    public static final String WAITED_TIME_MILLIS_FIELD = "waitedTimeMillis";
+    /** The name of the async task count field when serializing/deserializing to/from JSON (see {@link #toJSON()} and {@link #fromJSON(String)}). Corresponds to {@link SpanResourceUsage#getAsyncTaskCount()}. */
+    public static final String ASYNC_TASK_COUNT_FIELD = "asyncTaskCount";
+    /** The name of the GC pause time field when serializing/deserializing to/from JSON (see {@link #toJSON()} and {@link #fromJSON(String)}). Corresponds to {@link #getGcPauseMicros()}. */
+    public static final String GC_PAUSE_MICROS_FIELD = "gcPauseMicros";
 
     private final String traceId;
     private final String spanId;
@@ -81,6 +97,10 @@ public class Span implements Closeable {
 
     private Long durationNanos;
 
+    private SpanResourceUsage resourceUsage;
+
+    private Long gcPauseMicros;
+
     private String cachedJsonRepresentation;
 
     private String cachedKeyValueRepresentation;
@@ -342,6 +362,44 @@ public class Span implements Closeable {
         return durationNanos;
     }
 
+    /**
+     * @return The resources used by the threads that worked on this span, or null if they weren't measured. They're only measured for spans started by
+     *          {@link Tracer} while {@link Tracer#setThreadResourceSampler(ThreadResourceSampler)} is set, and are only final once {@link #isCompleted()}
+     *          is true. See {@link SpanResourceUsage} for details.
+     */
+    public SpanResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+
+    /**
+     * Sets the object that will accumulate the resources used by the threads that worked on this span.
+     * <p/>
+     * NOTE: This is intentionally package scoped to make sure resource accounting happens centrally through {@link Tracer}.
+     */
+    void setResourceUsage(SpanResourceUsage resourceUsage) {
+        this.resourceUsage = resourceUsage;
+    }
+
+    /**
+     * @return The total garbage collection pause time in microseconds that overlapped this span, or null if it wasn't measured. It's only measured for spans
+     *          completed by {@link Tracer} while {@link Tracer#setGcPauseTracker(GcPauseTracker)} is set. See {@link GcPauseTracker} for details.
+     */
+    public Long getGcPauseMicros() {
+        return gcPauseMicros;
+    }
+
+    /**
+     * Sets the total garbage collection pause time in microseconds that overlapped this span.
+     * <p/>
+     * NOTE: This is intentionally package scoped - it's set by {@link Tracer} when the span is completed.
+     */
+    void setGcPauseMicros(Long gcPauseMicros) {
+        this.gcPauseMicros = gcPauseMicros;
+        // By setting a cached value to null it will be regenerated the next time it is requested.
+        cachedJsonRepresentation = null;
+        cachedKeyValueRepresentation = null;
+    }
+
     /**
      * @return this span's *current* status relative to {@link Tracer} on the current thread at the time this method is
      * called. This status is recalculated every time this method is called and is only relevant/correct until {@link
@@ -391,11 +449,26 @@ public class Span implements Closeable {
         builder.append(",").append(START_TIME_EPOCH_MICROS_FIELD).append("=").append(spanStartTimeEpochMicros);
         if (isCompleted()) {
             builder.append(",").append(DURATION_NANOS_FIELD).append("=").append(durationNanos);
+            if (resourceUsage != null) {
+                appendKeyValueMeasurement(builder, CPU_TIME_NANOS_FIELD, resourceUsage.getCpuTimeNanos());
+                appendKeyValueMeasurement(builder, ALLOCATED_BYTES_FIELD, resourceUsage.getAllocatedBytes());
+                appendKeyValueMeasurement(builder, BLOCKED_TIME_MILLIS_FIELD, resourceUsage.getBlockedTimeMillis());
+                appendKeyValueMeasurement(builder, WAITED_TIME_MILLIS_FIELD, resourceUsage.getWaitedTimeMillis());
+                if (resourceUsage.getAsyncTaskCount() > 0)
+                    builder.append(",").append(ASYNC_TASK_COUNT_FIELD).append("=").append(resourceUsage.getAsyncTaskCount());
+            }
+            if (gcPauseMicros != null)
+                builder.append(",").append(GC_PAUSE_MICROS_FIELD).append("=").append(gcPauseMicros);
         }
 
         return builder.toString();
     }
 
+    private static void appendKeyValueMeasurement(StringBuilder builder, String fieldName, long value) {
+        if (value != ThreadResourceSnapshot.NOT_MEASURED)
+            builder.append(",").append(fieldName).append("=").append(value);
+    }
+
     /**
      * @return The {@link Span} represented by the given key/value string, or null if a proper span could not be deserialized from the given string.
      *          <b>WARNING:</b> This method assumes the string you're trying to deserialize originally came from
@@ -452,12 +525,27 @@ public class Span implements Closeable {
         builder.append("\",\"").append(START_TIME_EPOCH_MICROS_FIELD).append("\":\"").append(spanStartTimeEpochMicros);
         if (isCompleted()) {
             builder.append("\",\"").append(DURATION_NANOS_FIELD).append("\":\"").append(durationNanos);
+            if (resourceUsage != null) {
+                appendJsonMeasurement(builder, CPU_TIME_NANOS_FIELD, resourceUsage.getCpuTimeNanos());
+                appendJsonMeasurement(builder, ALLOCATED_BYTES_FIELD, resourceUsage.getAllocatedBytes());
+                appendJsonMeasurement(builder, BLOCKED_TIME_MILLIS_FIELD, resourceUsage.getBlockedTimeMillis());
+                appendJsonMeasurement(builder, WAITED_TIME_MILLIS_FIELD, resourceUsage.getWaitedTimeMillis());
+                if (resourceUsage.getAsyncTaskCount() > 0)
+                    builder.append("\",\"").append(ASYNC_TASK_COUNT_FIELD).append("\":\"").append(resourceUsage.getAsyncTaskCount());
+            }
+            if (gcPauseMicros != null)
+                builder.append("\",\"").append(GC_PAUSE_MICROS_FIELD).append("\":\"").append(gcPauseMicros);
         }
         builder.append("\"}");
 
         return builder.toString();
     }
 
+    private static void appendJsonMeasurement(StringBuilder builder, String fieldName, long value) {
+        if (value != ThreadResourceSnapshot.NOT_MEASURED)
+            builder.append("\",\"").append(fieldName).append("\":\"").append(value);
+    }
+
     /**
      * @return The {@link Span} represented by the given JSON string, or null if a proper span could not be deserialized from the given string.
      *          <b>WARNING:</b> This method assumes the JSON you're trying to deserialize originally came from {@link #toJSON()}.
@@ -502,7 +590,28 @@ public class Span implements Closeable {
             throw new IllegalStateException("Unable to parse " + START_TIME_EPOCH_MICROS_FIELD + " from JSON");
         Long durationNanos = nullSafeGetLong(map, DURATION_NANOS_FIELD);
         SpanPurpose spanPurpose = nullSafeGetSpanPurpose(map, SPAN_PURPOSE_FIELD);
-        return new Span(traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, startTimeEpochMicros, null, durationNanos);
+        Span result = new Span(traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, startTimeEpochMicros, null, durationNanos);
+
+        Long cpuTimeNanos = nullSafeGetLong(map, CPU_TIME_NANOS_FIELD);
+        Long allocatedBytes = nullSafeGetLong(map, ALLOCATED_BYTES_FIELD);
+        Long blockedTimeMillis = nullSafeGetLong(map, BLOCKED_TIME_MILLIS_FIELD);
+        Long waitedTimeMillis = nullSafeGetLong(map, WAITED_TIME_MILLIS_FIELD);
+        Long asyncTaskCount = nullSafeGetLong(map, ASYNC_TASK_COUNT_FIELD);
+        if (cpuTimeNanos != null || allocatedBytes != null || blockedTimeMillis != null || waitedTimeMillis != null
+            || asyncTaskCount != null) {
+            result.resourceUsage = SpanResourceUsage.fromTotals(
+                measurementOrNotMeasured(cpuTimeNanos), measurementOrNotMeasured(allocatedBytes),
+                measurementOrNotMeasured(blockedTimeMillis), measurementOrNotMeasured(waitedTimeMillis),
+                (asyncTaskCount == null) ? 0 : asyncTaskCount
+            );
+        }
+        result.gcPauseMicros = nullSafeGetLong(map, GC_PAUSE_MICROS_FIELD);
+
+        return result;
+    }
+
+    private static long measurementOrNotMeasured(Long value) {
+        return (value == null) ? ThreadResourceSnapshot.NOT_MEASURED : value;
     }
 
     private static String nullSafeGetString(Map<String, String> map, String key) {
@@ -632,6 +741,8 @@ public class Span implements Closeable {
         private Long spanStartTimeNanos;
         private Long durationNanos;
         private SpanPurpose spanPurpose;
+        private SpanResourceUsage resourceUsage;
+        private Long gcPauseMicros;
 
         private Builder(String spanName, SpanPurpose spanPurpose) {
             this.spanName = spanName;
@@ -793,6 +904,41 @@ public class Span implements Closeable {
             return this;
         }
 
+        /**
+         * <p>
+         *  Sets the resources used by the threads that worked on this span (see {@link Span#getResourceUsage()}), or null if they weren't measured.
+         * </p>
+         * <p>
+         *  NOTE: {@link Tracer} takes care of this for spans it starts, so you should only need this when recreating/deserializing an already-completed
+         *  {@link Span}, e.g. with {@link SpanResourceUsage#fromTotals(long, long, long, long, long)}.
+         * </p>
+         *
+         * @param resourceUsage the {@code resourceUsage} to set
+         * @return a reference to this Builder
+         */
+        public Builder withResourceUsage(SpanResourceUsage resourceUsage) {
+            this.resourceUsage = resourceUsage;
+            return this;
+        }
+
+        /**
+         * <p>
+         *  Sets the total garbage collection pause time in microseconds that overlapped this span (see {@link Span#getGcPauseMicros()}), or null if it
+         *  wasn't measured.
+         * </p>
+         * <p>
+         *  NOTE: {@link Tracer} takes care of this for spans it completes, so you should only need this when recreating/deserializing an
+         *  already-completed {@link Span}.
+         * </p>
+         *
+         * @param gcPauseMicros the {@code gcPauseMicros} to set
+         * @return a reference to this Builder
+         */
+        public Builder withGcPauseMicros(Long gcPauseMicros) {
+            this.gcPauseMicros = gcPauseMicros;
+            return this;
+        }
+
         /**
          * <p>
          *  Returns a {@link Span} built from the parameters set via the various {@code with*(...)} methods on this builder instance.
@@ -837,7 +983,10 @@ public class Span implements Closeable {
             if (spanStartTimeNanos == null)
                 spanStartTimeNanos = System.nanoTime();
 
-            return new Span(traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, spanStartTimeEpochMicros, spanStartTimeNanos, durationNanos);
+            Span result = new Span(traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, spanStartTimeEpochMicros, spanStartTimeNanos, durationNanos);
+            result.resourceUsage = resourceUsage;
+            result.gcPauseMicros = gcPauseMicros;
+            return result;
         }
     }
 }
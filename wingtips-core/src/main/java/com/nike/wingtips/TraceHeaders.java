@@ -37,4 +37,26 @@ public interface TraceHeaders {
      */
     String TRACE_SAMPLED = "X-B3-Sampled";
 
+    /**
+     * The compact single-header form of B3 propagation, which combines the trace ID, span ID, sampling decision, and parent span ID into one header
+     * value with the format {@code {TraceId}-{SpanId}-{SamplingState}-{ParentSpanId}}, where the last two fields are optional. The sampling state is
+     * "1" for sampled, "0" for not sampled, or "d" for debug (which implies sampled). See the
+     * <a href="https://github.com/openzipkin/b3-propagation#single-header">B3 single header spec</a> for details.
+     */
+    String B3_SINGLE_HEADER = "b3";
+
+    /**
+     * The <a href="https://www.w3.org/TR/trace-context/">W3C Trace Context</a> header carrying the version, trace ID, parent (caller) span ID, and
+     * trace flags with the format {@code {version}-{TraceId}-{ParentId}-{TraceFlags}}, e.g.
+     * {@code 00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01}. The trace ID is 32 lowercase hex characters, the parent ID is 16 lowercase hex
+     * characters, and the lowest bit of the trace flags is the sampled flag.
+     */
+    String W3C_TRACEPARENT = "traceparent";
+
+    /**
+     * The <a href="https://www.w3.org/TR/trace-context/">W3C Trace Context</a> header carrying vendor-specific trace state as a comma-separated list
+     * of key/value pairs. It is only meaningful alongside {@link #W3C_TRACEPARENT}.
+     */
+    String W3C_TRACESTATE = "tracestate";
+
 }
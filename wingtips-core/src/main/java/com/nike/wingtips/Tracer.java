@@ -1,7 +1,17 @@
 package com.nike.wingtips;
 
 import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.inflight.InFlightSpanRegistry;
 import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.metrics.NoOpTracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics.DirtySpanStackSource;
+import com.nike.wingtips.metrics.TracerMetrics.SpanLifecycleEvent;
+import com.nike.wingtips.profiling.CurrentSpanPublisher;
+import com.nike.wingtips.resourceusage.GcPauseTracker;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSampler;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
 import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
 import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
@@ -46,6 +56,11 @@ import java.util.List;
  *     log messages to use {@link Span#toJSON()} to represent the span.
  * </p>
  * <p>
+ *     By default every completed span is logged as its own log message. For services that generate many sub-spans per request you can call
+ *     {@link #setSpanLogBatchingMaxSpansPerRequest(int)} with a positive value to have completed sub-spans buffered with the overall request span's
+ *     context and logged together with the overall request span as a single log message when {@link #completeRequestSpan()} is called.
+ * </p>
+ * <p>
  *     The span information is associated with a thread and is modeled as a stack, so it's possible to have nested spans inside an overall request span. These nested spans are
  *     referred to as "sub-spans" in this class. Sub-spans are started via {@link #startSubSpan(String, SpanPurpose)} and completed via {@link #completeSubSpan()}.
  *     See the recommended usage section below for more information.
@@ -161,6 +176,18 @@ public class Tracer {
      */
     private static final ThreadLocal<Deque<Span>> currentSpanStackThreadLocal = new ThreadLocal<>();
 
+    /**
+     * ThreadLocal that keeps track of the completed sub-spans that are waiting to be logged together with their overall request span. Only used when
+     * {@link #spanLogBatchingMaxSpansPerRequest} is greater than zero. See {@link #setSpanLogBatchingMaxSpansPerRequest(int)} for details.
+     */
+    private static final ThreadLocal<SpanLogBatch> currentSpanLogBatchThreadLocal = new ThreadLocal<>();
+
+    /**
+     * ThreadLocal that keeps track of this thread's resource counters as of when the current span stack was registered with it via {@link #registerWithThread(Deque)}.
+     * Only used when {@link #threadResourceSampler} is set. See {@link SpanResourceUsage} for how this is used.
+     */
+    private static final ThreadLocal<ThreadResourceSnapshot> spanStackRegisteredResourceSnapshotThreadLocal = new ThreadLocal<>();
+
     /**
      * The singleton instance for this class.
      */
@@ -174,6 +201,11 @@ public class Tracer {
      * MDC key for storing the current span's {@link Span#getTraceId()}.
      */
     public static final String TRACE_ID_MDC_KEY = "traceId";
+    /**
+     * The delimiter placed between spans when a batch of spans is logged using {@link SpanLoggingRepresentation#KEY_VALUE}.
+     * See {@link #setSpanLogBatchingMaxSpansPerRequest(int)}.
+     */
+    public static final String SPAN_LOG_BATCH_KEY_VALUE_DELIMITER = " | ";
 
 
     /**
@@ -191,6 +223,54 @@ public class Tracer {
      */
     private SpanLoggingRepresentation spanLoggingRepresentation = SpanLoggingRepresentation.JSON;
 
+    /**
+     * Whether completed spans are passed to the span loggers as {@link Span} objects rather than pre-serialized strings. See
+     * {@link #setLogSpansAsObjects(boolean)}.
+     */
+    private boolean logSpansAsObjects = false;
+
+    /**
+     * The maximum number of completed sub-spans that will be buffered per request and logged together with the overall request span. Zero (the default)
+     * disables batching so that every span is logged as soon as it is completed.
+     */
+    private int spanLogBatchingMaxSpansPerRequest = 0;
+
+    /**
+     * The self-instrumentation metrics this instance will report to. Defaults to {@link NoOpTracerMetrics}. Never allow this field to be set to null.
+     */
+    private TracerMetrics tracerMetrics = NoOpTracerMetrics.INSTANCE;
+
+    /**
+     * Whether {@link #tracerMetrics} is something other than {@link NoOpTracerMetrics} - when it's false we skip the {@link System#nanoTime()} calls
+     * for the timing metrics.
+     */
+    private boolean tracerMetricsTimingEnabled = false;
+
+    /**
+     * The registry of in-flight overall request spans, or null (the default) if in-flight request spans should not be tracked.
+     */
+    private InFlightSpanRegistry inFlightSpanRegistry = null;
+
+    /**
+     * Used to measure the resources used by each span, or null (the default) if span resource usage should not be measured.
+     */
+    private ThreadResourceSampler threadResourceSampler = null;
+
+    /**
+     * Used to annotate completed spans with the GC pause time that overlapped them, or null (the default) if spans should not be annotated.
+     */
+    private GcPauseTracker gcPauseTracker = null;
+
+    /**
+     * Each thread's current spans are published here so they can be read from other threads, or null (the default) if they should not be published.
+     */
+    private CurrentSpanPublisher currentSpanPublisher = null;
+
+    /**
+     * Whether the current span's info is put into the logging {@link MDC} whenever the current span changes. Defaults to true.
+     */
+    private boolean mdcUpdatesEnabled = true;
+
     private Tracer() { /* Intentionally private to enforce singleton pattern. */ }
 
     /**
@@ -333,6 +413,7 @@ public class Tracer {
                 : Span.generateRootSpanForNewTrace(spanName, spanPurpose).withSampleable(isNextRootSpanSampleable()).build();
 
         pushSpanOntoCurrentSpanStack(childSpan);
+        startResourceAccounting(childSpan);
 
         notifySpanStarted(childSpan);
         notifyIfSpanSampled(childSpan);
@@ -475,6 +556,11 @@ public class Tracer {
 
         // Since this is a "starting from scratch/new request" call we clear out and restart the current span stack even if it already had something in it.
         startNewSpanStack(span);
+        startResourceAccounting(span);
+
+        InFlightSpanRegistry registry = inFlightSpanRegistry;
+        if (registry != null)
+            registry.register(span, currentSpanStackThreadLocal.get());
 
         notifySpanStarted(span);
         notifyIfSpanSampled(span);
@@ -494,6 +580,7 @@ public class Tracer {
         if (existingStack != null && !existingStack.isEmpty()) {
             boolean first = true;
             StringBuilder lostTraceIds = new StringBuilder();
+            tracerMetrics.dirtySpanStackDetected(DirtySpanStackSource.START_NEW_SPAN_STACK, existingStack.size());
             for (Span span : existingStack) {
                 if (!first)
                     lostTraceIds.append(',');
@@ -506,8 +593,14 @@ public class Tracer {
                     existingStack.size(), lostTraceIds.toString(), new Exception("Stack trace for debugging purposes")
             );
 
+            // The old request will never be completed, so it shouldn't be reported as in-flight forever.
+            unregisterInFlightRequestSpan(existingStack);
         }
 
+        // Any batched sub-spans left over from a previous request on this thread need to be output now rather than lost.
+        flushSpanLogBatch();
+
+        spanStackRegisteredResourceSnapshotThreadLocal.remove();
         currentSpanStackThreadLocal.set(new LinkedList<Span>());
         pushSpanOntoCurrentSpanStack(firstEntry);
     }
@@ -526,6 +619,38 @@ public class Tracer {
         }
     }
 
+    /**
+     * Uses {@link #spanLoggingRepresentation} to decide how to serialize the given batch of spans into a single string, and then returns the result
+     * of the serialization. For {@link SpanLoggingRepresentation#JSON} the result is a JSON array of {@link Span#toJSON()} objects, and for
+     * {@link SpanLoggingRepresentation#KEY_VALUE} the {@link Span#toKeyValueString()} results are separated by {@link #SPAN_LOG_BATCH_KEY_VALUE_DELIMITER}.
+     */
+    protected String serializeSpanBatchToDesiredStringRepresentation(List<Span> spans) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        switch(spanLoggingRepresentation) {
+            case JSON:
+                sb.append('[');
+                for (Span span : spans) {
+                    if (!first)
+                        sb.append(',');
+                    sb.append(span.toJSON());
+                    first = false;
+                }
+                sb.append(']');
+                return sb.toString();
+            case KEY_VALUE:
+                for (Span span : spans) {
+                    if (!first)
+                        sb.append(SPAN_LOG_BATCH_KEY_VALUE_DELIMITER);
+                    sb.append(span.toKeyValueString());
+                    first = false;
+                }
+                return sb.toString();
+            default:
+                throw new IllegalStateException("Unknown span logging representation type: " + spanLoggingRepresentation);
+        }
+    }
+
     /**
      * Pushes the given span onto the {@link #currentSpanStackThreadLocal} stack. If the stack is null it will create a new one. Also pushes the span info into the logging
      * {@link org.slf4j.MDC} so it is available there.
@@ -538,7 +663,10 @@ public class Tracer {
         }
 
         currentStack.push(pushMe);
-        configureMDC(pushMe);
+        tracerMetrics.spanStackPushed(currentStack.size());
+        if (mdcUpdatesEnabled)
+            configureMDC(pushMe);
+        publishCurrentSpans(currentStack);
         classLogger.debug("** starting sample for span {}", serializeSpanToDesiredStringRepresentation(pushMe));
     }
 
@@ -554,6 +682,9 @@ public class Tracer {
     public void completeRequestSpan() {
         Deque<Span> currentSpanStack = currentSpanStackThreadLocal.get();
         if (currentSpanStack != null) {
+            unregisterInFlightRequestSpan(currentSpanStack);
+            ThreadResourceSnapshot resourceSnapshot = sampleCurrentThreadResources();
+
             // Keep track of data as we go in case we need to output an error (we should only have 1 span in the stack)
             int originalSize = currentSpanStack.size();
             StringBuilder badTraceIds = new StringBuilder();
@@ -561,6 +692,7 @@ public class Tracer {
             while (!currentSpanStack.isEmpty()) {
                 // Get the next span on the stack.
                 Span span = currentSpanStack.pop();
+                addResourceUsage(span, resourceSnapshot);
 
                 // Check if it's a "bad" span (i.e. not the last).
                 boolean isBadSpan = false;
@@ -577,6 +709,7 @@ public class Tracer {
 
             // Output an error message if we had any bad spans.
             if (originalSize > 1) {
+                tracerMetrics.dirtySpanStackDetected(DirtySpanStackSource.COMPLETE_REQUEST_SPAN, originalSize);
                 classLogger.error(
                         "WINGTIPS USAGE ERROR - We were asked to fully complete a request span (i.e. end of the request) but there was more than one span on this thread's stack (" +
                         "{} total spans when there should only be one). This probably means completeSubSpan() was not called on child sub-span(s) this thread " +
@@ -588,12 +721,18 @@ public class Tracer {
         }
 
         currentSpanStackThreadLocal.remove();
-        unconfigureMDC();
+        spanStackRegisteredResourceSnapshotThreadLocal.remove();
+        // The overall request span normally takes any batched sub-spans with it when it is logged, but make sure nothing is left dangling if it didn't.
+        flushSpanLogBatch();
+        if (mdcUpdatesEnabled)
+            unconfigureMDC();
+        publishCurrentSpans(null);
     }
 
     /**
-     * Completes the current child sub-span by calling {@link #completeAndLogSpan(Span, boolean)} on it and then {@link #configureMDC(Span)} on the sub-span's parent
-     * (which becomes the new current span).
+     * Completes the current child sub-span by calling {@link #completeAndLogSpan(Span, boolean, Span)} on it and then {@link #configureMDC(Span)} on the
+     * sub-span's parent (which becomes the new current span). If span log batching is enabled (see {@link #setSpanLogBatchingMaxSpansPerRequest(int)})
+     * then the sub-span will be buffered and logged later along with the overall request span.
      * <p/>
      * <b>WARNING:</b> This only works if there are at least 2 spans in the {@link #currentSpanStackThreadLocal} stack - one for the child sub-span and one for the parent span.
      * If you're trying to complete the overall request's span you should be calling {@link #completeRequestSpan()} instead. If there are 0 or 1 spans on the stack then
@@ -614,10 +753,13 @@ public class Tracer {
 
         // We have at least two spans. Pop off the child sub-span and complete/log it.
         Span subSpan = currentSpanStack.pop();
-        completeAndLogSpan(subSpan, false);
+        addResourceUsage(subSpan, sampleCurrentThreadResources());
+        completeAndLogSpan(subSpan, false, currentSpanStack.peekLast());
 
         // Now configure the MDC with the new current span.
-        configureMDC(currentSpanStack.peek());
+        if (mdcUpdatesEnabled)
+            configureMDC(currentSpanStack.peek());
+        publishCurrentSpans(currentSpanStack);
     }
 
     /**
@@ -738,6 +880,7 @@ public class Tracer {
                     + "wingtips_usage_error=true, closed_non_current_span=true, trace_id={}, span_id={}",
                     span.getTraceId(), span.getSpanId(), new Exception("Stack trace for debugging purposes")
                 );
+                addResourceUsage(span, sampleCurrentThreadResources());
                 completeAndLogSpan(span, true);
                 break;
             case UNMANAGED_SPAN:
@@ -765,6 +908,21 @@ public class Tracer {
      *                                    when it was supposed to have been completed), pass in false if the span's timing info is good. This affects how the span is logged.
      */
     protected void completeAndLogSpan(Span span, boolean containsIncorrectTimingInfo) {
+        completeAndLogSpan(span, containsIncorrectTimingInfo, null);
+    }
+
+    /**
+     * Same as {@link #completeAndLogSpan(Span, boolean)}, except that if span log batching is enabled (see {@link #setSpanLogBatchingMaxSpansPerRequest(int)})
+     * and {@code batchRootSpan} is non-null then the given span will be buffered so that it can be logged along with {@code batchRootSpan} when that
+     * overall request span is completed. If the per-request batch is already full then the span is logged immediately as usual.
+     *
+     * @param span The span to complete and log
+     * @param containsIncorrectTimingInfo Pass in true if you know the given span contains incorrect timing information (e.g. a child sub-span that wasn't completed normally
+     *                                    when it was supposed to have been completed), pass in false if the span's timing info is good. This affects how the span is logged.
+     *                                    Spans with incorrect timing info are never batched.
+     * @param batchRootSpan The overall request span that the given span should be batched with, or null if the given span should not be batched.
+     */
+    protected void completeAndLogSpan(Span span, boolean containsIncorrectTimingInfo, Span batchRootSpan) {
         // Complete the span.
         if (span.isCompleted()) {
             classLogger.error(
@@ -774,20 +932,117 @@ public class Tracer {
             );
             return;
         }
-        else
+        else {
             span.complete();
+            annotateGcPauses(span);
+        }
 
-        // Log the span if it was sampleable.
-        if (span.isSampleable()) {
+        // Log the span if it was sampleable (unless it was handled by span log batching).
+        boolean handledBySpanLogBatch = span.isSampleable()
+                                        && !containsIncorrectTimingInfo
+                                        && addToOrLogSpanLogBatch(span, batchRootSpan);
+        if (span.isSampleable() && !handledBySpanLogBatch) {
             String infoTag = containsIncorrectTimingInfo ? "[INCORRECT_TIMING] " : "";
             Logger loggerToUse = containsIncorrectTimingInfo ? invalidSpanLogger : validSpanLogger;
-            loggerToUse.info("{}[DISTRIBUTED_TRACING] {}", infoTag, serializeSpanToDesiredStringRepresentation(span));
+            if (logSpansAsObjects && spanLoggingRepresentation == SpanLoggingRepresentation.JSON) {
+                // Span.toString() is Span.toJSON(), so the log message is the same - but it's only built if the logging backend asks for it.
+                loggerToUse.info("{}[DISTRIBUTED_TRACING] {}", infoTag, span);
+            }
+            else {
+                long serializationStartNanos = (tracerMetricsTimingEnabled) ? System.nanoTime() : 0;
+                String serializedSpan = serializeSpanToDesiredStringRepresentation(span);
+                if (tracerMetricsTimingEnabled)
+                    tracerMetrics.spansSerialized(1, System.nanoTime() - serializationStartNanos);
+                loggerToUse.info("{}[DISTRIBUTED_TRACING] {}", infoTag, serializedSpan);
+            }
         }
 
         // Notify listeners.
         notifySpanCompleted(span);
     }
 
+    /**
+     * Handles span log batching for the given completed, sampleable, correctly-timed span.
+     * <ul>
+     *     <li>
+     *         If {@code batchRootSpan} is null and the given span is the overall request span for this thread's current batch, then the given span and
+     *         the batched sub-spans are logged together as a single log message and this method returns true.
+     *     </li>
+     *     <li>
+     *         If {@code batchRootSpan} is non-null and batching is enabled, then the given span is added to the batch for {@code batchRootSpan} and this
+     *         method returns true, unless the batch is already full - in that case the span spills over and this method returns false so the caller
+     *         will log it immediately.
+     *     </li>
+     *     <li>
+     *         Otherwise nothing is done and this method returns false.
+     *     </li>
+     * </ul>
+     *
+     * @return true if the given span was handled by span log batching (and therefore should not be logged by the caller), false otherwise.
+     */
+    protected boolean addToOrLogSpanLogBatch(Span span, Span batchRootSpan) {
+        SpanLogBatch batch = currentSpanLogBatchThreadLocal.get();
+
+        if (batchRootSpan == null) {
+            // This might be the overall request span completing - if so then it takes the batched sub-spans with it.
+            if (batch != null && batch.rootSpan == span) {
+                currentSpanLogBatchThreadLocal.remove();
+                batch.spans.add(0, span);
+                logSpanLogBatch(batch.spans);
+                return true;
+            }
+
+            return false;
+        }
+
+        int maxSpansPerRequest = spanLogBatchingMaxSpansPerRequest;
+        if (maxSpansPerRequest <= 0)
+            return false;
+
+        if (batch == null || batch.rootSpan != batchRootSpan) {
+            // Any existing batch belongs to a different request, so it needs to be output before we start a new batch.
+            if (batch != null)
+                logSpanLogBatch(batch.spans);
+
+            batch = new SpanLogBatch(batchRootSpan);
+            currentSpanLogBatchThreadLocal.set(batch);
+        }
+
+        // Spill over to immediate logging if the batch is full.
+        if (batch.spans.size() >= maxSpansPerRequest)
+            return false;
+
+        batch.spans.add(span);
+        return true;
+    }
+
+    /**
+     * Logs any sub-spans that are currently batched on this thread (see {@link #setSpanLogBatchingMaxSpansPerRequest(int)}) and clears the batch. This is
+     * called whenever this thread's span stack is replaced or removed so that batched spans are never lost or attached to the wrong request.
+     */
+    protected void flushSpanLogBatch() {
+        SpanLogBatch batch = currentSpanLogBatchThreadLocal.get();
+        if (batch != null) {
+            currentSpanLogBatchThreadLocal.remove();
+            logSpanLogBatch(batch.spans);
+        }
+    }
+
+    /**
+     * Logs the given batch of spans to {@link #validSpanLogger} as a single log message, using
+     * {@link #serializeSpanBatchToDesiredStringRepresentation(List)} to serialize them. Does nothing if the given list is empty.
+     */
+    protected void logSpanLogBatch(List<Span> spans) {
+        if (spans.isEmpty())
+            return;
+
+        long serializationStartNanos = (tracerMetricsTimingEnabled) ? System.nanoTime() : 0;
+        String serializedBatch = serializeSpanBatchToDesiredStringRepresentation(spans);
+        if (tracerMetricsTimingEnabled)
+            tracerMetrics.spansSerialized(spans.size(), System.nanoTime() - serializationStartNanos);
+        validSpanLogger.info("[DISTRIBUTED_TRACING_BATCH] {}", serializedBatch);
+    }
+
     /**
      * Sets the span variables on the MDC context.
      */
@@ -875,14 +1130,282 @@ public class Tracer {
         this.spanLoggingRepresentation = spanLoggingRepresentation;
     }
 
+    /**
+     * @return true if completed spans are passed to the span loggers as {@link Span} objects, false if they're serialized to strings first. See
+     *          {@link #setLogSpansAsObjects(boolean)} for details.
+     */
+    public boolean isLogSpansAsObjects() {
+        return logSpansAsObjects;
+    }
+
+    /**
+     * Pass in true to have completed spans passed to the {@code VALID_WINGTIPS_SPANS} and {@code INVALID_WINGTIPS_SPANS} loggers as the
+     * {@link Span} object itself rather than a string serialized up front. This only applies when {@link #getSpanLoggingRepresentation()} is
+     * {@link SpanLoggingRepresentation#JSON}. Since {@link Span#toString()} returns {@link Span#toJSON()} the formatted log message is the same,
+     * but now it's only built if the logging backend formats it. That lets a span-aware encoder (e.g. the {@code SpanJsonEncoder} in the
+     * {@code wingtips-logback} module) write the span's fields straight to its output without creating any intermediate strings.
+     *
+     * <p>Span log batches (see {@link #setSpanLogBatchingMaxSpansPerRequest(int)}) are still logged as serialized strings. Spans logged as objects
+     * aren't serialized by {@link Tracer}, so they aren't reported to {@link TracerMetrics#spansSerialized(int, long)}. Defaults to false.
+     */
+    public void setLogSpansAsObjects(boolean logSpansAsObjects) {
+        this.logSpansAsObjects = logSpansAsObjects;
+    }
+
+    /**
+     * @return The maximum number of completed sub-spans that will be buffered per request and logged together with the overall request span, or zero if
+     *          span log batching is disabled. See {@link #setSpanLogBatchingMaxSpansPerRequest(int)} for details.
+     */
+    public int getSpanLogBatchingMaxSpansPerRequest() {
+        return spanLogBatchingMaxSpansPerRequest;
+    }
+
+    /**
+     * Enables or disables span log batching. When this is set to a positive value then sub-spans completed via {@link #completeSubSpan()} are not logged
+     * immediately - instead they are buffered with the request's span stack context and logged together with the overall request span as a single
+     * {@code [DISTRIBUTED_TRACING_BATCH]} log message when {@link #completeRequestSpan()} is called (see
+     * {@link #serializeSpanBatchToDesiredStringRepresentation(List)} for the format). This trades one log message per span for one log message per request,
+     * which can significantly reduce logging overhead for requests that generate many sub-spans.
+     * <p/>
+     * A maximum of {@code maxSpansPerRequest} sub-spans will be buffered for any given request - additional sub-spans spill over and are logged
+     * immediately as usual. Spans with incorrect timing info are never batched, and {@link SpanLifecycleListener}s are always notified immediately
+     * when a span is completed regardless of this setting. The batch follows the thread rather than the request, so for asynchronous requests any
+     * batched sub-spans are logged as soon as the span stack is unregistered from or replaced on the thread (e.g. via {@link #unregisterFromThread()}).
+     * <p/>
+     * Defaults to zero (disabled).
+     *
+     * @param maxSpansPerRequest The maximum number of sub-spans to buffer per request, or zero to disable span log batching. Cannot be negative.
+     */
+    public void setSpanLogBatchingMaxSpansPerRequest(int maxSpansPerRequest) {
+        if (maxSpansPerRequest < 0)
+            throw new IllegalArgumentException("maxSpansPerRequest cannot be negative.");
+
+        this.spanLogBatchingMaxSpansPerRequest = maxSpansPerRequest;
+    }
+
+    /**
+     * @return The {@link TracerMetrics} this instance reports its self-instrumentation data to. This will never return null.
+     */
+    public TracerMetrics getTracerMetrics() {
+        return tracerMetrics;
+    }
+
+    /**
+     * Sets the {@link TracerMetrics} this instance reports its self-instrumentation data to (span counts, span stack depths, dirty span stacks, and time spent
+     * in {@link SpanLifecycleListener}s and span serialization). Pass in {@link NoOpTracerMetrics#INSTANCE} to turn this off, which is the default. This will
+     * throw an {@link IllegalArgumentException} if you pass in null.
+     */
+    public void setTracerMetrics(TracerMetrics tracerMetrics) {
+        if (tracerMetrics == null)
+            throw new IllegalArgumentException("tracerMetrics cannot be null. Use NoOpTracerMetrics.INSTANCE to disable tracer metrics.");
+
+        this.tracerMetrics = tracerMetrics;
+        this.tracerMetricsTimingEnabled = !(tracerMetrics instanceof NoOpTracerMetrics);
+    }
+
+    /**
+     * @return The {@link InFlightSpanRegistry} this instance registers overall request spans with while they're in-flight, or null if in-flight request spans are
+     * not being tracked (the default).
+     */
+    public InFlightSpanRegistry getInFlightSpanRegistry() {
+        return inFlightSpanRegistry;
+    }
+
+    /**
+     * Sets the {@link InFlightSpanRegistry} this instance registers overall request spans with when they're started via {@link #startRequestWithRootSpan(String)}
+     * and friends, and unregisters them from when they're completed via {@link #completeRequestSpan()}. This lets you find requests that are stuck while
+     * they're still stuck - see {@link com.nike.wingtips.inflight.StuckRequestWatchdog}. Pass in null to turn this off, which is the default.
+     * <p/>
+     * NOTE: Only request spans started after this is set will be tracked, so set it at application startup.
+     */
+    public void setInFlightSpanRegistry(InFlightSpanRegistry inFlightSpanRegistry) {
+        this.inFlightSpanRegistry = inFlightSpanRegistry;
+    }
+
+    /**
+     * @return The {@link ThreadResourceSampler} this instance uses to measure the resources used by each span, or null if span resource usage is not being
+     * measured (the default).
+     */
+    public ThreadResourceSampler getThreadResourceSampler() {
+        return threadResourceSampler;
+    }
+
+    /**
+     * Sets the {@link ThreadResourceSampler} this instance uses to measure the CPU time, allocated bytes, and blocked/waited time used by each span it starts,
+     * including across {@link #registerWithThread(Deque)} and {@link #unregisterFromThread()} hops. The results are available from {@link Span#getResourceUsage()}
+     * and are included in the span's serialized output. See {@link SpanResourceUsage} for details. Pass in null to turn this off, which is the default.
+     */
+    public void setThreadResourceSampler(ThreadResourceSampler threadResourceSampler) {
+        this.threadResourceSampler = threadResourceSampler;
+    }
+
+    /**
+     * @return The {@link GcPauseTracker} this instance uses to annotate completed spans with the GC pause time that overlapped them, or null if spans are
+     * not being annotated (the default).
+     */
+    public GcPauseTracker getGcPauseTracker() {
+        return gcPauseTracker;
+    }
+
+    /**
+     * Sets the {@link GcPauseTracker} this instance uses to annotate each span it completes with the garbage collection pause time that overlapped it (see
+     * {@link Span#getGcPauseMicros()}), which is included in the span's serialized output. The tracker must be {@link GcPauseTracker#start() started}
+     * separately. Pass in null to turn this off, which is the default.
+     */
+    public void setGcPauseTracker(GcPauseTracker gcPauseTracker) {
+        this.gcPauseTracker = gcPauseTracker;
+    }
+
+    /**
+     * Sets {@link Span#getGcPauseMicros()} on the given just-completed span if {@link #gcPauseTracker} is set and wants to annotate the span.
+     */
+    protected void annotateGcPauses(Span span) {
+        GcPauseTracker tracker = gcPauseTracker;
+        if (tracker == null)
+            return;
+
+        Long gcPauseMicros = tracker.getPauseMicrosOverlapping(span);
+        if (gcPauseMicros != null)
+            span.setGcPauseMicros(gcPauseMicros);
+    }
+
+    /**
+     * @return The {@link CurrentSpanPublisher} this instance publishes each thread's current spans to, or null if they are not being published (the default).
+     */
+    public CurrentSpanPublisher getCurrentSpanPublisher() {
+        return currentSpanPublisher;
+    }
+
+    /**
+     * Sets the {@link CurrentSpanPublisher} this instance publishes each thread's overall request span and current span to whenever the thread's span stack
+     * changes, so they can be read safely from other threads - e.g. by {@link com.nike.wingtips.profiling.SpanStackSamplingProfiler}. Pass in null to turn this
+     * off, which is the default.
+     * <p/>
+     * NOTE: Threads are only published the next time their span stack changes, so set this at application startup.
+     */
+    public void setCurrentSpanPublisher(CurrentSpanPublisher currentSpanPublisher) {
+        this.currentSpanPublisher = currentSpanPublisher;
+    }
+
+    /**
+     * @return Whether this instance puts the current span's info into the logging {@link MDC} whenever the current span changes (see
+     * {@link #setMdcUpdatesEnabled(boolean)}).
+     */
+    public boolean isMdcUpdatesEnabled() {
+        return mdcUpdatesEnabled;
+    }
+
+    /**
+     * Sets whether this instance puts the current span's trace ID and JSON into the logging {@link MDC} (under {@link #TRACE_ID_MDC_KEY} and
+     * {@link #SPAN_JSON_MDC_KEY}) whenever the current span changes. Defaults to true. Turn this off when your logging framework gets the tracing info some
+     * other way, e.g. the {@code wingtips-log4j2} module's context data injector, which reads the current span at log time and keeps Log4j2's garbage-free
+     * mode intact.
+     * <p/>
+     * NOTE: Turning this off does not clear tracing info that's already in any thread's MDC, so set this at application startup.
+     */
+    public void setMdcUpdatesEnabled(boolean mdcUpdatesEnabled) {
+        this.mdcUpdatesEnabled = mdcUpdatesEnabled;
+    }
+
+    /**
+     * Publishes the bottom (overall request span) and top (current span) of the given span stack to {@link #currentSpanPublisher} as the current thread's
+     * spans, if there is a publisher. A null or empty stack publishes that the thread has no spans.
+     */
+    protected void publishCurrentSpans(Deque<Span> currentSpanStack) {
+        CurrentSpanPublisher publisher = currentSpanPublisher;
+        if (publisher == null)
+            return;
+
+        if (currentSpanStack == null || currentSpanStack.isEmpty())
+            publisher.publish(null, null);
+        else
+            publisher.publish(currentSpanStack.peekLast(), currentSpanStack.peek());
+    }
+
+    /**
+     * Sets up resource usage measurement for the given newly started span if {@link #threadResourceSampler} is set.
+     */
+    protected void startResourceAccounting(Span span) {
+        ThreadResourceSampler sampler = threadResourceSampler;
+        if (sampler != null)
+            span.setResourceUsage(new SpanResourceUsage(Thread.currentThread(), sampler.sampleCurrentThread()));
+    }
+
+    /**
+     * @return A snapshot of the current thread's resource counters, or null if {@link #threadResourceSampler} is not set.
+     */
+    protected ThreadResourceSnapshot sampleCurrentThreadResources() {
+        ThreadResourceSampler sampler = threadResourceSampler;
+        return (sampler == null) ? null : sampler.sampleCurrentThread();
+    }
+
+    /**
+     * Adds the resources the current thread has used on the given span (which must be on this thread's span stack) since the later of when the span started
+     * on this thread or when its span stack was registered with this thread, up to the given snapshot. Does nothing if the span isn't being measured, is
+     * already completed, or if the given snapshot is null.
+     */
+    protected void addResourceUsage(Span span, ThreadResourceSnapshot currentThreadSnapshot) {
+        SpanResourceUsage resourceUsage = span.getResourceUsage();
+        if (currentThreadSnapshot == null || resourceUsage == null || span.isCompleted())
+            return;
+
+        ThreadResourceSnapshot baseline = spanStackRegisteredResourceSnapshotThreadLocal.get();
+        ThreadResourceSnapshot startSnapshot = resourceUsage.getStartSnapshot();
+        if (resourceUsage.getStartThread() == Thread.currentThread()
+            && startSnapshot != null
+            && (baseline == null || startSnapshot.getNanoTime() >= baseline.getNanoTime())) {
+            // The span started on this thread after its stack was registered here (or it was never registered), so measure from the span's start.
+            baseline = startSnapshot;
+        }
+
+        if (baseline != null)
+            resourceUsage.addUsage(baseline, currentThreadSnapshot);
+    }
+
+    /**
+     * Removes the overall request span of the given span stack (the bottom of the stack) from {@link #inFlightSpanRegistry}, if there is a registry and the
+     * stack is not empty.
+     */
+    protected void unregisterInFlightRequestSpan(Deque<Span> spanStack) {
+        InFlightSpanRegistry registry = inFlightSpanRegistry;
+        if (registry == null)
+            return;
+
+        Span requestSpan = spanStack.peekLast();
+        if (requestSpan != null)
+            registry.unregister(requestSpan);
+    }
+
+
+    /**
+     * Notifies the {@link SpanLifecycleListener}s that the given span was started (and sampled, if it's {@link
+     * Span#isSampleable()}), for spans that are created outside this class and never managed by it - e.g. the
+     * synthetic queue wait spans created by {@link com.nike.wingtips.util.asynchelperwrapper.QueueWaitRecorder}. Call
+     * this before calling {@link Span#close()} on such a span, so listeners see the same started/sampled/completed
+     * sequence they see for spans started through this class.
+     *
+     * @param span The unmanaged span that was started. Cannot be null - an {@link IllegalArgumentException} will be thrown
+     * if you pass in null.
+     */
+    public void notifyUnmanagedSpanStarted(Span span) {
+        if (span == null)
+            throw new IllegalArgumentException("span cannot be null");
+
+        notifySpanStarted(span);
+        notifyIfSpanSampled(span);
+    }
 
     /**
      * Notifies all listeners that the given span was started using {@link SpanLifecycleListener#spanStarted(Span)}
      */
     protected void notifySpanStarted(Span span) {
+        tracerMetrics.spanStarted(span);
+        long startNanos = (tracerMetricsTimingEnabled) ? System.nanoTime() : 0;
         for (SpanLifecycleListener tll : spanLifecycleListeners) {
             tll.spanStarted(span);
         }
+        if (tracerMetricsTimingEnabled)
+            tracerMetrics.spanLifecycleListenersNotified(SpanLifecycleEvent.STARTED, System.nanoTime() - startNanos);
     }
 
     /**
@@ -891,9 +1414,13 @@ public class Tracer {
      */
     protected void notifyIfSpanSampled(Span span) {
         if (span.isSampleable()) {
+            tracerMetrics.spanSampled(span);
+            long startNanos = (tracerMetricsTimingEnabled) ? System.nanoTime() : 0;
             for (SpanLifecycleListener tll : spanLifecycleListeners) {
                 tll.spanSampled(span);
             }
+            if (tracerMetricsTimingEnabled)
+                tracerMetrics.spanLifecycleListenersNotified(SpanLifecycleEvent.SAMPLED, System.nanoTime() - startNanos);
         }
     }
 
@@ -901,9 +1428,13 @@ public class Tracer {
      * Notifies all listeners that the given span was completed using {@link SpanLifecycleListener#spanCompleted(Span)}
      */
     protected void notifySpanCompleted(Span span) {
+        tracerMetrics.spanCompleted(span);
+        long startNanos = (tracerMetricsTimingEnabled) ? System.nanoTime() : 0;
         for (SpanLifecycleListener tll : spanLifecycleListeners) {
             tll.spanCompleted(span);
         }
+        if (tracerMetricsTimingEnabled)
+            tracerMetrics.spanLifecycleListenersNotified(SpanLifecycleEvent.COMPLETED, System.nanoTime() - startNanos);
     }
 
     /**
@@ -947,6 +1478,19 @@ public class Tracer {
         return currentStack.size();
     }
 
+    /**
+     * @return The overall request span for this thread (the bottom of the current span stack), or null if there is no
+     * current span stack. This is the span that {@link #completeRequestSpan()} will complete, and is cheaper to get
+     * than going through {@link #getCurrentSpanStackCopy()}.
+     */
+    public Span getCurrentOverallRequestSpan() {
+        Deque<Span> currentStack = currentSpanStackThreadLocal.get();
+        if (currentStack == null)
+            return null;
+
+        return currentStack.peekLast();
+    }
+
     /**
      * "Unregisters" the current span stack from this thread, removes span-related info from the logging MDC, and returns the span stack that was unregistered so it
      * can be stored and re-registered later (if desired). This is used in asynchronous projects/frameworks where multiple in-progress requests might be handled by the same thread
@@ -963,8 +1507,19 @@ public class Tracer {
      */
     public Deque<Span> unregisterFromThread() {
         Deque<Span> currentValue = currentSpanStackThreadLocal.get();
+        if (currentValue != null) {
+            // The spans are leaving this thread, so add the resources this thread used on them so far.
+            ThreadResourceSnapshot resourceSnapshot = sampleCurrentThreadResources();
+            for (Span span : currentValue) {
+                addResourceUsage(span, resourceSnapshot);
+            }
+        }
         currentSpanStackThreadLocal.remove();
-        unconfigureMDC();
+        spanStackRegisteredResourceSnapshotThreadLocal.remove();
+        flushSpanLogBatch();
+        if (mdcUpdatesEnabled)
+            unconfigureMDC();
+        publishCurrentSpans(null);
         return currentValue;
     }
 
@@ -1026,11 +1581,15 @@ public class Tracer {
             if (currentSpanStack != null && currentSpanStack.size() > 0) {
                 // Whoops, someone else is trying to register with this thread while it's already in the middle of handling spans.
                 int originalSize = currentSpanStack.size();
+                tracerMetrics.dirtySpanStackDetected(DirtySpanStackSource.REGISTER_WITH_THREAD, originalSize);
+                unregisterInFlightRequestSpan(currentSpanStack);
+                ThreadResourceSnapshot resourceSnapshot = sampleCurrentThreadResources();
                 StringBuilder badTraceIds = new StringBuilder();
 
                 // Complete and output all the spans, but they will all be marked "bad".
                 while (!currentSpanStack.isEmpty()) {
                     Span span = currentSpanStack.pop();
+                    addResourceUsage(span, resourceSnapshot);
 
                     if (badTraceIds.length() > 0)
                         badTraceIds.append(',');
@@ -1051,17 +1610,44 @@ public class Tracer {
                 );
             }
 
+            // Any batched sub-spans belong to the stack being replaced, so output them now.
+            flushSpanLogBatch();
+
             // At this point any errors have been handled and we can register the new stack. Make sure we register a copy so that changes to the original don't affect our stack.
             registerMe = (registerMe == null) ? null : new LinkedList<>(registerMe);
             currentSpanStackThreadLocal.set(registerMe);
+
+            // Resource usage for the new stack's spans is measured on this thread from here on.
+            ThreadResourceSnapshot resourceSnapshot = (registerMe == null || registerMe.isEmpty()) ? null : sampleCurrentThreadResources();
+            if (resourceSnapshot == null)
+                spanStackRegisteredResourceSnapshotThreadLocal.remove();
+            else
+                spanStackRegisteredResourceSnapshotThreadLocal.set(resourceSnapshot);
         }
 
         // Make sure we fix the MDC to the passed-in info.
-        Span newStackLatestSpan = (registerMe == null || registerMe.isEmpty()) ? null : registerMe.peek();
-        if (newStackLatestSpan == null)
-            unconfigureMDC();
-        else
-            configureMDC(newStackLatestSpan);
+        if (mdcUpdatesEnabled) {
+            Span newStackLatestSpan = (registerMe == null || registerMe.isEmpty()) ? null : registerMe.peek();
+            if (newStackLatestSpan == null)
+                unconfigureMDC();
+            else
+                configureMDC(newStackLatestSpan);
+        }
+
+        publishCurrentSpans(registerMe);
+    }
+
+    /**
+     * Holds the completed sub-spans that are waiting to be logged together with their overall request span.
+     * See {@link #setSpanLogBatchingMaxSpansPerRequest(int)}.
+     */
+    protected static class SpanLogBatch {
+        protected final Span rootSpan;
+        protected final List<Span> spans = new ArrayList<>();
+
+        protected SpanLogBatch(Span rootSpan) {
+            this.rootSpan = rootSpan;
+        }
     }
 
 }
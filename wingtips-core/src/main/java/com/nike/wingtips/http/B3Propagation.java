@@ -0,0 +1,103 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceHeaders;
+
+import static com.nike.wingtips.TraceHeaders.B3_SINGLE_HEADER;
+
+/**
+ * A {@link Propagation} for the <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a>. Extraction understands both the
+ * compact single {@link TraceHeaders#B3_SINGLE_HEADER} header (which takes precedence when present and valid) and the multi-header format
+ * ({@link TraceHeaders#TRACE_ID}, {@link TraceHeaders#SPAN_ID}, etc, with request attributes as a backup for each header). The {@link InjectFormat}
+ * determines which form is sent on outbound requests.
+ *
+ * <p>Use {@link #MULTI_HEADER_INSTANCE} or {@link #SINGLE_HEADER_INSTANCE} rather than creating new instances.
+ */
+public class B3Propagation implements Propagation {
+
+    /**
+     * The header format(s) sent on outbound requests.
+     */
+    public enum InjectFormat {
+        /**
+         * Sends {@link TraceHeaders#TRACE_ID}, {@link TraceHeaders#SPAN_ID}, {@link TraceHeaders#TRACE_SAMPLED}, and (when the span has a parent)
+         * {@link TraceHeaders#PARENT_SPAN_ID}. This is the most widely understood format.
+         */
+        MULTI_HEADER,
+        /**
+         * Sends only the compact {@link TraceHeaders#B3_SINGLE_HEADER} header.
+         */
+        SINGLE_HEADER
+    }
+
+    /**
+     * A {@link B3Propagation} that sends the multi-header format. This is the Wingtips default.
+     */
+    public static final B3Propagation MULTI_HEADER_INSTANCE = new B3Propagation(InjectFormat.MULTI_HEADER);
+
+    /**
+     * A {@link B3Propagation} that sends the compact single {@link TraceHeaders#B3_SINGLE_HEADER} header.
+     */
+    public static final B3Propagation SINGLE_HEADER_INSTANCE = new B3Propagation(InjectFormat.SINGLE_HEADER);
+
+    protected final InjectFormat injectFormat;
+
+    /**
+     * @param injectFormat The header format to send on outbound requests. Cannot be null.
+     */
+    public B3Propagation(InjectFormat injectFormat) {
+        if (injectFormat == null)
+            throw new IllegalArgumentException("injectFormat cannot be null");
+
+        this.injectFormat = injectFormat;
+    }
+
+    public InjectFormat getInjectFormat() {
+        return injectFormat;
+    }
+
+    @Override
+    public Span.Builder extractSpanBuilder(RequestWithHeaders request) {
+        // The span name is only looked up once we know there's trace info, so untraced requests don't pay for it.
+        String spanName = null;
+
+        // The compact single b3 header takes precedence if it's present and contains valid span info.
+        String singleB3HeaderValue = HttpRequestTracingUtils.getHeaderValue(request, B3_SINGLE_HEADER);
+        if (singleB3HeaderValue != null) {
+            spanName = HttpRequestTracingUtils.getSpanName(request);
+            Span.Builder singleB3SpanBuilder = HttpRequestTracingUtils.parseSingleB3HeaderValue(singleB3HeaderValue, spanName);
+            if (singleB3SpanBuilder != null)
+                return singleB3SpanBuilder;
+        }
+
+        String traceId = HttpRequestTracingUtils.getTraceId(request);
+        if (traceId == null)
+            return null;
+
+        if (spanName == null)
+            spanName = HttpRequestTracingUtils.getSpanName(request);
+
+        return Span.newBuilder(spanName, SpanPurpose.SERVER)
+                   .withTraceId(traceId)
+                   .withParentSpanId(HttpRequestTracingUtils.getSpanIdFromRequest(request, TraceHeaders.PARENT_SPAN_ID, false))
+                   .withSpanId(HttpRequestTracingUtils.getSpanIdFromRequest(request, TraceHeaders.SPAN_ID, true))
+                   .withSampleable(HttpRequestTracingUtils.getSpanSampleableFlag(request));
+    }
+
+    @Override
+    public void inject(HttpObjectForPropagation httpObjectForPropagation, Span span) {
+        if (injectFormat == InjectFormat.SINGLE_HEADER) {
+            HttpRequestTracingUtils.propagateTracingHeadersAsSingleB3Header(httpObjectForPropagation, span);
+            return;
+        }
+
+        httpObjectForPropagation.setHeader(TraceHeaders.TRACE_ID, span.getTraceId());
+        httpObjectForPropagation.setHeader(TraceHeaders.SPAN_ID, span.getSpanId());
+        httpObjectForPropagation.setHeader(
+            TraceHeaders.TRACE_SAMPLED, HttpRequestTracingUtils.convertSampleableBooleanToExpectedB3Value(span.isSampleable())
+        );
+        if (span.getParentSpanId() != null)
+            httpObjectForPropagation.setHeader(TraceHeaders.PARENT_SPAN_ID, span.getParentSpanId());
+    }
+}
@@ -0,0 +1,61 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Propagation} that supports several formats at once, which is useful while migrating between formats or when talking to a mix of B3 and
+ * W3C Trace Context services. Extraction asks each delegate in order and uses the first non-null result; injection writes every delegate's
+ * headers. For example {@code new CompositePropagation(W3CTraceContextPropagation.INSTANCE, B3Propagation.MULTI_HEADER_INSTANCE)} prefers an
+ * incoming traceparent header, falls back to B3, and sends both.
+ */
+public class CompositePropagation implements Propagation {
+
+    protected final List<Propagation> delegates;
+
+    /**
+     * @param delegates The formats to support, in extraction priority order. Cannot be null or empty, and cannot contain null entries.
+     */
+    public CompositePropagation(Propagation... delegates) {
+        this((delegates == null) ? null : Arrays.asList(delegates));
+    }
+
+    /**
+     * @param delegates The formats to support, in extraction priority order. Cannot be null or empty, and cannot contain null entries.
+     */
+    public CompositePropagation(List<Propagation> delegates) {
+        if (delegates == null || delegates.isEmpty())
+            throw new IllegalArgumentException("delegates cannot be null or empty");
+
+        if (delegates.contains(null))
+            throw new IllegalArgumentException("delegates cannot contain null entries");
+
+        this.delegates = Collections.unmodifiableList(new ArrayList<>(delegates));
+    }
+
+    public List<Propagation> getDelegates() {
+        return delegates;
+    }
+
+    @Override
+    public Span.Builder extractSpanBuilder(RequestWithHeaders request) {
+        for (Propagation delegate : delegates) {
+            Span.Builder result = delegate.extractSpanBuilder(request);
+            if (result != null)
+                return result;
+        }
+
+        return null;
+    }
+
+    @Override
+    public void inject(HttpObjectForPropagation httpObjectForPropagation, Span span) {
+        for (Propagation delegate : delegates) {
+            delegate.inject(httpObjectForPropagation, span);
+        }
+    }
+}
@@ -10,10 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
-import static com.nike.wingtips.TraceHeaders.PARENT_SPAN_ID;
-import static com.nike.wingtips.TraceHeaders.SPAN_ID;
-import static com.nike.wingtips.TraceHeaders.TRACE_ID;
-import static com.nike.wingtips.TraceHeaders.TRACE_SAMPLED;
+import static com.nike.wingtips.TraceHeaders.B3_SINGLE_HEADER;
 
 /**
  * Utility class for dealing with HTTP requests in relation to distributed tracing. Since different frameworks represent HTTP requests in different ways (e.g. Servlet API vs. Netty)
@@ -25,6 +22,14 @@ import static com.nike.wingtips.TraceHeaders.TRACE_SAMPLED;
  * <p/>
  * NOTE: If span information exists in the request but is not explicitly set with {@link TraceHeaders#TRACE_SAMPLED} false, then
  * {@link #fromRequestWithHeaders(RequestWithHeaders, List)} will assume it should be sampleable.
+ * <p/>
+ * Both the multi-header B3 format ({@link TraceHeaders#TRACE_ID}, {@link TraceHeaders#SPAN_ID}, etc) and the compact single-header
+ * {@link TraceHeaders#B3_SINGLE_HEADER} format are supported when extracting span info from requests. For outbound requests you can choose between
+ * {@link #propagateTracingHeaders(HttpObjectForPropagation, Span)} and {@link #propagateTracingHeadersAsSingleB3Header(HttpObjectForPropagation, Span)}.
+ * <p/>
+ * Header formats are pluggable via {@link Propagation} - see {@link B3Propagation}, {@link W3CTraceContextPropagation}, and
+ * {@link CompositePropagation}. Methods that don't take a {@link Propagation} use {@link #getDefaultPropagation()}, which is B3 multi-header
+ * unless changed with {@link #setDefaultPropagation(Propagation)}.
  *
  * @author Nic Munroe
  */
@@ -37,6 +42,8 @@ public class HttpRequestTracingUtils {
      */
     public static final String UNSPECIFIED_SPAN_NAME = "UNSPECIFIED";
 
+    private static volatile Propagation defaultPropagation = B3Propagation.MULTI_HEADER_INSTANCE;
+
     /**
      * Intentionally private to force all access through static methods.
      */
@@ -61,24 +68,54 @@ public class HttpRequestTracingUtils {
      *         </p>
      */
     public static Span fromRequestWithHeaders(RequestWithHeaders request, List<String> userIdHeaderKeys) {
+        return fromRequestWithHeaders(request, userIdHeaderKeys, defaultPropagation);
+    }
+
+    /**
+     * The same as {@link #fromRequestWithHeaders(RequestWithHeaders, List)} except the given {@link Propagation} determines which header format(s)
+     * the span info is extracted from rather than {@link #getDefaultPropagation()}.
+     *
+     * @param request The incoming request that may have {@link Span} information embedded in the headers. If this argument is null then this method will return null.
+     * @param userIdHeaderKeys The header keys to search for a user ID - see {@link #fromRequestWithHeaders(RequestWithHeaders, List)} for details.
+     * @param propagation The {@link Propagation} to extract span info with. Cannot be null.
+     * @return The {@link Span} extracted from the given request by the given {@link Propagation}, or null if the request is null or doesn't contain
+     *         span info that the {@link Propagation} understands.
+     */
+    public static Span fromRequestWithHeaders(RequestWithHeaders request, List<String> userIdHeaderKeys, Propagation propagation) {
+        if (propagation == null)
+            throw new IllegalArgumentException("propagation cannot be null");
+
         if (request == null)
             return null;
 
-        String traceId = getTraceId(request);
-        if (traceId == null)
+        Span.Builder spanBuilder = propagation.extractSpanBuilder(request);
+        if (spanBuilder == null)
             return null;
 
-        String spanName = getHeaderWithAttributeAsBackup(request, TraceHeaders.SPAN_NAME);
-        if (spanName == null || spanName.length() == 0)
-            spanName = UNSPECIFIED_SPAN_NAME;
+        return spanBuilder.withUserId(getUserIdFromRequestWithHeaders(request, userIdHeaderKeys))
+                          .build();
+    }
 
-        return Span.newBuilder(spanName, SpanPurpose.SERVER)
-                   .withTraceId(traceId)
-                   .withParentSpanId(getSpanIdFromRequest(request, TraceHeaders.PARENT_SPAN_ID, false))
-                   .withSpanId(getSpanIdFromRequest(request, TraceHeaders.SPAN_ID, true))
-                   .withSampleable(getSpanSampleableFlag(request))
-                   .withUserId(getUserIdFromRequestWithHeaders(request, userIdHeaderKeys))
-                   .build();
+    /**
+     * @return The {@link Propagation} used by {@link #fromRequestWithHeaders(RequestWithHeaders, List)} and
+     * {@link #propagateTracingHeaders(HttpObjectForPropagation, Span)}, and therefore by any Wingtips integration that doesn't specify its own.
+     * Defaults to {@link B3Propagation#MULTI_HEADER_INSTANCE}.
+     */
+    public static Propagation getDefaultPropagation() {
+        return defaultPropagation;
+    }
+
+    /**
+     * Sets the {@link Propagation} used by {@link #fromRequestWithHeaders(RequestWithHeaders, List)} and
+     * {@link #propagateTracingHeaders(HttpObjectForPropagation, Span)}. This is a global setting, so it's best to call it once at application startup.
+     *
+     * @param propagation The {@link Propagation} to use by default. Cannot be null.
+     */
+    public static void setDefaultPropagation(Propagation propagation) {
+        if (propagation == null)
+            throw new IllegalArgumentException("propagation cannot be null");
+
+        defaultPropagation = propagation;
     }
 
     /**
@@ -136,30 +173,131 @@ public class HttpRequestTracingUtils {
     protected static String getTraceId(RequestWithHeaders request) {
         String requestTraceId = getHeaderWithAttributeAsBackup(request, TraceHeaders.TRACE_ID);
 
-        logger.debug(String.format("TraceId from client is TraceId=%s", requestTraceId));
+        logger.debug("TraceId from client is TraceId={}", requestTraceId);
 
         return requestTraceId;
     }
 
+    /**
+     * Extracts the {@link TraceHeaders#SPAN_NAME} from the given request's headers or attributes, or returns {@link #UNSPECIFIED_SPAN_NAME} if the
+     * request doesn't contain that header/attribute or if it's empty.
+     */
+    protected static String getSpanName(RequestWithHeaders request) {
+        String spanName = getHeaderWithAttributeAsBackup(request, TraceHeaders.SPAN_NAME);
+        if (spanName == null || spanName.length() == 0)
+            spanName = UNSPECIFIED_SPAN_NAME;
+
+        return spanName;
+    }
+
     /**
      * Extracts the given {@code headerName} from the given request using {@link RequestWithHeaders#getHeader(String)} first and {@link RequestWithHeaders#getAttribute(String)} as
-     * a backup in case the desired value was not found in the headers. If the desired value is missing from both then null will be returned. The result will be passed through
-     * {@link String#trim()} before being returned if it is non-null.
+     * a backup in case the desired value was not found in the headers. The attribute is only looked up if the header is missing or blank. If the desired value is missing
+     * from both then null will be returned. The result will be passed through {@link String#trim()} before being returned if it is non-null.
      */
     protected static String getHeaderWithAttributeAsBackup(RequestWithHeaders request, String headerName) {
-        Object result = request.getHeader(headerName);
+        String headerValue = getHeaderValue(request, headerName);
+        if (headerValue != null)
+            return headerValue;
 
-        if (result == null || result.toString().trim().length() == 0)
-            result = request.getAttribute(headerName);
+        Object attributeValue = request.getAttribute(headerName);
 
-        return (result == null) ? null : result.toString().trim();
+        return (attributeValue == null) ? null : attributeValue.toString().trim();
+    }
+
+    /**
+     * @return The given {@code headerName} from the given request's headers passed through {@link String#trim()}, or null if the header is missing or
+     * blank. The request's attributes are not consulted. {@link String#trim()} returns the original string when there is no surrounding whitespace,
+     * so in the common case no new string is allocated.
+     */
+    protected static String getHeaderValue(RequestWithHeaders request, String headerName) {
+        String headerValue = request.getHeader(headerName);
+        if (headerValue == null)
+            return null;
+
+        headerValue = headerValue.trim();
+
+        return (headerValue.length() == 0) ? null : headerValue;
+    }
+
+    /**
+     * Parses the given {@link TraceHeaders#B3_SINGLE_HEADER} header value (format: {@code {TraceId}-{SpanId}-{SamplingState}-{ParentSpanId}}, where the
+     * last two fields are optional) into a {@link Span.Builder} with a {@link SpanPurpose#SERVER} span purpose. The header value is scanned in place -
+     * the only new strings created are the IDs themselves.
+     *
+     * @param b3HeaderValue The single b3 header value. Should be trimmed and non-null.
+     * @param spanName The span name to use for the returned builder.
+     * @return A {@link Span.Builder} populated with the trace ID, span ID, parent span ID (if present), and sampleable flag from the given header value,
+     * or null if the header value does not contain a valid trace ID and span ID (e.g. it only contains a sampling decision, or it is malformed).
+     * If the sampling state is missing then the span will be sampleable, and a sampling state of "d" (debug) is treated as sampleable.
+     */
+    protected static Span.Builder parseSingleB3HeaderValue(String b3HeaderValue, String spanName) {
+        int traceIdEnd = b3HeaderValue.indexOf('-');
+        if (traceIdEnd == -1 || !isLowerHexOfLength(b3HeaderValue, 0, traceIdEnd, 16, 32))
+            return null;
+
+        int spanIdStart = traceIdEnd + 1;
+        int spanIdEnd = b3HeaderValue.indexOf('-', spanIdStart);
+        if (spanIdEnd == -1)
+            spanIdEnd = b3HeaderValue.length();
+        if (!isLowerHexOfLength(b3HeaderValue, spanIdStart, spanIdEnd, 16, 16))
+            return null;
+
+        boolean sampleable = true;
+        String parentSpanId = null;
+        if (spanIdEnd < b3HeaderValue.length()) {
+            int samplingStateStart = spanIdEnd + 1;
+            int samplingStateEnd = b3HeaderValue.indexOf('-', samplingStateStart);
+            if (samplingStateEnd == -1)
+                samplingStateEnd = b3HeaderValue.length();
+            if (samplingStateEnd - samplingStateStart != 1)
+                return null;
+
+            char samplingState = b3HeaderValue.charAt(samplingStateStart);
+            if (samplingState == '0')
+                sampleable = false;
+            else if (samplingState != '1' && samplingState != 'd')
+                return null;
+
+            if (samplingStateEnd < b3HeaderValue.length()) {
+                int parentSpanIdStart = samplingStateEnd + 1;
+                if (!isLowerHexOfLength(b3HeaderValue, parentSpanIdStart, b3HeaderValue.length(), 16, 16))
+                    return null;
+                parentSpanId = b3HeaderValue.substring(parentSpanIdStart);
+            }
+        }
+
+        return Span.newBuilder(spanName, SpanPurpose.SERVER)
+                   .withTraceId(b3HeaderValue.substring(0, traceIdEnd))
+                   .withSpanId(b3HeaderValue.substring(spanIdStart, spanIdEnd))
+                   .withParentSpanId(parentSpanId)
+                   .withSampleable(sampleable);
+    }
+
+    /**
+     * @return true if the characters of the given string between {@code start} (inclusive) and {@code end} (exclusive) are all lowercase hex, and the
+     * number of characters is either {@code allowedLength1} or {@code allowedLength2}.
+     */
+    protected static boolean isLowerHexOfLength(String str, int start, int end, int allowedLength1, int allowedLength2) {
+        int length = end - start;
+        if (length != allowedLength1 && length != allowedLength2)
+            return false;
+
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+                return false;
+        }
+
+        return true;
     }
 
     /**
      * Sets the tracing headers on the given {@link HttpObjectForPropagation} with values from the given {@link Span}.
      * Does nothing if any of the given arguments are null (i.e. it is safe to pass null, but nothing will happen).
      *
-     * <p>This method conforms to the <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a>.
+     * <p>The headers sent are determined by {@link #getDefaultPropagation()}, which conforms to the
+     * <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a> unless it has been changed.
      *
      * @param httpObjectForPropagation The {@link HttpObjectForPropagation} to set tracing headers on. Can be null -
      * if this is null then this method will do nothing.
@@ -167,14 +305,69 @@ public class HttpRequestTracingUtils {
      * then this method will do nothing.
      */
     public static void propagateTracingHeaders(HttpObjectForPropagation httpObjectForPropagation, Span span) {
+        propagateTracingHeaders(httpObjectForPropagation, span, defaultPropagation);
+    }
+
+    /**
+     * The same as {@link #propagateTracingHeaders(HttpObjectForPropagation, Span)} except the given {@link Propagation} determines which header
+     * format(s) are sent rather than {@link #getDefaultPropagation()}. Does nothing if the {@link HttpObjectForPropagation} or {@link Span} are null.
+     *
+     * @param httpObjectForPropagation The {@link HttpObjectForPropagation} to set tracing headers on. Can be null -
+     * if this is null then this method will do nothing.
+     * @param span The {@link Span} to get the tracing info from to set on the headers. Can be null - if this is null
+     * then this method will do nothing.
+     * @param propagation The {@link Propagation} to inject the headers with. Cannot be null.
+     */
+    public static void propagateTracingHeaders(HttpObjectForPropagation httpObjectForPropagation, Span span, Propagation propagation) {
+        if (propagation == null)
+            throw new IllegalArgumentException("propagation cannot be null");
+
         if (span == null || httpObjectForPropagation == null)
             return;
 
-        httpObjectForPropagation.setHeader(TRACE_ID, span.getTraceId());
-        httpObjectForPropagation.setHeader(SPAN_ID, span.getSpanId());
-        httpObjectForPropagation.setHeader(TRACE_SAMPLED, (span.isSampleable()) ? "1" : "0");
-        if (span.getParentSpanId() != null)
-            httpObjectForPropagation.setHeader(PARENT_SPAN_ID, span.getParentSpanId());
+        propagation.inject(httpObjectForPropagation, span);
+    }
+
+    /**
+     * Sets the compact single {@link TraceHeaders#B3_SINGLE_HEADER} header on the given {@link HttpObjectForPropagation} with values from the given
+     * {@link Span} (see {@link #convertSpanToSingleB3HeaderValue(Span)} for the format). This sends one header instead of the three or four that
+     * {@link #propagateTracingHeaders(HttpObjectForPropagation, Span)} sends, but the receiver must understand the
+     * <a href="https://github.com/openzipkin/b3-propagation#single-header">B3 single header spec</a>. Does nothing if any of the given arguments are
+     * null (i.e. it is safe to pass null, but nothing will happen).
+     *
+     * @param httpObjectForPropagation The {@link HttpObjectForPropagation} to set the tracing header on. Can be null -
+     * if this is null then this method will do nothing.
+     * @param span The {@link Span} to get the tracing info from to set on the header. Can be null - if this is null
+     * then this method will do nothing.
+     */
+    public static void propagateTracingHeadersAsSingleB3Header(HttpObjectForPropagation httpObjectForPropagation, Span span) {
+        if (span == null || httpObjectForPropagation == null)
+            return;
+
+        httpObjectForPropagation.setHeader(B3_SINGLE_HEADER, convertSpanToSingleB3HeaderValue(span));
+    }
+
+    /**
+     * @param span The {@link Span} to convert. Cannot be null.
+     * @return The {@link TraceHeaders#B3_SINGLE_HEADER} header value for the given span in the format
+     * {@code {TraceId}-{SpanId}-{SamplingState}-{ParentSpanId}}, where {@code SamplingState} is "1" or "0" and the {@code -{ParentSpanId}} section
+     * is only included if the span has a parent.
+     */
+    public static String convertSpanToSingleB3HeaderValue(Span span) {
+        String traceId = span.getTraceId();
+        String spanId = span.getSpanId();
+        String parentSpanId = span.getParentSpanId();
+
+        int length = traceId.length() + spanId.length() + 3;
+        if (parentSpanId != null)
+            length += parentSpanId.length() + 1;
+
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(traceId).append('-').append(spanId).append('-').append(span.isSampleable() ? '1' : '0');
+        if (parentSpanId != null)
+            sb.append('-').append(parentSpanId);
+
+        return sb.toString();
     }
 
     /**
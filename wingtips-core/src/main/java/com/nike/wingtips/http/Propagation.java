@@ -0,0 +1,35 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+/**
+ * Represents a wire format for passing tracing info across HTTP boundaries - it knows how to extract a caller's span info from an incoming request
+ * and how to inject a {@link Span}'s tracing info into an outbound request. Implementations should be thread safe and stateless so that a single
+ * instance can be shared by all requests.
+ *
+ * <p>Wingtips ships with {@link B3Propagation} (the default, see {@link HttpRequestTracingUtils#getDefaultPropagation()}),
+ * {@link W3CTraceContextPropagation}, and {@link CompositePropagation} for supporting more than one format at once. Pass a {@link Propagation} to
+ * {@link HttpRequestTracingUtils#fromRequestWithHeaders(RequestWithHeaders, java.util.List, Propagation)} and
+ * {@link HttpRequestTracingUtils#propagateTracingHeaders(HttpObjectForPropagation, Span, Propagation)}, or call
+ * {@link HttpRequestTracingUtils#setDefaultPropagation(Propagation)} to change the format used everywhere a specific one isn't requested.
+ */
+public interface Propagation {
+
+    /**
+     * @param request The incoming request to inspect. Will never be null.
+     * @return A {@link Span.Builder} populated with the trace ID, span ID, parent span ID, sampleable flag, and span name found in the given
+     * request (with a {@link SpanPurpose#SERVER} span purpose), or null if the request doesn't contain valid tracing info for this format. The user ID
+     * is filled in by the caller.
+     */
+    Span.Builder extractSpanBuilder(RequestWithHeaders request);
+
+    /**
+     * Sets this format's tracing headers on the given {@link HttpObjectForPropagation} with values from the given {@link Span}.
+     *
+     * @param httpObjectForPropagation The {@link HttpObjectForPropagation} to set tracing headers on. Will never be null.
+     * @param span The {@link Span} to get the tracing info from. Will never be null.
+     */
+    void inject(HttpObjectForPropagation httpObjectForPropagation, Span span);
+
+}
@@ -0,0 +1,152 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceHeaders;
+
+import static com.nike.wingtips.TraceHeaders.W3C_TRACEPARENT;
+
+/**
+ * A {@link Propagation} for the <a href="https://www.w3.org/TR/trace-context/">W3C Trace Context</a> {@link TraceHeaders#W3C_TRACEPARENT} header.
+ * The header is fixed-width ({@code {version}-{TraceId}-{ParentId}-{TraceFlags}}), so it is validated in place by position and the only new strings
+ * created during extraction are the IDs themselves.
+ *
+ * <p>Some things to be aware of:
+ * <ul>
+ *     <li>
+ *         The extracted span represents the caller's span, so its span ID is the traceparent's parent ID and it has no parent span ID of its own
+ *         (traceparent doesn't carry the caller's parent).
+ *     </li>
+ *     <li>
+ *         W3C trace IDs are always 32 hex characters. If the upper 64 bits of an incoming trace ID are all zero then the lower 16 characters are used
+ *         as the trace ID so that 64-bit B3 trace IDs survive a round trip unchanged. Likewise 16 character trace IDs are left-padded with zeros
+ *         when injected.
+ *     </li>
+ *     <li>
+ *         {@link TraceHeaders#W3C_TRACESTATE} is neither read nor written since {@link Span} has nowhere to carry it.
+ *     </li>
+ *     <li>
+ *         Spans whose trace ID or span ID are not lowercase hex of the lengths described above are not injected - the W3C spec requires receivers
+ *         to discard an invalid traceparent, so sending one would be pointless.
+ *     </li>
+ * </ul>
+ *
+ * <p>Use {@link #INSTANCE} rather than creating new instances.
+ */
+public class W3CTraceContextPropagation implements Propagation {
+
+    /**
+     * The shared {@link W3CTraceContextPropagation} instance.
+     */
+    public static final W3CTraceContextPropagation INSTANCE = new W3CTraceContextPropagation();
+
+    protected static final String SUPPORTED_VERSION = "00";
+    protected static final String SIXTY_FOUR_BIT_TRACE_ID_PADDING = "0000000000000000";
+
+    // Positions of the fields in a version 00 traceparent value: 00-{32 hex}-{16 hex}-{2 hex}
+    protected static final int TRACE_ID_START = 3;
+    protected static final int TRACE_ID_END = TRACE_ID_START + 32;
+    protected static final int PARENT_ID_START = TRACE_ID_END + 1;
+    protected static final int PARENT_ID_END = PARENT_ID_START + 16;
+    protected static final int TRACE_FLAGS_START = PARENT_ID_END + 1;
+    protected static final int TRACEPARENT_LENGTH = TRACE_FLAGS_START + 2;
+
+    @Override
+    public Span.Builder extractSpanBuilder(RequestWithHeaders request) {
+        String traceparent = HttpRequestTracingUtils.getHeaderValue(request, W3C_TRACEPARENT);
+        if (traceparent == null)
+            return null;
+
+        return parseTraceparentHeaderValue(traceparent, HttpRequestTracingUtils.getSpanName(request));
+    }
+
+    /**
+     * @param traceparent The {@link TraceHeaders#W3C_TRACEPARENT} header value. Should be trimmed and non-null.
+     * @param spanName The span name to use for the returned builder.
+     * @return A {@link Span.Builder} with a {@link SpanPurpose#SERVER} span purpose populated from the given header value, or null if the value
+     * is invalid per the W3C spec (unknown format, version ff, or all-zero trace or parent IDs). Future versions are parsed using the version 00
+     * layout as the spec requires, as long as any extra data is separated by a dash.
+     */
+    protected Span.Builder parseTraceparentHeaderValue(String traceparent, String spanName) {
+        int length = traceparent.length();
+        if (length < TRACEPARENT_LENGTH)
+            return null;
+
+        if (!HttpRequestTracingUtils.isLowerHexOfLength(traceparent, 0, 2, 2, 2) || traceparent.startsWith("ff"))
+            return null;
+
+        boolean isSupportedVersion = traceparent.startsWith(SUPPORTED_VERSION);
+        if (isSupportedVersion && length != TRACEPARENT_LENGTH)
+            return null;
+        if (!isSupportedVersion && length > TRACEPARENT_LENGTH && traceparent.charAt(TRACEPARENT_LENGTH) != '-')
+            return null;
+
+        if (traceparent.charAt(TRACE_ID_START - 1) != '-'
+            || traceparent.charAt(PARENT_ID_START - 1) != '-'
+            || traceparent.charAt(TRACE_FLAGS_START - 1) != '-') {
+            return null;
+        }
+
+        if (!HttpRequestTracingUtils.isLowerHexOfLength(traceparent, TRACE_ID_START, TRACE_ID_END, 32, 32)
+            || !HttpRequestTracingUtils.isLowerHexOfLength(traceparent, PARENT_ID_START, PARENT_ID_END, 16, 16)
+            || !HttpRequestTracingUtils.isLowerHexOfLength(traceparent, TRACE_FLAGS_START, TRACEPARENT_LENGTH, 2, 2)) {
+            return null;
+        }
+
+        boolean traceIdHighBitsAreZero = isAllZeros(traceparent, TRACE_ID_START, TRACE_ID_START + 16);
+        if ((traceIdHighBitsAreZero && isAllZeros(traceparent, TRACE_ID_START + 16, TRACE_ID_END))
+            || isAllZeros(traceparent, PARENT_ID_START, PARENT_ID_END)) {
+            return null;
+        }
+
+        int traceFlags = Character.digit(traceparent.charAt(TRACE_FLAGS_START + 1), 16);
+        boolean sampled = (traceFlags & 0x1) == 1;
+
+        String traceId = (traceIdHighBitsAreZero)
+                         ? traceparent.substring(TRACE_ID_START + 16, TRACE_ID_END)
+                         : traceparent.substring(TRACE_ID_START, TRACE_ID_END);
+
+        return Span.newBuilder(spanName, SpanPurpose.SERVER)
+                   .withTraceId(traceId)
+                   .withSpanId(traceparent.substring(PARENT_ID_START, PARENT_ID_END))
+                   .withSampleable(sampled);
+    }
+
+    @Override
+    public void inject(HttpObjectForPropagation httpObjectForPropagation, Span span) {
+        String traceparent = convertSpanToTraceparentHeaderValue(span);
+        if (traceparent != null)
+            httpObjectForPropagation.setHeader(W3C_TRACEPARENT, traceparent);
+    }
+
+    /**
+     * @param span The {@link Span} to convert. Cannot be null.
+     * @return The version 00 {@link TraceHeaders#W3C_TRACEPARENT} header value for the given span, or null if the span's trace ID isn't 16 or 32
+     * lowercase hex characters or its span ID isn't 16 lowercase hex characters.
+     */
+    public String convertSpanToTraceparentHeaderValue(Span span) {
+        String traceId = span.getTraceId();
+        String spanId = span.getSpanId();
+        if (!HttpRequestTracingUtils.isLowerHexOfLength(traceId, 0, traceId.length(), 16, 32)
+            || !HttpRequestTracingUtils.isLowerHexOfLength(spanId, 0, spanId.length(), 16, 16)) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(TRACEPARENT_LENGTH);
+        sb.append(SUPPORTED_VERSION).append('-');
+        if (traceId.length() == 16)
+            sb.append(SIXTY_FOUR_BIT_TRACE_ID_PADDING);
+        sb.append(traceId).append('-').append(spanId).append('-').append(span.isSampleable() ? "01" : "00");
+
+        return sb.toString();
+    }
+
+    protected static boolean isAllZeros(String str, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (str.charAt(i) != '0')
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,248 @@
+package com.nike.wingtips.inflight;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps track of the overall request spans that have been started but not yet completed, so requests that hang can be
+ * found while they're still hanging (see {@link StuckRequestWatchdog}) rather than only after they complete (if they
+ * ever do). Install one with {@link Tracer#setInFlightSpanRegistry(InFlightSpanRegistry)} and {@link Tracer} will
+ * register request spans when they start and unregister them when they complete.
+ *
+ * <p>The registry is a fixed size array of slots. A span's home slot is picked by hashing its start time, and
+ * registering or unregistering claims or releases a slot with a single compare-and-set, checking at most {@link
+ * #MAX_PROBES} neighboring slots on collisions. There's no locking or allocation, so this costs a few nanoseconds per
+ * request. If all of a span's candidate slots are taken it simply isn't tracked, and {@link #getOverflowCount()} is
+ * incremented - size the registry well above your maximum number of concurrent requests.
+ *
+ * <p>Alongside each span the registry keeps the thread that started it and that thread's span stack, so the current
+ * sub-span chain (and the thread's stack trace) can be reported. These are best-effort: if the request hops threads
+ * (e.g. an async servlet request) the thread is forgotten via {@link #detachFromThread(Span)} and the sub-span chain
+ * only reflects the original thread's work.
+ */
+@SuppressWarnings("WeakerAccess")
+public class InFlightSpanRegistry {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    /**
+     * The maximum number of slots checked when registering or looking up a span.
+     */
+    public static final int MAX_PROBES = 16;
+
+    protected final int slotMask;
+    protected final AtomicReferenceArray<Span> spans;
+    protected final AtomicReferenceArray<Thread> threads;
+    protected final AtomicReferenceArray<Deque<Span>> spanStacks;
+    protected final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_CAPACITY} slots.
+     */
+    public InFlightSpanRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of slots - must be greater than 0, and will be rounded up to a power of two.
+     */
+    public InFlightSpanRegistry(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be greater than 0. Invalid value: " + capacity);
+
+        int highestOneBit = Integer.highestOneBit(capacity);
+        int numSlots = (highestOneBit == capacity) ? capacity : highestOneBit << 1;
+        this.slotMask = numSlots - 1;
+        this.spans = new AtomicReferenceArray<>(numSlots);
+        this.threads = new AtomicReferenceArray<>(numSlots);
+        this.spanStacks = new AtomicReferenceArray<>(numSlots);
+    }
+
+    protected int homeSlot(Span span) {
+        long hash = span.getSpanStartTimeNanos() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & slotMask;
+    }
+
+    /**
+     * Registers the given request span as in-flight, along with the current thread.
+     *
+     * @param rootSpan The overall request span.
+     * @param spanStack The current thread's span stack, used to report the sub-span chain. May be null.
+     * @return true if the span was registered, false if the registry had no room for it.
+     */
+    public boolean register(Span rootSpan, Deque<Span> spanStack) {
+        int home = homeSlot(rootSpan);
+        int probes = Math.min(MAX_PROBES, slotMask + 1);
+        for (int i = 0; i < probes; i++) {
+            int slot = (home + i) & slotMask;
+            if (spans.get(slot) == null && spans.compareAndSet(slot, null, rootSpan)) {
+                threads.lazySet(slot, Thread.currentThread());
+                spanStacks.lazySet(slot, spanStack);
+                return true;
+            }
+        }
+
+        overflowCount.incrementAndGet();
+        return false;
+    }
+
+    protected int findSlot(Span rootSpan) {
+        int home = homeSlot(rootSpan);
+        int probes = Math.min(MAX_PROBES, slotMask + 1);
+        for (int i = 0; i < probes; i++) {
+            int slot = (home + i) & slotMask;
+            if (spans.get(slot) == rootSpan)
+                return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the given request span from the registry.
+     *
+     * @return true if the span was removed, false if it wasn't registered.
+     */
+    public boolean unregister(Span rootSpan) {
+        int slot = findSlot(rootSpan);
+        if (slot < 0)
+            return false;
+
+        // Clear the extras before releasing the slot so the next occupant's readers never see them.
+        threads.lazySet(slot, null);
+        spanStacks.lazySet(slot, null);
+        return spans.compareAndSet(slot, rootSpan, null);
+    }
+
+    /**
+     * Forgets the thread associated with the given request span, for when the request is handed off to other threads
+     * (e.g. async servlet requests) and the original thread moves on to other work.
+     */
+    public void detachFromThread(Span rootSpan) {
+        int slot = findSlot(rootSpan);
+        if (slot >= 0)
+            threads.set(slot, null);
+    }
+
+    /**
+     * @param minAgeNanos Only spans that started at least this long ago are returned. Pass 0 for all of them.
+     * @return The in-flight request spans that started at least {@code minAgeNanos} ago.
+     */
+    public List<InFlightSpan> getInFlightSpans(long minAgeNanos) {
+        List<InFlightSpan> result = new ArrayList<>();
+        long now = System.nanoTime();
+        for (int slot = 0; slot <= slotMask; slot++) {
+            Span span = spans.get(slot);
+            if (span == null)
+                continue;
+
+            long ageNanos = now - span.getSpanStartTimeNanos();
+            if (ageNanos < minAgeNanos)
+                continue;
+
+            Thread thread = threads.get(slot);
+            Deque<Span> spanStack = spanStacks.get(slot);
+            // The span may have completed while we were reading the extras - if so they may belong to someone else.
+            if (spans.get(slot) != span)
+                continue;
+
+            result.add(new InFlightSpan(span, thread, copySpanChain(span, spanStack), ageNanos));
+        }
+        return result;
+    }
+
+    /**
+     * @return The spans on the given stack, root first. The stack is owned by another thread and isn't thread safe, so
+     * this is best-effort - if it can't be read consistently then only the root span is returned.
+     */
+    protected static List<Span> copySpanChain(Span rootSpan, Deque<Span> spanStack) {
+        if (spanStack == null)
+            return Collections.singletonList(rootSpan);
+
+        try {
+            Object[] stackArray = spanStack.toArray();
+            List<Span> chain = new ArrayList<>(stackArray.length);
+            // The stack iterates from the top (current span) down, so reverse it to put the root first.
+            for (int i = stackArray.length - 1; i >= 0; i--) {
+                if (stackArray[i] != null)
+                    chain.add((Span) stackArray[i]);
+            }
+            if (chain.isEmpty() || chain.get(0) != rootSpan)
+                return Collections.singletonList(rootSpan);
+            return chain;
+        }
+        catch (RuntimeException ex) {
+            return Collections.singletonList(rootSpan);
+        }
+    }
+
+    /**
+     * @return The number of spans currently registered. This scans every slot, so don't call it on a hot path.
+     */
+    public int getInFlightCount() {
+        int count = 0;
+        for (int slot = 0; slot <= slotMask; slot++) {
+            if (spans.get(slot) != null)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of spans that couldn't be registered because their candidate slots were all taken.
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    public int getCapacity() {
+        return slotMask + 1;
+    }
+
+    /**
+     * A snapshot of one in-flight request span.
+     */
+    public static class InFlightSpan {
+        protected final Span rootSpan;
+        protected final Thread thread;
+        protected final List<Span> spanChain;
+        protected final long ageNanos;
+
+        public InFlightSpan(Span rootSpan, Thread thread, List<Span> spanChain, long ageNanos) {
+            this.rootSpan = rootSpan;
+            this.thread = thread;
+            this.spanChain = spanChain;
+            this.ageNanos = ageNanos;
+        }
+
+        public Span getRootSpan() {
+            return rootSpan;
+        }
+
+        /**
+         * @return The thread handling the request, or null if it's unknown (e.g. the request went async).
+         */
+        public Thread getThread() {
+            return thread;
+        }
+
+        /**
+         * @return The spans from the root down to the current sub-span, as best as could be determined.
+         */
+        public List<Span> getSpanChain() {
+            return spanChain;
+        }
+
+        /**
+         * @return How long ago the root span started, as of when this snapshot was taken.
+         */
+        public long getAgeNanos() {
+            return ageNanos;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.nike.wingtips.inflight;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.inflight.InFlightSpanRegistry.InFlightSpan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks an {@link InFlightSpanRegistry} for request spans that have been running longer than a threshold
+ * and reports them to a {@link StuckRequestListener} - by default {@link LoggingStuckRequestListener}, which logs the
+ * trace ID, the chain of sub-spans the request is in, and (optionally) a stack dump of the thread handling it. Each
+ * stuck request is reported once, no matter how many checks it stays stuck for.
+ *
+ * <p>Call {@link #start()} to begin checking on a background daemon thread and {@link #stop()} to end it, or call
+ * {@link #checkForStuckRequests()} yourself if you'd rather drive the checks from your own scheduler.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StuckRequestWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(StuckRequestWatchdog.class);
+
+    protected final InFlightSpanRegistry registry;
+    protected final long thresholdNanos;
+    protected final long checkIntervalMillis;
+    protected final StuckRequestListener listener;
+
+    // Only touched by checkForStuckRequests(), which is synchronized.
+    protected Set<Span> alreadyReported = Collections.newSetFromMap(new IdentityHashMap<Span, Boolean>());
+    protected ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new instance that logs stuck requests via {@link LoggingStuckRequestListener}, including thread stack
+     * dumps.
+     *
+     * @param registry The registry to check.
+     * @param thresholdMillis How long a request span must be in-flight before it's considered stuck.
+     * @param checkIntervalMillis How often to check once {@link #start()} has been called.
+     */
+    public StuckRequestWatchdog(InFlightSpanRegistry registry, long thresholdMillis, long checkIntervalMillis) {
+        this(registry, thresholdMillis, checkIntervalMillis, new LoggingStuckRequestListener(true));
+    }
+
+    /**
+     * @param registry The registry to check. Cannot be null.
+     * @param thresholdMillis How long a request span must be in-flight before it's considered stuck. Must be greater
+     * than 0.
+     * @param checkIntervalMillis How often to check once {@link #start()} has been called. Must be greater than 0.
+     * @param listener Notified of each stuck request. Cannot be null.
+     */
+    public StuckRequestWatchdog(InFlightSpanRegistry registry, long thresholdMillis, long checkIntervalMillis,
+                                StuckRequestListener listener) {
+        if (registry == null)
+            throw new IllegalArgumentException("registry cannot be null");
+
+        if (thresholdMillis <= 0)
+            throw new IllegalArgumentException("thresholdMillis must be greater than 0. Invalid value: " + thresholdMillis);
+
+        if (checkIntervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                "checkIntervalMillis must be greater than 0. Invalid value: " + checkIntervalMillis
+            );
+        }
+
+        if (listener == null)
+            throw new IllegalArgumentException("listener cannot be null");
+
+        this.registry = registry;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts checking for stuck requests every {@code checkIntervalMillis} on a background daemon thread. Does nothing
+     * if already started.
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "wingtips-stuck-request-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    checkForStuckRequests();
+                }
+                catch (Throwable t) {
+                    // Don't let an exception kill the scheduled task.
+                    logger.error("An unexpected error occurred while checking for stuck requests.", t);
+                }
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background checks started by {@link #start()}. Does nothing if not started.
+     */
+    public synchronized void stop() {
+        if (scheduler == null)
+            return;
+
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    public synchronized boolean isStarted() {
+        return scheduler != null;
+    }
+
+    /**
+     * Checks the registry once, reporting any request spans that have become stuck since the last check.
+     *
+     * @return The request spans newly reported as stuck by this check.
+     */
+    public synchronized List<InFlightSpan> checkForStuckRequests() {
+        List<InFlightSpan> stuck = registry.getInFlightSpans(thresholdNanos);
+        List<InFlightSpan> newlyStuck = new ArrayList<>();
+        Set<Span> stillStuck = Collections.newSetFromMap(new IdentityHashMap<Span, Boolean>());
+        for (InFlightSpan inFlightSpan : stuck) {
+            stillStuck.add(inFlightSpan.getRootSpan());
+            if (!alreadyReported.contains(inFlightSpan.getRootSpan()))
+                newlyStuck.add(inFlightSpan);
+        }
+        // Forget the requests that have completed since the last check so the set doesn't grow forever.
+        alreadyReported = stillStuck;
+
+        for (InFlightSpan inFlightSpan : newlyStuck) {
+            try {
+                listener.stuckRequestDetected(inFlightSpan);
+            }
+            catch (Throwable t) {
+                logger.error(
+                    "An unexpected error occurred while reporting a stuck request. trace_id={}",
+                    inFlightSpan.getRootSpan().getTraceId(), t
+                );
+            }
+        }
+        return newlyStuck;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public long getCheckIntervalMillis() {
+        return checkIntervalMillis;
+    }
+
+    /**
+     * Notified by {@link StuckRequestWatchdog} when a request span has been in-flight longer than the threshold.
+     */
+    public interface StuckRequestListener {
+        void stuckRequestDetected(InFlightSpan stuckRequest);
+    }
+
+    /**
+     * A {@link StuckRequestListener} that logs a warning for each stuck request.
+     */
+    public static class LoggingStuckRequestListener implements StuckRequestListener {
+
+        private static final Logger logger = LoggerFactory.getLogger(LoggingStuckRequestListener.class);
+
+        protected final boolean dumpThreadStacks;
+
+        /**
+         * @param dumpThreadStacks Pass true to include the stack trace of the thread handling the request, when it's
+         * known.
+         */
+        public LoggingStuckRequestListener(boolean dumpThreadStacks) {
+            this.dumpThreadStacks = dumpThreadStacks;
+        }
+
+        @Override
+        public void stuckRequestDetected(InFlightSpan stuckRequest) {
+            Span rootSpan = stuckRequest.getRootSpan();
+            Thread thread = stuckRequest.getThread();
+            String threadName = (thread == null) ? "unknown" : thread.getName();
+            String message = "WINGTIPS STUCK REQUEST: trace_id=" + rootSpan.getTraceId()
+                             + ", span_name=\"" + rootSpan.getSpanName() + "\""
+                             + ", age_millis=" + TimeUnit.NANOSECONDS.toMillis(stuckRequest.getAgeNanos())
+                             + ", thread=\"" + threadName + "\""
+                             + ", span_chain=\"" + describeSpanChain(stuckRequest.getSpanChain()) + "\"";
+
+            if (dumpThreadStacks && thread != null)
+                message += "\n" + describeStackTrace(thread.getStackTrace());
+
+            logger.warn(message);
+        }
+
+        protected String describeSpanChain(List<Span> spanChain) {
+            StringBuilder sb = new StringBuilder();
+            for (Span span : spanChain) {
+                if (sb.length() > 0)
+                    sb.append(" > ");
+                sb.append(span.getSpanName());
+            }
+            return sb.toString();
+        }
+
+        protected String describeStackTrace(StackTraceElement[] stackTrace) {
+            StringBuilder sb = new StringBuilder();
+            for (StackTraceElement element : stackTrace) {
+                sb.append("\tat ").append(element).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
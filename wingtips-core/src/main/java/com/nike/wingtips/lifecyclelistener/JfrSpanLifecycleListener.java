@@ -0,0 +1,38 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+
+/**
+ * A {@link SpanLifecycleListener} that emits JDK Flight Recorder events for span start and completion, so spans can be
+ * recorded continuously at very low cost and correlated with GC, lock, and I/O events in JDK Mission Control. Register
+ * it with {@link com.nike.wingtips.Tracer#addSpanLifecycleListener(SpanLifecycleListener)} and enable the {@code
+ * com.nike.wingtips.SpanStarted} and {@code com.nike.wingtips.SpanCompleted} events in your recording settings.
+ *
+ * <p>JFR requires Java 11 or later, so the {@code wingtips-core} jar is a multi-release jar: on Java 11+ this class is
+ * replaced by a version (in {@code META-INF/versions/11}) that emits the events. This base version is what Java 7 and
+ * 8 see - it does nothing and {@link #isJfrAvailable()} returns false, so it's always safe to register.
+ */
+public class JfrSpanLifecycleListener implements SpanLifecycleListener {
+
+    /**
+     * @return true if this JVM supports JDK Flight Recorder and this listener will emit events, false if it's a no-op.
+     */
+    public static boolean isJfrAvailable() {
+        return false;
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing - JFR is not available before Java 11.
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing.
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        // Do nothing - JFR is not available before Java 11.
+    }
+}
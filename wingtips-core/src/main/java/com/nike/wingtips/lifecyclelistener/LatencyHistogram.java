@@ -0,0 +1,253 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free, fixed-size latency histogram with log-linear buckets (in the style of HdrHistogram), used by {@link
+ * SpanMetricsLifecycleListener}. Every power of two range of values is split into {@link #SUB_BUCKET_COUNT} equally
+ * sized buckets, so any recorded value can be reported with a relative error of at most {@code 1/SUB_BUCKET_COUNT}
+ * (about 6%), and the memory used doesn't depend on how many values are recorded.
+ *
+ * <p>Recording a value is a handful of atomic increments with no locking or allocation. Each bucket also remembers
+ * the trace ID of the most recent sampled span that landed in it (an "exemplar"), so a slow bucket can be tied back to
+ * an actual trace.
+ *
+ * <p>{@link #snapshot()} and {@link #snapshotAndReset()} read (and for the latter, zero) each counter atomically, but
+ * not all counters together - a value being recorded concurrently may show up in the totals but not its bucket (or
+ * vice versa) for that one snapshot.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LatencyHistogram {
+
+    /**
+     * log2 of {@link #SUB_BUCKET_COUNT}.
+     */
+    public static final int SUB_BUCKET_BITS = 4;
+    /**
+     * The number of buckets each power of two range of values is split into.
+     */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * The total number of buckets, enough to cover every non-negative long value.
+     */
+    public static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    protected final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    protected final AtomicReferenceArray<String> exemplarTraceIds = new AtomicReferenceArray<>(BUCKET_COUNT);
+    protected final AtomicLong count = new AtomicLong();
+    protected final AtomicLong errorCount = new AtomicLong();
+    protected final AtomicLong sumNanos = new AtomicLong();
+    protected final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records the given value.
+     *
+     * @param valueNanos The value to record. Negative values are recorded as 0.
+     * @param error Whether the value is for a request/operation that failed.
+     * @param exemplarTraceId The trace ID to remember for the value's bucket, or null to leave the bucket's exemplar
+     * as-is.
+     */
+    public void record(long valueNanos, boolean error, String exemplarTraceId) {
+        if (valueNanos < 0)
+            valueNanos = 0;
+
+        int bucketIndex = bucketIndexFor(valueNanos);
+        bucketCounts.incrementAndGet(bucketIndex);
+        if (exemplarTraceId != null)
+            exemplarTraceIds.lazySet(bucketIndex, exemplarTraceId);
+
+        count.incrementAndGet();
+        if (error)
+            errorCount.incrementAndGet();
+        sumNanos.addAndGet(valueNanos);
+
+        long currentMax = maxNanos.get();
+        while (valueNanos > currentMax && !maxNanos.compareAndSet(currentMax, valueNanos)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return A point-in-time copy of this histogram's data.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        String[] exemplars = new String[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = bucketCounts.get(i);
+            exemplars[i] = exemplarTraceIds.get(i);
+        }
+        return new Snapshot(counts, exemplars, count.get(), errorCount.get(), sumNanos.get(), maxNanos.get());
+    }
+
+    /**
+     * @return A copy of this histogram's data, zeroing it out at the same time so the next snapshot only covers values
+     * recorded after this call.
+     */
+    public Snapshot snapshotAndReset() {
+        long[] counts = new long[BUCKET_COUNT];
+        String[] exemplars = new String[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = bucketCounts.getAndSet(i, 0);
+            exemplars[i] = exemplarTraceIds.getAndSet(i, null);
+        }
+        return new Snapshot(
+            counts, exemplars, count.getAndSet(0), errorCount.getAndSet(0), sumNanos.getAndSet(0),
+            maxNanos.getAndSet(0)
+        );
+    }
+
+    /**
+     * @return The index of the bucket the given (non-negative) value falls into.
+     */
+    public static int bucketIndexFor(long value) {
+        if (value < SUB_BUCKET_COUNT)
+            return (int) value;
+
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        // The top SUB_BUCKET_BITS + 1 bits of the value, i.e. in the range [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT).
+        int mantissa = (int) (value >>> shift);
+        return (shift * SUB_BUCKET_COUNT) + mantissa;
+    }
+
+    /**
+     * @return The smallest value that falls into the given bucket.
+     */
+    public static long bucketLowerBound(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT)
+            return bucketIndex;
+
+        int shift = (bucketIndex / SUB_BUCKET_COUNT) - 1;
+        long mantissa = bucketIndex - (shift * SUB_BUCKET_COUNT);
+        return mantissa << shift;
+    }
+
+    /**
+     * @return The largest value that falls into the given bucket.
+     */
+    public static long bucketUpperBound(int bucketIndex) {
+        if (bucketIndex >= BUCKET_COUNT - 1)
+            return Long.MAX_VALUE;
+
+        return bucketLowerBound(bucketIndex + 1) - 1;
+    }
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram}'s data. All values are in nanoseconds.
+     */
+    public static class Snapshot {
+        protected final long[] bucketCounts;
+        protected final String[] exemplarTraceIds;
+        protected final long count;
+        protected final long errorCount;
+        protected final long sumNanos;
+        protected final long maxNanos;
+
+        public Snapshot(long[] bucketCounts, String[] exemplarTraceIds, long count, long errorCount, long sumNanos,
+                        long maxNanos) {
+            this.bucketCounts = bucketCounts;
+            this.exemplarTraceIds = exemplarTraceIds;
+            this.count = count;
+            this.errorCount = errorCount;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getSumNanos() {
+            return sumNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return (count == 0) ? 0 : ((double) sumNanos) / count;
+        }
+
+        /**
+         * @return The count for the given bucket - see {@link LatencyHistogram#bucketLowerBound(int)} and {@link
+         * LatencyHistogram#bucketUpperBound(int)} for the range of values it covers.
+         */
+        public long getBucketCount(int bucketIndex) {
+            return bucketCounts[bucketIndex];
+        }
+
+        /**
+         * @return The trace ID of the most recent sampled span recorded in the given bucket, or null if there isn't
+         * one.
+         */
+        public String getExemplarTraceId(int bucketIndex) {
+            return exemplarTraceIds[bucketIndex];
+        }
+
+        /**
+         * @param percentile The percentile to calculate, from 0 to 100 (e.g. 99.9).
+         * @return The value at the given percentile. This is the upper bound of the bucket the percentile falls in
+         * (capped at {@link #getMaxNanos()}), so it's never lower than the true value. Returns 0 if the snapshot is
+         * empty.
+         */
+        public long getValueAtPercentile(double percentile) {
+            int bucketIndex = bucketIndexAtPercentile(percentile);
+            return (bucketIndex < 0) ? 0 : Math.min(bucketUpperBound(bucketIndex), maxNanos);
+        }
+
+        /**
+         * @return The exemplar trace ID for the bucket the given percentile falls in, or null if there isn't one.
+         */
+        public String getExemplarTraceIdAtPercentile(double percentile) {
+            int bucketIndex = bucketIndexAtPercentile(percentile);
+            return (bucketIndex < 0) ? null : exemplarTraceIds[bucketIndex];
+        }
+
+        protected int bucketIndexAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException(
+                    "percentile must be between 0 and 100. Invalid value: " + percentile
+                );
+            }
+
+            long total = 0;
+            for (long bucketCount : bucketCounts) {
+                total += bucketCount;
+            }
+            if (total == 0)
+                return -1;
+
+            long targetCount = Math.max(1, (long) Math.ceil((percentile / 100) * total));
+            long runningCount = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                runningCount += bucketCounts[i];
+                if (runningCount >= targetCount)
+                    return i;
+            }
+            return bucketCounts.length - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{count=" + count + ", errorCount=" + errorCount + ", meanNanos=" + getMeanNanos()
+                   + ", p50Nanos=" + getValueAtPercentile(50) + ", p99Nanos=" + getValueAtPercentile(99)
+                   + ", maxNanos=" + maxNanos + ", nonEmptyBuckets=" + countNonEmptyBuckets() + "}";
+        }
+
+        protected int countNonEmptyBuckets() {
+            int nonEmpty = 0;
+            for (long bucketCount : bucketCounts) {
+                if (bucketCount > 0)
+                    nonEmpty++;
+            }
+            return nonEmpty;
+        }
+    }
+}
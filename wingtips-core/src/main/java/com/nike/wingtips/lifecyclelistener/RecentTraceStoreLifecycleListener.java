@@ -0,0 +1,326 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link SpanLifecycleListener} that keeps the most recently completed spans in memory, grouped by trace, so you can
+ * look at what a single JVM has been doing without shipping spans anywhere or reassembling them from logs. Query it
+ * with {@link #getTrace(String)} or {@link #getSlowestTraces(String, int)}, which return {@link TraceTree}s with the
+ * parent/child structure, critical path, and self time of each span already worked out.
+ *
+ * <p>Memory use is hard-capped by both span count and (estimated) bytes - see {@link #estimateSizeBytes(Span)}. When a
+ * newly completed span pushes the store over either cap, whole traces are evicted in least recently updated order
+ * until it fits again. Traces are indexed by trace ID in a {@link ConcurrentMap}, and recording a span only locks the
+ * span's own trace, so unrelated requests don't contend with each other.
+ *
+ * <p>Only spans that have completed are stored, so a trace shows up once its first span completes and fills in as the
+ * rest complete. Queries assemble the trees at query time, so recording stays cheap.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RecentTraceStoreLifecycleListener implements SpanLifecycleListener {
+
+    public static final int DEFAULT_MAX_SPANS = 10_000;
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * The estimated fixed cost of storing a span, not counting its strings - the {@link Span} object itself, its boxed
+     * fields, and the store's bookkeeping.
+     */
+    protected static final int SPAN_OVERHEAD_BYTES = 160;
+
+    protected final int maxSpans;
+    protected final long maxBytes;
+
+    protected final ConcurrentMap<String, TraceEntry> traces = new ConcurrentHashMap<>();
+    // Every update to a trace appends a marker here. Eviction polls from the head and skips markers that have been
+    //      superseded by a later update to the same trace, which gives least recently updated order without a lock.
+    //      Since a trace's markers are always polled oldest first, there's one marker per stored span at most.
+    protected final ConcurrentLinkedQueue<LruMarker> lruQueue = new ConcurrentLinkedQueue<>();
+    protected final AtomicLong updateSequence = new AtomicLong();
+    protected final AtomicLong spanCount = new AtomicLong();
+    protected final AtomicLong byteCount = new AtomicLong();
+    protected final AtomicLong evictedTraceCount = new AtomicLong();
+
+    /**
+     * Creates a new instance capped at {@link #DEFAULT_MAX_SPANS} spans and {@link #DEFAULT_MAX_BYTES} bytes.
+     */
+    public RecentTraceStoreLifecycleListener() {
+        this(DEFAULT_MAX_SPANS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxSpans The maximum number of spans to keep. Must be greater than 0.
+     * @param maxBytes The maximum estimated bytes of spans to keep. Must be greater than 0.
+     */
+    public RecentTraceStoreLifecycleListener(int maxSpans, long maxBytes) {
+        if (maxSpans <= 0)
+            throw new IllegalArgumentException("maxSpans must be greater than 0. Invalid value: " + maxSpans);
+
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("maxBytes must be greater than 0. Invalid value: " + maxBytes);
+
+        this.maxSpans = maxSpans;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        if (span.getDurationNanos() == null)
+            return;
+
+        long sizeBytes = estimateSizeBytes(span);
+        String traceId = span.getTraceId();
+        while (true) {
+            TraceEntry entry = traces.get(traceId);
+            if (entry == null) {
+                TraceEntry newEntry = new TraceEntry(traceId);
+                entry = traces.putIfAbsent(traceId, newEntry);
+                if (entry == null)
+                    entry = newEntry;
+            }
+
+            synchronized (entry) {
+                // The entry may have been evicted between looking it up and locking it - if so, start again so the
+                //      span isn't added to a trace that's no longer in the store.
+                if (entry.evicted)
+                    continue;
+
+                entry.spans.add(span);
+                entry.sizeBytes += sizeBytes;
+                entry.lastUpdateSequence = updateSequence.incrementAndGet();
+                lruQueue.add(new LruMarker(entry, entry.lastUpdateSequence));
+                spanCount.incrementAndGet();
+                byteCount.addAndGet(sizeBytes);
+            }
+            break;
+        }
+
+        evictUntilWithinLimits();
+    }
+
+    protected void evictUntilWithinLimits() {
+        while (spanCount.get() > maxSpans || byteCount.get() > maxBytes) {
+            LruMarker marker = lruQueue.poll();
+            if (marker == null) {
+                // Only possible if clear() raced with a new span - fall back to evicting whatever trace we find.
+                if (!evictAnyTrace())
+                    return;
+                continue;
+            }
+
+            TraceEntry entry = marker.entry;
+            synchronized (entry) {
+                // Skip stale markers - the trace was updated again later (or already evicted).
+                if (!entry.evicted && entry.lastUpdateSequence == marker.updateSequence && evict(entry))
+                    evictedTraceCount.incrementAndGet();
+            }
+        }
+    }
+
+    protected boolean evictAnyTrace() {
+        for (TraceEntry entry : traces.values()) {
+            synchronized (entry) {
+                if (evict(entry)) {
+                    evictedTraceCount.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given entry from the store. Must be called while synchronized on the entry.
+     *
+     * @return true if the entry was removed, false if it had already been evicted.
+     */
+    protected boolean evict(TraceEntry entry) {
+        if (entry.evicted)
+            return false;
+
+        entry.evicted = true;
+        traces.remove(entry.traceId, entry);
+        spanCount.addAndGet(-entry.spans.size());
+        byteCount.addAndGet(-entry.sizeBytes);
+        return true;
+    }
+
+    /**
+     * @return A rough estimate of the memory used to store the given span: {@link #SPAN_OVERHEAD_BYTES} plus two bytes
+     * per character of each of its strings.
+     */
+    protected long estimateSizeBytes(Span span) {
+        return SPAN_OVERHEAD_BYTES
+               + 2L * (length(span.getTraceId()) + length(span.getSpanId()) + length(span.getParentSpanId())
+                       + length(span.getSpanName()) + length(span.getUserId()));
+    }
+
+    protected static int length(String str) {
+        return (str == null) ? 0 : str.length();
+    }
+
+    /**
+     * @return The given trace assembled into a {@link TraceTree}, or null if the store has no spans for it.
+     */
+    public TraceTree getTrace(String traceId) {
+        TraceEntry entry = traces.get(traceId);
+        if (entry == null)
+            return null;
+
+        List<Span> spans = entry.copySpans();
+        return (spans == null) ? null : new TraceTree(traceId, spans);
+    }
+
+    /**
+     * @param rootSpanName The span name of the root span (see {@link TraceTree#getRoot()}) to look for.
+     * @param limit The maximum number of traces to return.
+     * @return Up to {@code limit} stored traces whose root span has the given name, slowest root span first.
+     */
+    public List<TraceTree> getSlowestTraces(String rootSpanName, int limit) {
+        List<TraceTree> result = getSlowestTracesByRootSpanName(limit).get(rootSpanName);
+        return (result == null) ? Collections.<TraceTree>emptyList() : result;
+    }
+
+    /**
+     * @param limit The maximum number of traces to return for each root span name.
+     * @return Up to {@code limit} stored traces for each root span name (see {@link TraceTree#getRoot()}), slowest
+     * root span first.
+     */
+    public Map<String, List<TraceTree>> getSlowestTracesByRootSpanName(int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("limit must be greater than 0. Invalid value: " + limit);
+
+        Map<String, List<TraceTree>> result = new HashMap<>();
+        for (TraceTree trace : getAllTraces()) {
+            List<TraceTree> tracesForName = result.get(trace.getRootSpanName());
+            if (tracesForName == null) {
+                tracesForName = new ArrayList<>();
+                result.put(trace.getRootSpanName(), tracesForName);
+            }
+            tracesForName.add(trace);
+        }
+
+        for (Map.Entry<String, List<TraceTree>> mapEntry : result.entrySet()) {
+            List<TraceTree> tracesForName = mapEntry.getValue();
+            Collections.sort(tracesForName, SLOWEST_FIRST_COMPARATOR);
+            if (tracesForName.size() > limit)
+                mapEntry.setValue(new ArrayList<>(tracesForName.subList(0, limit)));
+        }
+        return result;
+    }
+
+    protected static final Comparator<TraceTree> SLOWEST_FIRST_COMPARATOR = new Comparator<TraceTree>() {
+        @Override
+        public int compare(TraceTree o1, TraceTree o2) {
+            long d1 = o1.getDurationNanos();
+            long d2 = o2.getDurationNanos();
+            return (d1 > d2) ? -1 : ((d1 == d2) ? 0 : 1);
+        }
+    };
+
+    /**
+     * @return Every stored trace assembled into a {@link TraceTree}, in no particular order.
+     */
+    public List<TraceTree> getAllTraces() {
+        List<TraceTree> result = new ArrayList<>(traces.size());
+        for (TraceEntry entry : traces.values()) {
+            List<Span> spans = entry.copySpans();
+            if (spans != null)
+                result.add(new TraceTree(entry.traceId, spans));
+        }
+        return result;
+    }
+
+    /**
+     * Removes every stored trace.
+     */
+    public void clear() {
+        lruQueue.clear();
+        for (TraceEntry entry : traces.values()) {
+            synchronized (entry) {
+                evict(entry);
+            }
+        }
+    }
+
+    public int getTraceCount() {
+        return traces.size();
+    }
+
+    public long getSpanCount() {
+        return spanCount.get();
+    }
+
+    /**
+     * @return The estimated bytes of the stored spans - see {@link #estimateSizeBytes(Span)}.
+     */
+    public long getEstimatedBytes() {
+        return byteCount.get();
+    }
+
+    /**
+     * @return The number of traces evicted to stay within the span count and byte limits.
+     */
+    public long getEvictedTraceCount() {
+        return evictedTraceCount.get();
+    }
+
+    public int getMaxSpans() {
+        return maxSpans;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    protected static class TraceEntry {
+        protected final String traceId;
+        // All fields below are guarded by synchronizing on this entry.
+        protected final List<Span> spans = new ArrayList<>();
+        protected long sizeBytes;
+        protected long lastUpdateSequence;
+        protected boolean evicted;
+
+        protected TraceEntry(String traceId) {
+            this.traceId = traceId;
+        }
+
+        /**
+         * @return A copy of the spans, or null if this entry has been evicted.
+         */
+        protected synchronized List<Span> copySpans() {
+            return (evicted) ? null : new ArrayList<>(spans);
+        }
+    }
+
+    protected static class LruMarker {
+        protected final TraceEntry entry;
+        protected final long updateSequence;
+
+        protected LruMarker(TraceEntry entry, long updateSequence) {
+            this.entry = entry;
+            this.updateSequence = updateSequence;
+        }
+    }
+}
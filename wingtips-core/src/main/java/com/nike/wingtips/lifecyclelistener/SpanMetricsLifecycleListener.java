@@ -0,0 +1,240 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link SpanLifecycleListener} that keeps a {@link LatencyHistogram} of completed span durations for each span name
+ * and {@link SpanPurpose}, so you can get request rate, error count, and latency percentiles (i.e. RED metrics) per
+ * endpoint or downstream call straight from the spans Wingtips already creates, rather than timing everything a second
+ * time with a separate metrics library.
+ *
+ * <p>Memory use is constant: each histogram is a fixed size, and only the first {@code maxDistinctSpanNames} span
+ * name/purpose combinations get their own histogram. Spans with any other name are recorded under {@link
+ * #OVERFLOW_SPAN_NAME} for their purpose, which keeps you safe from span names that accidentally include IDs or other
+ * high-cardinality data.
+ *
+ * <p>Spans don't carry a success/failure status, so by default nothing is counted as an error. Pass an {@link
+ * ErrorClassifier} to the constructor if you have a way to tell (e.g. by span name, or by checking request state you
+ * keep elsewhere). Exemplar trace IDs are only kept for sampled spans, since those are the only ones that will show up
+ * in your tracing system.
+ *
+ * <p>Call {@link #getSnapshots()} or {@link #getSnapshotsAndReset()} periodically (e.g. from a metrics reporter) to
+ * read the data.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanMetricsLifecycleListener implements SpanLifecycleListener {
+
+    public static final int DEFAULT_MAX_DISTINCT_SPAN_NAMES = 500;
+    /**
+     * The span name used for spans whose name didn't fit within {@code maxDistinctSpanNames}.
+     */
+    public static final String OVERFLOW_SPAN_NAME = "_other_";
+
+    /**
+     * Decides whether a completed span represents a failed request/operation, for {@link
+     * SpanMetricsLifecycleListener}'s error counts.
+     */
+    public interface ErrorClassifier {
+
+        /**
+         * @return true if the given completed span should be counted as an error, false otherwise.
+         */
+        boolean isError(Span span);
+
+    }
+
+    /**
+     * An {@link ErrorClassifier} that never counts anything as an error.
+     */
+    public static final ErrorClassifier NO_ERRORS_CLASSIFIER = new ErrorClassifier() {
+        @Override
+        public boolean isError(Span span) {
+            return false;
+        }
+    };
+
+    protected final int maxDistinctSpanNames;
+    protected final ErrorClassifier errorClassifier;
+
+    protected final ConcurrentMap<MetricKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    protected final AtomicInteger distinctSpanNameCount = new AtomicInteger();
+
+    /**
+     * Creates a new instance that tracks up to {@link #DEFAULT_MAX_DISTINCT_SPAN_NAMES} span name/purpose combinations
+     * and never counts anything as an error.
+     */
+    public SpanMetricsLifecycleListener() {
+        this(DEFAULT_MAX_DISTINCT_SPAN_NAMES, NO_ERRORS_CLASSIFIER);
+    }
+
+    /**
+     * @param maxDistinctSpanNames The maximum number of span name/purpose combinations to keep separate histograms
+     * for. Must be greater than 0. Spans beyond that are recorded under {@link #OVERFLOW_SPAN_NAME}.
+     * @param errorClassifier Decides which spans count as errors. Cannot be null - use {@link #NO_ERRORS_CLASSIFIER}
+     * if you don't need error counts.
+     */
+    public SpanMetricsLifecycleListener(int maxDistinctSpanNames, ErrorClassifier errorClassifier) {
+        if (maxDistinctSpanNames <= 0) {
+            throw new IllegalArgumentException(
+                "maxDistinctSpanNames must be greater than 0. Invalid value: " + maxDistinctSpanNames
+            );
+        }
+
+        if (errorClassifier == null)
+            throw new IllegalArgumentException("errorClassifier cannot be null");
+
+        this.maxDistinctSpanNames = maxDistinctSpanNames;
+        this.errorClassifier = errorClassifier;
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        Long durationNanos = span.getDurationNanos();
+        if (durationNanos == null)
+            return;
+
+        getHistogram(span.getSpanName(), span.getSpanPurpose()).record(
+            durationNanos, errorClassifier.isError(span), (span.isSampleable()) ? span.getTraceId() : null
+        );
+    }
+
+    protected LatencyHistogram getHistogram(String spanName, SpanPurpose spanPurpose) {
+        MetricKey key = new MetricKey(spanName, spanPurpose);
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram != null)
+            return histogram;
+
+        // Reserve a slot before creating the histogram so the cap holds even when many threads race here. The
+        // overflow histograms don't count towards the cap - there's at most one per span purpose.
+        if (distinctSpanNameCount.incrementAndGet() > maxDistinctSpanNames) {
+            distinctSpanNameCount.decrementAndGet();
+            return getOrCreateHistogram(new MetricKey(OVERFLOW_SPAN_NAME, spanPurpose));
+        }
+
+        LatencyHistogram newHistogram = new LatencyHistogram();
+        histogram = histograms.putIfAbsent(key, newHistogram);
+        if (histogram == null)
+            return newHistogram;
+
+        // Another thread created it first, so give back the slot we reserved.
+        distinctSpanNameCount.decrementAndGet();
+        return histogram;
+    }
+
+    protected LatencyHistogram getOrCreateHistogram(MetricKey key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram != null)
+            return histogram;
+
+        LatencyHistogram newHistogram = new LatencyHistogram();
+        histogram = histograms.putIfAbsent(key, newHistogram);
+        return (histogram == null) ? newHistogram : histogram;
+    }
+
+    /**
+     * @return A snapshot of the histogram for each span name/purpose combination seen so far.
+     */
+    public List<SpanMetricsSnapshot> getSnapshots() {
+        List<SpanMetricsSnapshot> result = new ArrayList<>(histograms.size());
+        for (Map.Entry<MetricKey, LatencyHistogram> entry : histograms.entrySet()) {
+            result.add(new SpanMetricsSnapshot(
+                entry.getKey().spanName, entry.getKey().spanPurpose, entry.getValue().snapshot()
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * @return A snapshot of the histogram for each span name/purpose combination seen so far, resetting each histogram
+     * so the next call only covers spans completed after this one. The span names themselves are kept (and still
+     * count towards {@code maxDistinctSpanNames}).
+     */
+    public List<SpanMetricsSnapshot> getSnapshotsAndReset() {
+        List<SpanMetricsSnapshot> result = new ArrayList<>(histograms.size());
+        for (Map.Entry<MetricKey, LatencyHistogram> entry : histograms.entrySet()) {
+            result.add(new SpanMetricsSnapshot(
+                entry.getKey().spanName, entry.getKey().spanPurpose, entry.getValue().snapshotAndReset()
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * @return A snapshot of the histogram for the given span name and purpose, or null if no such span has been
+     * completed.
+     */
+    public LatencyHistogram.Snapshot getSnapshot(String spanName, SpanPurpose spanPurpose) {
+        LatencyHistogram histogram = histograms.get(new MetricKey(spanName, spanPurpose));
+        return (histogram == null) ? null : histogram.snapshot();
+    }
+
+    public int getMaxDistinctSpanNames() {
+        return maxDistinctSpanNames;
+    }
+
+    /**
+     * The {@link LatencyHistogram.Snapshot} for one span name and purpose.
+     */
+    public static class SpanMetricsSnapshot {
+        public final String spanName;
+        public final SpanPurpose spanPurpose;
+        public final LatencyHistogram.Snapshot histogram;
+
+        public SpanMetricsSnapshot(String spanName, SpanPurpose spanPurpose, LatencyHistogram.Snapshot histogram) {
+            this.spanName = spanName;
+            this.spanPurpose = spanPurpose;
+            this.histogram = histogram;
+        }
+
+        @Override
+        public String toString() {
+            return "SpanMetricsSnapshot{spanName=" + spanName + ", spanPurpose=" + spanPurpose
+                   + ", histogram=" + histogram + "}";
+        }
+    }
+
+    protected static class MetricKey {
+        protected final String spanName;
+        protected final SpanPurpose spanPurpose;
+
+        protected MetricKey(String spanName, SpanPurpose spanPurpose) {
+            this.spanName = spanName;
+            this.spanPurpose = spanPurpose;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey that = (MetricKey) o;
+            return spanPurpose == that.spanPurpose && spanName.equals(that.spanName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * spanName.hashCode() + spanPurpose.hashCode();
+        }
+    }
+}
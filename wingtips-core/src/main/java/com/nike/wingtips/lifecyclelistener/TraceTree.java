@@ -0,0 +1,285 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The completed spans of one trace seen by this JVM, assembled into parent/child trees. Built by {@link
+ * RecentTraceStoreLifecycleListener}.
+ *
+ * <p>Spans whose parent isn't in the trace (usually because the parent lives in an upstream service) become roots.
+ * There can be more than one root if the same trace passed through this JVM more than once - {@link #getRoot()} is the
+ * longest of them, and is the one the critical path and {@link #getDurationNanos()} are calculated from.
+ *
+ * <p>Each {@link Node} has a self time - its duration minus the time covered by at least one of its children, so
+ * children that run in parallel aren't double counted. The critical path is the chain of spans that determined the
+ * root's end time: starting from the end of the root, it repeatedly steps into the child that finished last before the
+ * current point, then continues from that child's start. Speeding up anything not on the critical path won't make the
+ * request faster.
+ *
+ * <p>All times use {@link Span#getSpanStartTimeNanos()}, which is only comparable between spans created in the same
+ * JVM - that's always the case for spans collected by {@link RecentTraceStoreLifecycleListener}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TraceTree {
+
+    protected static final Comparator<Node> START_TIME_COMPARATOR = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            long s1 = o1.getStartNanos();
+            long s2 = o2.getStartNanos();
+            return (s1 < s2) ? -1 : ((s1 == s2) ? 0 : 1);
+        }
+    };
+
+    protected static final Comparator<Node> END_TIME_DESCENDING_COMPARATOR = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            long e1 = o1.getEndNanos();
+            long e2 = o2.getEndNanos();
+            return (e1 > e2) ? -1 : ((e1 == e2) ? 0 : 1);
+        }
+    };
+
+    protected final String traceId;
+    protected final List<Node> roots;
+    protected final Node root;
+    protected final List<Node> criticalPath;
+    protected final int spanCount;
+
+    /**
+     * @param traceId The trace ID. Cannot be null.
+     * @param spans The completed spans of the trace. Cannot be null or empty. Spans that aren't completed are ignored.
+     */
+    public TraceTree(String traceId, List<Span> spans) {
+        if (traceId == null)
+            throw new IllegalArgumentException("traceId cannot be null");
+
+        if (spans == null || spans.isEmpty())
+            throw new IllegalArgumentException("spans cannot be null or empty");
+
+        this.traceId = traceId;
+
+        Map<String, Node> nodesBySpanId = new HashMap<>();
+        List<Node> allNodes = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            if (span.getDurationNanos() == null)
+                continue;
+
+            Node node = new Node(span);
+            allNodes.add(node);
+            nodesBySpanId.put(span.getSpanId(), node);
+        }
+
+        if (allNodes.isEmpty())
+            throw new IllegalArgumentException("spans must contain at least one completed span");
+
+        List<Node> rootNodes = new ArrayList<>();
+        for (Node node : allNodes) {
+            String parentSpanId = node.span.getParentSpanId();
+            Node parent = (parentSpanId == null) ? null : nodesBySpanId.get(parentSpanId);
+            if (parent == null || parent == node)
+                rootNodes.add(node);
+            else
+                parent.children.add(node);
+        }
+
+        if (rootNodes.isEmpty()) {
+            // Every span has a parent in the trace, so the parent IDs must form a cycle. There's no sensible tree, so
+            //      treat every span as a root.
+            for (Node node : allNodes) {
+                node.children.clear();
+            }
+            rootNodes.addAll(allNodes);
+        }
+
+        Node longestRoot = null;
+        for (Node node : allNodes) {
+            Collections.sort(node.children, START_TIME_COMPARATOR);
+            node.selfTimeNanos = calculateSelfTimeNanos(node);
+        }
+        Collections.sort(rootNodes, START_TIME_COMPARATOR);
+        for (Node rootNode : rootNodes) {
+            if (longestRoot == null || rootNode.getDurationNanos() > longestRoot.getDurationNanos())
+                longestRoot = rootNode;
+        }
+
+        this.roots = Collections.unmodifiableList(rootNodes);
+        this.root = longestRoot;
+        this.spanCount = allNodes.size();
+
+        List<Node> path = new ArrayList<>();
+        addCriticalPath(longestRoot, longestRoot.getEndNanos(), path);
+        this.criticalPath = Collections.unmodifiableList(path);
+    }
+
+    /**
+     * @return The node's duration minus the union of its children's time ranges (clipped to the node's own range).
+     */
+    protected static long calculateSelfTimeNanos(Node node) {
+        long start = node.getStartNanos();
+        long end = node.getEndNanos();
+        long coveredNanos = 0;
+        long coveredUntil = start;
+        // Children are sorted by start time, so a single pass merges the overlapping ranges.
+        for (Node child : node.children) {
+            long childStart = Math.max(child.getStartNanos(), coveredUntil);
+            long childEnd = Math.min(child.getEndNanos(), end);
+            if (childEnd > childStart) {
+                coveredNanos += childEnd - childStart;
+                coveredUntil = childEnd;
+            }
+        }
+        return node.getDurationNanos() - coveredNanos;
+    }
+
+    protected static void addCriticalPath(Node node, long cursorNanos, List<Node> path) {
+        node.onCriticalPath = true;
+        path.add(node);
+
+        List<Node> childrenByEndDescending = new ArrayList<>(node.children);
+        Collections.sort(childrenByEndDescending, END_TIME_DESCENDING_COMPARATOR);
+        long cursor = Math.min(cursorNanos, node.getEndNanos());
+        for (Node child : childrenByEndDescending) {
+            if (cursor <= node.getStartNanos())
+                break;
+
+            // Skip children that started after the cursor - they ran in parallel with a later critical child.
+            if (child.getStartNanos() >= cursor)
+                continue;
+
+            addCriticalPath(child, cursor, path);
+            cursor = child.getStartNanos();
+        }
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return The longest root span of the trace.
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return All root spans of the trace (spans whose parent isn't in the trace), earliest first.
+     */
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * @return The duration of {@link #getRoot()}.
+     */
+    public long getDurationNanos() {
+        return root.getDurationNanos();
+    }
+
+    /**
+     * @return The span name of {@link #getRoot()}.
+     */
+    public String getRootSpanName() {
+        return root.span.getSpanName();
+    }
+
+    /**
+     * @return The spans on the critical path of {@link #getRoot()}, in depth-first order starting with the root.
+     */
+    public List<Node> getCriticalPath() {
+        return criticalPath;
+    }
+
+    /**
+     * @return The number of completed spans in this trace.
+     */
+    public int getSpanCount() {
+        return spanCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("TraceTree{traceId=").append(traceId)
+          .append(", durationNanos=").append(getDurationNanos())
+          .append(", spanCount=").append(spanCount)
+          .append("}\n");
+        for (Node rootNode : roots) {
+            appendNode(sb, rootNode, 1);
+        }
+        return sb.toString();
+    }
+
+    protected static void appendNode(StringBuilder sb, Node node, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append((node.onCriticalPath) ? "* " : "- ")
+          .append(node.span.getSpanName())
+          .append(" durationNanos=").append(node.getDurationNanos())
+          .append(" selfTimeNanos=").append(node.selfTimeNanos)
+          .append('\n');
+        for (Node child : node.children) {
+            appendNode(sb, child, depth + 1);
+        }
+    }
+
+    /**
+     * One span in a {@link TraceTree}.
+     */
+    public static class Node {
+        protected final Span span;
+        protected final List<Node> children = new ArrayList<>();
+        protected long selfTimeNanos;
+        protected boolean onCriticalPath;
+
+        protected Node(Span span) {
+            this.span = span;
+        }
+
+        public Span getSpan() {
+            return span;
+        }
+
+        /**
+         * @return The children of this span, earliest start first.
+         */
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        public long getStartNanos() {
+            return span.getSpanStartTimeNanos();
+        }
+
+        public long getDurationNanos() {
+            return span.getDurationNanos();
+        }
+
+        public long getEndNanos() {
+            return span.getSpanStartTimeNanos() + span.getDurationNanos();
+        }
+
+        /**
+         * @return The time this span spent that isn't covered by any of its children.
+         */
+        public long getSelfTimeNanos() {
+            return selfTimeNanos;
+        }
+
+        /**
+         * @return true if this span is on the critical path of {@link TraceTree#getRoot()}.
+         */
+        public boolean isOnCriticalPath() {
+            return onCriticalPath;
+        }
+    }
+}
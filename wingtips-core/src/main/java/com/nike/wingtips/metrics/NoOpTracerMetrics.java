@@ -0,0 +1,50 @@
+package com.nike.wingtips.metrics;
+
+import com.nike.wingtips.Span;
+
+/**
+ * The default {@link TracerMetrics} used by {@link com.nike.wingtips.Tracer}, which ignores everything. When this is
+ * in use the tracer skips the timing measurements entirely.
+ */
+public class NoOpTracerMetrics implements TracerMetrics {
+
+    public static final NoOpTracerMetrics INSTANCE = new NoOpTracerMetrics();
+
+    // Intentionally protected - use the static INSTANCE.
+    protected NoOpTracerMetrics() { /* do nothing */ }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanStackPushed(int newStackDepth) {
+        // Do nothing
+    }
+
+    @Override
+    public void dirtySpanStackDetected(DirtySpanStackSource source, int numSpansOnStack) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanLifecycleListenersNotified(SpanLifecycleEvent event, long durationNanos) {
+        // Do nothing
+    }
+
+    @Override
+    public void spansSerialized(int numSpans, long durationNanos) {
+        // Do nothing
+    }
+}
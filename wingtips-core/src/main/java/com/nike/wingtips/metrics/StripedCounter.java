@@ -0,0 +1,81 @@
+package com.nike.wingtips.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe counter that spreads updates across several cache-line-padded cells (chosen by thread ID) so that
+ * many threads can update it without contending on a single memory location, in the style of Java 8's {@code
+ * LongAdder}. Reading the value with {@link #sum()} adds up all the cells, so it's more expensive than an update and
+ * isn't an atomic snapshot if updates are happening concurrently.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StripedCounter {
+
+    /**
+     * The number of longs in a (64 byte) cache line - each cell is this far from its neighbors in {@link #cells}.
+     */
+    protected static final int CELL_SPACING = 8;
+    protected static final int MAX_STRIPES = 64;
+    protected static final int DEFAULT_STRIPES = nextPowerOfTwo(
+        Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors())
+    );
+
+    protected final int stripeMask;
+    protected final AtomicLongArray cells;
+
+    /**
+     * Creates a new instance with one stripe per available processor.
+     */
+    public StripedCounter() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes The number of cells to spread updates across. Must be greater than 0 - will be rounded up to a
+     * power of two, and capped at {@link #MAX_STRIPES}.
+     */
+    public StripedCounter(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("stripes must be greater than 0. Invalid value: " + stripes);
+
+        int numStripes = nextPowerOfTwo(Math.min(MAX_STRIPES, stripes));
+        this.stripeMask = numStripes - 1;
+        this.cells = new AtomicLongArray(numStripes * CELL_SPACING);
+    }
+
+    protected static int nextPowerOfTwo(int value) {
+        int highestOneBit = Integer.highestOneBit(Math.max(1, value));
+        return (highestOneBit == value) ? value : highestOneBit << 1;
+    }
+
+    public void add(long delta) {
+        cells.getAndAdd(stripeIndex() * CELL_SPACING, delta);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return The sum of all the values added to this counter.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i <= stripeMask; i++) {
+            sum += cells.get(i * CELL_SPACING);
+        }
+        return sum;
+    }
+
+    protected int stripeIndex() {
+        long threadId = Thread.currentThread().getId();
+        // Mix the bits so sequential thread IDs spread out.
+        int hash = (int) (threadId ^ (threadId >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+}
@@ -0,0 +1,213 @@
+package com.nike.wingtips.metrics;
+
+import com.nike.wingtips.Span;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TracerMetrics} that keeps cumulative counts and timings in {@link StripedCounter}s, so recording is cheap
+ * even when many request threads are starting and completing spans at once. All values are totals since this instance
+ * was created - to get rates, read them periodically and compare with the previous reading.
+ *
+ * <p>Usage:
+ * <pre>
+ *     StripedTracerMetrics tracerMetrics = new StripedTracerMetrics();
+ *     Tracer.getInstance().setTracerMetrics(tracerMetrics);
+ *     ...
+ *     long listenerNanos = tracerMetrics.getSpanLifecycleListenerNanos(SpanLifecycleEvent.COMPLETED);
+ * </pre>
+ */
+@SuppressWarnings("WeakerAccess")
+public class StripedTracerMetrics implements TracerMetrics {
+
+    protected final StripedCounter spansStarted = new StripedCounter();
+    protected final StripedCounter spansSampled = new StripedCounter();
+    protected final StripedCounter spansCompleted = new StripedCounter();
+
+    protected final StripedCounter spanStackPushes = new StripedCounter();
+    protected final StripedCounter spanStackDepthSum = new StripedCounter();
+    protected final AtomicLong maxSpanStackDepth = new AtomicLong();
+
+    protected final StripedCounter[] dirtySpanStacks = newCounters(DirtySpanStackSource.values().length);
+    protected final StripedCounter dirtySpanStackLostSpans = new StripedCounter();
+
+    protected final StripedCounter[] listenerNotifications = newCounters(SpanLifecycleEvent.values().length);
+    protected final StripedCounter[] listenerNanos = newCounters(SpanLifecycleEvent.values().length);
+    protected final AtomicLong[] maxListenerNanos = newMaxes(SpanLifecycleEvent.values().length);
+
+    protected final StripedCounter serializations = new StripedCounter();
+    protected final StripedCounter serializedSpans = new StripedCounter();
+    protected final StripedCounter serializationNanos = new StripedCounter();
+    protected final AtomicLong maxSerializationNanos = new AtomicLong();
+
+    protected static StripedCounter[] newCounters(int count) {
+        StripedCounter[] counters = new StripedCounter[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new StripedCounter();
+        }
+        return counters;
+    }
+
+    protected static AtomicLong[] newMaxes(int count) {
+        AtomicLong[] maxes = new AtomicLong[count];
+        for (int i = 0; i < count; i++) {
+            maxes[i] = new AtomicLong();
+        }
+        return maxes;
+    }
+
+    protected static void updateMax(AtomicLong max, long value) {
+        // Plain read first - the max rarely changes, so this almost never needs a CAS.
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        spansStarted.increment();
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        spansSampled.increment();
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        spansCompleted.increment();
+    }
+
+    @Override
+    public void spanStackPushed(int newStackDepth) {
+        spanStackPushes.increment();
+        spanStackDepthSum.add(newStackDepth);
+        updateMax(maxSpanStackDepth, newStackDepth);
+    }
+
+    @Override
+    public void dirtySpanStackDetected(DirtySpanStackSource source, int numSpansOnStack) {
+        dirtySpanStacks[source.ordinal()].increment();
+        dirtySpanStackLostSpans.add(numSpansOnStack);
+    }
+
+    @Override
+    public void spanLifecycleListenersNotified(SpanLifecycleEvent event, long durationNanos) {
+        listenerNotifications[event.ordinal()].increment();
+        listenerNanos[event.ordinal()].add(durationNanos);
+        updateMax(maxListenerNanos[event.ordinal()], durationNanos);
+    }
+
+    @Override
+    public void spansSerialized(int numSpans, long durationNanos) {
+        serializations.increment();
+        serializedSpans.add(numSpans);
+        serializationNanos.add(durationNanos);
+        updateMax(maxSerializationNanos, durationNanos);
+    }
+
+    public long getSpansStarted() {
+        return spansStarted.sum();
+    }
+
+    public long getSpansSampled() {
+        return spansSampled.sum();
+    }
+
+    /**
+     * @return The number of started spans that weren't sampled.
+     */
+    public long getSpansUnsampled() {
+        return Math.max(0, getSpansStarted() - getSpansSampled());
+    }
+
+    public long getSpansCompleted() {
+        return spansCompleted.sum();
+    }
+
+    public long getSpanStackPushes() {
+        return spanStackPushes.sum();
+    }
+
+    /**
+     * @return The average span stack depth right after a span was pushed onto it, or 0 if nothing has been pushed.
+     */
+    public double getMeanSpanStackDepth() {
+        long pushes = getSpanStackPushes();
+        return (pushes == 0) ? 0 : ((double) spanStackDepthSum.sum()) / pushes;
+    }
+
+    public long getMaxSpanStackDepth() {
+        return maxSpanStackDepth.get();
+    }
+
+    public long getDirtySpanStackCount(DirtySpanStackSource source) {
+        return dirtySpanStacks[source.ordinal()].sum();
+    }
+
+    /**
+     * @return The total number of dirty span stacks detected, from any source.
+     */
+    public long getDirtySpanStackCount() {
+        long total = 0;
+        for (StripedCounter counter : dirtySpanStacks) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return The total number of spans that were on dirty span stacks when they were detected.
+     */
+    public long getDirtySpanStackSpans() {
+        return dirtySpanStackLostSpans.sum();
+    }
+
+    public long getSpanLifecycleListenerNotifications(SpanLifecycleEvent event) {
+        return listenerNotifications[event.ordinal()].sum();
+    }
+
+    public long getSpanLifecycleListenerNanos(SpanLifecycleEvent event) {
+        return listenerNanos[event.ordinal()].sum();
+    }
+
+    public long getMaxSpanLifecycleListenerNanos(SpanLifecycleEvent event) {
+        return maxListenerNanos[event.ordinal()].get();
+    }
+
+    public long getSerializations() {
+        return serializations.sum();
+    }
+
+    public long getSerializedSpans() {
+        return serializedSpans.sum();
+    }
+
+    public long getSerializationNanos() {
+        return serializationNanos.sum();
+    }
+
+    public long getMaxSerializationNanos() {
+        return maxSerializationNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StripedTracerMetrics{");
+        sb.append("spansStarted=").append(getSpansStarted())
+          .append(", spansSampled=").append(getSpansSampled())
+          .append(", spansCompleted=").append(getSpansCompleted())
+          .append(", meanSpanStackDepth=").append(getMeanSpanStackDepth())
+          .append(", maxSpanStackDepth=").append(getMaxSpanStackDepth())
+          .append(", dirtySpanStacks=").append(getDirtySpanStackCount());
+        for (SpanLifecycleEvent event : SpanLifecycleEvent.values()) {
+            sb.append(", listenerNanos_").append(event.name().toLowerCase())
+              .append('=').append(getSpanLifecycleListenerNanos(event));
+        }
+        sb.append(", serializedSpans=").append(getSerializedSpans())
+          .append(", serializationNanos=").append(getSerializationNanos())
+          .append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.nike.wingtips.metrics;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+/**
+ * Receives self-instrumentation data from {@link Tracer} so you can monitor the health and overhead of tracing itself:
+ * how many spans are started, sampled, and completed, how deep span stacks get, how often span stacks are found in a
+ * dirty state (a sign of Wingtips usage errors), and how much time is spent notifying {@link
+ * com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}s and serializing spans for the logs. Call {@link
+ * Tracer#setTracerMetrics(TracerMetrics)} to tell the tracer to use a specific implementation.
+ *
+ * <p>The default is {@link NoOpTracerMetrics}, in which case the tracer doesn't even look at the clock for the timing
+ * methods. {@link StripedTracerMetrics} keeps cumulative counters that can be read programmatically.
+ *
+ * <p>IMPORTANT NOTE: These methods are called inline on the application's request threads for every span, so
+ * implementations must be extremely cheap and must not throw exceptions.
+ */
+public interface TracerMetrics {
+
+    /**
+     * The span lifecycle events that {@link com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}s are notified
+     * of.
+     */
+    enum SpanLifecycleEvent {
+        STARTED, SAMPLED, COMPLETED
+    }
+
+    /**
+     * The places where {@link Tracer} detects a span stack that wasn't cleaned up properly.
+     */
+    enum DirtySpanStackSource {
+        /**
+         * A new request span was started but the thread still had spans from a previous request on its stack.
+         */
+        START_NEW_SPAN_STACK,
+        /**
+         * {@link Tracer#registerWithThread(java.util.Deque)} was called but the thread already had a different,
+         * non-empty span stack.
+         */
+        REGISTER_WITH_THREAD,
+        /**
+         * {@link Tracer#completeRequestSpan()} was called but there were uncompleted sub-spans still on the stack.
+         */
+        COMPLETE_REQUEST_SPAN
+    }
+
+    /**
+     * Called when a span is started, whether or not it's sampled.
+     */
+    void spanStarted(Span span);
+
+    /**
+     * Called when a span that was just started is sampled.
+     */
+    void spanSampled(Span span);
+
+    /**
+     * Called when a span is completed, whether or not it's sampled.
+     */
+    void spanCompleted(Span span);
+
+    /**
+     * Called when a span is pushed onto the current thread's span stack.
+     *
+     * @param newStackDepth The size of the span stack after the push.
+     */
+    void spanStackPushed(int newStackDepth);
+
+    /**
+     * Called when the tracer finds a span stack in a dirty state. The tracer also logs a usage error in these cases.
+     *
+     * @param source Where the dirty stack was detected.
+     * @param numSpansOnStack The number of spans on the stack when it was detected.
+     */
+    void dirtySpanStackDetected(DirtySpanStackSource source, int numSpansOnStack);
+
+    /**
+     * Called after all the span lifecycle listeners have been notified of an event.
+     *
+     * @param event The event the listeners were notified of.
+     * @param durationNanos The total time spent in the listeners for the event.
+     */
+    void spanLifecycleListenersNotified(SpanLifecycleEvent event, long durationNanos);
+
+    /**
+     * Called after spans are serialized for span logging.
+     *
+     * @param numSpans The number of spans serialized (more than one for a span log batch).
+     * @param durationNanos The time spent serializing them.
+     */
+    void spansSerialized(int numSpans, long durationNanos);
+
+}
@@ -0,0 +1,132 @@
+package com.nike.wingtips.profiling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes each thread's current overall request span and current span so they can be read from other threads
+ * without touching {@link Tracer}'s thread-local span stacks (which aren't safe to read from outside their thread).
+ * Pass one to {@link Tracer#setCurrentSpanPublisher(CurrentSpanPublisher)} and {@link Tracer} will publish every
+ * change to a thread's span stack; {@link SpanStackSamplingProfiler} then uses {@link #getPublishedThreads()} to find
+ * the threads worth sampling.
+ *
+ * <p>Publishing is lock-free: each thread owns a {@link PublishedThread} slot that only it writes to (two volatile
+ * writes per span stack change), and slots are added to a concurrent queue the first time a thread gets a span
+ * stack. Slots only hold weak references to their threads, and slots for dead threads are pruned periodically.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CurrentSpanPublisher {
+
+    /**
+     * How many new slots are registered between sweeps for slots of dead threads.
+     */
+    protected static final int PRUNE_EVERY_N_REGISTRATIONS = 64;
+
+    protected final ThreadLocal<PublishedThread> publishedThreadThreadLocal = new ThreadLocal<>();
+    protected final ConcurrentLinkedQueue<PublishedThread> publishedThreads = new ConcurrentLinkedQueue<>();
+    protected final AtomicInteger registrationCount = new AtomicInteger();
+
+    /**
+     * Publishes the given spans as the current thread's spans. Called by {@link Tracer} whenever the current thread's
+     * span stack changes.
+     *
+     * @param rootSpan The overall request span at the bottom of the current thread's span stack, or null if the
+     * thread no longer has a span stack.
+     * @param currentSpan The span at the top of the current thread's span stack, or null if the thread no longer has a
+     * span stack.
+     */
+    public void publish(Span rootSpan, Span currentSpan) {
+        PublishedThread publishedThread = publishedThreadThreadLocal.get();
+        if (publishedThread == null) {
+            if (rootSpan == null)
+                return;
+
+            publishedThread = new PublishedThread(Thread.currentThread());
+            publishedThreadThreadLocal.set(publishedThread);
+            publishedThreads.add(publishedThread);
+            if (registrationCount.incrementAndGet() % PRUNE_EVERY_N_REGISTRATIONS == 0)
+                pruneDeadThreads();
+        }
+
+        // Root span last so readers that see a root span see the current span that goes with it.
+        publishedThread.currentSpan = currentSpan;
+        publishedThread.rootSpan = rootSpan;
+    }
+
+    /**
+     * @return The currently published slots of all live threads that have had a span stack. A thread's slot stays in
+     * this list after its span stack is removed (with a null {@link PublishedThread#getRootSpan()}), since threads
+     * are usually pooled and will get another one.
+     */
+    public List<PublishedThread> getPublishedThreads() {
+        List<PublishedThread> result = new ArrayList<>();
+        Iterator<PublishedThread> iterator = publishedThreads.iterator();
+        while (iterator.hasNext()) {
+            PublishedThread publishedThread = iterator.next();
+            if (publishedThread.getThread() == null)
+                iterator.remove();
+            else
+                result.add(publishedThread);
+        }
+
+        return result;
+    }
+
+    protected void pruneDeadThreads() {
+        Iterator<PublishedThread> iterator = publishedThreads.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getThread() == null)
+                iterator.remove();
+        }
+    }
+
+    /**
+     * One thread's published spans. Only the owning thread writes to it.
+     */
+    public static class PublishedThread {
+        protected final WeakReference<Thread> threadRef;
+        protected final long threadId;
+        protected volatile Span rootSpan;
+        protected volatile Span currentSpan;
+
+        protected PublishedThread(Thread thread) {
+            this.threadRef = new WeakReference<>(thread);
+            this.threadId = thread.getId();
+        }
+
+        /**
+         * @return The thread, or null if it has died (or been garbage collected).
+         */
+        public Thread getThread() {
+            Thread thread = threadRef.get();
+            return (thread == null || !thread.isAlive()) ? null : thread;
+        }
+
+        public long getThreadId() {
+            return threadId;
+        }
+
+        /**
+         * @return The overall request span at the bottom of the thread's span stack, or null if the thread doesn't
+         * currently have a span stack.
+         */
+        public Span getRootSpan() {
+            return rootSpan;
+        }
+
+        /**
+         * @return The span at the top of the thread's span stack, or null if the thread doesn't currently have a span
+         * stack. May briefly be out of sync with {@link #getRootSpan()} while the thread is changing its span stack.
+         */
+        public Span getCurrentSpan() {
+            return currentSpan;
+        }
+    }
+}
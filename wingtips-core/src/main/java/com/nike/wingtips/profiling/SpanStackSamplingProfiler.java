@@ -0,0 +1,330 @@
+package com.nike.wingtips.profiling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.profiling.CurrentSpanPublisher.PublishedThread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A low-frequency in-process stack sampler that attributes samples to the overall request span each thread is working
+ * on, so you can see where the CPU goes inside slow endpoints without running an external profiler.
+ *
+ * <p>Every {@link #getSamplingIntervalMillis()} it finds the threads that currently have a Wingtips span stack via a
+ * {@link CurrentSpanPublisher} (which must be passed to {@link Tracer#setCurrentSpanPublisher(CurrentSpanPublisher)}),
+ * captures their stacks in a single {@link ThreadMXBean#getThreadInfo(long[], int)} call, and counts each stack under
+ * the name of the thread's root span. A sample is discarded if the thread's root span changed while its stack was being
+ * captured. By default only {@link Thread.State#RUNNABLE} threads are sampled, so the results show where CPU time goes
+ * rather than where threads wait.
+ *
+ * <p>The results are exported in the collapsed-stack format used by flame graph tools (e.g. Brendan Gregg's {@code
+ * flamegraph.pl} or speedscope) via {@link #writeCollapsedStacks(Appendable)}: one line per distinct stack, with the
+ * root span name as the outermost frame, frames separated by {@code ;}, and the sample count at the end. Memory is
+ * bounded by {@link #getMaxDistinctStacks()} and {@link #getMaxStackDepth()} - samples of new stacks beyond the limit
+ * are dropped and counted in {@link #getDroppedSampleCount()}.
+ *
+ * <p>Each sample pauses the sampled threads briefly at a safepoint, so keep the interval in the tens or hundreds of
+ * milliseconds.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanStackSamplingProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanStackSamplingProfiler.class);
+
+    public static final long DEFAULT_SAMPLING_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_MAX_STACK_DEPTH = 128;
+    public static final int DEFAULT_MAX_DISTINCT_STACKS = 10_000;
+
+    protected final CurrentSpanPublisher currentSpanPublisher;
+    protected final ThreadMXBean threadMXBean;
+    protected final long samplingIntervalMillis;
+    protected final int maxStackDepth;
+    protected final int maxDistinctStacks;
+    protected final boolean runnableThreadsOnly;
+
+    protected final ConcurrentMap<String, AtomicLong> collapsedStackCounts = new ConcurrentHashMap<>();
+    protected final AtomicLong sampleCount = new AtomicLong();
+    protected final AtomicLong droppedSampleCount = new AtomicLong();
+
+    protected ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new instance that samples runnable threads every {@link #DEFAULT_SAMPLING_INTERVAL_MILLIS} with the
+     * default limits.
+     */
+    public SpanStackSamplingProfiler(CurrentSpanPublisher currentSpanPublisher) {
+        this(currentSpanPublisher, DEFAULT_SAMPLING_INTERVAL_MILLIS, DEFAULT_MAX_STACK_DEPTH,
+             DEFAULT_MAX_DISTINCT_STACKS, true);
+    }
+
+    /**
+     * @param currentSpanPublisher The publisher {@link Tracer} is publishing each thread's spans to - cannot be null.
+     * @param samplingIntervalMillis How often to sample - must be greater than 0.
+     * @param maxStackDepth The maximum number of frames captured per stack (the innermost frames are kept) - must be
+     * greater than 0.
+     * @param maxDistinctStacks The maximum number of distinct stacks to keep counts for - must be greater than 0.
+     * @param runnableThreadsOnly Pass true to only sample threads that are {@link Thread.State#RUNNABLE}, false to
+     * also sample blocked and waiting threads.
+     */
+    public SpanStackSamplingProfiler(CurrentSpanPublisher currentSpanPublisher, long samplingIntervalMillis,
+                                     int maxStackDepth, int maxDistinctStacks, boolean runnableThreadsOnly) {
+        this(currentSpanPublisher, ManagementFactory.getThreadMXBean(), samplingIntervalMillis, maxStackDepth,
+             maxDistinctStacks, runnableThreadsOnly);
+    }
+
+    protected SpanStackSamplingProfiler(CurrentSpanPublisher currentSpanPublisher, ThreadMXBean threadMXBean,
+                                        long samplingIntervalMillis, int maxStackDepth, int maxDistinctStacks,
+                                        boolean runnableThreadsOnly) {
+        if (currentSpanPublisher == null)
+            throw new IllegalArgumentException("currentSpanPublisher cannot be null");
+
+        if (samplingIntervalMillis <= 0)
+            throw new IllegalArgumentException("samplingIntervalMillis must be greater than 0");
+
+        if (maxStackDepth <= 0)
+            throw new IllegalArgumentException("maxStackDepth must be greater than 0");
+
+        if (maxDistinctStacks <= 0)
+            throw new IllegalArgumentException("maxDistinctStacks must be greater than 0");
+
+        this.currentSpanPublisher = currentSpanPublisher;
+        this.threadMXBean = threadMXBean;
+        this.samplingIntervalMillis = samplingIntervalMillis;
+        this.maxStackDepth = maxStackDepth;
+        this.maxDistinctStacks = maxDistinctStacks;
+        this.runnableThreadsOnly = runnableThreadsOnly;
+    }
+
+    /**
+     * Starts sampling on a background daemon thread. Does nothing if already started.
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "wingtips-span-stack-sampling-profiler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sampleOnce();
+                }
+                catch (Throwable t) {
+                    // Don't let an unexpected error kill the sampling thread.
+                    logger.error("Unexpected error while sampling thread stacks.", t);
+                }
+            }
+        }, samplingIntervalMillis, samplingIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sampling. The samples collected so far are kept.
+     */
+    public synchronized void stop() {
+        if (scheduler == null)
+            return;
+
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    public synchronized boolean isStarted() {
+        return scheduler != null;
+    }
+
+    /**
+     * Takes one sample of every thread that currently has a span stack. Called periodically after {@link #start()},
+     * but can also be called directly.
+     */
+    public void sampleOnce() {
+        List<PublishedThread> candidates = new ArrayList<>();
+        List<Span> rootSpansBeforeSample = new ArrayList<>();
+        Thread currentThread = Thread.currentThread();
+        for (PublishedThread publishedThread : currentSpanPublisher.getPublishedThreads()) {
+            Span rootSpan = publishedThread.getRootSpan();
+            if (rootSpan != null && publishedThread.getThread() != currentThread) {
+                candidates.add(publishedThread);
+                rootSpansBeforeSample.add(rootSpan);
+            }
+        }
+
+        if (candidates.isEmpty())
+            return;
+
+        long[] threadIds = new long[candidates.size()];
+        for (int i = 0; i < threadIds.length; i++) {
+            threadIds[i] = candidates.get(i).getThreadId();
+        }
+        ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds, maxStackDepth);
+
+        for (int i = 0; i < threadInfos.length; i++) {
+            ThreadInfo threadInfo = threadInfos[i];
+            if (threadInfo == null)
+                continue; // The thread died.
+
+            Span rootSpan = rootSpansBeforeSample.get(i);
+            if (candidates.get(i).getRootSpan() != rootSpan)
+                continue; // The thread moved on to different work while we were sampling it - can't attribute it.
+
+            if (runnableThreadsOnly && threadInfo.getThreadState() != Thread.State.RUNNABLE)
+                continue;
+
+            StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+            if (stackTrace.length == 0)
+                continue;
+
+            recordSample(collapseStack(rootSpan.getSpanName(), stackTrace));
+        }
+    }
+
+    /**
+     * @return The given stack in collapsed-stack form: the root span name followed by the frames from outermost to
+     * innermost, separated by {@code ;}.
+     */
+    protected String collapseStack(String rootSpanName, StackTraceElement[] stackTrace) {
+        StringBuilder sb = new StringBuilder(stackTrace.length * 48);
+        sb.append(sanitizeFrame(rootSpanName));
+        for (int i = stackTrace.length - 1; i >= 0; i--) {
+            StackTraceElement frame = stackTrace[i];
+            sb.append(';').append(frame.getClassName()).append('.').append(frame.getMethodName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The given span name with the characters that have meaning in the collapsed-stack format replaced.
+     */
+    protected String sanitizeFrame(String frame) {
+        if (frame == null)
+            return "null";
+
+        return frame.replace(';', '_').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    protected void recordSample(String collapsedStack) {
+        AtomicLong count = collapsedStackCounts.get(collapsedStack);
+        if (count == null) {
+            if (collapsedStackCounts.size() >= maxDistinctStacks) {
+                droppedSampleCount.incrementAndGet();
+                return;
+            }
+
+            AtomicLong newCount = new AtomicLong();
+            count = collapsedStackCounts.putIfAbsent(collapsedStack, newCount);
+            if (count == null)
+                count = newCount;
+        }
+
+        count.incrementAndGet();
+        sampleCount.incrementAndGet();
+    }
+
+    /**
+     * Writes every sampled stack in collapsed-stack format (one {@code root-span-name;frame;...;frame count} line per
+     * distinct stack, sorted) to the given output.
+     */
+    public void writeCollapsedStacks(Appendable output) throws IOException {
+        writeCollapsedStacks(output, null);
+    }
+
+    /**
+     * Same as {@link #writeCollapsedStacks(Appendable)}, but only writes the stacks sampled under the given root span
+     * name. Pass null to write every stack.
+     */
+    public void writeCollapsedStacks(Appendable output, String rootSpanName) throws IOException {
+        String prefix = (rootSpanName == null) ? null : sanitizeFrame(rootSpanName) + ";";
+        for (Map.Entry<String, Long> entry : getCollapsedStackCounts().entrySet()) {
+            if (prefix == null || entry.getKey().startsWith(prefix))
+                output.append(entry.getKey()).append(' ').append(String.valueOf(entry.getValue())).append('\n');
+        }
+    }
+
+    /**
+     * @return The collapsed-stack format output of {@link #writeCollapsedStacks(Appendable)} as a string.
+     */
+    public String getCollapsedStacks() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeCollapsedStacks(sb);
+        }
+        catch (IOException ex) {
+            // Should never happen with a StringBuilder.
+            throw new IllegalStateException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return A sorted point-in-time copy of the sample count of each distinct collapsed stack.
+     */
+    public Map<String, Long> getCollapsedStackCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : collapsedStackCounts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Clears all the samples collected so far.
+     */
+    public void reset() {
+        collapsedStackCounts.clear();
+        sampleCount.set(0);
+        droppedSampleCount.set(0);
+    }
+
+    /**
+     * @return The number of samples recorded since this instance was created or last {@link #reset()}.
+     */
+    public long getSampleCount() {
+        return sampleCount.get();
+    }
+
+    /**
+     * @return The number of samples dropped because {@link #getMaxDistinctStacks()} was reached.
+     */
+    public long getDroppedSampleCount() {
+        return droppedSampleCount.get();
+    }
+
+    public long getSamplingIntervalMillis() {
+        return samplingIntervalMillis;
+    }
+
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    public int getMaxDistinctStacks() {
+        return maxDistinctStacks;
+    }
+
+    public boolean isRunnableThreadsOnly() {
+        return runnableThreadsOnly;
+    }
+}
@@ -0,0 +1,260 @@
+package com.nike.wingtips.resourceusage;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Keeps a small ring of recent garbage collection pauses, fed by the JVM's {@link GarbageCollectorMXBean}
+ * notifications, so that the GC pause time overlapping a span can be looked up cheaply when the span completes. Pass
+ * one to {@link Tracer#setGcPauseTracker(GcPauseTracker)} (after calling {@link #start()}) to have every completed
+ * span annotated with {@link Span#getGcPauseMicros()}, which makes it easy to tell when a latency outlier was really a
+ * GC pause.
+ *
+ * <p>There is a single JVM-wide subscription - nothing is done per span except a scan of the ring from the newest pause
+ * backwards, which stops as soon as it reaches pauses that ended before the span started. The JVM reports GC start and
+ * end times with millisecond resolution, and delivers the notification shortly after the pause ends, so a pause that
+ * ends just before a span completes may not be counted for that span.
+ *
+ * <p>Only stop-the-world pauses are recorded - notifications for concurrent collector cycles (e.g. ZGC and Shenandoah
+ * "cycles") are ignored, see {@link #isPause(String, String)}. Older collectors like CMS report their concurrent work as
+ * a "major GC", so the numbers for those will overstate the actual pause time.
+ */
+@SuppressWarnings("WeakerAccess")
+public class GcPauseTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GcPauseTracker.class);
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    protected final int capacity;
+    protected final int mask;
+    protected final boolean sampledSpansOnly;
+
+    protected final AtomicLongArray pauseStartEpochMicros;
+    protected final AtomicLongArray pauseEndEpochMicros;
+    /**
+     * The sequence number of the pause currently stored in each slot, or -1 while the slot is being written. Lets readers
+     * detect slots that were overwritten while they were reading them.
+     */
+    protected final AtomicLongArray slotSequences;
+    protected volatile long pauseCount = 0;
+
+    protected final long jvmStartTimeMillis;
+    protected final NotificationListener gcNotificationListener = new NotificationListener() {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            handleGcNotification(notification);
+        }
+    };
+    protected final List<NotificationEmitter> subscribedEmitters = new ArrayList<>();
+
+    /**
+     * Creates a new instance that remembers the last {@link #DEFAULT_CAPACITY} pauses and annotates all spans.
+     */
+    public GcPauseTracker() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * @param capacity The number of recent pauses to remember - will be rounded up to a power of two. Must be greater
+     * than 0. Spans longer than the time it takes for this many pauses to happen will have their GC pause time
+     * understated.
+     * @param sampledSpansOnly Pass true to only annotate spans that are {@link Span#isSampleable()}, so unsampled spans
+     * don't pay for the lookup.
+     */
+    public GcPauseTracker(int capacity, boolean sampledSpansOnly) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be greater than 0");
+
+        if (capacity > (1 << 20))
+            throw new IllegalArgumentException("capacity cannot be greater than " + (1 << 20));
+
+        int actualCapacity = Integer.highestOneBit(capacity);
+        if (actualCapacity < capacity)
+            actualCapacity <<= 1;
+
+        this.capacity = actualCapacity;
+        this.mask = actualCapacity - 1;
+        this.sampledSpansOnly = sampledSpansOnly;
+        this.pauseStartEpochMicros = new AtomicLongArray(actualCapacity);
+        this.pauseEndEpochMicros = new AtomicLongArray(actualCapacity);
+        this.slotSequences = new AtomicLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++) {
+            slotSequences.set(i, -1);
+        }
+        this.jvmStartTimeMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Subscribes to the notifications of every {@link GarbageCollectorMXBean} in this JVM that supports them. Does
+     * nothing if already started.
+     */
+    public synchronized void start() {
+        if (!subscribedEmitters.isEmpty())
+            return;
+
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gcBean instanceof NotificationEmitter)) {
+                logger.debug("Garbage collector does not emit notifications. gc_name={}", gcBean.getName());
+                continue;
+            }
+
+            NotificationEmitter emitter = (NotificationEmitter) gcBean;
+            emitter.addNotificationListener(gcNotificationListener, null, null);
+            subscribedEmitters.add(emitter);
+        }
+
+        if (subscribedEmitters.isEmpty())
+            logger.warn("No garbage collectors emit notifications - GC pauses will not be tracked.");
+    }
+
+    /**
+     * Unsubscribes from the garbage collector notifications. Pauses already recorded are kept.
+     */
+    public synchronized void stop() {
+        for (NotificationEmitter emitter : subscribedEmitters) {
+            try {
+                emitter.removeNotificationListener(gcNotificationListener);
+            }
+            catch (Exception ex) {
+                logger.warn("Unable to unsubscribe from garbage collector notifications.", ex);
+            }
+        }
+        subscribedEmitters.clear();
+    }
+
+    /**
+     * @return true if {@link #start()} has subscribed to at least one garbage collector.
+     */
+    public synchronized boolean isStarted() {
+        return !subscribedEmitters.isEmpty();
+    }
+
+    protected void handleGcNotification(Notification notification) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+            return;
+
+        try {
+            GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (!isPause(info.getGcName(), info.getGcAction()))
+                return;
+
+            GcInfo gcInfo = info.getGcInfo();
+            // GcInfo times are in milliseconds since the JVM started.
+            recordPause(
+                TimeUnit.MILLISECONDS.toMicros(jvmStartTimeMillis + gcInfo.getStartTime()),
+                TimeUnit.MILLISECONDS.toMicros(jvmStartTimeMillis + gcInfo.getEndTime())
+            );
+        }
+        catch (Exception ex) {
+            logger.warn("Unable to process garbage collector notification.", ex);
+        }
+    }
+
+    /**
+     * @return true if the given collection was a stop-the-world pause, false if it was a concurrent collector cycle
+     * that ran alongside the application. The default implementation treats everything except actions describing a
+     * "cycle" (as reported by ZGC and Shenandoah for their concurrent work) as a pause.
+     */
+    protected boolean isPause(String gcName, String gcAction) {
+        return gcAction == null || !gcAction.toLowerCase().contains("cycle");
+    }
+
+    /**
+     * Records a pause. Normally called for you by the garbage collector notifications after {@link #start()}, but is
+     * public so other pause sources (or tests) can feed the ring.
+     *
+     * @param startEpochMicros When the pause started, in microseconds since the epoch.
+     * @param endEpochMicros When the pause ended, in microseconds since the epoch.
+     */
+    public synchronized void recordPause(long startEpochMicros, long endEpochMicros) {
+        long sequence = pauseCount;
+        int slot = (int) (sequence & mask);
+
+        slotSequences.set(slot, -1);
+        pauseStartEpochMicros.set(slot, startEpochMicros);
+        pauseEndEpochMicros.set(slot, Math.max(startEpochMicros, endEpochMicros));
+        slotSequences.set(slot, sequence);
+
+        pauseCount = sequence + 1;
+    }
+
+    /**
+     * @return The total time in microseconds of the recorded pauses that overlap the given interval.
+     */
+    public long getPauseMicrosOverlapping(long startEpochMicros, long endEpochMicros) {
+        long newestSequence = pauseCount - 1;
+        long oldestSequence = Math.max(0, newestSequence - mask);
+        long total = 0;
+
+        for (long sequence = newestSequence; sequence >= oldestSequence; sequence--) {
+            int slot = (int) (sequence & mask);
+            if (slotSequences.get(slot) != sequence)
+                break; // Overwritten by a newer pause - everything older is gone too.
+
+            long pauseStart = pauseStartEpochMicros.get(slot);
+            long pauseEnd = pauseEndEpochMicros.get(slot);
+            if (slotSequences.get(slot) != sequence)
+                break;
+
+            if (pauseEnd < startEpochMicros)
+                break; // Pauses are recorded in the order they ended, so every older pause ended before this interval.
+
+            long overlap = Math.min(pauseEnd, endEpochMicros) - Math.max(pauseStart, startEpochMicros);
+            if (overlap > 0)
+                total += overlap;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return The total time in microseconds of the recorded pauses that overlap the given completed span, or null if
+     * the span isn't completed or shouldn't be annotated (see {@link #isSampledSpansOnly()}).
+     */
+    public Long getPauseMicrosOverlapping(Span span) {
+        Long durationNanos = span.getDurationNanos();
+        if (durationNanos == null || (sampledSpansOnly && !span.isSampleable()))
+            return null;
+
+        long spanStartEpochMicros = span.getSpanStartTimeEpochMicros();
+        return getPauseMicrosOverlapping(
+            spanStartEpochMicros, spanStartEpochMicros + TimeUnit.NANOSECONDS.toMicros(durationNanos)
+        );
+    }
+
+    /**
+     * @return The number of pauses recorded since this instance was created, including ones that have fallen out of
+     * the ring.
+     */
+    public long getPauseCount() {
+        return pauseCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isSampledSpansOnly() {
+        return sampledSpansOnly;
+    }
+}
@@ -0,0 +1,138 @@
+package com.nike.wingtips.resourceusage;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The resources (CPU time, allocated bytes, blocked and waited time) used by the threads that worked on a {@link
+ * Span}, available via {@link Span#getResourceUsage()} when {@link Tracer#setThreadResourceSampler(ThreadResourceSampler)}
+ * is set. Each value is {@link ThreadResourceSnapshot#NOT_MEASURED} if it wasn't measured.
+ *
+ * <p>{@link Tracer} adds the usage of each stretch of time the span spends on a thread's span stack - from when it
+ * starts or its span stack is registered with the thread via {@link Tracer#registerWithThread(java.util.Deque)}, to
+ * when it completes or its span stack is unregistered via {@link Tracer#unregisterFromThread()}. So a span that hops
+ * threads during async processing includes the work done on every thread it visited, and time spent waiting in between
+ * (e.g. queued in an executor) costs nothing. If the span stack is registered with several threads at once the usage
+ * of all of them is summed. Note that a span's own usage includes the usage of its child sub-spans.
+ *
+ * <p>Since the overall request span is at the bottom of every span stack captured for async work (e.g. by {@link
+ * com.nike.wingtips.util.asynchelperwrapper.RunnableWithTracing} and the other {@code *WithTracing} wrappers), the
+ * request span's usage is the total cost of the request in this JVM, including everything it fanned out to other
+ * threads. Its {@link #getAsyncTaskCount()} says how many async tasks contributed. Work done after the request span
+ * completes (e.g. fire-and-forget tasks that outlive the request) is not included.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanResourceUsage {
+
+    protected final Thread startThread;
+    protected final ThreadResourceSnapshot startSnapshot;
+
+    protected final AtomicLong cpuTimeNanos = new AtomicLong(ThreadResourceSnapshot.NOT_MEASURED);
+    protected final AtomicLong allocatedBytes = new AtomicLong(ThreadResourceSnapshot.NOT_MEASURED);
+    protected final AtomicLong blockedTimeMillis = new AtomicLong(ThreadResourceSnapshot.NOT_MEASURED);
+    protected final AtomicLong waitedTimeMillis = new AtomicLong(ThreadResourceSnapshot.NOT_MEASURED);
+    protected final AtomicLong asyncTaskCount = new AtomicLong();
+
+    /**
+     * @param startThread The thread the span was started on, or null if unknown.
+     * @param startSnapshot The snapshot of {@code startThread} taken when the span was started, or null if unknown.
+     */
+    public SpanResourceUsage(Thread startThread, ThreadResourceSnapshot startSnapshot) {
+        this.startThread = startThread;
+        this.startSnapshot = startSnapshot;
+    }
+
+    /**
+     * @return A new instance with the given already-measured totals, e.g. for spans deserialized from JSON.
+     */
+    public static SpanResourceUsage fromTotals(long cpuTimeNanos, long allocatedBytes, long blockedTimeMillis,
+                                               long waitedTimeMillis) {
+        return fromTotals(cpuTimeNanos, allocatedBytes, blockedTimeMillis, waitedTimeMillis, 0);
+    }
+
+    /**
+     * @return A new instance with the given already-measured totals and async task count, e.g. for spans deserialized
+     * from JSON.
+     */
+    public static SpanResourceUsage fromTotals(long cpuTimeNanos, long allocatedBytes, long blockedTimeMillis,
+                                               long waitedTimeMillis, long asyncTaskCount) {
+        SpanResourceUsage result = new SpanResourceUsage(null, null);
+        result.cpuTimeNanos.set(cpuTimeNanos);
+        result.allocatedBytes.set(allocatedBytes);
+        result.blockedTimeMillis.set(blockedTimeMillis);
+        result.waitedTimeMillis.set(waitedTimeMillis);
+        result.asyncTaskCount.set(asyncTaskCount);
+        return result;
+    }
+
+    /**
+     * Adds the difference between the two given snapshots (which must be of the same thread) to the totals.
+     */
+    public void addUsage(ThreadResourceSnapshot from, ThreadResourceSnapshot to) {
+        addDelta(cpuTimeNanos, from.getCpuTimeNanos(), to.getCpuTimeNanos());
+        addDelta(allocatedBytes, from.getAllocatedBytes(), to.getAllocatedBytes());
+        addDelta(blockedTimeMillis, from.getBlockedTimeMillis(), to.getBlockedTimeMillis());
+        addDelta(waitedTimeMillis, from.getWaitedTimeMillis(), to.getWaitedTimeMillis());
+    }
+
+    protected static void addDelta(AtomicLong total, long from, long to) {
+        if (from < 0 || to < 0)
+            return;
+
+        long delta = Math.max(0, to - from);
+        while (true) {
+            long current = total.get();
+            long updated = (current == ThreadResourceSnapshot.NOT_MEASURED) ? delta : current + delta;
+            if (total.compareAndSet(current, updated))
+                return;
+        }
+    }
+
+    /**
+     * @return The thread the span was started on, or null if unknown.
+     */
+    public Thread getStartThread() {
+        return startThread;
+    }
+
+    /**
+     * @return The snapshot of {@link #getStartThread()} taken when the span was started, or null if unknown.
+     */
+    public ThreadResourceSnapshot getStartSnapshot() {
+        return startSnapshot;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public long getBlockedTimeMillis() {
+        return blockedTimeMillis.get();
+    }
+
+    public long getWaitedTimeMillis() {
+        return waitedTimeMillis.get();
+    }
+
+    /**
+     * Records that an async task was run with this span at the bottom of its span stack.
+     */
+    public void incrementAsyncTaskCount() {
+        asyncTaskCount.incrementAndGet();
+    }
+
+    /**
+     * @return The number of async tasks (e.g. {@code *WithTracing} wrapper executions) that were run with this span at
+     * the bottom of their span stack. Only overall request spans (or other spans at the bottom of a span stack) will
+     * have a non-zero count.
+     */
+    public long getAsyncTaskCount() {
+        return asyncTaskCount.get();
+    }
+}
@@ -0,0 +1,159 @@
+package com.nike.wingtips.resourceusage;
+
+import com.nike.wingtips.Tracer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Captures {@link ThreadResourceSnapshot}s of the current thread's CPU time, allocated bytes, and blocked/waited time
+ * using the JVM's {@link ThreadMXBean}. Pass one to {@link Tracer#setThreadResourceSampler(ThreadResourceSampler)} to
+ * have the resources used by each span recorded on the span (see {@link SpanResourceUsage}).
+ *
+ * <p>Each measurement is only taken if it was requested and the JVM supports it - anything else is reported as {@link
+ * ThreadResourceSnapshot#NOT_MEASURED}. CPU time and allocated bytes are cheap (a few hundred nanoseconds per sample on
+ * HotSpot). Blocked and waited time are much more expensive since they require a {@link ThreadInfo} lookup and turn on
+ * JVM-wide thread contention monitoring, so they're off unless you ask for them.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ThreadResourceSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadResourceSampler.class);
+
+    protected final ThreadMXBean threadMXBean;
+    protected final boolean measureCpuTime;
+    protected final boolean measureAllocatedBytes;
+    protected final boolean measureBlockedAndWaitedTime;
+
+    /**
+     * Creates a new instance that measures CPU time and allocated bytes (where supported), but not blocked and waited
+     * time.
+     */
+    public ThreadResourceSampler() {
+        this(true, true, false);
+    }
+
+    /**
+     * @param measureCpuTime Pass true to measure thread CPU time.
+     * @param measureAllocatedBytes Pass true to measure bytes allocated by the thread.
+     * @param measureBlockedAndWaitedTime Pass true to measure the time the thread spent blocked on monitors and
+     * waiting. This turns on thread contention monitoring for the whole JVM.
+     */
+    public ThreadResourceSampler(boolean measureCpuTime, boolean measureAllocatedBytes,
+                                 boolean measureBlockedAndWaitedTime) {
+        this(ManagementFactory.getThreadMXBean(), measureCpuTime, measureAllocatedBytes, measureBlockedAndWaitedTime);
+    }
+
+    protected ThreadResourceSampler(ThreadMXBean threadMXBean, boolean measureCpuTime, boolean measureAllocatedBytes,
+                                    boolean measureBlockedAndWaitedTime) {
+        this.threadMXBean = threadMXBean;
+        this.measureCpuTime = measureCpuTime && isCpuTimeSupported(threadMXBean);
+        this.measureAllocatedBytes = measureAllocatedBytes && isAllocatedBytesSupported(threadMXBean);
+        this.measureBlockedAndWaitedTime = measureBlockedAndWaitedTime && enableContentionMonitoring(threadMXBean);
+
+        if (measureCpuTime != this.measureCpuTime
+            || measureAllocatedBytes != this.measureAllocatedBytes
+            || measureBlockedAndWaitedTime != this.measureBlockedAndWaitedTime) {
+            logger.warn(
+                "Some requested thread resource measurements are not supported by this JVM and will not be recorded. "
+                + "measuring_cpu_time={}, measuring_allocated_bytes={}, measuring_blocked_and_waited_time={}",
+                this.measureCpuTime, this.measureAllocatedBytes, this.measureBlockedAndWaitedTime
+            );
+        }
+    }
+
+    protected static boolean isCpuTimeSupported(ThreadMXBean threadMXBean) {
+        try {
+            if (!threadMXBean.isCurrentThreadCpuTimeSupported())
+                return false;
+
+            if (!threadMXBean.isThreadCpuTimeEnabled())
+                threadMXBean.setThreadCpuTimeEnabled(true);
+
+            return true;
+        }
+        catch (UnsupportedOperationException | SecurityException ex) {
+            return false;
+        }
+    }
+
+    protected static boolean isAllocatedBytesSupported(ThreadMXBean threadMXBean) {
+        try {
+            if (!(threadMXBean instanceof com.sun.management.ThreadMXBean))
+                return false;
+
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (!sunThreadMXBean.isThreadAllocatedMemorySupported())
+                return false;
+
+            if (!sunThreadMXBean.isThreadAllocatedMemoryEnabled())
+                sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+            return true;
+        }
+        catch (UnsupportedOperationException | SecurityException | LinkageError ex) {
+            // LinkageError covers JVMs that don't ship the com.sun.management extensions.
+            return false;
+        }
+    }
+
+    protected static boolean enableContentionMonitoring(ThreadMXBean threadMXBean) {
+        try {
+            if (!threadMXBean.isThreadContentionMonitoringSupported())
+                return false;
+
+            if (!threadMXBean.isThreadContentionMonitoringEnabled())
+                threadMXBean.setThreadContentionMonitoringEnabled(true);
+
+            return true;
+        }
+        catch (UnsupportedOperationException | SecurityException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return A snapshot of the current thread's resource counters.
+     */
+    public ThreadResourceSnapshot sampleCurrentThread() {
+        long nanoTime = System.nanoTime();
+        long cpuTimeNanos = (measureCpuTime)
+                            ? threadMXBean.getCurrentThreadCpuTime()
+                            : ThreadResourceSnapshot.NOT_MEASURED;
+
+        long allocatedBytes = ThreadResourceSnapshot.NOT_MEASURED;
+        long blockedTimeMillis = ThreadResourceSnapshot.NOT_MEASURED;
+        long waitedTimeMillis = ThreadResourceSnapshot.NOT_MEASURED;
+        if (measureAllocatedBytes || measureBlockedAndWaitedTime) {
+            long threadId = Thread.currentThread().getId();
+            if (measureAllocatedBytes)
+                allocatedBytes = ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId);
+
+            if (measureBlockedAndWaitedTime) {
+                ThreadInfo threadInfo = threadMXBean.getThreadInfo(threadId);
+                if (threadInfo != null) {
+                    blockedTimeMillis = threadInfo.getBlockedTime();
+                    waitedTimeMillis = threadInfo.getWaitedTime();
+                }
+            }
+        }
+
+        return new ThreadResourceSnapshot(nanoTime, cpuTimeNanos, allocatedBytes, blockedTimeMillis, waitedTimeMillis);
+    }
+
+    public boolean isMeasuringCpuTime() {
+        return measureCpuTime;
+    }
+
+    public boolean isMeasuringAllocatedBytes() {
+        return measureAllocatedBytes;
+    }
+
+    public boolean isMeasuringBlockedAndWaitedTime() {
+        return measureBlockedAndWaitedTime;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nike.wingtips.resourceusage;
+
+/**
+ * The cumulative resource counters of one thread at one moment, as captured by {@link
+ * ThreadResourceSampler#sampleCurrentThread()}. Counters the JVM doesn't support (or that weren't requested) are
+ * {@link #NOT_MEASURED}. Only snapshots of the same thread can be meaningfully subtracted from each other.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ThreadResourceSnapshot {
+
+    public static final long NOT_MEASURED = -1;
+
+    protected final long nanoTime;
+    protected final long cpuTimeNanos;
+    protected final long allocatedBytes;
+    protected final long blockedTimeMillis;
+    protected final long waitedTimeMillis;
+
+    public ThreadResourceSnapshot(long nanoTime, long cpuTimeNanos, long allocatedBytes, long blockedTimeMillis,
+                                  long waitedTimeMillis) {
+        this.nanoTime = nanoTime;
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.blockedTimeMillis = blockedTimeMillis;
+        this.waitedTimeMillis = waitedTimeMillis;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} when this snapshot was taken.
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getBlockedTimeMillis() {
+        return blockedTimeMillis;
+    }
+
+    public long getWaitedTimeMillis() {
+        return waitedTimeMillis;
+    }
+}
@@ -3,6 +3,7 @@ package com.nike.wingtips.util;
 import com.nike.internal.util.Pair;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
 import com.nike.wingtips.util.asynchelperwrapper.CallableWithTracing;
 import com.nike.wingtips.util.asynchelperwrapper.ExecutorServiceWithTracing;
 import com.nike.wingtips.util.asynchelperwrapper.RunnableWithTracing;
@@ -314,6 +315,13 @@ public class AsyncWingtipsHelperJava7 {
 
         Tracer.getInstance().registerWithThread(spanStackToLink);
 
+        // Count this as an async task for the request's resource usage rollup (only tracked when resource usage is
+        //      being measured - see Tracer.setThreadResourceSampler(...)).
+        Span requestSpan = (spanStackToLink == null) ? null : spanStackToLink.peekLast();
+        SpanResourceUsage requestResourceUsage = (requestSpan == null) ? null : requestSpan.getResourceUsage();
+        if (requestResourceUsage != null)
+            requestResourceUsage.incrementAsyncTaskCount();
+
         // Return the copied original data so that it can be re-linked later (if the caller wants)
         return new TracingState(callingThreadSpanStack, callingThreadMdcContextMap);
     }
@@ -0,0 +1,468 @@
+package com.nike.wingtips.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A bounded, disk-backed FIFO queue of opaque byte records, for holding onto encoded span data while a span collector
+ * (e.g. a Zipkin server) is unreachable so it can be replayed later instead of being dropped.
+ *
+ * <p>Records are appended to a series of fixed-size, memory-mapped segment files in a single directory. Appends and
+ * reads are plain memory copies - the OS writes the mapped pages to disk in the background, so the data survives the
+ * process crashing or being killed. Call {@link #flush()} if you also need it to survive the machine going down. The
+ * total disk space used is capped at {@code maxDiskBytes} - once that's used up, {@link #append(byte[])} returns false
+ * (and the record is counted in {@link #getDroppedRecordCount()}) until the oldest segment has been fully consumed
+ * and deleted.
+ *
+ * <p>Each segment file starts with a header holding a magic number, format version, segment size, and the read
+ * offset of the next unconsumed record. Each record is stored as its length, a CRC32 of its bytes, and then the
+ * bytes themselves. The length is written last, so a record that was only partially written when the process died
+ * looks like the end of the segment. When a new instance is created for a directory that already contains segments,
+ * each segment is scanned up to the first record that's incomplete or fails its CRC check, and reading picks up from
+ * the stored read offset. Segments with a bad header are logged and deleted.
+ *
+ * <p>Fully consumed segment files are deleted, but Java has no supported way to unmap a {@link MappedByteBuffer}, so a
+ * deleted segment's mapping (and, on most operating systems, its disk space) is only freed once the buffer is garbage
+ * collected. Disk use can briefly go over {@code maxDiskBytes} until that happens.
+ *
+ * <p>Consuming records is a two step process so that records aren't lost if sending them fails: {@link
+ * #peek(int)} returns the oldest records without removing them, and {@link #remove(int)} removes them once they've
+ * been dealt with. All methods are thread safe, but there should only be one consumer calling {@link #peek(int)} and
+ * {@link #remove(int)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MappedFileSpool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileSpool.class);
+
+    /**
+     * The magic number at the start of every segment file ("WTSP").
+     */
+    public static final int SEGMENT_MAGIC = 0x57545350;
+    public static final int SEGMENT_FORMAT_VERSION = 1;
+    /**
+     * The segment header: magic (4 bytes), format version (4), segment size (4), read offset (4).
+     */
+    public static final int SEGMENT_HEADER_SIZE_BYTES = 16;
+    /**
+     * The per-record header: length (4 bytes), CRC32 of the record bytes (4). See {@link MappedSegmentRecords}.
+     */
+    public static final int RECORD_HEADER_SIZE_BYTES = MappedSegmentRecords.RECORD_HEADER_SIZE_BYTES;
+    public static final int MIN_SEGMENT_SIZE_BYTES = 4096;
+    public static final int DEFAULT_SEGMENT_SIZE_BYTES = 8 * 1024 * 1024;
+    public static final String SEGMENT_FILE_PREFIX = "wingtips-spool-";
+    public static final String SEGMENT_FILE_SUFFIX = ".seg";
+
+    protected static final int MAGIC_OFFSET = 0;
+    protected static final int VERSION_OFFSET = 4;
+    protected static final int SEGMENT_SIZE_OFFSET = 8;
+    protected static final int READ_OFFSET_OFFSET = 12;
+
+    protected final File directory;
+    protected final int segmentSizeBytes;
+    protected final long maxDiskBytes;
+    protected final int maxSegments;
+
+    protected final Deque<Segment> segments = new ArrayDeque<>();
+    protected long nextSegmentSequence;
+    protected long spooledRecordCount;
+    protected long spooledRecordBytes;
+    protected long droppedRecordCount;
+    protected boolean closed;
+
+    /**
+     * Creates a new instance using {@link #DEFAULT_SEGMENT_SIZE_BYTES} sized segments.
+     *
+     * @param directory The directory to hold the segment files. Will be created if it doesn't exist. Any segments
+     * already in it are recovered.
+     * @param maxDiskBytes The maximum disk space to use. Must be at least {@link #DEFAULT_SEGMENT_SIZE_BYTES}.
+     * @throws IOException If the directory can't be created or read.
+     */
+    public MappedFileSpool(File directory, long maxDiskBytes) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE_BYTES, maxDiskBytes);
+    }
+
+    /**
+     * @param directory The directory to hold the segment files. Will be created if it doesn't exist. Any segments
+     * already in it are recovered. Only one instance should use a given directory at a time.
+     * @param segmentSizeBytes The size of each segment file. Must be at least {@link #MIN_SEGMENT_SIZE_BYTES}. Records
+     * bigger than a segment (minus its headers) can't be spooled.
+     * @param maxDiskBytes The maximum disk space to use. Must be at least {@code segmentSizeBytes}, and is rounded down
+     * to a whole number of segments.
+     * @throws IOException If the directory can't be created or read.
+     */
+    public MappedFileSpool(File directory, int segmentSizeBytes, long maxDiskBytes) throws IOException {
+        if (directory == null)
+            throw new IllegalArgumentException("directory cannot be null");
+
+        if (segmentSizeBytes < MIN_SEGMENT_SIZE_BYTES) {
+            throw new IllegalArgumentException(
+                "segmentSizeBytes must be at least " + MIN_SEGMENT_SIZE_BYTES + ". Invalid value: " + segmentSizeBytes
+            );
+        }
+
+        if (maxDiskBytes < segmentSizeBytes) {
+            throw new IllegalArgumentException(
+                "maxDiskBytes must be at least segmentSizeBytes (" + segmentSizeBytes + "). Invalid value: "
+                + maxDiskBytes
+            );
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+            throw new IOException("Unable to create spool directory: " + directory.getAbsolutePath());
+
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxDiskBytes / segmentSizeBytes);
+
+        recoverExistingSegments();
+    }
+
+    protected void recoverExistingSegments() throws IOException {
+        File[] segmentFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return parseSegmentSequence(name) >= 0;
+            }
+        });
+        if (segmentFiles == null)
+            throw new IOException("Unable to list spool directory: " + directory.getAbsolutePath());
+
+        Arrays.sort(segmentFiles, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long seq1 = parseSegmentSequence(o1.getName());
+                long seq2 = parseSegmentSequence(o2.getName());
+                return (seq1 < seq2) ? -1 : ((seq1 == seq2) ? 0 : 1);
+            }
+        });
+
+        for (File segmentFile : segmentFiles) {
+            long sequence = parseSegmentSequence(segmentFile.getName());
+            nextSegmentSequence = sequence + 1;
+            Segment segment;
+            try {
+                segment = Segment.open(segmentFile, sequence);
+            }
+            catch (IOException ex) {
+                logger.warn("Deleting unreadable span spool segment: {}", segmentFile.getAbsolutePath(), ex);
+                deleteSegmentFile(segmentFile);
+                continue;
+            }
+
+            segments.addLast(segment);
+            spooledRecordCount += segment.unreadRecordCount;
+            spooledRecordBytes += segment.unreadRecordBytes;
+        }
+
+        // Fully consumed segments (other than the newest, which can still be appended to) are no longer needed.
+        while (segments.size() > 1 && segments.peekFirst().isFullyRead()) {
+            deleteSegmentFile(segments.removeFirst().file);
+        }
+    }
+
+    protected static long parseSegmentSequence(String fileName) {
+        if (!fileName.startsWith(SEGMENT_FILE_PREFIX) || !fileName.endsWith(SEGMENT_FILE_SUFFIX))
+            return -1;
+
+        String sequence = fileName.substring(
+            SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_SUFFIX.length()
+        );
+        try {
+            return Long.parseLong(sequence);
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    protected File segmentFile(long sequence) {
+        return new File(directory, SEGMENT_FILE_PREFIX + String.format("%020d", sequence) + SEGMENT_FILE_SUFFIX);
+    }
+
+    /**
+     * Appends the given record to the end of the spool.
+     *
+     * @param record The record to append. Cannot be null.
+     * @return true if the record was spooled, false if it was dropped because the disk budget is used up, the record
+     * is empty or too big to fit in a segment, a new segment file couldn't be created, or this spool has been closed.
+     */
+    public synchronized boolean append(byte[] record) {
+        if (record == null)
+            throw new IllegalArgumentException("record cannot be null");
+
+        if (closed || record.length == 0 || record.length > maxRecordSizeBytes()) {
+            droppedRecordCount++;
+            return false;
+        }
+
+        Segment activeSegment = segments.peekLast();
+        if (activeSegment == null || !activeSegment.hasRoomFor(record.length)) {
+            if (segments.size() >= maxSegments) {
+                droppedRecordCount++;
+                return false;
+            }
+
+            long sequence = nextSegmentSequence++;
+            try {
+                activeSegment = Segment.create(segmentFile(sequence), sequence, segmentSizeBytes);
+            }
+            catch (IOException ex) {
+                logger.warn("Unable to create span spool segment - the record will be dropped", ex);
+                droppedRecordCount++;
+                return false;
+            }
+            segments.addLast(activeSegment);
+        }
+
+        activeSegment.append(record);
+        spooledRecordCount++;
+        spooledRecordBytes += record.length;
+        return true;
+    }
+
+    /**
+     * @return The largest record that can be spooled, based on the segment size.
+     */
+    public int maxRecordSizeBytes() {
+        return segmentSizeBytes - SEGMENT_HEADER_SIZE_BYTES - RECORD_HEADER_SIZE_BYTES;
+    }
+
+    /**
+     * Returns the oldest records in the spool without removing them. Call {@link #remove(int)} with the size of the
+     * returned list once they've been dealt with.
+     *
+     * @param maxTotalBytes The maximum combined size of the returned records. At least one record is always returned
+     * if the spool isn't empty, even if it's bigger than this.
+     * @return The oldest records in the spool, or an empty list if the spool is empty.
+     */
+    public synchronized List<byte[]> peek(int maxTotalBytes) {
+        List<byte[]> records = new ArrayList<>();
+        if (closed)
+            return records;
+
+        long totalBytes = 0;
+        for (Segment segment : segments) {
+            int position = segment.readPosition;
+            while (position < segment.writePosition) {
+                int length = segment.recordLengthAt(position);
+                if (!records.isEmpty() && totalBytes + length > maxTotalBytes)
+                    return records;
+
+                records.add(segment.recordAt(position, length));
+                totalBytes += length;
+                position += RECORD_HEADER_SIZE_BYTES + length;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Removes the given number of the oldest records from the spool, deleting any segment files that have been fully
+     * consumed.
+     *
+     * @param numRecords The number of records to remove - usually the size of the list returned by {@link
+     * #peek(int)}.
+     */
+    public synchronized void remove(int numRecords) {
+        if (closed)
+            return;
+
+        int remaining = numRecords;
+        while (remaining > 0 && !segments.isEmpty()) {
+            Segment head = segments.peekFirst();
+            while (remaining > 0 && !head.isFullyRead()) {
+                spooledRecordBytes -= head.advance();
+                spooledRecordCount--;
+                remaining--;
+            }
+
+            if (!head.isFullyRead() || (segments.size() == 1 && head.hasRoomFor(1)))
+                break;
+
+            segments.removeFirst();
+            deleteSegmentFile(head.file);
+        }
+    }
+
+    protected void deleteSegmentFile(File file) {
+        if (!file.delete() && file.exists())
+            logger.warn("Unable to delete span spool segment: {}", file.getAbsolutePath());
+    }
+
+    /**
+     * @return true if there are no records waiting in the spool.
+     */
+    public synchronized boolean isEmpty() {
+        return spooledRecordCount == 0;
+    }
+
+    /**
+     * @return The number of records waiting in the spool.
+     */
+    public synchronized long getSpooledRecordCount() {
+        return spooledRecordCount;
+    }
+
+    /**
+     * @return The combined size of the records waiting in the spool, not counting headers.
+     */
+    public synchronized long getSpooledRecordBytes() {
+        return spooledRecordBytes;
+    }
+
+    /**
+     * @return The disk space currently used by segment files.
+     */
+    public synchronized long getDiskBytesUsed() {
+        return (long) segments.size() * segmentSizeBytes;
+    }
+
+    /**
+     * @return The number of records that {@link #append(byte[])} has rejected.
+     */
+    public synchronized long getDroppedRecordCount() {
+        return droppedRecordCount;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Forces any changes to the segment files to be written to the storage device, so they survive the machine going
+     * down as well as the process.
+     */
+    public synchronized void flush() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Flushes the segment files and stops this spool from accepting or returning records. The segment files are left
+     * on disk so a new instance can pick up where this one left off.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+
+        flush();
+        segments.clear();
+        closed = true;
+    }
+
+    /**
+     * A single memory-mapped segment file. Not thread safe - {@link MappedFileSpool} synchronizes access.
+     */
+    static class Segment {
+
+        final File file;
+        final long sequence;
+        final MappedByteBuffer buffer;
+        final int size;
+        int readPosition;
+        int writePosition;
+        // Only used during recovery.
+        long unreadRecordCount;
+        long unreadRecordBytes;
+
+        Segment(File file, long sequence, MappedByteBuffer buffer, int size) {
+            this.file = file;
+            this.sequence = sequence;
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        static Segment create(File file, long sequence, int size) throws IOException {
+            Segment segment = new Segment(file, sequence, MappedSegmentRecords.map(file, size), size);
+            segment.buffer.putInt(VERSION_OFFSET, SEGMENT_FORMAT_VERSION);
+            segment.buffer.putInt(SEGMENT_SIZE_OFFSET, size);
+            segment.buffer.putInt(READ_OFFSET_OFFSET, SEGMENT_HEADER_SIZE_BYTES);
+            segment.buffer.putInt(SEGMENT_HEADER_SIZE_BYTES, 0);
+            // The magic number goes in last, so a segment whose header wasn't fully written is detected as bad.
+            segment.buffer.putInt(MAGIC_OFFSET, SEGMENT_MAGIC);
+            segment.readPosition = SEGMENT_HEADER_SIZE_BYTES;
+            segment.writePosition = SEGMENT_HEADER_SIZE_BYTES;
+            return segment;
+        }
+
+        static Segment open(File file, long sequence) throws IOException {
+            long fileLength = file.length();
+            if (fileLength < MIN_SEGMENT_SIZE_BYTES || fileLength > Integer.MAX_VALUE)
+                throw new IOException("Invalid segment file length: " + fileLength);
+
+            int size = (int) fileLength;
+            MappedByteBuffer buffer = MappedSegmentRecords.map(file, size);
+            if (buffer.getInt(MAGIC_OFFSET) != SEGMENT_MAGIC)
+                throw new IOException("Invalid segment magic number");
+            if (buffer.getInt(VERSION_OFFSET) != SEGMENT_FORMAT_VERSION)
+                throw new IOException("Unsupported segment format version: " + buffer.getInt(VERSION_OFFSET));
+            if (buffer.getInt(SEGMENT_SIZE_OFFSET) != size)
+                throw new IOException("Segment size in header does not match the file length");
+
+            Segment segment = new Segment(file, sequence, buffer, size);
+            int storedReadOffset = buffer.getInt(READ_OFFSET_OFFSET);
+            int position = SEGMENT_HEADER_SIZE_BYTES;
+            // Find the end of the valid records, and count the ones that haven't been read yet.
+            int length;
+            while ((length = MappedSegmentRecords.validRecordLengthAt(buffer, position)) > 0) {
+                if (position >= storedReadOffset) {
+                    segment.unreadRecordCount++;
+                    segment.unreadRecordBytes += length;
+                }
+                position += RECORD_HEADER_SIZE_BYTES + length;
+            }
+
+            segment.writePosition = position;
+            segment.readPosition = Math.max(SEGMENT_HEADER_SIZE_BYTES, Math.min(storedReadOffset, position));
+            return segment;
+        }
+
+        boolean hasRoomFor(int recordLength) {
+            return MappedSegmentRecords.hasRoomFor(buffer, writePosition, recordLength);
+        }
+
+        boolean isFullyRead() {
+            return readPosition >= writePosition;
+        }
+
+        void append(byte[] record) {
+            writePosition = MappedSegmentRecords.appendRecord(buffer, writePosition, record);
+        }
+
+        int recordLengthAt(int position) {
+            return buffer.getInt(position);
+        }
+
+        byte[] recordAt(int position, int length) {
+            return MappedSegmentRecords.readRecord(buffer, position, length);
+        }
+
+        /**
+         * Moves past the next unread record and persists the new read offset.
+         *
+         * @return The length of the record that was skipped.
+         */
+        int advance() {
+            int length = recordLengthAt(readPosition);
+            readPosition += RECORD_HEADER_SIZE_BYTES + length;
+            buffer.putInt(READ_OFFSET_OFFSET, readPosition);
+            return length;
+        }
+    }
+}
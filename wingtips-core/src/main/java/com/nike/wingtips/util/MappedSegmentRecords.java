@@ -0,0 +1,110 @@
+package com.nike.wingtips.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Static helpers for the record layout shared by {@link MappedFileSpool} segments and the span files written by
+ * {@link com.nike.wingtips.util.spanfile.BinarySpanFileWriter}. Each record is stored as its length (4 bytes), a CRC32
+ * of its bytes (4 bytes), and then the bytes themselves. The length is written last and the next record's length is
+ * cleared first, so a record that was only partially written looks like the end of the written records. Each file
+ * format has its own header in front of the records - these helpers only deal with the records.
+ *
+ * <p>Note that a {@link MappedByteBuffer} can't be unmapped explicitly - the mapping (and the disk space of a file
+ * that's been deleted while mapped) is only released once the buffer is garbage collected.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MappedSegmentRecords {
+
+    /**
+     * The per-record header: length (4 bytes), CRC32 of the record bytes (4).
+     */
+    public static final int RECORD_HEADER_SIZE_BYTES = 8;
+
+    // Intentionally protected - use the static methods.
+    protected MappedSegmentRecords() { /* do nothing */ }
+
+    /**
+     * Creates (or resizes) the given file to the given size and maps it read/write.
+     *
+     * @param file The file to map.
+     * @param size The size the file should be.
+     * @return The mapped file. The mapping stays valid after this method closes the file.
+     * @throws IOException If the file can't be created, resized, or mapped.
+     */
+    public static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() != size)
+                raf.setLength(size);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * @return true if a record of the given length fits in the given segment starting at the given position.
+     */
+    public static boolean hasRoomFor(ByteBuffer segment, int position, int recordLength) {
+        return position + RECORD_HEADER_SIZE_BYTES + recordLength <= segment.capacity();
+    }
+
+    /**
+     * Writes the given record at the given position. The caller must make sure it fits - see {@link
+     * #hasRoomFor(ByteBuffer, int, int)}.
+     *
+     * @return The position just after the record, where the next record goes.
+     */
+    public static int appendRecord(ByteBuffer segment, int position, byte[] record) {
+        int nextPosition = position + RECORD_HEADER_SIZE_BYTES + record.length;
+
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        ByteBuffer view = segment.duplicate();
+        view.position(position + RECORD_HEADER_SIZE_BYTES);
+        view.put(record);
+        segment.putInt(position + 4, (int) crc.getValue());
+        // Clear the next record's length in case there's leftover data there from a partially written record
+        //      before a crash, then write this record's length last to mark it complete.
+        if (nextPosition + 4 <= segment.capacity())
+            segment.putInt(nextPosition, 0);
+        segment.putInt(position, record.length);
+
+        return nextPosition;
+    }
+
+    /**
+     * @return The length of the complete record at the given position, or -1 if there isn't one (the end of the
+     * written records, a partially written record, or a record that fails its CRC check).
+     */
+    public static int validRecordLengthAt(ByteBuffer segment, int position) {
+        int size = segment.capacity();
+        if (position + RECORD_HEADER_SIZE_BYTES > size)
+            return -1;
+
+        int length = segment.getInt(position);
+        if (length <= 0 || length > size - position - RECORD_HEADER_SIZE_BYTES)
+            return -1;
+
+        CRC32 crc = new CRC32();
+        crc.update(readRecord(segment, position, length), 0, length);
+        if (segment.getInt(position + 4) != (int) crc.getValue())
+            return -1;
+
+        return length;
+    }
+
+    /**
+     * @return A copy of the bytes of the record at the given position, which must have the given length.
+     */
+    public static byte[] readRecord(ByteBuffer segment, int position, int length) {
+        byte[] record = new byte[length];
+        ByteBuffer view = segment.duplicate();
+        view.position(position + RECORD_HEADER_SIZE_BYTES);
+        view.get(record);
+        return record;
+    }
+}
@@ -24,6 +24,8 @@ public class CallableWithTracing<U> implements Callable<U> {
     protected final Callable<U> origCallable;
     protected final Deque<Span> spanStackForExecution;
     protected final Map<String, String> mdcContextMapForExecution;
+    protected final QueueWaitRecorder queueWaitRecorder;
+    protected final long queuedAtNanoTime;
 
     /**
      * Constructor that extracts the current tracing and MDC information from the current thread using {@link
@@ -75,12 +77,33 @@ public class CallableWithTracing<U> implements Callable<U> {
     public CallableWithTracing(Callable<U> origCallable,
                                Deque<Span> spanStackForExecution,
                                Map<String, String> mdcContextMapForExecution) {
+        this(origCallable, spanStackForExecution, mdcContextMapForExecution, null);
+    }
+
+    /**
+     * Constructor that uses the given trace and MDC information, which will be associated with the thread when the
+     * given operation is executed, and records how long the operation waited between this constructor being called
+     * and execution starting in the given {@link QueueWaitRecorder}.
+     *
+     * <p>The operation you pass in cannot be null (an {@link IllegalArgumentException} will be thrown if you pass in
+     * null for the operation).
+     *
+     * <p>The trace and/or MDC info can be null and no error will be thrown, however any trace or MDC info that is null
+     * means the corresponding info will not be available to the thread when the operation is executed. The {@link
+     * QueueWaitRecorder} can be null, in which case the queue wait is not recorded.
+     */
+    public CallableWithTracing(Callable<U> origCallable,
+                               Deque<Span> spanStackForExecution,
+                               Map<String, String> mdcContextMapForExecution,
+                               QueueWaitRecorder queueWaitRecorder) {
         if (origCallable == null)
             throw new IllegalArgumentException("origCallable cannot be null");
 
         this.origCallable = origCallable;
         this.spanStackForExecution = spanStackForExecution;
         this.mdcContextMapForExecution = mdcContextMapForExecution;
+        this.queueWaitRecorder = queueWaitRecorder;
+        this.queuedAtNanoTime = (queueWaitRecorder == null) ? 0 : System.nanoTime();
     }
 
     /**
@@ -147,9 +170,31 @@ public class CallableWithTracing<U> implements Callable<U> {
         return new CallableWithTracing<>(origCallable, spanStackForExecution, mdcContextMapForExecution);
     }
 
+    /**
+     * Equivalent to calling {@code
+     * new CallableWithTracing(origCallable, spanStackForExecution, mdcContextMapForExecution, queueWaitRecorder)} -
+     * this allows you to do a static method import for cleaner looking code in some cases.
+     *
+     * @return {@code
+     * new CallableWithTracing(origCallable, spanStackForExecution, mdcContextMapForExecution, queueWaitRecorder)}.
+     * @see CallableWithTracing#CallableWithTracing(Callable, Deque, Map, QueueWaitRecorder)
+     * @see CallableWithTracing
+     */
+    public static <U> CallableWithTracing<U> withTracing(Callable<U> origCallable,
+                                                         Deque<Span> spanStackForExecution,
+                                                         Map<String, String> mdcContextMapForExecution,
+                                                         QueueWaitRecorder queueWaitRecorder) {
+        return new CallableWithTracing<>(
+            origCallable, spanStackForExecution, mdcContextMapForExecution, queueWaitRecorder
+        );
+    }
+
     @Override
     @SuppressWarnings("deprecation")
     public U call() throws Exception {
+        if (queueWaitRecorder != null)
+            queueWaitRecorder.recordQueueWait(queuedAtNanoTime, spanStackForExecution);
+
         TracingState originalThreadInfo = null;
         try {
             originalThreadInfo =
@@ -1,5 +1,9 @@
 package com.nike.wingtips.util.asynchelperwrapper;
 
+import com.nike.wingtips.Tracer;
+
+import org.slf4j.MDC;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -15,7 +19,8 @@ import java.util.concurrent.TimeoutException;
  * threads when {@link Runnable}s or {@link Callable}s are supplied for execution. Simply supply the constructor with
  * the delegate {@link ExecutorService} you want to wrap (often one from {@link java.util.concurrent.Executors}) and
  * then treat it like any other {@link ExecutorService}. Shutdown and termination methods pass through to the
- * delegate - {@link ExecutorServiceWithTracing} does not contain any state of its own.
+ * delegate - {@link ExecutorServiceWithTracing} does not contain any state of its own, other than the optional
+ * {@link QueueWaitRecorder} that records how long tasks waited in the delegate's queue before starting.
  *
  * <p>WARNING: Keep in mind that you should avoid using a {@link ExecutorServiceWithTracing} when spinning off
  * background threads that aren't tied to a specific trace, or in any other situation where an executed
@@ -46,6 +51,7 @@ import java.util.concurrent.TimeoutException;
 public class ExecutorServiceWithTracing implements ExecutorService {
 
     protected final ExecutorService delegate;
+    protected final QueueWaitRecorder queueWaitRecorder;
 
     /**
      * Creates a new instance that wraps the given delegate {@link ExecutorService} so that when {@link Runnable}s
@@ -59,7 +65,20 @@ public class ExecutorServiceWithTracing implements ExecutorService {
      * @param delegate The {@link ExecutorService} to delegate all calls to.
      */
     public ExecutorServiceWithTracing(ExecutorService delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Same as {@link #ExecutorServiceWithTracing(ExecutorService)}, but also records how long each task waits between
+     * being submitted and starting to execute in the given {@link QueueWaitRecorder}. Give each executor its own
+     * recorder to get a per-executor queue wait histogram.
+     *
+     * @param delegate The {@link ExecutorService} to delegate all calls to.
+     * @param queueWaitRecorder The {@link QueueWaitRecorder} to record queue waits in, or null to not record them.
+     */
+    public ExecutorServiceWithTracing(ExecutorService delegate, QueueWaitRecorder queueWaitRecorder) {
         this.delegate = delegate;
+        this.queueWaitRecorder = queueWaitRecorder;
     }
 
     /**
@@ -79,6 +98,26 @@ public class ExecutorServiceWithTracing implements ExecutorService {
         return new ExecutorServiceWithTracing(delegate);
     }
 
+    /**
+     * Factory method equivalent to calling: {@code new ExecutorServiceWithTracing(delegate, queueWaitRecorder)}.
+     *
+     * @param delegate The {@link ExecutorService} to delegate all calls to.
+     * @param queueWaitRecorder The {@link QueueWaitRecorder} to record queue waits in, or null to not record them.
+     * @return {@code new ExecutorServiceWithTracing(delegate, queueWaitRecorder)}.
+     */
+    public static ExecutorServiceWithTracing withTracing(ExecutorService delegate,
+                                                         QueueWaitRecorder queueWaitRecorder) {
+        return new ExecutorServiceWithTracing(delegate, queueWaitRecorder);
+    }
+
+    /**
+     * @return The {@link QueueWaitRecorder} recording how long this executor's tasks waited before starting, or null
+     * if queue waits aren't being recorded.
+     */
+    public QueueWaitRecorder getQueueWaitRecorder() {
+        return queueWaitRecorder;
+    }
+
     @Override
     public void shutdown() {
         delegate.shutdown();
@@ -106,17 +145,17 @@ public class ExecutorServiceWithTracing implements ExecutorService {
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return delegate.submit(new CallableWithTracing<>(task));
+        return delegate.submit(wrapWithTracing(task));
     }
 
     @Override
     public <T> Future<T> submit(Runnable task, T result) {
-        return delegate.submit(new RunnableWithTracing(task), result);
+        return delegate.submit(wrapWithTracing(task), result);
     }
 
     @Override
     public Future<?> submit(Runnable task) {
-        return delegate.submit(new RunnableWithTracing(task));
+        return delegate.submit(wrapWithTracing(task));
     }
 
     @Override
@@ -143,6 +182,18 @@ public class ExecutorServiceWithTracing implements ExecutorService {
         return delegate.invokeAny(convertToCallableWithTracingList(tasks), timeout, unit);
     }
 
+    protected <T> Callable<T> wrapWithTracing(Callable<T> task) {
+        return new CallableWithTracing<>(
+            task, Tracer.getInstance().getCurrentSpanStackCopy(), MDC.getCopyOfContextMap(), queueWaitRecorder
+        );
+    }
+
+    protected Runnable wrapWithTracing(Runnable task) {
+        return new RunnableWithTracing(
+            task, Tracer.getInstance().getCurrentSpanStackCopy(), MDC.getCopyOfContextMap(), queueWaitRecorder
+        );
+    }
+
     protected <T> List<Callable<T>> convertToCallableWithTracingList(Collection<? extends Callable<T>> tasks) {
         if (tasks == null) {
             return null;
@@ -150,7 +201,7 @@ public class ExecutorServiceWithTracing implements ExecutorService {
 
         List<Callable<T>> tasksWithTracing = new ArrayList<>(tasks.size());
         for (Callable<T> task : tasks) {
-            Callable<T> taskWithTracing = (task == null) ? null : new CallableWithTracing<>(task);
+            Callable<T> taskWithTracing = (task == null) ? null : wrapWithTracing(task);
             tasksWithTracing.add(taskWithTracing);
         }
 
@@ -159,6 +210,6 @@ public class ExecutorServiceWithTracing implements ExecutorService {
 
     @Override
     public void execute(Runnable command) {
-        delegate.execute(new RunnableWithTracing(command));
+        delegate.execute(wrapWithTracing(command));
     }
 }
@@ -0,0 +1,121 @@
+package com.nike.wingtips.util.asynchelperwrapper;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.lifecyclelistener.LatencyHistogram;
+
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long tasks wrapped by {@link RunnableWithTracing}, {@link CallableWithTracing}, or {@link
+ * ExecutorServiceWithTracing} waited between being wrapped (i.e. submitted) and starting to execute. Every wait is
+ * recorded in this recorder's {@link LatencyHistogram} (see {@link #getHistogram()}), so giving each executor its own
+ * recorder gives you a per-executor queue wait histogram.
+ *
+ * <p>If a wait is at least {@link #getSyntheticSpanThresholdNanos()} and the task has a span to attach to, a synthetic
+ * {@link SpanPurpose#LOCAL_ONLY} child span named {@link #getSyntheticSpanName()} is also completed and logged
+ * covering the wait, so the queueing delay shows up in the trace itself as a gap filled by that span. Span lifecycle
+ * listeners are told it started (see {@link Tracer#notifyUnmanagedSpanStarted(Span)}) just before it's completed. Pass
+ * a negative threshold to never create synthetic spans.
+ *
+ * <p>Recording costs one {@link System#nanoTime()} call when the task is wrapped and a histogram update when it starts,
+ * and nothing at all for wrappers that aren't given a recorder.
+ */
+@SuppressWarnings("WeakerAccess")
+public class QueueWaitRecorder {
+
+    public static final String DEFAULT_SYNTHETIC_SPAN_NAME = "queue-wait";
+
+    protected final String syntheticSpanName;
+    protected final long syntheticSpanThresholdNanos;
+    protected final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Creates a new instance that only records waits in the histogram and never creates synthetic spans.
+     */
+    public QueueWaitRecorder() {
+        this(DEFAULT_SYNTHETIC_SPAN_NAME, -1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param syntheticSpanName The span name to use for synthetic queue wait spans - cannot be null.
+     * @param syntheticSpanThreshold The minimum wait that gets a synthetic span. Pass a negative value to never create
+     * synthetic spans, or 0 to create one for every task.
+     * @param thresholdUnit The unit of {@code syntheticSpanThreshold} - cannot be null.
+     */
+    public QueueWaitRecorder(String syntheticSpanName, long syntheticSpanThreshold, TimeUnit thresholdUnit) {
+        if (syntheticSpanName == null)
+            throw new IllegalArgumentException("syntheticSpanName cannot be null");
+
+        if (thresholdUnit == null)
+            throw new IllegalArgumentException("thresholdUnit cannot be null");
+
+        this.syntheticSpanName = syntheticSpanName;
+        this.syntheticSpanThresholdNanos = (syntheticSpanThreshold < 0)
+                                           ? -1
+                                           : thresholdUnit.toNanos(syntheticSpanThreshold);
+    }
+
+    /**
+     * Records the wait of a task that is about to start executing. Call this on the executing thread, before the task
+     * runs.
+     *
+     * @param queuedAtNanoTime The {@link System#nanoTime()} when the task was wrapped/submitted.
+     * @param spanStackForExecution The span stack the task will run with. The span on top is the parent of any
+     * synthetic span. Can be null or empty, in which case no synthetic span is created.
+     */
+    public void recordQueueWait(long queuedAtNanoTime, Deque<Span> spanStackForExecution) {
+        long nowNanoTime = System.nanoTime();
+        long waitNanos = Math.max(0, nowNanoTime - queuedAtNanoTime);
+        Span parent = (spanStackForExecution == null) ? null : spanStackForExecution.peek();
+
+        histogram.record(waitNanos, false, (parent == null) ? null : parent.getTraceId());
+
+        if (parent != null && syntheticSpanThresholdNanos >= 0 && waitNanos >= syntheticSpanThresholdNanos) {
+            Span syntheticSpan = createSyntheticSpan(parent, nowNanoTime - waitNanos, waitNanos);
+            Tracer.getInstance().notifyUnmanagedSpanStarted(syntheticSpan);
+            syntheticSpan.close();
+        }
+    }
+
+    /**
+     * @return A new (uncompleted) child span of the given parent that started at the given time. It's not managed by
+     * {@code Tracer}, so calling {@link Span#close()} on it right away completes and logs it with a duration of the
+     * queue wait. Listeners haven't been notified that it started - the caller does that.
+     */
+    protected Span createSyntheticSpan(Span parent, long startNanoTime, long waitNanos) {
+        long startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())
+                                - TimeUnit.NANOSECONDS.toMicros(waitNanos);
+
+        return Span.newBuilder(parent)
+                   .withParentSpanId(parent.getSpanId())
+                   .withSpanName(syntheticSpanName)
+                   .withSpanId(TraceAndSpanIdGenerator.generateId())
+                   .withSpanStartTimeEpochMicros(startEpochMicros)
+                   .withSpanStartTimeNanos(startNanoTime)
+                   .withDurationNanos(null)
+                   .withSpanPurpose(SpanPurpose.LOCAL_ONLY)
+                   .build();
+    }
+
+    /**
+     * @return The histogram of every queue wait recorded by this instance.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public String getSyntheticSpanName() {
+        return syntheticSpanName;
+    }
+
+    /**
+     * @return The minimum wait that gets a synthetic span, or -1 if synthetic spans are never created.
+     */
+    public long getSyntheticSpanThresholdNanos() {
+        return syntheticSpanThresholdNanos;
+    }
+}
@@ -23,6 +23,8 @@ public class RunnableWithTracing implements Runnable {
     protected final Runnable origRunnable;
     protected final Deque<Span> spanStackForExecution;
     protected final Map<String, String> mdcContextMapForExecution;
+    protected final QueueWaitRecorder queueWaitRecorder;
+    protected final long queuedAtNanoTime;
 
     /**
      * Constructor that extracts the current tracing and MDC information from the current thread using {@link
@@ -74,12 +76,33 @@ public class RunnableWithTracing implements Runnable {
     public RunnableWithTracing(Runnable origRunnable,
                                Deque<Span> spanStackForExecution,
                                Map<String, String> mdcContextMapForExecution) {
+        this(origRunnable, spanStackForExecution, mdcContextMapForExecution, null);
+    }
+
+    /**
+     * Constructor that uses the given trace and MDC information, which will be associated with the thread when the
+     * given operation is executed, and records how long the operation waited between this constructor being called
+     * and execution starting in the given {@link QueueWaitRecorder}.
+     *
+     * <p>The operation you pass in cannot be null (an {@link IllegalArgumentException} will be thrown if you pass in
+     * null for the operation).
+     *
+     * <p>The trace and/or MDC info can be null and no error will be thrown, however any trace or MDC info that is null
+     * means the corresponding info will not be available to the thread when the operation is executed. The {@link
+     * QueueWaitRecorder} can be null, in which case the queue wait is not recorded.
+     */
+    public RunnableWithTracing(Runnable origRunnable,
+                               Deque<Span> spanStackForExecution,
+                               Map<String, String> mdcContextMapForExecution,
+                               QueueWaitRecorder queueWaitRecorder) {
         if (origRunnable == null)
             throw new IllegalArgumentException("origRunnable cannot be null");
 
         this.origRunnable = origRunnable;
         this.spanStackForExecution = spanStackForExecution;
         this.mdcContextMapForExecution = mdcContextMapForExecution;
+        this.queueWaitRecorder = queueWaitRecorder;
+        this.queuedAtNanoTime = (queueWaitRecorder == null) ? 0 : System.nanoTime();
     }
 
     /**
@@ -146,9 +169,31 @@ public class RunnableWithTracing implements Runnable {
         return new RunnableWithTracing(origRunnable, spanStackForExecution, mdcContextMapForExecution);
     }
 
+    /**
+     * Equivalent to calling {@code
+     * new RunnableWithTracing(origRunnable, spanStackForExecution, mdcContextMapForExecution, queueWaitRecorder)} -
+     * this allows you to do a static method import for cleaner looking code in some cases.
+     *
+     * @return {@code
+     * new RunnableWithTracing(origRunnable, spanStackForExecution, mdcContextMapForExecution, queueWaitRecorder)}.
+     * @see RunnableWithTracing#RunnableWithTracing(Runnable, Deque, Map, QueueWaitRecorder)
+     * @see RunnableWithTracing
+     */
+    public static  RunnableWithTracing withTracing(Runnable origRunnable,
+                                                   Deque<Span> spanStackForExecution,
+                                                   Map<String, String> mdcContextMapForExecution,
+                                                   QueueWaitRecorder queueWaitRecorder) {
+        return new RunnableWithTracing(
+            origRunnable, spanStackForExecution, mdcContextMapForExecution, queueWaitRecorder
+        );
+    }
+
     @Override
     @SuppressWarnings("deprecation")
     public void run() {
+        if (queueWaitRecorder != null)
+            queueWaitRecorder.recordQueueWait(queuedAtNanoTime, spanStackForExecution);
+
         TracingState originalThreadInfo = null;
         try {
             originalThreadInfo =
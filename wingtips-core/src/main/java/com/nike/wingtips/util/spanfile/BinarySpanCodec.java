@@ -0,0 +1,315 @@
+package com.nike.wingtips.util.spanfile;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes {@link Span}s to (and decodes them from) a compact binary format, for writing spans to local files much more
+ * cheaply than logging them as JSON. Used by {@link BinarySpanFileWriter} and {@link BinarySpanFileReader}.
+ *
+ * <p>The format is a version byte, a flags byte (sampleable, which optional fields are present, and the {@link
+ * SpanPurpose}), a measurement flags byte (which {@link Span#getResourceUsage()} measurements and whether {@link
+ * Span#getGcPauseMicros()} are present), then the
+ * trace ID, span ID, optional parent span ID, span name, optional user ID, start time in epoch microseconds, optional
+ * duration in nanoseconds, and the present measurements. Numbers are unsigned varints. Version 1 spans, which have no
+ * measurement flags byte or measurements, can still be decoded. IDs that are 16 or 32 lowercase hex
+ * characters (which is what Wingtips generates) are stored as 8 or 16 raw bytes - anything else is stored as a UTF-8
+ * string, so every ID round trips exactly.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinarySpanCodec {
+
+    public static final byte FORMAT_VERSION = 2;
+    protected static final byte FORMAT_VERSION_WITHOUT_MEASUREMENTS = 1;
+
+    protected static final int FLAG_SAMPLEABLE = 0x01;
+    protected static final int FLAG_HAS_PARENT_SPAN_ID = 0x02;
+    protected static final int FLAG_HAS_USER_ID = 0x04;
+    protected static final int FLAG_HAS_DURATION = 0x08;
+    protected static final int SPAN_PURPOSE_SHIFT = 4;
+
+    protected static final int MEASUREMENT_FLAG_HAS_RESOURCE_USAGE = 0x01;
+    protected static final int MEASUREMENT_FLAG_HAS_CPU_TIME_NANOS = 0x02;
+    protected static final int MEASUREMENT_FLAG_HAS_ALLOCATED_BYTES = 0x04;
+    protected static final int MEASUREMENT_FLAG_HAS_BLOCKED_TIME_MILLIS = 0x08;
+    protected static final int MEASUREMENT_FLAG_HAS_WAITED_TIME_MILLIS = 0x10;
+    protected static final int MEASUREMENT_FLAG_HAS_ASYNC_TASK_COUNT = 0x20;
+    protected static final int MEASUREMENT_FLAG_HAS_GC_PAUSE_MICROS = 0x40;
+
+    protected static final byte ID_TYPE_HEX_64 = 0;
+    protected static final byte ID_TYPE_HEX_128 = 1;
+    protected static final byte ID_TYPE_STRING = 2;
+
+    private static final SpanPurpose[] SPAN_PURPOSES = SpanPurpose.values();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // Intentionally protected - use the static methods.
+    protected BinarySpanCodec() { /* do nothing */ }
+
+    /**
+     * @param span The span to encode. Cannot be null.
+     * @return The binary representation of the given span.
+     */
+    public static byte[] encode(Span span) {
+        byte[] spanName = span.getSpanName().getBytes(StandardCharsets.UTF_8);
+        byte[] userId = (span.getUserId() == null) ? null : span.getUserId().getBytes(StandardCharsets.UTF_8);
+        Writer writer = new Writer(64 + spanName.length + ((userId == null) ? 0 : userId.length));
+
+        int flags = span.getSpanPurpose().ordinal() << SPAN_PURPOSE_SHIFT;
+        if (span.isSampleable())
+            flags |= FLAG_SAMPLEABLE;
+        if (span.getParentSpanId() != null)
+            flags |= FLAG_HAS_PARENT_SPAN_ID;
+        if (userId != null)
+            flags |= FLAG_HAS_USER_ID;
+        if (span.getDurationNanos() != null)
+            flags |= FLAG_HAS_DURATION;
+
+        SpanResourceUsage resourceUsage = span.getResourceUsage();
+        int measurementFlags = 0;
+        if (resourceUsage != null) {
+            measurementFlags |= MEASUREMENT_FLAG_HAS_RESOURCE_USAGE;
+            if (resourceUsage.getCpuTimeNanos() != ThreadResourceSnapshot.NOT_MEASURED)
+                measurementFlags |= MEASUREMENT_FLAG_HAS_CPU_TIME_NANOS;
+            if (resourceUsage.getAllocatedBytes() != ThreadResourceSnapshot.NOT_MEASURED)
+                measurementFlags |= MEASUREMENT_FLAG_HAS_ALLOCATED_BYTES;
+            if (resourceUsage.getBlockedTimeMillis() != ThreadResourceSnapshot.NOT_MEASURED)
+                measurementFlags |= MEASUREMENT_FLAG_HAS_BLOCKED_TIME_MILLIS;
+            if (resourceUsage.getWaitedTimeMillis() != ThreadResourceSnapshot.NOT_MEASURED)
+                measurementFlags |= MEASUREMENT_FLAG_HAS_WAITED_TIME_MILLIS;
+            if (resourceUsage.getAsyncTaskCount() != 0)
+                measurementFlags |= MEASUREMENT_FLAG_HAS_ASYNC_TASK_COUNT;
+        }
+        if (span.getGcPauseMicros() != null)
+            measurementFlags |= MEASUREMENT_FLAG_HAS_GC_PAUSE_MICROS;
+
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeByte(flags);
+        writer.writeByte(measurementFlags);
+        writer.writeId(span.getTraceId());
+        writer.writeId(span.getSpanId());
+        if (span.getParentSpanId() != null)
+            writer.writeId(span.getParentSpanId());
+        writer.writeBytes(spanName);
+        if (userId != null)
+            writer.writeBytes(userId);
+        writer.writeVarLong(span.getSpanStartTimeEpochMicros());
+        if (span.getDurationNanos() != null)
+            writer.writeVarLong(span.getDurationNanos());
+        if ((measurementFlags & MEASUREMENT_FLAG_HAS_CPU_TIME_NANOS) != 0)
+            writer.writeVarLong(resourceUsage.getCpuTimeNanos());
+        if ((measurementFlags & MEASUREMENT_FLAG_HAS_ALLOCATED_BYTES) != 0)
+            writer.writeVarLong(resourceUsage.getAllocatedBytes());
+        if ((measurementFlags & MEASUREMENT_FLAG_HAS_BLOCKED_TIME_MILLIS) != 0)
+            writer.writeVarLong(resourceUsage.getBlockedTimeMillis());
+        if ((measurementFlags & MEASUREMENT_FLAG_HAS_WAITED_TIME_MILLIS) != 0)
+            writer.writeVarLong(resourceUsage.getWaitedTimeMillis());
+        if ((measurementFlags & MEASUREMENT_FLAG_HAS_ASYNC_TASK_COUNT) != 0)
+            writer.writeVarLong(resourceUsage.getAsyncTaskCount());
+        if (span.getGcPauseMicros() != null)
+            writer.writeVarLong(span.getGcPauseMicros());
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param bytes Bytes previously created by {@link #encode(Span)}, by this or an earlier version of this class.
+     * @return The decoded span, built with {@link Span.Builder}. Its {@link Span#getSpanStartTimeNanos()} is not the
+     * original span's, since nano times aren't comparable across JVMs.
+     * @throws IllegalArgumentException If the bytes aren't a valid encoded span.
+     */
+    public static Span decode(byte[] bytes) {
+        try {
+            Reader reader = new Reader(bytes);
+            int version = reader.readByte();
+            if (version != FORMAT_VERSION && version != FORMAT_VERSION_WITHOUT_MEASUREMENTS)
+                throw new IllegalArgumentException("Unsupported binary span format version: " + version);
+
+            int flags = reader.readByte();
+            int measurementFlags = (version == FORMAT_VERSION_WITHOUT_MEASUREMENTS) ? 0 : reader.readByte();
+            int spanPurposeOrdinal = flags >>> SPAN_PURPOSE_SHIFT;
+            if (spanPurposeOrdinal >= SPAN_PURPOSES.length)
+                throw new IllegalArgumentException("Invalid span purpose: " + spanPurposeOrdinal);
+
+            String traceId = reader.readId();
+            String spanId = reader.readId();
+            String parentSpanId = ((flags & FLAG_HAS_PARENT_SPAN_ID) != 0) ? reader.readId() : null;
+            String spanName = reader.readString();
+            String userId = ((flags & FLAG_HAS_USER_ID) != 0) ? reader.readString() : null;
+            long spanStartTimeEpochMicros = reader.readVarLong();
+            Long durationNanos = ((flags & FLAG_HAS_DURATION) != 0) ? reader.readVarLong() : null;
+            SpanResourceUsage resourceUsage = null;
+            if ((measurementFlags & MEASUREMENT_FLAG_HAS_RESOURCE_USAGE) != 0) {
+                resourceUsage = SpanResourceUsage.fromTotals(
+                    reader.readOptionalMeasurement(measurementFlags, MEASUREMENT_FLAG_HAS_CPU_TIME_NANOS),
+                    reader.readOptionalMeasurement(measurementFlags, MEASUREMENT_FLAG_HAS_ALLOCATED_BYTES),
+                    reader.readOptionalMeasurement(measurementFlags, MEASUREMENT_FLAG_HAS_BLOCKED_TIME_MILLIS),
+                    reader.readOptionalMeasurement(measurementFlags, MEASUREMENT_FLAG_HAS_WAITED_TIME_MILLIS),
+                    ((measurementFlags & MEASUREMENT_FLAG_HAS_ASYNC_TASK_COUNT) != 0) ? reader.readVarLong() : 0
+                );
+            }
+            Long gcPauseMicros = ((measurementFlags & MEASUREMENT_FLAG_HAS_GC_PAUSE_MICROS) != 0)
+                                 ? reader.readVarLong()
+                                 : null;
+
+            return Span.newBuilder(spanName, SPAN_PURPOSES[spanPurposeOrdinal])
+                       .withTraceId(traceId)
+                       .withSpanId(spanId)
+                       .withParentSpanId(parentSpanId)
+                       .withSampleable((flags & FLAG_SAMPLEABLE) != 0)
+                       .withUserId(userId)
+                       .withSpanStartTimeEpochMicros(spanStartTimeEpochMicros)
+                       .withDurationNanos(durationNanos)
+                       .withResourceUsage(resourceUsage)
+                       .withGcPauseMicros(gcPauseMicros)
+                       .build();
+        }
+        catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Truncated binary span", ex);
+        }
+    }
+
+    protected static boolean isLowerHex(String str, int expectedLength) {
+        if (str.length() != expectedLength)
+            return false;
+
+        for (int i = 0; i < expectedLength; i++) {
+            char c = str.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')))
+                return false;
+        }
+        return true;
+    }
+
+    protected static class Writer {
+        protected byte[] buffer;
+        protected int position;
+
+        protected Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        protected void ensureCapacity(int additional) {
+            if (position + additional > buffer.length)
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+
+        protected void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) b;
+        }
+
+        protected void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        protected void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        protected void writeId(String id) {
+            if (isLowerHex(id, 16)) {
+                writeByte(ID_TYPE_HEX_64);
+                writeHex(id);
+            }
+            else if (isLowerHex(id, 32)) {
+                writeByte(ID_TYPE_HEX_128);
+                writeHex(id);
+            }
+            else {
+                writeByte(ID_TYPE_STRING);
+                writeBytes(id.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        protected void writeHex(String hex) {
+            ensureCapacity(hex.length() / 2);
+            for (int i = 0; i < hex.length(); i += 2) {
+                buffer[position++] = (byte) ((Character.digit(hex.charAt(i), 16) << 4) | Character.digit(hex.charAt(i + 1), 16));
+            }
+        }
+
+        protected byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    protected static class Reader {
+        protected final byte[] bytes;
+        protected int position;
+
+        protected Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        protected int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        protected long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return result;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        /**
+         * @return The next varint if the given flag is set in the given measurement flags, otherwise {@link
+         * ThreadResourceSnapshot#NOT_MEASURED}.
+         */
+        protected long readOptionalMeasurement(int measurementFlags, int flag) {
+            return ((measurementFlags & flag) != 0) ? readVarLong() : ThreadResourceSnapshot.NOT_MEASURED;
+        }
+
+        protected String readString() {
+            long length = readVarLong();
+            if (length < 0 || length > bytes.length - position)
+                throw new IllegalArgumentException("Invalid string length: " + length);
+
+            String result = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return result;
+        }
+
+        protected String readId() {
+            int idType = readByte();
+            switch (idType) {
+                case ID_TYPE_HEX_64:
+                    return readHex(8);
+                case ID_TYPE_HEX_128:
+                    return readHex(16);
+                case ID_TYPE_STRING:
+                    return readString();
+                default:
+                    throw new IllegalArgumentException("Invalid ID type: " + idType);
+            }
+        }
+
+        protected String readHex(int numBytes) {
+            char[] chars = new char[numBytes * 2];
+            for (int i = 0; i < numBytes; i++) {
+                int b = readByte();
+                chars[i * 2] = HEX_DIGITS[b >>> 4];
+                chars[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.nike.wingtips.util.spanfile;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.util.MappedSegmentRecords;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.nike.wingtips.util.spanfile.BinarySpanFileWriter.RECORD_HEADER_SIZE_BYTES;
+import static com.nike.wingtips.util.spanfile.BinarySpanFileWriter.SEGMENT_FILE_PREFIX;
+import static com.nike.wingtips.util.spanfile.BinarySpanFileWriter.SEGMENT_FILE_SUFFIX;
+import static com.nike.wingtips.util.spanfile.BinarySpanFileWriter.SEGMENT_FORMAT_VERSION;
+import static com.nike.wingtips.util.spanfile.BinarySpanFileWriter.SEGMENT_HEADER_SIZE_BYTES;
+import static com.nike.wingtips.util.spanfile.BinarySpanFileWriter.SEGMENT_MAGIC;
+
+/**
+ * Reads spans back out of the segment files written by {@link BinarySpanFileWriter}. Reading stops at the end of the
+ * written records in each segment, or at the first record that fails its CRC check (e.g. if the process was killed
+ * mid-write), so it's safe to read segments that are still being written.
+ *
+ * <p>This class can also be run from the command line to dump segments as text, one span per line:
+ * <pre>
+ *     java -cp wingtips-core.jar:slf4j-api.jar com.nike.wingtips.util.spanfile.BinarySpanFileReader &lt;file-or-directory&gt; [json|keyvalue]
+ * </pre>
+ * If given a directory, every segment in it is read in the order they were written. The output format defaults to
+ * JSON ({@link Span#toJSON()}). See the wingtips-zipkin2 module for a tool that converts segments to Zipkin format.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinarySpanFileReader {
+
+    // Intentionally protected - use the static methods.
+    protected BinarySpanFileReader() { /* do nothing */ }
+
+    /**
+     * @param directory The directory to look in.
+     * @return The segment files in the given directory, oldest first.
+     * @throws IOException If the directory can't be read.
+     */
+    public static List<File> listSegmentFiles(File directory) throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return parseSegmentSequence(name) >= 0;
+            }
+        });
+        if (files == null)
+            throw new IOException("Unable to list directory: " + directory.getAbsolutePath());
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long seq1 = parseSegmentSequence(o1.getName());
+                long seq2 = parseSegmentSequence(o2.getName());
+                return (seq1 < seq2) ? -1 : ((seq1 == seq2) ? 0 : 1);
+            }
+        });
+        return Arrays.asList(files);
+    }
+
+    protected static long parseSegmentSequence(String fileName) {
+        if (!fileName.startsWith(SEGMENT_FILE_PREFIX) || !fileName.endsWith(SEGMENT_FILE_SUFFIX))
+            return -1;
+
+        try {
+            return Long.parseLong(
+                fileName.substring(SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_SUFFIX.length())
+            );
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param fileOrDirectory A segment file, or a directory of segment files.
+     * @return All the spans in the given segment file, or in all the segment files in the given directory (oldest
+     * first).
+     * @throws IOException If a file can't be read or isn't a valid segment file.
+     */
+    public static List<Span> readSpans(File fileOrDirectory) throws IOException {
+        if (!fileOrDirectory.isDirectory())
+            return readSegment(fileOrDirectory);
+
+        List<Span> spans = new ArrayList<>();
+        for (File segmentFile : listSegmentFiles(fileOrDirectory)) {
+            spans.addAll(readSegment(segmentFile));
+        }
+        return spans;
+    }
+
+    /**
+     * @param segmentFile The segment file to read.
+     * @return The spans in the given segment file, in the order they were written.
+     * @throws IOException If the file can't be read or isn't a valid segment file.
+     */
+    public static List<Span> readSegment(File segmentFile) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "r")) {
+            if (raf.length() < SEGMENT_HEADER_SIZE_BYTES || raf.length() > Integer.MAX_VALUE)
+                throw new IOException("Not a binary span file (bad length): " + segmentFile.getAbsolutePath());
+
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            buffer = ByteBuffer.wrap(bytes);
+        }
+
+        if (buffer.getInt(0) != SEGMENT_MAGIC)
+            throw new IOException("Not a binary span file (bad magic number): " + segmentFile.getAbsolutePath());
+        if (buffer.getInt(4) != SEGMENT_FORMAT_VERSION)
+            throw new IOException("Unsupported binary span file version " + buffer.getInt(4) + ": " + segmentFile.getAbsolutePath());
+
+        int position = SEGMENT_HEADER_SIZE_BYTES;
+        List<Span> spans = new ArrayList<>();
+        int length;
+        while ((length = MappedSegmentRecords.validRecordLengthAt(buffer, position)) > 0) {
+            spans.add(BinarySpanCodec.decode(MappedSegmentRecords.readRecord(buffer, position, length)));
+            position += RECORD_HEADER_SIZE_BYTES + length;
+        }
+
+        return spans;
+    }
+
+    /**
+     * Command line entry point - see the class javadocs.
+     */
+    public static void main(String[] args) throws IOException {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    protected static int run(String[] args, PrintStream out, PrintStream err) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            err.println("Usage: BinarySpanFileReader <file-or-directory> [json|keyvalue]");
+            return 1;
+        }
+
+        String format = (args.length > 1) ? args[1] : "json";
+        boolean keyValue;
+        if ("json".equalsIgnoreCase(format))
+            keyValue = false;
+        else if ("keyvalue".equalsIgnoreCase(format))
+            keyValue = true;
+        else {
+            err.println("Unknown output format: " + format + ". Must be json or keyvalue.");
+            return 1;
+        }
+
+        File fileOrDirectory = new File(args[0]);
+        if (!fileOrDirectory.exists()) {
+            err.println("File not found: " + fileOrDirectory.getAbsolutePath());
+            return 1;
+        }
+
+        List<File> segmentFiles = (fileOrDirectory.isDirectory())
+                                  ? listSegmentFiles(fileOrDirectory)
+                                  : Collections.singletonList(fileOrDirectory);
+        for (File segmentFile : segmentFiles) {
+            for (Span span : readSegment(segmentFile)) {
+                out.println((keyValue) ? span.toKeyValueString() : span.toJSON());
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,292 @@
+package com.nike.wingtips.util.spanfile;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.util.MappedSegmentRecords;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link SpanLifecycleListener} that writes completed spans to rolling, memory-mapped segment files in a local
+ * directory using {@link BinarySpanCodec}. This gives you local trace retention on every host for a fraction of the
+ * cost of logging spans as JSON through SLF4J - each span is encoded to a few dozen bytes and copied into a mapped
+ * file, and the OS writes it to disk in the background. If you use this instead of span logging, you can turn off the
+ * {@code VALID_WINGTIPS_SPANS} logger in your logging config.
+ *
+ * <p>Once a segment fills up a new one is started, and once there are more than {@code maxSegments} segment files the
+ * oldest is deleted, so disk use is capped at roughly {@code segmentSizeBytes * (maxSegments + 1)} - the extra segment
+ * is the next one, which a background thread creates and maps ahead of time so the span completing thread that fills
+ * a segment doesn't have to. Use {@link BinarySpanFileReader} (or its command line tool) to read the segments back.
+ * Segments are never forced to disk on the span completing thread, so the spans survive the process dying but not the
+ * machine going down - call {@link #flush()} from a background task if you need that. Deleted segments stay mapped
+ * (and, on most operating systems, keep their disk space) until their buffer is garbage collected, since Java has no
+ * supported way to unmap a file.
+ *
+ * <p>Segment file format: a 16 byte header (magic number {@link #SEGMENT_MAGIC}, format version, segment size, and 4
+ * reserved bytes that readers must ignore), then records in the {@link MappedSegmentRecords} layout: length (4 bytes),
+ * CRC32 of the span bytes (4 bytes), and the encoded span. The length of each record is written last and a zero length
+ * marks the end of the written records, so readers never see a partially written span.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinarySpanFileWriter implements SpanLifecycleListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinarySpanFileWriter.class);
+
+    /**
+     * The magic number at the start of every span segment file ("WTSF").
+     */
+    public static final int SEGMENT_MAGIC = 0x57545346;
+    public static final int SEGMENT_FORMAT_VERSION = 1;
+    public static final int SEGMENT_HEADER_SIZE_BYTES = 16;
+    public static final int RECORD_HEADER_SIZE_BYTES = MappedSegmentRecords.RECORD_HEADER_SIZE_BYTES;
+    public static final int MIN_SEGMENT_SIZE_BYTES = 4096;
+    public static final int DEFAULT_SEGMENT_SIZE_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+    public static final String SEGMENT_FILE_PREFIX = "wingtips-spans-";
+    public static final String SEGMENT_FILE_SUFFIX = ".wspan";
+
+    protected final File directory;
+    protected final int segmentSizeBytes;
+    protected final int maxSegments;
+    protected final boolean sampledSpansOnly;
+
+    protected final Deque<File> segmentFiles = new ArrayDeque<>();
+    protected MappedByteBuffer activeSegment;
+    protected int activeSegmentPosition;
+    protected long nextSegmentSequence;
+    protected final ExecutorService segmentPreallocator;
+    protected File nextSegmentFile;
+    protected Future<MappedByteBuffer> nextSegment;
+    protected boolean closed;
+    protected final AtomicLong droppedSpanCount = new AtomicLong();
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_SEGMENT_SIZE_BYTES} segments, keeping up to {@link
+     * #DEFAULT_MAX_SEGMENTS} of them, and only writing sampled spans.
+     *
+     * @param directory The directory to write segment files to. Will be created if it doesn't exist.
+     * @throws IOException If the directory can't be created or read.
+     */
+    public BinarySpanFileWriter(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE_BYTES, DEFAULT_MAX_SEGMENTS, true);
+    }
+
+    /**
+     * @param directory The directory to write segment files to. Will be created if it doesn't exist. Existing segment
+     * files in it are kept (and count towards {@code maxSegments}), and new spans go into a new segment.
+     * @param segmentSizeBytes The size of each segment file. Must be at least {@link #MIN_SEGMENT_SIZE_BYTES}.
+     * @param maxSegments The number of segment files to keep. Must be greater than 0.
+     * @param sampledSpansOnly Pass true to only write spans that are {@link Span#isSampleable()} (like span logging
+     * does), or false to write all completed spans.
+     * @throws IOException If the directory can't be created or read.
+     */
+    public BinarySpanFileWriter(File directory, int segmentSizeBytes, int maxSegments, boolean sampledSpansOnly)
+        throws IOException {
+        if (directory == null)
+            throw new IllegalArgumentException("directory cannot be null");
+
+        if (segmentSizeBytes < MIN_SEGMENT_SIZE_BYTES) {
+            throw new IllegalArgumentException(
+                "segmentSizeBytes must be at least " + MIN_SEGMENT_SIZE_BYTES + ". Invalid value: " + segmentSizeBytes
+            );
+        }
+
+        if (maxSegments <= 0)
+            throw new IllegalArgumentException("maxSegments must be greater than 0. Invalid value: " + maxSegments);
+
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+            throw new IOException("Unable to create span file directory: " + directory.getAbsolutePath());
+
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.maxSegments = maxSegments;
+        this.sampledSpansOnly = sampledSpansOnly;
+
+        List<File> existingSegments = BinarySpanFileReader.listSegmentFiles(directory);
+        segmentFiles.addAll(existingSegments);
+        if (!existingSegments.isEmpty()) {
+            File newestSegment = existingSegments.get(existingSegments.size() - 1);
+            nextSegmentSequence = BinarySpanFileReader.parseSegmentSequence(newestSegment.getName()) + 1;
+        }
+
+        this.segmentPreallocator = configureSegmentPreallocator();
+        preallocateNextSegment();
+    }
+
+    protected ExecutorService configureSegmentPreallocator() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "wingtips-span-file-preallocator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        if (sampledSpansOnly && !span.isSampleable())
+            return;
+
+        try {
+            // Encode outside the lock so only the memory copy is serialized.
+            append(BinarySpanCodec.encode(span));
+        }
+        catch (Throwable ex) {
+            droppedSpanCount.incrementAndGet();
+            logger.warn("Unable to write span to binary span file. span={}", span, ex);
+        }
+    }
+
+    /**
+     * Appends the given encoded span to the active segment, rolling to the next segment first if it doesn't fit.
+     */
+    protected synchronized void append(byte[] record) throws IOException {
+        if (closed || record.length > segmentSizeBytes - SEGMENT_HEADER_SIZE_BYTES - RECORD_HEADER_SIZE_BYTES) {
+            droppedSpanCount.incrementAndGet();
+            return;
+        }
+
+        if (activeSegment == null || !MappedSegmentRecords.hasRoomFor(activeSegment, activeSegmentPosition, record.length))
+            rollSegment();
+
+        activeSegmentPosition = MappedSegmentRecords.appendRecord(activeSegment, activeSegmentPosition, record);
+    }
+
+    protected void rollSegment() throws IOException {
+        // The old segment isn't forced to disk here - that would make whichever request thread happens to fill a
+        //      segment wait on an msync of the whole file. The OS writes the mapped pages out on its own.
+        File segmentFile = nextSegmentFile;
+        MappedByteBuffer segment;
+        try {
+            // The next segment was created in the background while this one was filling up, so this normally doesn't
+            //      wait.
+            segment = nextSegment.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the next binary span file segment to be created", ex);
+        }
+        catch (ExecutionException ex) {
+            // Try again with a fresh segment next time.
+            deleteSegmentFile(segmentFile);
+            preallocateNextSegment();
+            throw new IOException("Unable to create binary span file segment: " + segmentFile.getAbsolutePath(), ex);
+        }
+
+        activeSegment = segment;
+        activeSegmentPosition = SEGMENT_HEADER_SIZE_BYTES;
+        segmentFiles.addLast(segmentFile);
+        preallocateNextSegment();
+
+        while (segmentFiles.size() > maxSegments) {
+            deleteSegmentFile(segmentFiles.removeFirst());
+        }
+    }
+
+    /**
+     * Starts creating the next segment file on the {@link #segmentPreallocator} thread.
+     */
+    protected void preallocateNextSegment() {
+        final File segmentFile = new File(
+            directory, SEGMENT_FILE_PREFIX + String.format("%020d", nextSegmentSequence++) + SEGMENT_FILE_SUFFIX
+        );
+        nextSegmentFile = segmentFile;
+        nextSegment = segmentPreallocator.submit(new Callable<MappedByteBuffer>() {
+            @Override
+            public MappedByteBuffer call() throws IOException {
+                return createSegment(segmentFile);
+            }
+        });
+    }
+
+    protected MappedByteBuffer createSegment(File segmentFile) throws IOException {
+        MappedByteBuffer segment = MappedSegmentRecords.map(segmentFile, segmentSizeBytes);
+        segment.putInt(4, SEGMENT_FORMAT_VERSION);
+        segment.putInt(8, segmentSizeBytes);
+        // Bytes 12-15 are reserved.
+        segment.putInt(12, 0);
+        segment.putInt(SEGMENT_HEADER_SIZE_BYTES, 0);
+        // The magic number goes in last, so a segment whose header wasn't fully written is detected as bad.
+        segment.putInt(0, SEGMENT_MAGIC);
+        return segment;
+    }
+
+    protected void deleteSegmentFile(File file) {
+        if (!file.delete() && file.exists())
+            logger.warn("Unable to delete binary span file: {}", file.getAbsolutePath());
+    }
+
+    /**
+     * @return The number of spans that couldn't be written (too big for a segment, an I/O error, or written after
+     * {@link #close()}).
+     */
+    public long getDroppedSpanCount() {
+        return droppedSpanCount.get();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Forces the active segment to be written to the storage device.
+     */
+    public synchronized void flush() {
+        if (activeSegment != null)
+            activeSegment.force();
+    }
+
+    /**
+     * Flushes the active segment and stops writing spans. The pre-allocated next segment is deleted, since it never
+     * had any spans written to it.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+
+        flush();
+        activeSegment = null;
+        closed = true;
+
+        segmentPreallocator.shutdown();
+        try {
+            nextSegment.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ex) {
+            // Nothing was created, but there may be a partial file to clean up.
+        }
+        deleteSegmentFile(nextSegmentFile);
+    }
+}
@@ -0,0 +1,152 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * A {@link SpanLifecycleListener} that emits JDK Flight Recorder events for span start and completion, so spans can be
+ * recorded continuously at very low cost and correlated with GC, lock, and I/O events in JDK Mission Control. Register
+ * it with {@link com.nike.wingtips.Tracer#addSpanLifecycleListener(SpanLifecycleListener)} and enable the {@code
+ * com.nike.wingtips.SpanStarted} and {@code com.nike.wingtips.SpanCompleted} events in your recording settings.
+ *
+ * <p>This is the Java 11+ version of this class from the {@code META-INF/versions/11} part of the multi-release
+ * {@code wingtips-core} jar. When an event type isn't enabled in any recording the listener does nothing beyond a
+ * cheap enabled check.
+ *
+ * <p>The completed event is committed when the span completes, so its JFR start time is the completion time. The
+ * span's own start time and duration are in the event's {@code spanStartTime} and {@code spanDuration} fields.
+ */
+public class JfrSpanLifecycleListener implements SpanLifecycleListener {
+
+    private static final boolean JFR_AVAILABLE = detectJfr();
+
+    private static boolean detectJfr() {
+        try {
+            return FlightRecorder.isAvailable();
+        }
+        catch (LinkageError ex) {
+            // The jdk.jfr module isn't in this runtime image.
+            return false;
+        }
+    }
+
+    /**
+     * @return true if this JVM supports JDK Flight Recorder and this listener will emit events, false if it's a no-op.
+     */
+    public static boolean isJfrAvailable() {
+        return JFR_AVAILABLE;
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        if (!JFR_AVAILABLE)
+            return;
+
+        SpanStartedEvent event = new SpanStartedEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.traceId = span.getTraceId();
+        event.spanId = span.getSpanId();
+        event.parentSpanId = span.getParentSpanId();
+        event.spanName = span.getSpanName();
+        event.spanPurpose = String.valueOf(span.getSpanPurpose());
+        event.sampleable = span.isSampleable();
+        event.commit();
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing - spanStarted() and spanCompleted() record whether the span is sampleable.
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        if (!JFR_AVAILABLE)
+            return;
+
+        SpanCompletedEvent event = new SpanCompletedEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.traceId = span.getTraceId();
+        event.spanId = span.getSpanId();
+        event.parentSpanId = span.getParentSpanId();
+        event.spanName = span.getSpanName();
+        event.spanPurpose = String.valueOf(span.getSpanPurpose());
+        event.sampleable = span.isSampleable();
+        event.spanStartTime = TimeUnit.MICROSECONDS.toMillis(span.getSpanStartTimeEpochMicros());
+        Long durationNanos = span.getDurationNanos();
+        event.spanDuration = (durationNanos == null) ? 0 : durationNanos;
+        event.commit();
+    }
+
+    @Name("com.nike.wingtips.SpanStarted")
+    @Label("Span Started")
+    @Category("Wingtips")
+    @Description("A Wingtips span was started")
+    @StackTrace(false)
+    static class SpanStartedEvent extends Event {
+        @Label("Trace ID")
+        String traceId;
+
+        @Label("Span ID")
+        String spanId;
+
+        @Label("Parent Span ID")
+        String parentSpanId;
+
+        @Label("Span Name")
+        String spanName;
+
+        @Label("Span Purpose")
+        String spanPurpose;
+
+        @Label("Sampleable")
+        boolean sampleable;
+    }
+
+    @Name("com.nike.wingtips.SpanCompleted")
+    @Label("Span Completed")
+    @Category("Wingtips")
+    @Description("A Wingtips span was completed")
+    @StackTrace(false)
+    static class SpanCompletedEvent extends Event {
+        @Label("Trace ID")
+        String traceId;
+
+        @Label("Span ID")
+        String spanId;
+
+        @Label("Parent Span ID")
+        String parentSpanId;
+
+        @Label("Span Name")
+        String spanName;
+
+        @Label("Span Purpose")
+        String spanPurpose;
+
+        @Label("Sampleable")
+        boolean sampleable;
+
+        @Label("Span Start Time")
+        @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+        long spanStartTime;
+
+        @Label("Span Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long spanDuration;
+    }
+}
@@ -1,6 +1,8 @@
 package com.nike.wingtips;
 
 import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -856,6 +858,91 @@ public class SpanTest {
         assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.UNKNOWN);
     }
 
+    @Test
+    public void serialized_representations_include_measured_resource_usage_only_for_completed_spans() throws IOException {
+        // given
+        Span validSpan = Span.generateRootSpanForNewTrace(spanName, spanPurpose).build();
+        validSpan.setResourceUsage(SpanResourceUsage.fromTotals(1234, 5678, ThreadResourceSnapshot.NOT_MEASURED, 42, 3));
+        assertThat(validSpan.toJSON()).doesNotContain(Span.CPU_TIME_NANOS_FIELD);
+        assertThat(validSpan.toKeyValueString()).doesNotContain(Span.CPU_TIME_NANOS_FIELD);
+
+        // when
+        validSpan.complete();
+        Map<String, String> jsonValues = objectMapper.readValue(validSpan.toJSON(), new TypeReference<Map<String, String>>() {});
+        String keyValueString = validSpan.toKeyValueString();
+
+        // then
+        assertThat(jsonValues.get(Span.CPU_TIME_NANOS_FIELD)).isEqualTo("1234");
+        assertThat(jsonValues.get(Span.ALLOCATED_BYTES_FIELD)).isEqualTo("5678");
+        assertThat(jsonValues).doesNotContainKey(Span.BLOCKED_TIME_MILLIS_FIELD);
+        assertThat(jsonValues.get(Span.WAITED_TIME_MILLIS_FIELD)).isEqualTo("42");
+        assertThat(jsonValues.get(Span.ASYNC_TASK_COUNT_FIELD)).isEqualTo("3");
+        assertThat(keyValueString).contains(
+            Span.CPU_TIME_NANOS_FIELD + "=1234", Span.ALLOCATED_BYTES_FIELD + "=5678", Span.WAITED_TIME_MILLIS_FIELD + "=42",
+            Span.ASYNC_TASK_COUNT_FIELD + "=3"
+        );
+        assertThat(keyValueString).doesNotContain(Span.BLOCKED_TIME_MILLIS_FIELD);
+    }
+
+    @Test
+    public void fromJson_and_fromKeyValueString_restore_resource_usage() {
+        // given
+        Span validSpan = Span.generateRootSpanForNewTrace(spanName, spanPurpose).build();
+        validSpan.setResourceUsage(SpanResourceUsage.fromTotals(1234, ThreadResourceSnapshot.NOT_MEASURED, 7, 42, 3));
+        validSpan.complete();
+
+        // when
+        SpanResourceUsage fromJson = Span.fromJSON(validSpan.toJSON()).getResourceUsage();
+        SpanResourceUsage fromKeyValue = Span.fromKeyValueString(validSpan.toKeyValueString()).getResourceUsage();
+
+        // then
+        for (SpanResourceUsage usage : Arrays.asList(fromJson, fromKeyValue)) {
+            assertThat(usage.getCpuTimeNanos()).isEqualTo(1234);
+            assertThat(usage.getAllocatedBytes()).isEqualTo(ThreadResourceSnapshot.NOT_MEASURED);
+            assertThat(usage.getBlockedTimeMillis()).isEqualTo(7);
+            assertThat(usage.getWaitedTimeMillis()).isEqualTo(42);
+            assertThat(usage.getAsyncTaskCount()).isEqualTo(3);
+        }
+        assertThat(Span.fromJSON(Span.generateRootSpanForNewTrace(spanName, spanPurpose).build().toJSON()).getResourceUsage()).isNull();
+    }
+
+    @Test
+    public void gc_pause_time_is_serialized_and_restored_only_for_completed_spans() {
+        // given
+        Span validSpan = Span.generateRootSpanForNewTrace(spanName, spanPurpose).build();
+        validSpan.setGcPauseMicros(8000L);
+        assertThat(validSpan.toJSON()).doesNotContain(Span.GC_PAUSE_MICROS_FIELD);
+        assertThat(validSpan.toKeyValueString()).doesNotContain(Span.GC_PAUSE_MICROS_FIELD);
+
+        // when
+        validSpan.complete();
+        String json = validSpan.toJSON();
+        String keyValueString = validSpan.toKeyValueString();
+
+        // then
+        assertThat(json).contains("\"" + Span.GC_PAUSE_MICROS_FIELD + "\":\"8000\"");
+        assertThat(keyValueString).contains(Span.GC_PAUSE_MICROS_FIELD + "=8000");
+        assertThat(Span.fromJSON(json).getGcPauseMicros()).isEqualTo(8000L);
+        assertThat(Span.fromKeyValueString(keyValueString).getGcPauseMicros()).isEqualTo(8000L);
+        assertThat(Span.fromJSON(Span.generateRootSpanForNewTrace(spanName, spanPurpose).build().toJSON()).getGcPauseMicros()).isNull();
+    }
+
+    @Test
+    public void setGcPauseMicros_resets_cached_serialized_representations() {
+        // given
+        Span validSpan = Span.generateRootSpanForNewTrace(spanName, spanPurpose).build();
+        validSpan.complete();
+        assertThat(validSpan.toJSON()).doesNotContain(Span.GC_PAUSE_MICROS_FIELD);
+        assertThat(validSpan.toKeyValueString()).doesNotContain(Span.GC_PAUSE_MICROS_FIELD);
+
+        // when
+        validSpan.setGcPauseMicros(42L);
+
+        // then
+        assertThat(validSpan.toJSON()).contains(Span.GC_PAUSE_MICROS_FIELD);
+        assertThat(validSpan.toKeyValueString()).contains(Span.GC_PAUSE_MICROS_FIELD);
+    }
+
     @Test
     public void getDuration_should_be_null_until_span_is_completed() {
         // given
@@ -1137,6 +1224,32 @@ public class SpanTest {
         assertThat(span.getSpanStartTimeEpochMicros()).isBetween(beforeEpochMicros, afterEpochMicros);
     }
 
+    @Test
+    public void builder_withResourceUsage_sets_the_resource_usage() {
+        // given
+        SpanResourceUsage resourceUsage = SpanResourceUsage.fromTotals(1, 2, 3, 4, 5);
+
+        // when
+        Span span = Span.newBuilder("stuff", SpanPurpose.LOCAL_ONLY).withResourceUsage(resourceUsage).build();
+        Span spanWithoutResourceUsage = Span.newBuilder("stuff", SpanPurpose.LOCAL_ONLY).build();
+
+        // then
+        assertThat(span.getResourceUsage()).isSameAs(resourceUsage);
+        assertThat(spanWithoutResourceUsage.getResourceUsage()).isNull();
+    }
+
+    @Test
+    public void builder_withGcPauseMicros_sets_the_gc_pause() {
+        // when
+        Span span = Span.newBuilder("stuff", SpanPurpose.LOCAL_ONLY).withDurationNanos(1L).withGcPauseMicros(42L).build();
+        Span spanWithoutGcPause = Span.newBuilder("stuff", SpanPurpose.LOCAL_ONLY).build();
+
+        // then
+        assertThat(span.getGcPauseMicros()).isEqualTo(42L);
+        assertThat(span.toJSON()).contains("\"gcPauseMicros\":\"42\"");
+        assertThat(spanWithoutGcPause.getGcPauseMicros()).isNull();
+    }
+
     @Test
     public void close_completes_the_span_as_expected_overall_request_span() {
         // given
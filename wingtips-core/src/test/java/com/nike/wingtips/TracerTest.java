@@ -1,7 +1,20 @@
 package com.nike.wingtips;
 
 import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.inflight.InFlightSpanRegistry;
+import com.nike.wingtips.inflight.InFlightSpanRegistry.InFlightSpan;
 import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.metrics.NoOpTracerMetrics;
+import com.nike.wingtips.metrics.StripedTracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics.DirtySpanStackSource;
+import com.nike.wingtips.metrics.TracerMetrics.SpanLifecycleEvent;
+import com.nike.wingtips.profiling.CurrentSpanPublisher;
+import com.nike.wingtips.profiling.CurrentSpanPublisher.PublishedThread;
+import com.nike.wingtips.resourceusage.GcPauseTracker;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSampler;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
 import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
 import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
@@ -16,6 +29,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.internal.util.reflection.Whitebox;
+import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.lang.reflect.Field;
@@ -28,10 +42,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.Fail.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -51,6 +71,14 @@ public class TracerTest {
             Tracer.getInstance().removeSpanLifecycleListener(listener);
         }
         Tracer.getInstance().setSpanLoggingRepresentation(Tracer.SpanLoggingRepresentation.JSON);
+        Tracer.getInstance().setSpanLogBatchingMaxSpansPerRequest(0);
+        Tracer.getInstance().setTracerMetrics(NoOpTracerMetrics.INSTANCE);
+        Tracer.getInstance().setInFlightSpanRegistry(null);
+        Tracer.getInstance().setThreadResourceSampler(null);
+        Tracer.getInstance().setGcPauseTracker(null);
+        Tracer.getInstance().setCurrentSpanPublisher(null);
+        Tracer.getInstance().setMdcUpdatesEnabled(true);
+        Tracer.getInstance().setLogSpansAsObjects(false);
     }
 
     @Before
@@ -79,6 +107,18 @@ public class TracerTest {
         return getSpanStackThreadLocal().get();
     }
 
+    private Tracer.SpanLogBatch getSpanLogBatchFromTracer() {
+        try {
+            Field batchThreadLocalField = Tracer.class.getDeclaredField("currentSpanLogBatchThreadLocal");
+            batchThreadLocalField.setAccessible(true);
+            //noinspection unchecked
+            return ((ThreadLocal<Tracer.SpanLogBatch>) batchThreadLocalField.get(Tracer.getInstance())).get();
+        }
+        catch (Exception ex) {
+            throw new IllegalStateException("Couldn't do necessary reflection on Tracer", ex);
+        }
+    }
+
     private int getSpanStackSize() {
         Deque<Span> stack = getSpanStackFromTracer();
         if (stack == null)
@@ -809,6 +849,32 @@ public class TracerTest {
         assertThat(Tracer.getInstance().getSpanLifecycleListeners()).isEmpty();
     }
 
+    @Test
+    public void notifyUnmanagedSpanStarted_notifies_listeners_that_the_span_started_and_was_sampled() {
+        // given
+        SpanLifecycleListener listener = mock(SpanLifecycleListener.class);
+        Tracer.getInstance().addSpanLifecycleListener(listener);
+        Span sampledSpan = Span.generateRootSpanForNewTrace("sampled", SpanPurpose.LOCAL_ONLY).withSampleable(true).build();
+        Span notSampledSpan = Span.generateRootSpanForNewTrace("not-sampled", SpanPurpose.LOCAL_ONLY).withSampleable(false).build();
+
+        // when
+        Tracer.getInstance().notifyUnmanagedSpanStarted(sampledSpan);
+        Tracer.getInstance().notifyUnmanagedSpanStarted(notSampledSpan);
+
+        // then
+        verify(listener).spanStarted(sampledSpan);
+        verify(listener).spanSampled(sampledSpan);
+        verify(listener).spanStarted(notSampledSpan);
+        verify(listener, never()).spanSampled(notSampledSpan);
+        assertThat(Tracer.getInstance().getCurrentSpan()).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notifyUnmanagedSpanStarted_throws_IllegalArgumentException_if_passed_null() {
+        // expect
+        Tracer.getInstance().notifyUnmanagedSpanStarted(null);
+    }
+
     @Test
     public void removeSpanLifecycleListener_should_work_as_advertised() {
         // given
@@ -1490,6 +1556,37 @@ public class TracerTest {
         }
     }
 
+    @Test
+    public void getCurrentOverallRequestSpan_returns_the_bottom_of_the_span_stack() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.unregisterFromThread();
+
+        // expect
+        assertThat(tracer.getCurrentOverallRequestSpan()).isNull();
+
+        // and when
+        tracer.registerWithThread(new LinkedList<Span>());
+
+        // then
+        assertThat(tracer.getCurrentOverallRequestSpan()).isNull();
+
+        // and when
+        Span requestSpan = tracer.startRequestWithRootSpan("foo");
+        Span subSpan = tracer.startSubSpan("bar", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(tracer.getCurrentSpan()).isSameAs(subSpan);
+        assertThat(tracer.getCurrentOverallRequestSpan()).isSameAs(requestSpan);
+
+        // and when
+        tracer.completeSubSpan();
+        tracer.completeRequestSpan();
+
+        // then
+        assertThat(tracer.getCurrentOverallRequestSpan()).isNull();
+    }
+
     @Test
     public void getCurrentTracingStateCopy_works_as_expected() {
         // given
@@ -1546,6 +1643,166 @@ public class TracerTest {
         Tracer.getInstance().setSpanLoggingRepresentation(null);
     }
 
+    @Test
+    public void setSpanLogBatchingMaxSpansPerRequest_works_as_expected() {
+        // given
+        assertThat(Tracer.getInstance().getSpanLogBatchingMaxSpansPerRequest()).isEqualTo(0);
+
+        // when
+        Tracer.getInstance().setSpanLogBatchingMaxSpansPerRequest(42);
+
+        // then
+        assertThat(Tracer.getInstance().getSpanLogBatchingMaxSpansPerRequest()).isEqualTo(42);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setSpanLogBatchingMaxSpansPerRequest_blows_up_if_passed_negative_value() {
+        // expect
+        Tracer.getInstance().setSpanLogBatchingMaxSpansPerRequest(-1);
+    }
+
+    @Test
+    public void completeSubSpan_does_not_batch_subspans_when_span_log_batching_is_disabled() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.startRequestWithRootSpan("root");
+        tracer.startSubSpan("subspan", SpanPurpose.LOCAL_ONLY);
+
+        // when
+        tracer.completeSubSpan();
+
+        // then
+        assertThat(getSpanLogBatchFromTracer()).isNull();
+    }
+
+    @Test
+    public void completeSubSpan_batches_subspans_with_root_span_when_span_log_batching_is_enabled() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.setSpanLogBatchingMaxSpansPerRequest(10);
+        SpanLifecycleListener listener = mock(SpanLifecycleListener.class);
+        tracer.addSpanLifecycleListener(listener);
+        Span rootSpan = tracer.startRequestWithRootSpan("root");
+        Span subspan1 = tracer.startSubSpan("subspan1", SpanPurpose.LOCAL_ONLY);
+        tracer.completeSubSpan();
+        Span subspan2 = tracer.startSubSpan("subspan2", SpanPurpose.CLIENT);
+
+        // when
+        tracer.completeSubSpan();
+
+        // then
+        Tracer.SpanLogBatch batch = getSpanLogBatchFromTracer();
+        assertThat(batch).isNotNull();
+        assertThat(batch.rootSpan).isSameAs(rootSpan);
+        assertThat(batch.spans).containsExactly(subspan1, subspan2);
+        // Listeners are still notified immediately.
+        verify(listener).spanCompleted(subspan1);
+        verify(listener).spanCompleted(subspan2);
+
+        // and when
+        tracer.completeRequestSpan();
+
+        // then
+        assertThat(rootSpan.isCompleted()).isTrue();
+        assertThat(getSpanLogBatchFromTracer()).isNull();
+    }
+
+    @Test
+    public void completeSubSpan_spills_over_to_immediate_logging_when_batch_is_full() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.setSpanLogBatchingMaxSpansPerRequest(1);
+        tracer.startRequestWithRootSpan("root");
+        Span subspan1 = tracer.startSubSpan("subspan1", SpanPurpose.LOCAL_ONLY);
+        tracer.completeSubSpan();
+        Span subspan2 = tracer.startSubSpan("subspan2", SpanPurpose.LOCAL_ONLY);
+
+        // when
+        tracer.completeSubSpan();
+
+        // then
+        assertThat(subspan2.isCompleted()).isTrue();
+        assertThat(getSpanLogBatchFromTracer().spans).containsExactly(subspan1);
+    }
+
+    @Test
+    public void completeSubSpan_does_not_batch_unsampleable_subspans() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.setSpanLogBatchingMaxSpansPerRequest(10);
+        tracer.startRequestWithSpanInfo(null, null, "root", false, null, SpanPurpose.SERVER);
+        tracer.startSubSpan("subspan", SpanPurpose.LOCAL_ONLY);
+
+        // when
+        tracer.completeSubSpan();
+
+        // then
+        assertThat(getSpanLogBatchFromTracer()).isNull();
+    }
+
+    @Test
+    public void unregisterFromThread_flushes_span_log_batch() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.setSpanLogBatchingMaxSpansPerRequest(10);
+        tracer.startRequestWithRootSpan("root");
+        tracer.startSubSpan("subspan", SpanPurpose.LOCAL_ONLY);
+        tracer.completeSubSpan();
+        assertThat(getSpanLogBatchFromTracer()).isNotNull();
+
+        // when
+        tracer.unregisterFromThread();
+
+        // then
+        assertThat(getSpanLogBatchFromTracer()).isNull();
+    }
+
+    @Test
+    public void starting_a_new_request_flushes_span_log_batch_from_previous_request() {
+        // given
+        Tracer tracer = Tracer.getInstance();
+        tracer.setSpanLogBatchingMaxSpansPerRequest(10);
+        tracer.startRequestWithRootSpan("root");
+        tracer.startSubSpan("subspan", SpanPurpose.LOCAL_ONLY);
+        tracer.completeSubSpan();
+        assertThat(getSpanLogBatchFromTracer()).isNotNull();
+
+        // when
+        tracer.startRequestWithRootSpan("newRoot");
+
+        // then
+        assertThat(getSpanLogBatchFromTracer()).isNull();
+    }
+
+    @DataProvider(value = {
+        "JSON",
+        "KEY_VALUE"
+    }, splitBy = "\\|")
+    @Test
+    public void verify_span_batch_serialization_methods(Tracer.SpanLoggingRepresentation serializationOption) {
+        // given
+        Span span1 = Span.generateRootSpanForNewTrace(UUID.randomUUID().toString(), SpanPurpose.SERVER).build();
+        Span span2 = span1.generateChildSpan(UUID.randomUUID().toString(), SpanPurpose.LOCAL_ONLY);
+        String expectedOutput;
+        switch(serializationOption) {
+            case JSON:
+                expectedOutput = "[" + span1.toJSON() + "," + span2.toJSON() + "]";
+                break;
+            case KEY_VALUE:
+                expectedOutput = span1.toKeyValueString() + Tracer.SPAN_LOG_BATCH_KEY_VALUE_DELIMITER + span2.toKeyValueString();
+                break;
+            default:
+                throw new IllegalArgumentException("Unhandled option: " + serializationOption);
+        }
+        Tracer.getInstance().setSpanLoggingRepresentation(serializationOption);
+
+        // when
+        String serializedString = Tracer.getInstance().serializeSpanBatchToDesiredStringRepresentation(Arrays.asList(span1, span2));
+
+        // then
+        assertThat(serializedString).isEqualTo(expectedOutput);
+    }
+
     @Test
     public void handleSpanCloseMethod_completes_the_span_as_expected_overall_request_span() {
         // given
@@ -1743,6 +2000,276 @@ public class TracerTest {
         assertThat(tmssCompleted).isEqualTo(TracerManagedSpanStatus.UNMANAGED_SPAN);
     }
 
+    @Test
+    public void tracerMetrics_defaults_to_NoOpTracerMetrics() {
+        // expect
+        assertThat(Tracer.getInstance().getTracerMetrics()).isSameAs(NoOpTracerMetrics.INSTANCE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setTracerMetrics_throws_IllegalArgumentException_if_passed_null() {
+        // expect
+        Tracer.getInstance().setTracerMetrics(null);
+    }
+
+    @Test
+    public void tracerMetrics_receives_span_lifecycle_and_stack_depth_events() {
+        // given
+        StripedTracerMetrics tracerMetrics = new StripedTracerMetrics();
+        Tracer.getInstance().setTracerMetrics(tracerMetrics);
+        Tracer.getInstance().addSpanLifecycleListener(mock(SpanLifecycleListener.class));
+
+        // when
+        Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().startSubSpan("grandchild", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeRequestSpan();
+        Tracer.getInstance().startRequestWithSpanInfo(null, null, "unsampled", false, null, SpanPurpose.SERVER);
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(Tracer.getInstance().getTracerMetrics()).isSameAs(tracerMetrics);
+        assertThat(tracerMetrics.getSpansStarted()).isEqualTo(4);
+        assertThat(tracerMetrics.getSpansSampled()).isEqualTo(3);
+        assertThat(tracerMetrics.getSpansUnsampled()).isEqualTo(1);
+        assertThat(tracerMetrics.getSpansCompleted()).isEqualTo(4);
+        assertThat(tracerMetrics.getSpanStackPushes()).isEqualTo(4);
+        assertThat(tracerMetrics.getMaxSpanStackDepth()).isEqualTo(3);
+        assertThat(tracerMetrics.getMeanSpanStackDepth()).isEqualTo((1 + 2 + 3 + 1) / 4.0);
+        assertThat(tracerMetrics.getSpanLifecycleListenerNotifications(SpanLifecycleEvent.STARTED)).isEqualTo(4);
+        assertThat(tracerMetrics.getSpanLifecycleListenerNotifications(SpanLifecycleEvent.SAMPLED)).isEqualTo(3);
+        assertThat(tracerMetrics.getSpanLifecycleListenerNotifications(SpanLifecycleEvent.COMPLETED)).isEqualTo(4);
+        // Only the sampled spans are serialized for the logs.
+        assertThat(tracerMetrics.getSerializations()).isEqualTo(3);
+        assertThat(tracerMetrics.getSerializedSpans()).isEqualTo(3);
+        assertThat(tracerMetrics.getDirtySpanStackCount()).isZero();
+    }
+
+    @Test
+    public void tracerMetrics_counts_span_log_batches_as_one_serialization() {
+        // given
+        StripedTracerMetrics tracerMetrics = new StripedTracerMetrics();
+        Tracer.getInstance().setTracerMetrics(tracerMetrics);
+        Tracer.getInstance().setSpanLogBatchingMaxSpansPerRequest(10);
+
+        // when
+        Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().startSubSpan("child1", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().startSubSpan("child2", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(tracerMetrics.getSerializations()).isEqualTo(1);
+        assertThat(tracerMetrics.getSerializedSpans()).isEqualTo(3);
+    }
+
+    @Test
+    public void logSpansAsObjects_defaults_to_false() {
+        // expect
+        assertThat(Tracer.getInstance().isLogSpansAsObjects()).isFalse();
+    }
+
+    @DataProvider(value = {
+        "JSON       |   true",
+        "KEY_VALUE  |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void setLogSpansAsObjects_true_passes_the_span_itself_to_the_span_logger_for_json(
+        Tracer.SpanLoggingRepresentation representation, boolean expectSpanObject
+    ) {
+        // given
+        StripedTracerMetrics tracerMetrics = new StripedTracerMetrics();
+        Tracer.getInstance().setTracerMetrics(tracerMetrics);
+        Tracer.getInstance().setSpanLoggingRepresentation(representation);
+        Tracer.getInstance().setLogSpansAsObjects(true);
+        Logger spanLogger = (Logger) LoggerFactory.getLogger("VALID_WINGTIPS_SPANS");
+        ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+        listAppender.start();
+        spanLogger.addAppender(listAppender);
+
+        try {
+            // when
+            Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+            Tracer.getInstance().completeRequestSpan();
+
+            // then
+            assertThat(Tracer.getInstance().isLogSpansAsObjects()).isTrue();
+            assertThat(listAppender.list).hasSize(1);
+            ILoggingEvent event = listAppender.list.get(0);
+            assertThat(event.getFormattedMessage())
+                .isEqualTo("[DISTRIBUTED_TRACING] " + Tracer.getInstance().serializeSpanToDesiredStringRepresentation(span));
+            if (expectSpanObject) {
+                assertThat(event.getArgumentArray()[1]).isSameAs(span);
+                assertThat(tracerMetrics.getSerializations()).isZero();
+            }
+            else {
+                assertThat(event.getArgumentArray()[1]).isEqualTo(span.toKeyValueString());
+                assertThat(tracerMetrics.getSerializations()).isEqualTo(1);
+            }
+        }
+        finally {
+            spanLogger.detachAppender(listAppender);
+        }
+    }
+
+    @Test
+    public void tracerMetrics_receives_dirty_span_stack_events() {
+        // given
+        TracerMetrics tracerMetricsMock = mock(TracerMetrics.class);
+        Tracer.getInstance().setTracerMetrics(tracerMetricsMock);
+
+        // when
+        Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().startRequestWithRootSpan("dirty-root");
+        Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().completeRequestSpan();
+        Tracer.getInstance().startRequestWithRootSpan("root-before-register");
+        Tracer.getInstance().registerWithThread(new LinkedList<>(singletonList(
+            Span.newBuilder("registered", SpanPurpose.SERVER).build()
+        )));
+
+        // then
+        verify(tracerMetricsMock).dirtySpanStackDetected(DirtySpanStackSource.START_NEW_SPAN_STACK, 2);
+        verify(tracerMetricsMock).dirtySpanStackDetected(DirtySpanStackSource.COMPLETE_REQUEST_SPAN, 2);
+        verify(tracerMetricsMock).dirtySpanStackDetected(DirtySpanStackSource.REGISTER_WITH_THREAD, 1);
+    }
+
+    @Test
+    public void inFlightSpanRegistry_tracks_request_spans_from_start_to_completion() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry();
+        Tracer.getInstance().setInFlightSpanRegistry(registry);
+
+        // when
+        Span requestSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span subSpan = Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        List<InFlightSpan> inFlight = registry.getInFlightSpans(0);
+
+        // then
+        assertThat(Tracer.getInstance().getInFlightSpanRegistry()).isSameAs(registry);
+        assertThat(inFlight).hasSize(1);
+        assertThat(inFlight.get(0).getRootSpan()).isSameAs(requestSpan);
+        assertThat(inFlight.get(0).getThread()).isSameAs(Thread.currentThread());
+        assertThat(inFlight.get(0).getSpanChain()).containsExactly(requestSpan, subSpan);
+
+        // and when
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(registry.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void inFlightSpanRegistry_forgets_request_spans_lost_to_dirty_span_stacks() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry();
+        Tracer.getInstance().setInFlightSpanRegistry(registry);
+
+        // when
+        Tracer.getInstance().startRequestWithRootSpan("lost-root");
+        Span secondRoot = Tracer.getInstance().startRequestWithRootSpan("second-root");
+
+        // then
+        assertThat(registry.getInFlightSpans(0)).hasSize(1);
+        assertThat(registry.getInFlightSpans(0).get(0).getRootSpan()).isSameAs(secondRoot);
+
+        // and when
+        Tracer.getInstance().registerWithThread(new LinkedList<>(singletonList(
+            Span.newBuilder("registered", SpanPurpose.SERVER).build()
+        )));
+
+        // then
+        assertThat(registry.getInFlightCount()).isEqualTo(0);
+    }
+
+    private static class FakeThreadResourceSampler extends ThreadResourceSampler {
+        private final Map<Thread, Long> cpuTimeByThread = new ConcurrentHashMap<>();
+
+        void setCpuTime(Thread thread, long cpuTimeNanos) {
+            cpuTimeByThread.put(thread, cpuTimeNanos);
+        }
+
+        @Override
+        public ThreadResourceSnapshot sampleCurrentThread() {
+            Long cpuTime = cpuTimeByThread.get(Thread.currentThread());
+            return new ThreadResourceSnapshot(
+                System.nanoTime(), (cpuTime == null) ? 0 : cpuTime, ThreadResourceSnapshot.NOT_MEASURED,
+                ThreadResourceSnapshot.NOT_MEASURED, ThreadResourceSnapshot.NOT_MEASURED
+            );
+        }
+    }
+
+    @Test
+    public void spans_have_no_resource_usage_when_threadResourceSampler_is_not_set() {
+        // when
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(Tracer.getInstance().getThreadResourceSampler()).isNull();
+        assertThat(span.getResourceUsage()).isNull();
+    }
+
+    @Test
+    public void threadResourceSampler_measures_span_resource_usage_on_a_single_thread() {
+        // given
+        FakeThreadResourceSampler sampler = new FakeThreadResourceSampler();
+        Tracer.getInstance().setThreadResourceSampler(sampler);
+        Thread thread = Thread.currentThread();
+
+        // when
+        sampler.setCpuTime(thread, 100);
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+        sampler.setCpuTime(thread, 150);
+        Span child = Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        sampler.setCpuTime(thread, 180);
+        Tracer.getInstance().completeSubSpan();
+        sampler.setCpuTime(thread, 200);
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(Tracer.getInstance().getThreadResourceSampler()).isSameAs(sampler);
+        assertThat(child.getResourceUsage().getCpuTimeNanos()).isEqualTo(30);
+        assertThat(root.getResourceUsage().getCpuTimeNanos()).isEqualTo(100);
+        assertThat(root.getResourceUsage().getAllocatedBytes()).isEqualTo(ThreadResourceSnapshot.NOT_MEASURED);
+    }
+
+    @Test
+    public void threadResourceSampler_accumulates_resource_usage_across_thread_hops() throws InterruptedException {
+        // given
+        final FakeThreadResourceSampler sampler = new FakeThreadResourceSampler();
+        Tracer.getInstance().setThreadResourceSampler(sampler);
+        Thread originalThread = Thread.currentThread();
+        sampler.setCpuTime(originalThread, 1000);
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+        sampler.setCpuTime(originalThread, 1010);
+
+        // when
+        final Deque<Span> spanStack = Tracer.getInstance().unregisterFromThread();
+        // Work done on the original thread after the hop must not count.
+        sampler.setCpuTime(originalThread, 5000);
+        Thread asyncThread = new Thread(() -> {
+            sampler.setCpuTime(Thread.currentThread(), 300);
+            Tracer.getInstance().registerWithThread(spanStack);
+            sampler.setCpuTime(Thread.currentThread(), 320);
+            Tracer.getInstance().completeRequestSpan();
+        });
+        asyncThread.start();
+        asyncThread.join();
+
+        // then
+        SpanResourceUsage resourceUsage = root.getResourceUsage();
+        assertThat(root.isCompleted()).isTrue();
+        assertThat(resourceUsage.getStartThread()).isSameAs(originalThread);
+        assertThat(resourceUsage.getCpuTimeNanos()).isEqualTo(30);
+    }
+
     @Test
     public void make_code_coverage_happy() {
         // Some code coverage tools force you to exercise valueOf() (for example) or you get uncovered lines.
@@ -1751,4 +2278,148 @@ public class TracerTest {
         }
     }
 
+    @Test
+    public void gcPauseTracker_annotates_completed_spans_before_they_are_logged() throws InterruptedException {
+        // given
+        GcPauseTracker tracker = new GcPauseTracker(16, false);
+        Tracer.getInstance().setGcPauseTracker(tracker);
+        final List<String> jsonAtCompletion = new ArrayList<>();
+        Tracer.getInstance().addSpanLifecycleListener(new SpanLifecycleListener() {
+            @Override
+            public void spanStarted(Span span) { }
+
+            @Override
+            public void spanSampled(Span span) { }
+
+            @Override
+            public void spanCompleted(Span span) {
+                jsonAtCompletion.add(span.toJSON());
+            }
+        });
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        long spanStartMicros = span.getSpanStartTimeEpochMicros();
+        // A pause entirely before the span, and one that overlaps its start by 500 microseconds.
+        tracker.recordPause(spanStartMicros - 5000, spanStartMicros - 4000);
+        tracker.recordPause(spanStartMicros - 1000, spanStartMicros + 500);
+        // Make sure the span lasts longer than the overlapping pause.
+        Thread.sleep(5);
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(Tracer.getInstance().getGcPauseTracker()).isSameAs(tracker);
+        assertThat(span.getGcPauseMicros()).isEqualTo(500L);
+        assertThat(jsonAtCompletion.get(0)).contains("\"" + Span.GC_PAUSE_MICROS_FIELD + "\":\"500\"");
+    }
+
+    @Test
+    public void gcPauseTracker_skips_unsampled_spans_when_sampledSpansOnly_is_true() {
+        // given
+        Tracer.getInstance().setGcPauseTracker(new GcPauseTracker(16, true));
+        Tracer.getInstance().setRootSpanSamplingStrategy(new RootSpanSamplingStrategy() {
+            @Override
+            public boolean isNextRootSpanSampleable() {
+                return false;
+            }
+        });
+
+        // when
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(span.isSampleable()).isFalse();
+        assertThat(span.getGcPauseMicros()).isNull();
+    }
+
+    @Test
+    public void spans_have_no_gc_pause_time_when_gcPauseTracker_is_not_set() {
+        // when
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(Tracer.getInstance().getGcPauseTracker()).isNull();
+        assertThat(span.getGcPauseMicros()).isNull();
+    }
+
+    @Test
+    public void currentSpanPublisher_is_kept_up_to_date_with_the_current_threads_span_stack() {
+        // given
+        CurrentSpanPublisher publisher = new CurrentSpanPublisher();
+        Tracer.getInstance().setCurrentSpanPublisher(publisher);
+
+        // when
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanPublisher()).isSameAs(publisher);
+        assertThat(publisher.getPublishedThreads()).hasSize(1);
+        PublishedThread publishedThread = publisher.getPublishedThreads().get(0);
+        assertThat(publishedThread.getThread()).isSameAs(Thread.currentThread());
+        assertThat(publishedThread.getRootSpan()).isSameAs(root);
+        assertThat(publishedThread.getCurrentSpan()).isSameAs(root);
+
+        // and when
+        Span child = Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(publishedThread.getRootSpan()).isSameAs(root);
+        assertThat(publishedThread.getCurrentSpan()).isSameAs(child);
+
+        // and when
+        Tracer.getInstance().completeSubSpan();
+
+        // then
+        assertThat(publishedThread.getCurrentSpan()).isSameAs(root);
+
+        // and when
+        Deque<Span> unregistered = Tracer.getInstance().unregisterFromThread();
+
+        // then
+        assertThat(publishedThread.getRootSpan()).isNull();
+        assertThat(publishedThread.getCurrentSpan()).isNull();
+
+        // and when
+        Tracer.getInstance().registerWithThread(unregistered);
+
+        // then
+        assertThat(publishedThread.getRootSpan()).isSameAs(root);
+
+        // and when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(publishedThread.getRootSpan()).isNull();
+        assertThat(publishedThread.getCurrentSpan()).isNull();
+        assertThat(publisher.getPublishedThreads()).containsExactly(publishedThread);
+    }
+
+    @Test
+    public void setMdcUpdatesEnabled_false_leaves_the_MDC_alone() {
+        // given
+        MDC.put("foo", "bar");
+        Tracer.getInstance().setMdcUpdatesEnabled(false);
+
+        // when
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().completeSubSpan();
+        Deque<Span> unregistered = Tracer.getInstance().unregisterFromThread();
+        Tracer.getInstance().registerWithThread(unregistered);
+
+        // then
+        assertThat(Tracer.getInstance().isMdcUpdatesEnabled()).isFalse();
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(root);
+        assertThat(MDC.getCopyOfContextMap()).containsOnly(entry("foo", "bar"));
+
+        // and when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(MDC.getCopyOfContextMap()).containsOnly(entry("foo", "bar"));
+        MDC.remove("foo");
+    }
+
 }
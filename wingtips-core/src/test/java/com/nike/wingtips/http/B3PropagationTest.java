@@ -0,0 +1,194 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+import com.nike.wingtips.TraceHeaders;
+import com.nike.wingtips.http.B3Propagation.InjectFormat;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests the functionality of {@link B3Propagation}.
+ */
+@RunWith(DataProviderRunner.class)
+public class B3PropagationTest {
+
+    private String traceId = TraceAndSpanIdGenerator.generateId();
+    private String spanId = TraceAndSpanIdGenerator.generateId();
+    private String parentSpanId = TraceAndSpanIdGenerator.generateId();
+    private RequestWithHeaders request;
+    private HttpObjectForPropagation httpObjectForPropagationMock;
+
+    @Before
+    public void beforeMethod() {
+        request = mock(RequestWithHeaders.class);
+        httpObjectForPropagationMock = mock(HttpObjectForPropagation.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_passed_null_inject_format() {
+        // when
+        Throwable ex = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new B3Propagation(null);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shared_instances_have_expected_inject_formats() {
+        // expect
+        assertThat(B3Propagation.MULTI_HEADER_INSTANCE.getInjectFormat()).isEqualTo(InjectFormat.MULTI_HEADER);
+        assertThat(B3Propagation.SINGLE_HEADER_INSTANCE.getInjectFormat()).isEqualTo(InjectFormat.SINGLE_HEADER);
+    }
+
+    @Test
+    public void extractSpanBuilder_uses_multi_headers() {
+        // given
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(traceId);
+        given(request.getHeader(TraceHeaders.SPAN_ID)).willReturn(spanId);
+        given(request.getHeader(TraceHeaders.PARENT_SPAN_ID)).willReturn(parentSpanId);
+        given(request.getHeader(TraceHeaders.TRACE_SAMPLED)).willReturn("0");
+        given(request.getHeader(TraceHeaders.SPAN_NAME)).willReturn("someSpan");
+
+        // when
+        Span result = B3Propagation.MULTI_HEADER_INSTANCE.extractSpanBuilder(request).build();
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(traceId);
+        assertThat(result.getSpanId()).isEqualTo(spanId);
+        assertThat(result.getParentSpanId()).isEqualTo(parentSpanId);
+        assertThat(result.isSampleable()).isFalse();
+        assertThat(result.getSpanName()).isEqualTo("someSpan");
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+    }
+
+    @Test
+    public void extractSpanBuilder_prefers_valid_single_b3_header() {
+        // given
+        given(request.getHeader(TraceHeaders.B3_SINGLE_HEADER)).willReturn(traceId + "-" + spanId + "-1-" + parentSpanId);
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(TraceAndSpanIdGenerator.generateId());
+
+        // when
+        Span result = B3Propagation.SINGLE_HEADER_INSTANCE.extractSpanBuilder(request).build();
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(traceId);
+        assertThat(result.getSpanId()).isEqualTo(spanId);
+        assertThat(result.getParentSpanId()).isEqualTo(parentSpanId);
+        assertThat(result.isSampleable()).isTrue();
+        assertThat(result.getSpanName()).isEqualTo(HttpRequestTracingUtils.UNSPECIFIED_SPAN_NAME);
+        verify(request, never()).getHeader(TraceHeaders.TRACE_ID);
+    }
+
+    @Test
+    public void extractSpanBuilder_returns_null_if_no_trace_info_found() {
+        // expect
+        assertThat(B3Propagation.MULTI_HEADER_INSTANCE.extractSpanBuilder(request)).isNull();
+    }
+
+    @Test
+    public void extractSpanBuilder_does_not_look_up_span_name_if_no_trace_info_found() {
+        // when
+        B3Propagation.MULTI_HEADER_INSTANCE.extractSpanBuilder(request);
+
+        // then
+        verify(request, never()).getHeader(TraceHeaders.SPAN_NAME);
+        verify(request, never()).getAttribute(TraceHeaders.SPAN_NAME);
+    }
+
+    @Test
+    public void extractSpanBuilder_falls_back_to_multi_headers_with_span_name_if_single_b3_header_is_invalid() {
+        // given
+        given(request.getHeader(TraceHeaders.B3_SINGLE_HEADER)).willReturn("not-a-valid-b3-header");
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(traceId);
+        given(request.getHeader(TraceHeaders.SPAN_NAME)).willReturn("someSpan");
+
+        // when
+        Span result = B3Propagation.MULTI_HEADER_INSTANCE.extractSpanBuilder(request).build();
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(traceId);
+        assertThat(result.getSpanName()).isEqualTo("someSpan");
+        verify(request).getHeader(TraceHeaders.SPAN_NAME);
+    }
+
+    @DataProvider(value = {
+        "true   |   1",
+        "false  |   0"
+    }, splitBy = "\\|")
+    @Test
+    public void inject_sends_multi_headers_for_MULTI_HEADER_format(boolean sampleable, String expectedSampledValue) {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT)
+                        .withTraceId(traceId)
+                        .withSpanId(spanId)
+                        .withParentSpanId(parentSpanId)
+                        .withSampleable(sampleable)
+                        .build();
+
+        // when
+        B3Propagation.MULTI_HEADER_INSTANCE.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(httpObjectForPropagationMock).setHeader(TraceHeaders.TRACE_ID, traceId);
+        verify(httpObjectForPropagationMock).setHeader(TraceHeaders.SPAN_ID, spanId);
+        verify(httpObjectForPropagationMock).setHeader(TraceHeaders.PARENT_SPAN_ID, parentSpanId);
+        verify(httpObjectForPropagationMock).setHeader(TraceHeaders.TRACE_SAMPLED, expectedSampledValue);
+        verifyNoMoreInteractions(httpObjectForPropagationMock);
+    }
+
+    @Test
+    public void inject_does_not_send_parent_span_id_header_for_root_span() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+
+        // when
+        B3Propagation.MULTI_HEADER_INSTANCE.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(httpObjectForPropagationMock, never()).setHeader(eq(TraceHeaders.PARENT_SPAN_ID), anyString());
+        verify(httpObjectForPropagationMock, never()).setHeader(eq(TraceHeaders.B3_SINGLE_HEADER), anyString());
+    }
+
+    @Test
+    public void inject_sends_only_single_b3_header_for_SINGLE_HEADER_format() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT)
+                        .withTraceId(traceId)
+                        .withSpanId(spanId)
+                        .withParentSpanId(parentSpanId)
+                        .build();
+
+        // when
+        B3Propagation.SINGLE_HEADER_INSTANCE.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(httpObjectForPropagationMock).setHeader(
+            TraceHeaders.B3_SINGLE_HEADER, traceId + "-" + spanId + "-1-" + parentSpanId
+        );
+        verifyNoMoreInteractions(httpObjectForPropagationMock);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceHeaders;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests the functionality of {@link CompositePropagation}.
+ */
+@RunWith(DataProviderRunner.class)
+public class CompositePropagationTest {
+
+    private Propagation firstMock;
+    private Propagation secondMock;
+    private CompositePropagation composite;
+    private RequestWithHeaders request;
+    private HttpObjectForPropagation httpObjectForPropagationMock;
+
+    @Before
+    public void beforeMethod() {
+        firstMock = mock(Propagation.class);
+        secondMock = mock(Propagation.class);
+        composite = new CompositePropagation(firstMock, secondMock);
+        request = mock(RequestWithHeaders.class);
+        httpObjectForPropagationMock = mock(HttpObjectForPropagation.class);
+    }
+
+    private enum BadDelegatesScenario {
+        NULL_ARRAY((Propagation[]) null),
+        EMPTY_ARRAY(),
+        CONTAINS_NULL(mock(Propagation.class), null);
+
+        public final Propagation[] delegates;
+
+        BadDelegatesScenario(Propagation... delegates) {
+            this.delegates = delegates;
+        }
+    }
+
+    @DataProvider(value = {
+        "NULL_ARRAY",
+        "EMPTY_ARRAY",
+        "CONTAINS_NULL"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_bad_delegates(final BadDelegatesScenario scenario) {
+        // when
+        Throwable ex = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new CompositePropagation(scenario.delegates);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void list_constructor_copies_delegates() {
+        // given
+        List<Propagation> delegates = Arrays.asList(firstMock, secondMock);
+
+        // when
+        CompositePropagation result = new CompositePropagation(delegates);
+
+        // then
+        assertThat(result.getDelegates()).containsExactly(firstMock, secondMock);
+        assertThat(result.getDelegates()).isNotSameAs(delegates);
+    }
+
+    @Test
+    public void list_constructor_throws_IllegalArgumentException_for_empty_list() {
+        // when
+        Throwable ex = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new CompositePropagation(Collections.<Propagation>emptyList());
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void extractSpanBuilder_returns_first_non_null_result() {
+        // given
+        Span.Builder secondResult = Span.newBuilder("foo", SpanPurpose.SERVER);
+        given(secondMock.extractSpanBuilder(request)).willReturn(secondResult);
+
+        // when
+        Span.Builder result = composite.extractSpanBuilder(request);
+
+        // then
+        assertThat(result).isSameAs(secondResult);
+        verify(firstMock).extractSpanBuilder(request);
+    }
+
+    @Test
+    public void extractSpanBuilder_stops_at_first_non_null_result() {
+        // given
+        Span.Builder firstResult = Span.newBuilder("foo", SpanPurpose.SERVER);
+        given(firstMock.extractSpanBuilder(request)).willReturn(firstResult);
+
+        // when
+        Span.Builder result = composite.extractSpanBuilder(request);
+
+        // then
+        assertThat(result).isSameAs(firstResult);
+        verifyZeroInteractions(secondMock);
+    }
+
+    @Test
+    public void extractSpanBuilder_returns_null_if_no_delegate_finds_anything() {
+        // expect
+        assertThat(composite.extractSpanBuilder(request)).isNull();
+    }
+
+    @Test
+    public void inject_calls_all_delegates() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+
+        // when
+        composite.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(firstMock).inject(httpObjectForPropagationMock, span);
+        verify(secondMock).inject(httpObjectForPropagationMock, span);
+    }
+
+    @Test
+    public void w3c_and_b3_composite_sends_both_formats_and_prefers_traceparent_on_extraction() {
+        // given
+        CompositePropagation w3cAndB3 = new CompositePropagation(
+            W3CTraceContextPropagation.INSTANCE, B3Propagation.MULTI_HEADER_INSTANCE
+        );
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        given(request.getHeader(TraceHeaders.W3C_TRACEPARENT))
+            .willReturn(W3CTraceContextPropagation.INSTANCE.convertSpanToTraceparentHeaderValue(span));
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn("someOtherTraceId");
+
+        // when
+        w3cAndB3.inject(httpObjectForPropagationMock, span);
+        Span extracted = w3cAndB3.extractSpanBuilder(request).build();
+
+        // then
+        verify(httpObjectForPropagationMock).setHeader(eq(TraceHeaders.W3C_TRACEPARENT), anyString());
+        verify(httpObjectForPropagationMock).setHeader(TraceHeaders.TRACE_ID, span.getTraceId());
+        assertThat(extracted.getTraceId()).isEqualTo(span.getTraceId());
+    }
+
+}
@@ -9,6 +9,8 @@ import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
 
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -27,6 +29,7 @@ import static com.nike.wingtips.TraceHeaders.TRACE_ID;
 import static com.nike.wingtips.TraceHeaders.TRACE_SAMPLED;
 import static com.nike.wingtips.http.HttpRequestTracingUtils.convertSampleableBooleanToExpectedB3Value;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
@@ -60,6 +63,12 @@ public class HttpRequestTracingUtilsTest {
     public void onSetup() {
         request = mock(RequestWithHeaders.class);
         httpObjectForPropagationMock = mock(HttpObjectForPropagation.class);
+        HttpRequestTracingUtils.setDefaultPropagation(B3Propagation.MULTI_HEADER_INSTANCE);
+    }
+
+    @After
+    public void afterMethod() {
+        HttpRequestTracingUtils.setDefaultPropagation(B3Propagation.MULTI_HEADER_INSTANCE);
     }
 
     @Test
@@ -543,6 +552,150 @@ public class HttpRequestTracingUtilsTest {
         }
     }
 
+    @DataProvider(value = {
+        "1  |   true",
+        "0  |   false",
+        "d  |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void fromRequestWithHeaders_generates_span_from_single_b3_header(String samplingState, boolean expectedSampleable) {
+        // given
+        String b3Value = sampleTraceID + "-" + sampleSpanID + "-" + samplingState + "-" + sampleParentSpanID;
+        given(request.getHeader(TraceHeaders.B3_SINGLE_HEADER)).willReturn(b3Value);
+        given(request.getHeader(TraceHeaders.SPAN_NAME)).willReturn("spanName");
+        given(request.getHeader(USER_ID_HEADER_KEY)).willReturn(userId);
+
+        // when
+        Span result = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(sampleTraceID);
+        assertThat(result.getSpanId()).isEqualTo(sampleSpanID);
+        assertThat(result.getParentSpanId()).isEqualTo(sampleParentSpanID);
+        assertThat(result.isSampleable()).isEqualTo(expectedSampleable);
+        assertThat(result.getSpanName()).isEqualTo("spanName");
+        assertThat(result.getUserId()).isEqualTo(userId);
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+        verify(request, never()).getHeader(TraceHeaders.TRACE_ID);
+    }
+
+    @Test
+    public void fromRequestWithHeaders_generates_span_from_single_b3_header_with_only_trace_id_and_span_id() {
+        // given
+        String traceId128 = sampleTraceID + TraceAndSpanIdGenerator.generateId();
+        given(request.getHeader(TraceHeaders.B3_SINGLE_HEADER)).willReturn(" " + traceId128 + "-" + sampleSpanID + " ");
+
+        // when
+        Span result = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(traceId128);
+        assertThat(result.getSpanId()).isEqualTo(sampleSpanID);
+        assertThat(result.getParentSpanId()).isNull();
+        assertThat(result.isSampleable()).isTrue();
+        assertThat(result.getSpanName()).isEqualTo(HttpRequestTracingUtils.UNSPECIFIED_SPAN_NAME);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "1",
+        "d",
+        "notvalid",
+        "0123456789abcdef",
+        "0123456789abcdeF-0123456789abcdef",
+        "0123456789abcdef-0123456789abcde",
+        "0123456789abcdef-0123456789abcdef-x",
+        "0123456789abcdef-0123456789abcdef-10",
+        "0123456789abcdef-0123456789abcdef-1-0123456789",
+        "0123456789abcdef-0123456789abcdef-1-0123456789abcdef-"
+    })
+    @Test
+    public void fromRequestWithHeaders_falls_back_to_multi_headers_if_single_b3_header_is_not_valid(String badB3Value) {
+        // given
+        given(request.getHeader(TraceHeaders.B3_SINGLE_HEADER)).willReturn(badB3Value);
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(sampleTraceID);
+        given(request.getHeader(TraceHeaders.SPAN_ID)).willReturn(sampleSpanID);
+
+        // when
+        Span result = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(sampleTraceID);
+        assertThat(result.getSpanId()).isEqualTo(sampleSpanID);
+    }
+
+    @Test
+    public void getHeaderWithAttributeAsBackup_does_not_look_up_attribute_if_header_exists() {
+        // given
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(" " + sampleTraceID + " ");
+
+        // when
+        String result = HttpRequestTracingUtils.getHeaderWithAttributeAsBackup(request, TraceHeaders.TRACE_ID);
+
+        // then
+        assertThat(result).isEqualTo(sampleTraceID);
+        verify(request, never()).getAttribute(anyString());
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void convertSpanToSingleB3HeaderValue_works_as_expected(boolean parentSpanIdExists) {
+        // given
+        String parentSpanId = (parentSpanIdExists) ? sampleParentSpanID : null;
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT)
+                        .withTraceId(sampleTraceID)
+                        .withSpanId(sampleSpanID)
+                        .withParentSpanId(parentSpanId)
+                        .withSampleable(false)
+                        .build();
+        String expectedResult = sampleTraceID + "-" + sampleSpanID + "-0" + ((parentSpanIdExists) ? "-" + parentSpanId : "");
+
+        // when
+        String result = HttpRequestTracingUtils.convertSpanToSingleB3HeaderValue(span);
+
+        // then
+        assertThat(result).isEqualTo(expectedResult);
+    }
+
+    @DataProvider(value = {
+        "true   |   true",
+        "true   |   false",
+        "false  |   true",
+        "false  |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void propagateTracingHeadersAsSingleB3Header_works_as_expected(
+        boolean httpObjIsNull, boolean spanIsNull
+    ) {
+        // given
+        if (httpObjIsNull)
+            httpObjectForPropagationMock = null;
+
+        Span span = (spanIsNull)
+                    ? null
+                    : Span.newBuilder(UUID.randomUUID().toString(), SpanPurpose.CLIENT)
+                          .withParentSpanId(sampleParentSpanID)
+                          .build();
+
+        // when
+        HttpRequestTracingUtils.propagateTracingHeadersAsSingleB3Header(httpObjectForPropagationMock, span);
+
+        // then
+        if (httpObjIsNull || spanIsNull) {
+            if (httpObjectForPropagationMock != null)
+                verifyZeroInteractions(httpObjectForPropagationMock);
+        }
+        else {
+            verify(httpObjectForPropagationMock).setHeader(
+                TraceHeaders.B3_SINGLE_HEADER, HttpRequestTracingUtils.convertSpanToSingleB3HeaderValue(span)
+            );
+            verify(httpObjectForPropagationMock, never()).setHeader(eq(TRACE_ID), anyString());
+        }
+    }
+
     @DataProvider(value = {
         "true   |   true",
         "false  |   true",
@@ -591,4 +744,94 @@ public class HttpRequestTracingUtilsTest {
         assertThat(result).isEqualTo(expectedResult);
     }
 
+    @Test
+    public void default_propagation_is_B3_multi_header() {
+        // expect
+        assertThat(HttpRequestTracingUtils.getDefaultPropagation()).isSameAs(B3Propagation.MULTI_HEADER_INSTANCE);
+    }
+
+    @Test
+    public void setDefaultPropagation_throws_IllegalArgumentException_if_passed_null() {
+        // when
+        Throwable ex = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                HttpRequestTracingUtils.setDefaultPropagation(null);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+        assertThat(HttpRequestTracingUtils.getDefaultPropagation()).isSameAs(B3Propagation.MULTI_HEADER_INSTANCE);
+    }
+
+    @Test
+    public void fromRequestWithHeaders_and_propagateTracingHeaders_use_the_default_propagation() {
+        // given
+        Propagation propagationMock = mock(Propagation.class);
+        Span.Builder extractedSpanBuilder = Span.newBuilder("foo", SpanPurpose.SERVER).withTraceId(sampleTraceID);
+        given(propagationMock.extractSpanBuilder(request)).willReturn(extractedSpanBuilder);
+        given(request.getHeader(USER_ID_HEADER_KEY)).willReturn(userId);
+        Span span = Span.newBuilder("bar", SpanPurpose.CLIENT).build();
+        HttpRequestTracingUtils.setDefaultPropagation(propagationMock);
+
+        // when
+        Span extractedSpan = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+        HttpRequestTracingUtils.propagateTracingHeaders(httpObjectForPropagationMock, span);
+
+        // then
+        assertThat(extractedSpan.getTraceId()).isEqualTo(sampleTraceID);
+        assertThat(extractedSpan.getUserId()).isEqualTo(userId);
+        verify(propagationMock).inject(httpObjectForPropagationMock, span);
+    }
+
+    @Test
+    public void fromRequestWithHeaders_with_propagation_returns_null_if_propagation_finds_nothing() {
+        // given
+        Propagation propagationMock = mock(Propagation.class);
+
+        // when
+        Span result = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS, propagationMock);
+
+        // then
+        assertThat(result).isNull();
+        verify(propagationMock).extractSpanBuilder(request);
+    }
+
+    @Test
+    public void propagateTracingHeaders_with_propagation_does_nothing_if_span_or_http_object_is_null() {
+        // given
+        Propagation propagationMock = mock(Propagation.class);
+
+        // when
+        HttpRequestTracingUtils.propagateTracingHeaders(httpObjectForPropagationMock, null, propagationMock);
+        HttpRequestTracingUtils.propagateTracingHeaders(null, Span.newBuilder("foo", SpanPurpose.CLIENT).build(), propagationMock);
+
+        // then
+        verifyZeroInteractions(propagationMock, httpObjectForPropagationMock);
+    }
+
+    @Test
+    public void methods_that_take_a_propagation_throw_IllegalArgumentException_if_passed_null_propagation() {
+        // when
+        Throwable fromRequestEx = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS, null);
+            }
+        });
+        Throwable propagateEx = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                HttpRequestTracingUtils.propagateTracingHeaders(
+                    httpObjectForPropagationMock, Span.newBuilder("foo", SpanPurpose.CLIENT).build(), null
+                );
+            }
+        });
+
+        // then
+        assertThat(fromRequestEx).isInstanceOf(IllegalArgumentException.class);
+        assertThat(propagateEx).isInstanceOf(IllegalArgumentException.class);
+    }
+
 }
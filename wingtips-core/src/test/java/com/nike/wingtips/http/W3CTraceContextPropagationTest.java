@@ -0,0 +1,191 @@
+package com.nike.wingtips.http;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceHeaders;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests the functionality of {@link W3CTraceContextPropagation}.
+ */
+@RunWith(DataProviderRunner.class)
+public class W3CTraceContextPropagationTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String PARENT_ID = "b7ad6b7169203331";
+
+    private W3CTraceContextPropagation propagation = W3CTraceContextPropagation.INSTANCE;
+    private RequestWithHeaders request;
+    private HttpObjectForPropagation httpObjectForPropagationMock;
+
+    @Before
+    public void beforeMethod() {
+        request = mock(RequestWithHeaders.class);
+        httpObjectForPropagationMock = mock(HttpObjectForPropagation.class);
+    }
+
+    @DataProvider(value = {
+        "01 |   true",
+        "00 |   false",
+        "03 |   true",
+        "02 |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void extractSpanBuilder_parses_valid_traceparent(String traceFlags, boolean expectedSampleable) {
+        // given
+        given(request.getHeader(TraceHeaders.W3C_TRACEPARENT)).willReturn("00-" + TRACE_ID + "-" + PARENT_ID + "-" + traceFlags);
+        given(request.getHeader(TraceHeaders.SPAN_NAME)).willReturn("someSpan");
+
+        // when
+        Span result = propagation.extractSpanBuilder(request).build();
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(TRACE_ID);
+        assertThat(result.getSpanId()).isEqualTo(PARENT_ID);
+        assertThat(result.getParentSpanId()).isNull();
+        assertThat(result.isSampleable()).isEqualTo(expectedSampleable);
+        assertThat(result.getSpanName()).isEqualTo("someSpan");
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+    }
+
+    @Test
+    public void extractSpanBuilder_uses_low_64_bits_of_trace_id_when_high_bits_are_zero() {
+        // given
+        given(request.getHeader(TraceHeaders.W3C_TRACEPARENT))
+            .willReturn("00-0000000000000000" + PARENT_ID + "-" + PARENT_ID + "-01");
+
+        // when
+        Span result = propagation.extractSpanBuilder(request).build();
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo(PARENT_ID);
+    }
+
+    @Test
+    public void extractSpanBuilder_accepts_future_versions_with_extra_fields() {
+        // given
+        given(request.getHeader(TraceHeaders.W3C_TRACEPARENT))
+            .willReturn("cc-" + TRACE_ID + "-" + PARENT_ID + "-01-whatever");
+
+        // when
+        Span.Builder result = propagation.extractSpanBuilder(request);
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(result.build().getTraceId()).isEqualTo(TRACE_ID);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "00-" + TRACE_ID + "-" + PARENT_ID,
+        "00-" + TRACE_ID + "-" + PARENT_ID + "-01-extra",
+        "ff-" + TRACE_ID + "-" + PARENT_ID + "-01",
+        "0g-" + TRACE_ID + "-" + PARENT_ID + "-01",
+        "00-00000000000000000000000000000000-" + PARENT_ID + "-01",
+        "00-" + TRACE_ID + "-0000000000000000-01",
+        "00-0AF7651916CD43DD8448EB211C80319C-" + PARENT_ID + "-01",
+        "00_" + TRACE_ID + "-" + PARENT_ID + "-01",
+        "00-" + TRACE_ID + "_" + PARENT_ID + "-01",
+        "00-" + TRACE_ID + "-" + PARENT_ID + "_01",
+        "00-" + TRACE_ID + "-" + PARENT_ID + "-0z",
+        "cc-" + TRACE_ID + "-" + PARENT_ID + "-01extra"
+    }, splitBy = "\\|")
+    @Test
+    public void extractSpanBuilder_returns_null_for_invalid_traceparent(String traceparent) {
+        // given
+        given(request.getHeader(TraceHeaders.W3C_TRACEPARENT)).willReturn(traceparent);
+
+        // expect
+        assertThat(propagation.extractSpanBuilder(request)).isNull();
+    }
+
+    @DataProvider(value = {
+        "true   |   01",
+        "false  |   00"
+    }, splitBy = "\\|")
+    @Test
+    public void inject_sends_traceparent_header(boolean sampleable, String expectedTraceFlags) {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT)
+                        .withTraceId(TRACE_ID)
+                        .withSpanId(PARENT_ID)
+                        .withSampleable(sampleable)
+                        .build();
+
+        // when
+        propagation.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(httpObjectForPropagationMock).setHeader(
+            TraceHeaders.W3C_TRACEPARENT, "00-" + TRACE_ID + "-" + PARENT_ID + "-" + expectedTraceFlags
+        );
+    }
+
+    @Test
+    public void inject_pads_64_bit_trace_ids_and_round_trips_them() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        String expectedHeaderValue = "00-0000000000000000" + span.getTraceId() + "-" + span.getSpanId() + "-01";
+
+        // when
+        propagation.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(httpObjectForPropagationMock).setHeader(TraceHeaders.W3C_TRACEPARENT, expectedHeaderValue);
+
+        // and when
+        given(request.getHeader(TraceHeaders.W3C_TRACEPARENT)).willReturn(expectedHeaderValue);
+        Span extracted = propagation.extractSpanBuilder(request).build();
+
+        // then
+        assertThat(extracted.getTraceId()).isEqualTo(span.getTraceId());
+        assertThat(extracted.getSpanId()).isEqualTo(span.getSpanId());
+    }
+
+    @DataProvider(value = {
+        "not-hex-trace-id-|   b7ad6b7169203331",
+        "b7ad6b7169203331 |   tooshort",
+        "B7AD6B7169203331 |   b7ad6b7169203331"
+    }, splitBy = "\\|")
+    @Test
+    public void inject_does_nothing_if_ids_are_not_w3c_compatible(String traceId, String spanId) {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).withTraceId(traceId).withSpanId(spanId).build();
+
+        // when
+        propagation.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verifyZeroInteractions(httpObjectForPropagationMock);
+    }
+
+    @Test
+    public void inject_does_not_send_tracestate() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+
+        // when
+        propagation.inject(httpObjectForPropagationMock, span);
+
+        // then
+        verify(httpObjectForPropagationMock).setHeader(eq(TraceHeaders.W3C_TRACEPARENT), anyString());
+        verify(httpObjectForPropagationMock, never()).setHeader(eq(TraceHeaders.W3C_TRACESTATE), anyString());
+    }
+
+}
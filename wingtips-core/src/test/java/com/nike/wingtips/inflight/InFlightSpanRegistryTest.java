@@ -0,0 +1,224 @@
+package com.nike.wingtips.inflight;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.inflight.InFlightSpanRegistry.InFlightSpan;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link InFlightSpanRegistry}.
+ */
+@RunWith(DataProviderRunner.class)
+public class InFlightSpanRegistryTest {
+
+    private Span spanStartedAt(long startNanos) {
+        return Span.newBuilder("span-" + startNanos, SpanPurpose.SERVER)
+                   .withSpanStartTimeEpochMicros(1L)
+                   .withSpanStartTimeNanos(startNanos)
+                   .build();
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_capacity(int badCapacity) {
+        // when
+        Throwable ex = catchThrowable(() -> new InFlightSpanRegistry(badCapacity));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "1      |   1",
+        "5      |   8",
+        "64     |   64",
+        "100    |   128"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_rounds_capacity_up_to_a_power_of_two(int capacity, int expectedCapacity) {
+        // expect
+        assertThat(new InFlightSpanRegistry(capacity).getCapacity()).isEqualTo(expectedCapacity);
+    }
+
+    @Test
+    public void default_constructor_uses_default_capacity() {
+        // expect
+        assertThat(new InFlightSpanRegistry().getCapacity()).isEqualTo(InFlightSpanRegistry.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void register_and_unregister_track_spans() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry(16);
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+        Span child = Span.newBuilder("child", SpanPurpose.LOCAL_ONLY).build();
+        Deque<Span> spanStack = new LinkedList<>();
+        spanStack.push(span);
+        spanStack.push(child);
+
+        // when
+        boolean registered = registry.register(span, spanStack);
+        List<InFlightSpan> inFlight = registry.getInFlightSpans(0);
+
+        // then
+        assertThat(registered).isTrue();
+        assertThat(registry.getInFlightCount()).isEqualTo(1);
+        assertThat(inFlight).hasSize(1);
+        assertThat(inFlight.get(0).getRootSpan()).isSameAs(span);
+        assertThat(inFlight.get(0).getThread()).isSameAs(Thread.currentThread());
+        assertThat(inFlight.get(0).getSpanChain()).containsExactly(span, child);
+        assertThat(inFlight.get(0).getAgeNanos()).isGreaterThanOrEqualTo(0);
+
+        // and when
+        boolean unregistered = registry.unregister(span);
+
+        // then
+        assertThat(unregistered).isTrue();
+        assertThat(registry.getInFlightCount()).isEqualTo(0);
+        assertThat(registry.unregister(span)).isFalse();
+    }
+
+    @Test
+    public void spans_with_colliding_home_slots_are_placed_in_neighboring_slots() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry(16);
+        Span first = spanStartedAt(42);
+        Span second = spanStartedAt(42);
+
+        // when
+        registry.register(first, null);
+        registry.register(second, null);
+        registry.unregister(first);
+
+        // then
+        List<InFlightSpan> inFlight = registry.getInFlightSpans(0);
+        assertThat(inFlight).hasSize(1);
+        assertThat(inFlight.get(0).getRootSpan()).isSameAs(second);
+        assertThat(inFlight.get(0).getSpanChain()).containsExactly(second);
+    }
+
+    @Test
+    public void register_returns_false_and_counts_overflow_when_no_slot_is_available() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry(2);
+        registry.register(spanStartedAt(1), null);
+        registry.register(spanStartedAt(2), null);
+
+        // when
+        boolean result = registry.register(spanStartedAt(3), null);
+
+        // then
+        assertThat(result).isFalse();
+        assertThat(registry.getOverflowCount()).isEqualTo(1);
+        assertThat(registry.getInFlightCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getInFlightSpans_filters_by_age() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry(16);
+        long now = System.nanoTime();
+        Span old = spanStartedAt(now - TimeUnit.SECONDS.toNanos(60));
+        Span young = spanStartedAt(now);
+        registry.register(old, null);
+        registry.register(young, null);
+
+        // when
+        List<InFlightSpan> result = registry.getInFlightSpans(TimeUnit.SECONDS.toNanos(30));
+
+        // then
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getRootSpan()).isSameAs(old);
+        assertThat(result.get(0).getAgeNanos()).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(60));
+    }
+
+    @Test
+    public void detachFromThread_forgets_the_thread() {
+        // given
+        InFlightSpanRegistry registry = new InFlightSpanRegistry(16);
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+        registry.register(span, null);
+
+        // when
+        registry.detachFromThread(span);
+        registry.detachFromThread(Span.newBuilder("not-registered", SpanPurpose.SERVER).build());
+
+        // then
+        assertThat(registry.getInFlightSpans(0).get(0).getThread()).isNull();
+    }
+
+    @Test
+    public void copySpanChain_falls_back_to_root_span_when_stack_is_not_usable() {
+        // given
+        Span root = Span.newBuilder("root", SpanPurpose.SERVER).build();
+        Span other = Span.newBuilder("other", SpanPurpose.SERVER).build();
+        @SuppressWarnings("unchecked")
+        Deque<Span> explodingStack = mock(Deque.class);
+        doThrow(new RuntimeException("intentional exception")).when(explodingStack).toArray();
+
+        // expect
+        assertThat(InFlightSpanRegistry.copySpanChain(root, null)).containsExactly(root);
+        assertThat(InFlightSpanRegistry.copySpanChain(root, explodingStack)).containsExactly(root);
+        assertThat(InFlightSpanRegistry.copySpanChain(root, new LinkedList<Span>())).containsExactly(root);
+        assertThat(InFlightSpanRegistry.copySpanChain(root, new LinkedList<>(Collections.singletonList(other))))
+            .containsExactly(root);
+    }
+
+    @Test
+    public void register_and_unregister_are_consistent_under_concurrent_use() throws InterruptedException {
+        // given
+        final InFlightSpanRegistry registry = new InFlightSpanRegistry(1024);
+        int numThreads = 8;
+        final int spansPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        // when
+        for (int t = 0; t < numThreads; t++) {
+            executor.execute(() -> {
+                try {
+                    startLatch.await();
+                    for (int i = 0; i < spansPerThread; i++) {
+                        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+                        if (registry.register(span, null) && !registry.unregister(span))
+                            throw new AssertionError("Registered span could not be unregistered");
+                    }
+                }
+                catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+        startLatch.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        assertThat(failures).isEmpty();
+        assertThat(registry.getInFlightCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,183 @@
+package com.nike.wingtips.inflight;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.inflight.InFlightSpanRegistry.InFlightSpan;
+import com.nike.wingtips.inflight.StuckRequestWatchdog.LoggingStuckRequestListener;
+import com.nike.wingtips.inflight.StuckRequestWatchdog.StuckRequestListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link StuckRequestWatchdog}.
+ */
+public class StuckRequestWatchdogTest {
+
+    private InFlightSpanRegistry registry;
+    private StuckRequestListener listenerMock;
+    private StuckRequestWatchdog watchdog;
+
+    @Before
+    public void beforeMethod() {
+        registry = new InFlightSpanRegistry(64);
+        listenerMock = mock(StuckRequestListener.class);
+        watchdog = new StuckRequestWatchdog(registry, 1000, 10, listenerMock);
+    }
+
+    @After
+    public void afterMethod() {
+        watchdog.stop();
+    }
+
+    private Span spanStartedSecondsAgo(String name, long secondsAgo) {
+        return Span.newBuilder(name, SpanPurpose.SERVER)
+                   .withSpanStartTimeEpochMicros(1L)
+                   .withSpanStartTimeNanos(System.nanoTime() - TimeUnit.SECONDS.toNanos(secondsAgo))
+                   .build();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new StuckRequestWatchdog(null, 1, 1, listenerMock)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new StuckRequestWatchdog(registry, 0, 1, listenerMock)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new StuckRequestWatchdog(registry, 1, 0, listenerMock)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new StuckRequestWatchdog(registry, 1, 1, null)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void convenience_constructor_uses_LoggingStuckRequestListener() {
+        // when
+        StuckRequestWatchdog instance = new StuckRequestWatchdog(registry, 2000, 500);
+
+        // then
+        assertThat(instance.listener).isInstanceOf(LoggingStuckRequestListener.class);
+        assertThat(instance.getThresholdMillis()).isEqualTo(2000);
+        assertThat(instance.getCheckIntervalMillis()).isEqualTo(500);
+    }
+
+    @Test
+    public void checkForStuckRequests_reports_each_stuck_request_once() {
+        // given
+        Span stuck = spanStartedSecondsAgo("stuck", 5);
+        Span fine = spanStartedSecondsAgo("fine", 0);
+        registry.register(stuck, null);
+        registry.register(fine, null);
+
+        // when
+        List<InFlightSpan> firstCheck = watchdog.checkForStuckRequests();
+        List<InFlightSpan> secondCheck = watchdog.checkForStuckRequests();
+
+        // then
+        assertThat(firstCheck).hasSize(1);
+        assertThat(firstCheck.get(0).getRootSpan()).isSameAs(stuck);
+        assertThat(secondCheck).isEmpty();
+        ArgumentCaptor<InFlightSpan> captor = ArgumentCaptor.forClass(InFlightSpan.class);
+        verify(listenerMock).stuckRequestDetected(captor.capture());
+        assertThat(captor.getValue().getRootSpan()).isSameAs(stuck);
+    }
+
+    @Test
+    public void checkForStuckRequests_forgets_completed_requests() {
+        // given
+        Span stuck = spanStartedSecondsAgo("stuck", 5);
+        registry.register(stuck, null);
+        watchdog.checkForStuckRequests();
+
+        // when
+        registry.unregister(stuck);
+        watchdog.checkForStuckRequests();
+
+        // then
+        assertThat(watchdog.alreadyReported).isEmpty();
+    }
+
+    @Test
+    public void checkForStuckRequests_keeps_going_when_listener_throws() {
+        // given
+        registry.register(spanStartedSecondsAgo("stuck1", 5), null);
+        registry.register(spanStartedSecondsAgo("stuck2", 6), null);
+        doThrow(new RuntimeException("intentional exception")).when(listenerMock).stuckRequestDetected(any(InFlightSpan.class));
+
+        // when
+        List<InFlightSpan> result = watchdog.checkForStuckRequests();
+
+        // then
+        assertThat(result).hasSize(2);
+        verify(listenerMock, times(2)).stuckRequestDetected(any(InFlightSpan.class));
+    }
+
+    @Test
+    public void start_runs_checks_in_the_background_until_stopped() {
+        // given
+        registry.register(spanStartedSecondsAgo("stuck", 5), null);
+
+        // when
+        watchdog.start();
+        watchdog.start();
+
+        // then
+        assertThat(watchdog.isStarted()).isTrue();
+        verify(listenerMock, timeout(5000)).stuckRequestDetected(any(InFlightSpan.class));
+
+        // and when
+        watchdog.stop();
+        watchdog.stop();
+
+        // then
+        assertThat(watchdog.isStarted()).isFalse();
+    }
+
+    @Test
+    public void LoggingStuckRequestListener_describes_the_stuck_request() {
+        // given
+        LoggingStuckRequestListener listener = new LoggingStuckRequestListener(true);
+        Span root = Span.newBuilder("root", SpanPurpose.SERVER).build();
+        Span child = Span.newBuilder("child", SpanPurpose.CLIENT).build();
+
+        // when
+        String chain = listener.describeSpanChain(Arrays.asList(root, child));
+        String stackTrace = listener.describeStackTrace(Thread.currentThread().getStackTrace());
+
+        // then
+        assertThat(chain).isEqualTo("root > child");
+        assertThat(stackTrace).contains("\tat ").contains(getClass().getName());
+    }
+
+    @Test
+    public void LoggingStuckRequestListener_handles_known_and_unknown_threads() {
+        // given
+        Span root = Span.newBuilder("root", SpanPurpose.SERVER).build();
+        List<Span> chain = Collections.singletonList(root);
+
+        // expect
+        new LoggingStuckRequestListener(true).stuckRequestDetected(
+            new InFlightSpan(root, Thread.currentThread(), chain, 1000)
+        );
+        new LoggingStuckRequestListener(true).stuckRequestDetected(new InFlightSpan(root, null, chain, 1000));
+        new LoggingStuckRequestListener(false).stuckRequestDetected(
+            new InFlightSpan(root, Thread.currentThread(), chain, 1000)
+        );
+    }
+}
@@ -0,0 +1,31 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of the base (pre-Java-11) version of {@link JfrSpanLifecycleListener}. The Java 11+ version
+ * is tested in {@code src/test/java11}.
+ */
+public class JfrSpanLifecycleListenerTest {
+
+    @Test
+    public void base_version_is_a_safe_no_op() {
+        // given
+        JfrSpanLifecycleListener listener = new JfrSpanLifecycleListener();
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+
+        // when
+        listener.spanStarted(span);
+        listener.spanSampled(span);
+        span.close();
+        listener.spanCompleted(span);
+
+        // then
+        assertThat(JfrSpanLifecycleListener.isJfrAvailable()).isFalse();
+    }
+}
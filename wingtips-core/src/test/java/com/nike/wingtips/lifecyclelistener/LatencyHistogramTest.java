@@ -0,0 +1,174 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link LatencyHistogram}.
+ */
+@RunWith(DataProviderRunner.class)
+public class LatencyHistogramTest {
+
+    @DataProvider(value = {
+        "0",
+        "1",
+        "15",
+        "16",
+        "17",
+        "31",
+        "32",
+        "1000",
+        "123456789",
+        "9223372036854775806",
+        "9223372036854775807"
+    })
+    @Test
+    public void bucket_bounds_contain_the_value_and_are_within_relative_error(long value) {
+        // when
+        int bucketIndex = LatencyHistogram.bucketIndexFor(value);
+
+        // then
+        assertThat(bucketIndex).isBetween(0, LatencyHistogram.BUCKET_COUNT - 1);
+        long lower = LatencyHistogram.bucketLowerBound(bucketIndex);
+        long upper = LatencyHistogram.bucketUpperBound(bucketIndex);
+        assertThat(value).isBetween(lower, upper);
+        assertThat((double) (upper - lower)).isLessThanOrEqualTo(((double) lower) / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+
+    @Test
+    public void buckets_are_contiguous() {
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            assertThat(LatencyHistogram.bucketLowerBound(i)).isEqualTo(LatencyHistogram.bucketUpperBound(i - 1) + 1);
+            assertThat(LatencyHistogram.bucketIndexFor(LatencyHistogram.bucketLowerBound(i))).isEqualTo(i);
+        }
+        assertThat(LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void record_tracks_counts_sum_max_and_errors() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(100, false, null);
+        histogram.record(300, true, "trace-1");
+        histogram.record(-5, false, null);
+
+        // then
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(3);
+        assertThat(snapshot.getErrorCount()).isEqualTo(1);
+        assertThat(snapshot.getSumNanos()).isEqualTo(400);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(300);
+        assertThat(snapshot.getMeanNanos()).isEqualTo(400.0 / 3);
+        assertThat(snapshot.getBucketCount(0)).isEqualTo(1);
+        assertThat(snapshot.getBucketCount(LatencyHistogram.bucketIndexFor(100))).isEqualTo(1);
+        assertThat(snapshot.getExemplarTraceId(LatencyHistogram.bucketIndexFor(300))).isEqualTo("trace-1");
+        assertThat(snapshot.getExemplarTraceId(LatencyHistogram.bucketIndexFor(100))).isNull();
+    }
+
+    @Test
+    public void percentiles_are_within_relative_error_of_exact_values() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            long value = 1000 + (long) (random.nextDouble() * 50_000_000L);
+            values.add(value);
+            histogram.record(value, false, "trace-" + i);
+        }
+        values.sort(null);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+            // when
+            long result = snapshot.getValueAtPercentile(percentile);
+
+            // then
+            long exact = values.get((int) Math.ceil(percentile / 100 * values.size()) - 1);
+            assertThat(result).isGreaterThanOrEqualTo(exact);
+            assertThat((double) result).isLessThanOrEqualTo(exact * (1 + 1.0 / LatencyHistogram.SUB_BUCKET_COUNT));
+            assertThat(snapshot.getExemplarTraceIdAtPercentile(percentile)).isNotNull();
+        }
+        assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(values.get(values.size() - 1));
+    }
+
+    @Test
+    public void percentile_methods_handle_empty_snapshot_and_bad_percentiles() {
+        // given
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        // expect
+        assertThat(snapshot.getValueAtPercentile(99)).isZero();
+        assertThat(snapshot.getExemplarTraceIdAtPercentile(99)).isNull();
+        assertThat(snapshot.getMeanNanos()).isZero();
+        assertThat(catchThrowable(() -> snapshot.getValueAtPercentile(-1))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> snapshot.getValueAtPercentile(100.1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void snapshotAndReset_clears_the_histogram() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000, true, "trace-1");
+
+        // when
+        LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+        LatencyHistogram.Snapshot second = histogram.snapshot();
+
+        // then
+        assertThat(first.getCount()).isEqualTo(1);
+        assertThat(first.getErrorCount()).isEqualTo(1);
+        assertThat(first.getExemplarTraceIdAtPercentile(50)).isEqualTo("trace-1");
+        assertThat(second.getCount()).isZero();
+        assertThat(second.getErrorCount()).isZero();
+        assertThat(second.getMaxNanos()).isZero();
+        assertThat(second.getBucketCount(LatencyHistogram.bucketIndexFor(1000))).isZero();
+        assertThat(second.getExemplarTraceId(LatencyHistogram.bucketIndexFor(1000))).isNull();
+    }
+
+    @Test
+    public void record_is_thread_safe() throws InterruptedException {
+        // given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int numThreads = 8;
+        final int recordsPerThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+
+        // when
+        for (int t = 0; t < numThreads; t++) {
+            final long value = (t + 1) * 1000L;
+            new Thread(() -> {
+                for (int i = 0; i < recordsPerThread; i++) {
+                    histogram.record(value, false, null);
+                }
+                latch.countDown();
+            }).start();
+        }
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(numThreads * recordsPerThread);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(numThreads * 1000L);
+        long bucketTotal = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            bucketTotal += snapshot.getBucketCount(i);
+        }
+        assertThat(bucketTotal).isEqualTo(numThreads * recordsPerThread);
+    }
+}
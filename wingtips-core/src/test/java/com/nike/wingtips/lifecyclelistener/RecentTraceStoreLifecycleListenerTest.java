@@ -0,0 +1,200 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.nike.wingtips.lifecyclelistener.TraceTreeTest.span;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link RecentTraceStoreLifecycleListener}.
+ */
+public class RecentTraceStoreLifecycleListenerTest {
+
+    private void completeTrace(RecentTraceStoreLifecycleListener store, String traceId, String rootName,
+                               long rootDurationNanos) {
+        store.spanCompleted(span(traceId, traceId + "-child", traceId + "-root", "child", 1, 1L));
+        store.spanCompleted(span(traceId, traceId + "-root", null, rootName, 0, rootDurationNanos));
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new RecentTraceStoreLifecycleListener(0, 100)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new RecentTraceStoreLifecycleListener(100, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void default_constructor_uses_defaults() {
+        // when
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener();
+
+        // then
+        assertThat(store.getMaxSpans()).isEqualTo(RecentTraceStoreLifecycleListener.DEFAULT_MAX_SPANS);
+        assertThat(store.getMaxBytes()).isEqualTo(RecentTraceStoreLifecycleListener.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    public void spanCompleted_stores_spans_by_trace_and_getTrace_assembles_them() {
+        // given
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener();
+
+        // when
+        completeTrace(store, "t1", "GET /foo", 100);
+
+        // then
+        assertThat(store.getTraceCount()).isEqualTo(1);
+        assertThat(store.getSpanCount()).isEqualTo(2);
+        assertThat(store.getEstimatedBytes()).isGreaterThan(0);
+        TraceTree tree = store.getTrace("t1");
+        assertThat(tree.getRootSpanName()).isEqualTo("GET /foo");
+        assertThat(tree.getRoot().getChildren()).hasSize(1);
+        assertThat(store.getTrace("does-not-exist")).isNull();
+    }
+
+    @Test
+    public void spanStarted_spanSampled_and_uncompleted_spans_are_ignored() {
+        // given
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener();
+        Span uncompleted = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+
+        // when
+        store.spanStarted(uncompleted);
+        store.spanSampled(uncompleted);
+        store.spanCompleted(uncompleted);
+
+        // then
+        assertThat(store.getTraceCount()).isEqualTo(0);
+        assertThat(store.getSpanCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void least_recently_updated_traces_are_evicted_when_span_count_is_exceeded() {
+        // given
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener(5, Long.MAX_VALUE);
+        completeTrace(store, "t1", "root", 10);
+        completeTrace(store, "t2", "root", 10);
+
+        // when
+        // Touch t1 so t2 becomes the least recently updated, then push the store over its span limit.
+        store.spanCompleted(span("t1", "t1-extra", "t1-root", "extra", 2, 1L));
+        completeTrace(store, "t3", "root", 10);
+
+        // then
+        assertThat(store.getTrace("t2")).isNull();
+        assertThat(store.getTrace("t1")).isNotNull();
+        assertThat(store.getTrace("t3")).isNotNull();
+        assertThat(store.getSpanCount()).isEqualTo(5);
+        assertThat(store.getEvictedTraceCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void traces_are_evicted_when_byte_limit_is_exceeded() {
+        // given
+        Span sample = span("t1", "t1-root", null, "root", 0, 10L);
+        long bytesPerTrace = 2 * new RecentTraceStoreLifecycleListener().estimateSizeBytes(sample);
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener(
+            Integer.MAX_VALUE, (bytesPerTrace * 2) + (bytesPerTrace / 2)
+        );
+
+        // when
+        completeTrace(store, "t1", "root", 10);
+        completeTrace(store, "t2", "root", 10);
+        completeTrace(store, "t3", "root", 10);
+
+        // then
+        assertThat(store.getTraceCount()).isEqualTo(2);
+        assertThat(store.getTrace("t1")).isNull();
+        assertThat(store.getEstimatedBytes()).isLessThanOrEqualTo(store.getMaxBytes());
+    }
+
+    @Test
+    public void getSlowestTraces_returns_slowest_first_limited_per_root_span_name() {
+        // given
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener();
+        completeTrace(store, "fast-foo", "GET /foo", 10);
+        completeTrace(store, "slow-foo", "GET /foo", 300);
+        completeTrace(store, "medium-foo", "GET /foo", 200);
+        completeTrace(store, "bar", "GET /bar", 50);
+
+        // when
+        List<TraceTree> slowestFoo = store.getSlowestTraces("GET /foo", 2);
+        Map<String, List<TraceTree>> byName = store.getSlowestTracesByRootSpanName(1);
+
+        // then
+        assertThat(slowestFoo).hasSize(2);
+        assertThat(slowestFoo.get(0).getTraceId()).isEqualTo("slow-foo");
+        assertThat(slowestFoo.get(1).getTraceId()).isEqualTo("medium-foo");
+        assertThat(byName.keySet()).containsOnly("GET /foo", "GET /bar");
+        assertThat(byName.get("GET /foo")).hasSize(1);
+        assertThat(byName.get("GET /bar").get(0).getTraceId()).isEqualTo("bar");
+        assertThat(store.getSlowestTraces("GET /nope", 5)).isEmpty();
+        assertThat(catchThrowable(() -> store.getSlowestTraces("GET /foo", 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void clear_removes_everything() {
+        // given
+        RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener();
+        completeTrace(store, "t1", "root", 10);
+
+        // when
+        store.clear();
+
+        // then
+        assertThat(store.getTraceCount()).isEqualTo(0);
+        assertThat(store.getSpanCount()).isEqualTo(0);
+        assertThat(store.getEstimatedBytes()).isEqualTo(0);
+        assertThat(store.getAllTraces()).isEmpty();
+    }
+
+    @Test
+    public void limits_hold_under_concurrent_use() throws InterruptedException {
+        // given
+        final RecentTraceStoreLifecycleListener store = new RecentTraceStoreLifecycleListener(100, Long.MAX_VALUE);
+        int numThreads = 8;
+        final int tracesPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        // when
+        for (int t = 0; t < numThreads; t++) {
+            final int threadNum = t;
+            executor.execute(() -> {
+                try {
+                    startLatch.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = 0; i < tracesPerThread; i++) {
+                    completeTrace(store, "trace-" + threadNum + "-" + i, "root", i);
+                }
+            });
+        }
+        startLatch.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        assertThat(store.getSpanCount()).isLessThanOrEqualTo(100);
+        long actualSpans = 0;
+        for (TraceTree trace : store.getAllTraces()) {
+            actualSpans += trace.getSpanCount();
+        }
+        assertThat(actualSpans).isEqualTo(store.getSpanCount());
+    }
+}
@@ -0,0 +1,147 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.lifecyclelistener.SpanMetricsLifecycleListener.SpanMetricsSnapshot;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link SpanMetricsLifecycleListener}.
+ */
+public class SpanMetricsLifecycleListenerTest {
+
+    private Span completedSpan(String name, SpanPurpose purpose, long durationNanos, boolean sampleable) {
+        return Span.newBuilder(name, purpose)
+                   .withSampleable(sampleable)
+                   .withDurationNanos(durationNanos)
+                   .build();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(
+            () -> new SpanMetricsLifecycleListener(0, SpanMetricsLifecycleListener.NO_ERRORS_CLASSIFIER)
+        )).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpanMetricsLifecycleListener(10, null)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void default_constructor_uses_defaults() {
+        // when
+        SpanMetricsLifecycleListener listener = new SpanMetricsLifecycleListener();
+
+        // then
+        assertThat(listener.getMaxDistinctSpanNames())
+            .isEqualTo(SpanMetricsLifecycleListener.DEFAULT_MAX_DISTINCT_SPAN_NAMES);
+        assertThat(listener.errorClassifier).isSameAs(SpanMetricsLifecycleListener.NO_ERRORS_CLASSIFIER);
+    }
+
+    @Test
+    public void spanCompleted_records_duration_per_name_and_purpose() {
+        // given
+        SpanMetricsLifecycleListener listener = new SpanMetricsLifecycleListener();
+        Span serverSpan1 = completedSpan("GET /foo", SpanPurpose.SERVER, 1000, true);
+        Span serverSpan2 = completedSpan("GET /foo", SpanPurpose.SERVER, 3000, false);
+        Span clientSpan = completedSpan("GET /foo", SpanPurpose.CLIENT, 500, true);
+
+        // when
+        for (Span span : new Span[] { serverSpan1, serverSpan2, clientSpan }) {
+            listener.spanStarted(span);
+            listener.spanSampled(span);
+            listener.spanCompleted(span);
+        }
+
+        // then
+        LatencyHistogram.Snapshot server = listener.getSnapshot("GET /foo", SpanPurpose.SERVER);
+        assertThat(server.getCount()).isEqualTo(2);
+        assertThat(server.getSumNanos()).isEqualTo(4000);
+        assertThat(server.getMaxNanos()).isEqualTo(3000);
+        assertThat(server.getExemplarTraceIdAtPercentile(0)).isEqualTo(serverSpan1.getTraceId());
+        // The non-sampled span doesn't leave an exemplar.
+        assertThat(server.getExemplarTraceIdAtPercentile(100)).isNull();
+
+        LatencyHistogram.Snapshot client = listener.getSnapshot("GET /foo", SpanPurpose.CLIENT);
+        assertThat(client.getCount()).isEqualTo(1);
+        assertThat(listener.getSnapshot("GET /foo", SpanPurpose.LOCAL_ONLY)).isNull();
+        assertThat(listener.getSnapshots()).hasSize(2);
+    }
+
+    @Test
+    public void spanCompleted_ignores_spans_without_a_duration() {
+        // given
+        SpanMetricsLifecycleListener listener = new SpanMetricsLifecycleListener();
+
+        // when
+        listener.spanCompleted(Span.newBuilder("not-completed", SpanPurpose.SERVER).build());
+
+        // then
+        assertThat(listener.getSnapshots()).isEmpty();
+    }
+
+    @Test
+    public void spanCompleted_uses_error_classifier() {
+        // given
+        SpanMetricsLifecycleListener listener = new SpanMetricsLifecycleListener(
+            10, span -> span.getSpanName().contains("fail")
+        );
+
+        // when
+        listener.spanCompleted(completedSpan("fail", SpanPurpose.SERVER, 1, true));
+        listener.spanCompleted(completedSpan("fail", SpanPurpose.SERVER, 1, true));
+        listener.spanCompleted(completedSpan("ok", SpanPurpose.SERVER, 1, true));
+
+        // then
+        assertThat(listener.getSnapshot("fail", SpanPurpose.SERVER).getErrorCount()).isEqualTo(2);
+        assertThat(listener.getSnapshot("ok", SpanPurpose.SERVER).getErrorCount()).isZero();
+    }
+
+    @Test
+    public void span_names_beyond_the_cap_are_recorded_under_the_overflow_name() {
+        // given
+        SpanMetricsLifecycleListener listener =
+            new SpanMetricsLifecycleListener(2, SpanMetricsLifecycleListener.NO_ERRORS_CLASSIFIER);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            listener.spanCompleted(completedSpan("GET /user/" + i, SpanPurpose.SERVER, 1, true));
+            listener.spanCompleted(completedSpan("GET /user/" + i, SpanPurpose.CLIENT, 1, true));
+        }
+        listener.spanCompleted(completedSpan("GET /user/0", SpanPurpose.SERVER, 1, true));
+
+        // then
+        assertThat(listener.getSnapshots()).hasSize(4);
+        assertThat(listener.getSnapshot("GET /user/0", SpanPurpose.SERVER).getCount()).isEqualTo(2);
+        assertThat(listener.getSnapshot("GET /user/0", SpanPurpose.CLIENT).getCount()).isEqualTo(1);
+        assertThat(listener.getSnapshot(SpanMetricsLifecycleListener.OVERFLOW_SPAN_NAME, SpanPurpose.SERVER).getCount())
+            .isEqualTo(99);
+        assertThat(listener.getSnapshot(SpanMetricsLifecycleListener.OVERFLOW_SPAN_NAME, SpanPurpose.CLIENT).getCount())
+            .isEqualTo(99);
+    }
+
+    @Test
+    public void getSnapshotsAndReset_resets_histograms_but_keeps_names() {
+        // given
+        SpanMetricsLifecycleListener listener = new SpanMetricsLifecycleListener();
+        listener.spanCompleted(completedSpan("foo", SpanPurpose.SERVER, 1000, true));
+
+        // when
+        List<SpanMetricsSnapshot> first = listener.getSnapshotsAndReset();
+        List<SpanMetricsSnapshot> second = listener.getSnapshots();
+
+        // then
+        assertThat(first).hasSize(1);
+        assertThat(first.get(0).spanName).isEqualTo("foo");
+        assertThat(first.get(0).spanPurpose).isEqualTo(SpanPurpose.SERVER);
+        assertThat(first.get(0).histogram.getCount()).isEqualTo(1);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).histogram.getCount()).isZero();
+    }
+}
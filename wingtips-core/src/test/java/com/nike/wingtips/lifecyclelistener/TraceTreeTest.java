@@ -0,0 +1,164 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.lifecyclelistener.TraceTree.Node;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link TraceTree}.
+ */
+public class TraceTreeTest {
+
+    static Span span(String traceId, String spanId, String parentSpanId, String name, long startNanos,
+                     Long durationNanos) {
+        return Span.newBuilder(name, SpanPurpose.SERVER)
+                   .withTraceId(traceId)
+                   .withSpanId(spanId)
+                   .withParentSpanId(parentSpanId)
+                   .withSpanStartTimeEpochMicros(1L)
+                   .withSpanStartTimeNanos(startNanos)
+                   .withDurationNanos(durationNanos)
+                   .build();
+    }
+
+    private List<String> names(List<Node> nodes) {
+        List<String> result = new ArrayList<>();
+        for (Node node : nodes) {
+            result.add(node.getSpan().getSpanName());
+        }
+        return result;
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new TraceTree(null, Collections.singletonList(span("t", "s", null, "a", 0, 1L)))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new TraceTree("t", null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new TraceTree("t", Collections.<Span>emptyList())))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new TraceTree("t", Collections.singletonList(span("t", "s", null, "a", 0, null)))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void assembles_tree_and_calculates_self_time_and_critical_path() {
+        // given
+        // root:  [0 ------------------------------------------------ 100]
+        // a:          [10 ------ 40]
+        // b:               [20 ------------------------ 80]
+        // c (in b):             [30 ------ 50]
+        // d:                                                [85 -- 95]
+        List<Span> spans = Arrays.asList(
+            span("t", "d", "root", "d", 85, 10L),
+            span("t", "root", "upstream", "root", 0, 100L),
+            span("t", "a", "root", "a", 10, 30L),
+            span("t", "c", "b", "c", 30, 20L),
+            span("t", "b", "root", "b", 20, 60L)
+        );
+
+        // when
+        TraceTree tree = new TraceTree("t", spans);
+
+        // then
+        assertThat(tree.getTraceId()).isEqualTo("t");
+        assertThat(tree.getSpanCount()).isEqualTo(5);
+        assertThat(tree.getRoots()).hasSize(1);
+        Node root = tree.getRoot();
+        assertThat(tree.getRootSpanName()).isEqualTo("root");
+        assertThat(tree.getDurationNanos()).isEqualTo(100);
+        assertThat(names(root.getChildren())).containsExactly("a", "b", "d");
+
+        // Children cover 10-80 and 85-95, so the root has 20ns to itself.
+        assertThat(root.getSelfTimeNanos()).isEqualTo(20);
+        Node b = root.getChildren().get(1);
+        assertThat(b.getSelfTimeNanos()).isEqualTo(40);
+        assertThat(b.getChildren().get(0).getSelfTimeNanos()).isEqualTo(20);
+
+        // The root ends after d, which starts after b ends, and b started after a (which overlaps b's start).
+        assertThat(names(tree.getCriticalPath())).containsExactly("root", "d", "b", "c", "a");
+        assertThat(root.isOnCriticalPath()).isTrue();
+    }
+
+    @Test
+    public void children_running_entirely_in_parallel_with_a_later_critical_child_are_not_on_the_critical_path() {
+        // given
+        // root:  [0 ---------------------------- 100]
+        // slow:   [0 ------------------------- 90]
+        // fast:        [20 -- 30]
+        List<Span> spans = Arrays.asList(
+            span("t", "root", null, "root", 0, 100L),
+            span("t", "slow", "root", "slow", 0, 90L),
+            span("t", "fast", "root", "fast", 20, 10L)
+        );
+
+        // when
+        TraceTree tree = new TraceTree("t", spans);
+
+        // then
+        assertThat(names(tree.getCriticalPath())).containsExactly("root", "slow");
+        assertThat(tree.getRoot().getChildren().get(1).isOnCriticalPath()).isFalse();
+        assertThat(tree.getRoot().getSelfTimeNanos()).isEqualTo(10);
+    }
+
+    @Test
+    public void spans_with_missing_parents_become_roots_and_the_longest_root_is_used() {
+        // given
+        List<Span> spans = Arrays.asList(
+            span("t", "first", "missing1", "first", 0, 50L),
+            span("t", "second", "missing2", "second", 100, 200L),
+            span("t", "child", "second", "child", 110, 10L)
+        );
+
+        // when
+        TraceTree tree = new TraceTree("t", spans);
+
+        // then
+        assertThat(names(tree.getRoots())).containsExactly("first", "second");
+        assertThat(tree.getRootSpanName()).isEqualTo("second");
+        assertThat(tree.getDurationNanos()).isEqualTo(200);
+        assertThat(names(tree.getCriticalPath())).containsExactly("second", "child");
+    }
+
+    @Test
+    public void cyclic_parent_ids_are_treated_as_all_roots() {
+        // given
+        List<Span> spans = Arrays.asList(
+            span("t", "a", "b", "a", 0, 10L),
+            span("t", "b", "a", "b", 0, 20L)
+        );
+
+        // when
+        TraceTree tree = new TraceTree("t", spans);
+
+        // then
+        assertThat(tree.getRoots()).hasSize(2);
+        assertThat(tree.getRootSpanName()).isEqualTo("b");
+    }
+
+    @Test
+    public void toString_marks_critical_path() {
+        // given
+        TraceTree tree = new TraceTree("t", Arrays.asList(
+            span("t", "root", null, "root", 0, 100L),
+            span("t", "child", "root", "child", 10, 10L)
+        ));
+
+        // when
+        String result = tree.toString();
+
+        // then
+        assertThat(result).contains("traceId=t").contains("* root").contains("* child");
+    }
+}
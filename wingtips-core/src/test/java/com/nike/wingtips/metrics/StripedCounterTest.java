@@ -0,0 +1,81 @@
+package com.nike.wingtips.metrics;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link StripedCounter}.
+ */
+@RunWith(DataProviderRunner.class)
+public class StripedCounterTest {
+
+    @DataProvider(value = {
+        "1  |   1",
+        "3  |   4",
+        "8  |   8",
+        "9  |   16",
+        "500|   64"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_rounds_stripes_up_to_power_of_two_and_caps_them(int stripes, int expectedStripes) {
+        // when
+        StripedCounter counter = new StripedCounter(stripes);
+
+        // then
+        assertThat(counter.stripeMask + 1).isEqualTo(expectedStripes);
+        assertThat(counter.cells.length()).isEqualTo(expectedStripes * StripedCounter.CELL_SPACING);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_stripes() {
+        // expect
+        assertThat(catchThrowable(() -> new StripedCounter(0))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void add_and_increment_are_reflected_in_sum() {
+        // given
+        StripedCounter counter = new StripedCounter();
+
+        // when
+        counter.increment();
+        counter.add(41);
+        counter.add(-2);
+
+        // then
+        assertThat(counter.sum()).isEqualTo(40);
+        assertThat(counter.toString()).isEqualTo("40");
+    }
+
+    @Test
+    public void sum_is_correct_after_concurrent_updates() throws InterruptedException {
+        // given
+        final StripedCounter counter = new StripedCounter(4);
+        final int numThreads = 16;
+        final int incrementsPerThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+
+        // when
+        for (int t = 0; t < numThreads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < incrementsPerThread; i++) {
+                    counter.increment();
+                }
+                latch.countDown();
+            }).start();
+        }
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        assertThat(counter.sum()).isEqualTo(numThreads * incrementsPerThread);
+    }
+}
@@ -0,0 +1,111 @@
+package com.nike.wingtips.metrics;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.metrics.TracerMetrics.DirtySpanStackSource;
+import com.nike.wingtips.metrics.TracerMetrics.SpanLifecycleEvent;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link StripedTracerMetrics} (and {@link NoOpTracerMetrics}).
+ */
+public class StripedTracerMetricsTest {
+
+    private final Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+
+    @Test
+    public void span_counts_are_tracked() {
+        // given
+        StripedTracerMetrics metrics = new StripedTracerMetrics();
+
+        // when
+        metrics.spanStarted(span);
+        metrics.spanStarted(span);
+        metrics.spanSampled(span);
+        metrics.spanCompleted(span);
+
+        // then
+        assertThat(metrics.getSpansStarted()).isEqualTo(2);
+        assertThat(metrics.getSpansSampled()).isEqualTo(1);
+        assertThat(metrics.getSpansUnsampled()).isEqualTo(1);
+        assertThat(metrics.getSpansCompleted()).isEqualTo(1);
+    }
+
+    @Test
+    public void span_stack_depth_is_tracked() {
+        // given
+        StripedTracerMetrics metrics = new StripedTracerMetrics();
+        assertThat(metrics.getMeanSpanStackDepth()).isZero();
+
+        // when
+        metrics.spanStackPushed(1);
+        metrics.spanStackPushed(5);
+        metrics.spanStackPushed(3);
+
+        // then
+        assertThat(metrics.getSpanStackPushes()).isEqualTo(3);
+        assertThat(metrics.getMeanSpanStackDepth()).isEqualTo(3.0);
+        assertThat(metrics.getMaxSpanStackDepth()).isEqualTo(5);
+    }
+
+    @Test
+    public void dirty_span_stacks_are_tracked_per_source() {
+        // given
+        StripedTracerMetrics metrics = new StripedTracerMetrics();
+
+        // when
+        metrics.dirtySpanStackDetected(DirtySpanStackSource.START_NEW_SPAN_STACK, 2);
+        metrics.dirtySpanStackDetected(DirtySpanStackSource.START_NEW_SPAN_STACK, 1);
+        metrics.dirtySpanStackDetected(DirtySpanStackSource.REGISTER_WITH_THREAD, 4);
+
+        // then
+        assertThat(metrics.getDirtySpanStackCount(DirtySpanStackSource.START_NEW_SPAN_STACK)).isEqualTo(2);
+        assertThat(metrics.getDirtySpanStackCount(DirtySpanStackSource.REGISTER_WITH_THREAD)).isEqualTo(1);
+        assertThat(metrics.getDirtySpanStackCount(DirtySpanStackSource.COMPLETE_REQUEST_SPAN)).isZero();
+        assertThat(metrics.getDirtySpanStackCount()).isEqualTo(3);
+        assertThat(metrics.getDirtySpanStackSpans()).isEqualTo(7);
+    }
+
+    @Test
+    public void listener_and_serialization_timings_are_tracked() {
+        // given
+        StripedTracerMetrics metrics = new StripedTracerMetrics();
+
+        // when
+        metrics.spanLifecycleListenersNotified(SpanLifecycleEvent.COMPLETED, 100);
+        metrics.spanLifecycleListenersNotified(SpanLifecycleEvent.COMPLETED, 300);
+        metrics.spanLifecycleListenersNotified(SpanLifecycleEvent.STARTED, 50);
+        metrics.spansSerialized(1, 1000);
+        metrics.spansSerialized(4, 3000);
+
+        // then
+        assertThat(metrics.getSpanLifecycleListenerNotifications(SpanLifecycleEvent.COMPLETED)).isEqualTo(2);
+        assertThat(metrics.getSpanLifecycleListenerNanos(SpanLifecycleEvent.COMPLETED)).isEqualTo(400);
+        assertThat(metrics.getMaxSpanLifecycleListenerNanos(SpanLifecycleEvent.COMPLETED)).isEqualTo(300);
+        assertThat(metrics.getSpanLifecycleListenerNanos(SpanLifecycleEvent.STARTED)).isEqualTo(50);
+        assertThat(metrics.getSpanLifecycleListenerNotifications(SpanLifecycleEvent.SAMPLED)).isZero();
+        assertThat(metrics.getSerializations()).isEqualTo(2);
+        assertThat(metrics.getSerializedSpans()).isEqualTo(5);
+        assertThat(metrics.getSerializationNanos()).isEqualTo(4000);
+        assertThat(metrics.getMaxSerializationNanos()).isEqualTo(3000);
+        assertThat(metrics.toString()).contains("listenerNanos_completed=400", "serializationNanos=4000");
+    }
+
+    @Test
+    public void NoOpTracerMetrics_does_nothing() {
+        // given
+        NoOpTracerMetrics metrics = NoOpTracerMetrics.INSTANCE;
+
+        // expect no exceptions
+        metrics.spanStarted(span);
+        metrics.spanSampled(span);
+        metrics.spanCompleted(span);
+        metrics.spanStackPushed(1);
+        metrics.dirtySpanStackDetected(DirtySpanStackSource.START_NEW_SPAN_STACK, 1);
+        metrics.spanLifecycleListenersNotified(SpanLifecycleEvent.STARTED, 1);
+        metrics.spansSerialized(1, 1);
+    }
+}
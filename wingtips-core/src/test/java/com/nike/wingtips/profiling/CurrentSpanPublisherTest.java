@@ -0,0 +1,95 @@
+package com.nike.wingtips.profiling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.profiling.CurrentSpanPublisher.PublishedThread;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link CurrentSpanPublisher}.
+ */
+public class CurrentSpanPublisherTest {
+
+    private Span newSpan(String name) {
+        return Span.newBuilder(name, SpanPurpose.SERVER).build();
+    }
+
+    @Test
+    public void publish_does_not_register_a_thread_that_has_no_spans() {
+        // given
+        CurrentSpanPublisher publisher = new CurrentSpanPublisher();
+
+        // when
+        publisher.publish(null, null);
+
+        // then
+        assertThat(publisher.getPublishedThreads()).isEmpty();
+    }
+
+    @Test
+    public void publish_registers_the_current_thread_once_and_updates_its_spans() {
+        // given
+        CurrentSpanPublisher publisher = new CurrentSpanPublisher();
+        Span root = newSpan("root");
+        Span child = newSpan("child");
+
+        // when
+        publisher.publish(root, root);
+        publisher.publish(root, child);
+
+        // then
+        List<PublishedThread> publishedThreads = publisher.getPublishedThreads();
+        assertThat(publishedThreads).hasSize(1);
+        PublishedThread publishedThread = publishedThreads.get(0);
+        assertThat(publishedThread.getThread()).isSameAs(Thread.currentThread());
+        assertThat(publishedThread.getThreadId()).isEqualTo(Thread.currentThread().getId());
+        assertThat(publishedThread.getRootSpan()).isSameAs(root);
+        assertThat(publishedThread.getCurrentSpan()).isSameAs(child);
+
+        // and when
+        publisher.publish(null, null);
+
+        // then
+        assertThat(publisher.getPublishedThreads()).containsExactly(publishedThread);
+        assertThat(publishedThread.getRootSpan()).isNull();
+        assertThat(publishedThread.getCurrentSpan()).isNull();
+    }
+
+    @Test
+    public void getPublishedThreads_drops_dead_threads() throws InterruptedException {
+        // given
+        final CurrentSpanPublisher publisher = new CurrentSpanPublisher();
+        final CountDownLatch published = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                publisher.publish(newSpan("root"), newSpan("root"));
+                published.countDown();
+                try {
+                    finish.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        published.await();
+        assertThat(publisher.getPublishedThreads()).hasSize(1);
+
+        // when
+        finish.countDown();
+        thread.join();
+
+        // then
+        assertThat(publisher.getPublishedThreads()).isEmpty();
+        assertThat(publisher.publishedThreads).isEmpty();
+    }
+}
@@ -0,0 +1,243 @@
+package com.nike.wingtips.profiling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link SpanStackSamplingProfiler}.
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanStackSamplingProfilerTest {
+
+    private CurrentSpanPublisher publisher;
+    private ThreadMXBean threadMXBeanMock;
+    private SpanStackSamplingProfiler profiler;
+
+    private Thread workerThread;
+    private CountDownLatch workerPublished;
+    private CountDownLatch workerFinish;
+
+    @Before
+    public void beforeMethod() {
+        publisher = new CurrentSpanPublisher();
+        threadMXBeanMock = mock(ThreadMXBean.class);
+        profiler = new SpanStackSamplingProfiler(publisher, threadMXBeanMock, 100, 10, 3, true);
+    }
+
+    @After
+    public void afterMethod() throws InterruptedException {
+        profiler.stop();
+        if (workerThread != null) {
+            workerFinish.countDown();
+            workerThread.join();
+        }
+    }
+
+    private Thread startWorkerWithRootSpan(final Span rootSpan) throws InterruptedException {
+        workerPublished = new CountDownLatch(1);
+        workerFinish = new CountDownLatch(1);
+        workerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                publisher.publish(rootSpan, rootSpan);
+                workerPublished.countDown();
+                try {
+                    workerFinish.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        workerThread.start();
+        workerPublished.await();
+        return workerThread;
+    }
+
+    private ThreadInfo threadInfo(Thread.State state, StackTraceElement... stackTrace) {
+        ThreadInfo threadInfoMock = mock(ThreadInfo.class);
+        doReturn(state).when(threadInfoMock).getThreadState();
+        doReturn(stackTrace).when(threadInfoMock).getStackTrace();
+        return threadInfoMock;
+    }
+
+    private StackTraceElement frame(String className, String methodName) {
+        return new StackTraceElement(className, methodName, null, -1);
+    }
+
+    @Test
+    public void default_constructor_uses_defaults() {
+        // when
+        SpanStackSamplingProfiler instance = new SpanStackSamplingProfiler(publisher);
+
+        // then
+        assertThat(instance.getSamplingIntervalMillis())
+            .isEqualTo(SpanStackSamplingProfiler.DEFAULT_SAMPLING_INTERVAL_MILLIS);
+        assertThat(instance.getMaxStackDepth()).isEqualTo(SpanStackSamplingProfiler.DEFAULT_MAX_STACK_DEPTH);
+        assertThat(instance.getMaxDistinctStacks()).isEqualTo(SpanStackSamplingProfiler.DEFAULT_MAX_DISTINCT_STACKS);
+        assertThat(instance.isRunnableThreadsOnly()).isTrue();
+        assertThat(instance.isStarted()).isFalse();
+    }
+
+    @DataProvider(value = {
+        "true   |   100 |   10  |   10",
+        "false  |   0   |   10  |   10",
+        "false  |   100 |   0   |   10",
+        "false  |   100 |   10  |   0",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_bad_args(
+        final boolean nullPublisher, final long interval, final int maxDepth, final int maxStacks
+    ) {
+        // when
+        Throwable ex = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new SpanStackSamplingProfiler((nullPublisher) ? null : publisher, interval, maxDepth, maxStacks, true);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void sampleOnce_does_nothing_when_no_thread_has_a_span_stack() {
+        // given
+        publisher.publish(null, null);
+
+        // when
+        profiler.sampleOnce();
+
+        // then
+        verify(threadMXBeanMock, never()).getThreadInfo(any(long[].class), anyInt());
+        assertThat(profiler.getSampleCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void sampleOnce_records_collapsed_stacks_keyed_by_root_span_name() throws InterruptedException {
+        // given
+        Thread worker = startWorkerWithRootSpan(Span.newBuilder("GET_/foo;bar", SpanPurpose.SERVER).build());
+        ThreadInfo info = threadInfo(
+            Thread.State.RUNNABLE, frame("com.foo.Inner", "work"), frame("com.foo.Outer", "run")
+        );
+        doReturn(new ThreadInfo[]{ info }).when(threadMXBeanMock).getThreadInfo(new long[]{ worker.getId() }, 10);
+
+        // when
+        profiler.sampleOnce();
+        profiler.sampleOnce();
+
+        // then
+        assertThat(profiler.getSampleCount()).isEqualTo(2);
+        assertThat(profiler.getCollapsedStackCounts())
+            .containsEntry("GET_/foo_bar;com.foo.Outer.run;com.foo.Inner.work", 2L);
+        assertThat(profiler.getCollapsedStacks()).isEqualTo("GET_/foo_bar;com.foo.Outer.run;com.foo.Inner.work 2\n");
+    }
+
+    @Test
+    public void sampleOnce_skips_non_runnable_threads_when_runnableThreadsOnly_is_true() throws InterruptedException {
+        // given
+        Thread worker = startWorkerWithRootSpan(Span.newBuilder("root", SpanPurpose.SERVER).build());
+        ThreadInfo info = threadInfo(Thread.State.WAITING, frame("com.foo.Outer", "run"));
+        doReturn(new ThreadInfo[]{ info }).when(threadMXBeanMock).getThreadInfo(new long[]{ worker.getId() }, 10);
+        SpanStackSamplingProfiler allThreadsProfiler =
+            new SpanStackSamplingProfiler(publisher, threadMXBeanMock, 100, 10, 3, false);
+
+        // when
+        profiler.sampleOnce();
+        allThreadsProfiler.sampleOnce();
+
+        // then
+        assertThat(profiler.getSampleCount()).isEqualTo(0);
+        assertThat(allThreadsProfiler.getSampleCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void recordSample_drops_new_stacks_once_maxDistinctStacks_is_reached() {
+        // when
+        for (int i = 0; i < 5; i++) {
+            profiler.recordSample("root;stack" + i);
+        }
+        profiler.recordSample("root;stack0");
+
+        // then
+        assertThat(profiler.getCollapsedStackCounts()).hasSize(3);
+        assertThat(profiler.getCollapsedStackCounts().get("root;stack0")).isEqualTo(2L);
+        assertThat(profiler.getSampleCount()).isEqualTo(4);
+        assertThat(profiler.getDroppedSampleCount()).isEqualTo(2);
+
+        // and when
+        profiler.reset();
+
+        // then
+        assertThat(profiler.getCollapsedStackCounts()).isEmpty();
+        assertThat(profiler.getSampleCount()).isEqualTo(0);
+        assertThat(profiler.getDroppedSampleCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void writeCollapsedStacks_can_filter_by_root_span_name() throws Exception {
+        // given
+        profiler.recordSample("foo;a;b");
+        profiler.recordSample("foobar;a");
+        profiler.recordSample("bar;c");
+        StringBuilder sb = new StringBuilder();
+
+        // when
+        profiler.writeCollapsedStacks(sb, "foo");
+
+        // then
+        assertThat(sb.toString()).isEqualTo("foo;a;b 1\n");
+    }
+
+    @Test
+    public void start_samples_real_threads_in_the_background() throws InterruptedException {
+        // given
+        profiler = new SpanStackSamplingProfiler(
+            publisher, ManagementFactory.getThreadMXBean(), 5, 64, 100, false
+        );
+        startWorkerWithRootSpan(Span.newBuilder("root", SpanPurpose.SERVER).build());
+
+        // when
+        profiler.start();
+        profiler.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (profiler.getSampleCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        profiler.stop();
+
+        // then
+        assertThat(profiler.isStarted()).isFalse();
+        Map<String, Long> counts = profiler.getCollapsedStackCounts();
+        assertThat(counts).isNotEmpty();
+        for (String stack : counts.keySet()) {
+            assertThat(stack).startsWith("root;");
+            assertThat(stack).contains(SpanStackSamplingProfilerTest.class.getName());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.nike.wingtips.resourceusage;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link GcPauseTracker}.
+ */
+@RunWith(DataProviderRunner.class)
+public class GcPauseTrackerTest {
+
+    private GcPauseTracker tracker;
+
+    @After
+    public void afterMethod() {
+        if (tracker != null)
+            tracker.stop();
+    }
+
+    @Test
+    public void default_constructor_uses_default_capacity_and_annotates_all_spans() {
+        // when
+        tracker = new GcPauseTracker();
+
+        // then
+        assertThat(tracker.getCapacity()).isEqualTo(GcPauseTracker.DEFAULT_CAPACITY);
+        assertThat(tracker.isSampledSpansOnly()).isFalse();
+        assertThat(tracker.getPauseCount()).isEqualTo(0);
+        assertThat(tracker.isStarted()).isFalse();
+    }
+
+    @DataProvider(value = {
+        "1   |   1",
+        "3   |   4",
+        "16  |   16",
+        "17  |   32"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_rounds_capacity_up_to_power_of_two(int requestedCapacity, int expectedCapacity) {
+        // when
+        tracker = new GcPauseTracker(requestedCapacity, true);
+
+        // then
+        assertThat(tracker.getCapacity()).isEqualTo(expectedCapacity);
+        assertThat(tracker.isSampledSpansOnly()).isTrue();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_bad_capacity() {
+        // expect
+        assertThat(catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new GcPauseTracker(0, false);
+            }
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new GcPauseTracker(Integer.MAX_VALUE, false);
+            }
+        })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void getPauseMicrosOverlapping_sums_only_the_overlapping_parts_of_pauses() {
+        // given
+        tracker = new GcPauseTracker(16, false);
+        tracker.recordPause(100, 200);  // entirely before
+        tracker.recordPause(900, 1100); // overlaps the start by 100
+        tracker.recordPause(1500, 1600); // entirely inside, 100
+        tracker.recordPause(1950, 2050); // overlaps the end by 50
+        tracker.recordPause(3000, 3100); // entirely after
+
+        // when
+        long result = tracker.getPauseMicrosOverlapping(1000, 2000);
+
+        // then
+        assertThat(result).isEqualTo(250);
+        assertThat(tracker.getPauseCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void getPauseMicrosOverlapping_only_sees_the_most_recent_pauses_that_fit_in_the_ring() {
+        // given
+        tracker = new GcPauseTracker(4, false);
+        for (int i = 0; i < 10; i++) {
+            tracker.recordPause(i * 100, i * 100 + 10);
+        }
+
+        // when
+        long result = tracker.getPauseMicrosOverlapping(0, 10000);
+
+        // then
+        assertThat(result).isEqualTo(40);
+        assertThat(tracker.getPauseCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void getPauseMicrosOverlapping_span_uses_the_span_start_and_duration() {
+        // given
+        tracker = new GcPauseTracker(16, false);
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER)
+                        .withSpanStartTimeEpochMicros(1000L)
+                        .withDurationNanos(TimeUnit.MICROSECONDS.toNanos(1000))
+                        .build();
+        tracker.recordPause(1900, 2100);
+
+        // when
+        Long result = tracker.getPauseMicrosOverlapping(span);
+
+        // then
+        assertThat(result).isEqualTo(100L);
+    }
+
+    @DataProvider(value = {
+        "false  |   false   |   true",
+        "false  |   true    |   true",
+        "true   |   false   |   false",
+        "true   |   true    |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void getPauseMicrosOverlapping_span_honors_sampledSpansOnly(
+        boolean sampledSpansOnly, boolean sampleable, boolean expectAnnotated
+    ) {
+        // given
+        tracker = new GcPauseTracker(16, sampledSpansOnly);
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER)
+                        .withSampleable(sampleable)
+                        .withSpanStartTimeEpochMicros(1000L)
+                        .withDurationNanos(TimeUnit.MICROSECONDS.toNanos(1000))
+                        .build();
+
+        // when
+        Long result = tracker.getPauseMicrosOverlapping(span);
+
+        // then
+        if (expectAnnotated)
+            assertThat(result).isEqualTo(0L);
+        else
+            assertThat(result).isNull();
+    }
+
+    @Test
+    public void getPauseMicrosOverlapping_span_returns_null_for_uncompleted_spans() {
+        // given
+        tracker = new GcPauseTracker();
+
+        // expect
+        assertThat(tracker.getPauseMicrosOverlapping(Span.newBuilder("foo", SpanPurpose.SERVER).build())).isNull();
+    }
+
+    @DataProvider(value = {
+        "end of minor GC                |   true",
+        "end of major GC                |   true",
+        "end of GC pause                |   true",
+        "end of concurrent GC pause     |   true",
+        "end of GC cycle                |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void isPause_ignores_concurrent_cycles(String gcAction, boolean expectedResult) {
+        // given
+        tracker = new GcPauseTracker();
+
+        // expect
+        assertThat(tracker.isPause("someCollector", gcAction)).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void start_records_real_gc_pauses_and_stop_unsubscribes() throws InterruptedException {
+        // given
+        tracker = new GcPauseTracker();
+
+        // when
+        tracker.start();
+        tracker.start();
+        System.gc();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tracker.getPauseCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // then
+        assertThat(tracker.isStarted()).isTrue();
+        assertThat(tracker.getPauseCount()).isGreaterThan(0);
+
+        // and when
+        tracker.stop();
+
+        // then
+        assertThat(tracker.isStarted()).isFalse();
+    }
+}
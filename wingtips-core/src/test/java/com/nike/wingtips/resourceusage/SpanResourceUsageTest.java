@@ -0,0 +1,93 @@
+package com.nike.wingtips.resourceusage;
+
+import org.junit.Test;
+
+import static com.nike.wingtips.resourceusage.ThreadResourceSnapshot.NOT_MEASURED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link SpanResourceUsage}.
+ */
+public class SpanResourceUsageTest {
+
+    @Test
+    public void new_instance_has_nothing_measured() {
+        // given
+        ThreadResourceSnapshot startSnapshot = new ThreadResourceSnapshot(1, 2, 3, 4, 5);
+
+        // when
+        SpanResourceUsage usage = new SpanResourceUsage(Thread.currentThread(), startSnapshot);
+
+        // then
+        assertThat(usage.getStartThread()).isSameAs(Thread.currentThread());
+        assertThat(usage.getStartSnapshot()).isSameAs(startSnapshot);
+        assertThat(usage.getCpuTimeNanos()).isEqualTo(NOT_MEASURED);
+        assertThat(usage.getAllocatedBytes()).isEqualTo(NOT_MEASURED);
+        assertThat(usage.getBlockedTimeMillis()).isEqualTo(NOT_MEASURED);
+        assertThat(usage.getWaitedTimeMillis()).isEqualTo(NOT_MEASURED);
+        assertThat(usage.getAsyncTaskCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void incrementAsyncTaskCount_counts_tasks() {
+        // given
+        SpanResourceUsage usage = new SpanResourceUsage(null, null);
+
+        // when
+        usage.incrementAsyncTaskCount();
+        usage.incrementAsyncTaskCount();
+
+        // then
+        assertThat(usage.getAsyncTaskCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void addUsage_accumulates_deltas_of_measured_values_only() {
+        // given
+        SpanResourceUsage usage = new SpanResourceUsage(null, null);
+
+        // when
+        usage.addUsage(
+            new ThreadResourceSnapshot(0, 100, 1000, NOT_MEASURED, 5),
+            new ThreadResourceSnapshot(0, 150, 1500, NOT_MEASURED, 8)
+        );
+        usage.addUsage(
+            new ThreadResourceSnapshot(0, 10, 0, NOT_MEASURED, 1),
+            new ThreadResourceSnapshot(0, 30, 100, NOT_MEASURED, 1)
+        );
+
+        // then
+        assertThat(usage.getCpuTimeNanos()).isEqualTo(70);
+        assertThat(usage.getAllocatedBytes()).isEqualTo(600);
+        assertThat(usage.getBlockedTimeMillis()).isEqualTo(NOT_MEASURED);
+        assertThat(usage.getWaitedTimeMillis()).isEqualTo(3);
+    }
+
+    @Test
+    public void addUsage_never_adds_negative_deltas() {
+        // given
+        SpanResourceUsage usage = new SpanResourceUsage(null, null);
+
+        // when
+        usage.addUsage(new ThreadResourceSnapshot(0, 100, 0, 0, 0), new ThreadResourceSnapshot(0, 50, 0, 0, 0));
+
+        // then
+        assertThat(usage.getCpuTimeNanos()).isEqualTo(0);
+    }
+
+    @Test
+    public void fromTotals_sets_the_given_values() {
+        // when
+        SpanResourceUsage usage = SpanResourceUsage.fromTotals(1, 2, 3, NOT_MEASURED);
+
+        // then
+        assertThat(usage.getStartThread()).isNull();
+        assertThat(usage.getStartSnapshot()).isNull();
+        assertThat(usage.getCpuTimeNanos()).isEqualTo(1);
+        assertThat(usage.getAllocatedBytes()).isEqualTo(2);
+        assertThat(usage.getBlockedTimeMillis()).isEqualTo(3);
+        assertThat(usage.getWaitedTimeMillis()).isEqualTo(NOT_MEASURED);
+        assertThat(usage.getAsyncTaskCount()).isEqualTo(0);
+        assertThat(SpanResourceUsage.fromTotals(1, 2, 3, 4, 5).getAsyncTaskCount()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,118 @@
+package com.nike.wingtips.resourceusage;
+
+import org.junit.Test;
+
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+import static com.nike.wingtips.resourceusage.ThreadResourceSnapshot.NOT_MEASURED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link ThreadResourceSampler}.
+ */
+public class ThreadResourceSamplerTest {
+
+    @Test
+    public void default_constructor_measures_cpu_time_and_allocated_bytes_but_not_blocked_and_waited_time() {
+        // when
+        ThreadResourceSampler sampler = new ThreadResourceSampler();
+        ThreadResourceSnapshot snapshot = sampler.sampleCurrentThread();
+
+        // then
+        // The JVMs this is built with support CPU time and allocated bytes.
+        assertThat(sampler.isMeasuringCpuTime()).isTrue();
+        assertThat(sampler.isMeasuringAllocatedBytes()).isTrue();
+        assertThat(sampler.isMeasuringBlockedAndWaitedTime()).isFalse();
+        assertThat(snapshot.getCpuTimeNanos()).isGreaterThanOrEqualTo(0);
+        assertThat(snapshot.getAllocatedBytes()).isGreaterThanOrEqualTo(0);
+        assertThat(snapshot.getBlockedTimeMillis()).isEqualTo(NOT_MEASURED);
+        assertThat(snapshot.getWaitedTimeMillis()).isEqualTo(NOT_MEASURED);
+    }
+
+    @Test
+    public void sampleCurrentThread_values_increase_as_the_thread_works() {
+        // given
+        ThreadResourceSampler sampler = new ThreadResourceSampler(true, true, false);
+        ThreadResourceSnapshot before = sampler.sampleCurrentThread();
+
+        // when
+        long sum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            sum += new byte[64].length;
+        }
+        ThreadResourceSnapshot after = sampler.sampleCurrentThread();
+
+        // then
+        assertThat(sum).isGreaterThan(0);
+        assertThat(after.getNanoTime()).isGreaterThanOrEqualTo(before.getNanoTime());
+        assertThat(after.getCpuTimeNanos()).isGreaterThanOrEqualTo(before.getCpuTimeNanos());
+        assertThat(after.getAllocatedBytes()).isGreaterThan(before.getAllocatedBytes());
+    }
+
+    @Test
+    public void measurements_are_turned_off_when_not_supported() {
+        // given
+        ThreadMXBean threadMXBeanMock = mock(ThreadMXBean.class);
+        doReturn(false).when(threadMXBeanMock).isCurrentThreadCpuTimeSupported();
+        doReturn(false).when(threadMXBeanMock).isThreadContentionMonitoringSupported();
+
+        // when
+        ThreadResourceSampler sampler = new ThreadResourceSampler(threadMXBeanMock, true, true, true);
+        ThreadResourceSnapshot snapshot = sampler.sampleCurrentThread();
+
+        // then
+        assertThat(sampler.isMeasuringCpuTime()).isFalse();
+        // A plain java.lang.management.ThreadMXBean can't measure allocated bytes.
+        assertThat(sampler.isMeasuringAllocatedBytes()).isFalse();
+        assertThat(sampler.isMeasuringBlockedAndWaitedTime()).isFalse();
+        assertThat(snapshot.getCpuTimeNanos()).isEqualTo(NOT_MEASURED);
+        assertThat(snapshot.getAllocatedBytes()).isEqualTo(NOT_MEASURED);
+        assertThat(snapshot.getBlockedTimeMillis()).isEqualTo(NOT_MEASURED);
+        verify(threadMXBeanMock, never()).getCurrentThreadCpuTime();
+    }
+
+    @Test
+    public void measurements_are_turned_off_when_enabling_them_throws() {
+        // given
+        ThreadMXBean threadMXBeanMock = mock(ThreadMXBean.class);
+        doReturn(true).when(threadMXBeanMock).isCurrentThreadCpuTimeSupported();
+        doThrow(new SecurityException("intentional exception")).when(threadMXBeanMock).setThreadCpuTimeEnabled(true);
+        doReturn(true).when(threadMXBeanMock).isThreadContentionMonitoringSupported();
+        doThrow(new UnsupportedOperationException("intentional exception"))
+            .when(threadMXBeanMock).setThreadContentionMonitoringEnabled(true);
+
+        // when
+        ThreadResourceSampler sampler = new ThreadResourceSampler(threadMXBeanMock, true, false, true);
+
+        // then
+        assertThat(sampler.isMeasuringCpuTime()).isFalse();
+        assertThat(sampler.isMeasuringBlockedAndWaitedTime()).isFalse();
+    }
+
+    @Test
+    public void blocked_and_waited_time_come_from_thread_info_when_enabled() {
+        // given
+        ThreadMXBean threadMXBeanMock = mock(ThreadMXBean.class);
+        doReturn(true).when(threadMXBeanMock).isThreadContentionMonitoringSupported();
+        ThreadInfo threadInfoMock = mock(ThreadInfo.class);
+        doReturn(11L).when(threadInfoMock).getBlockedTime();
+        doReturn(22L).when(threadInfoMock).getWaitedTime();
+        doReturn(threadInfoMock).when(threadMXBeanMock).getThreadInfo(Thread.currentThread().getId());
+        ThreadResourceSampler sampler = new ThreadResourceSampler(threadMXBeanMock, false, false, true);
+
+        // when
+        ThreadResourceSnapshot snapshot = sampler.sampleCurrentThread();
+
+        // then
+        verify(threadMXBeanMock).setThreadContentionMonitoringEnabled(true);
+        assertThat(snapshot.getBlockedTimeMillis()).isEqualTo(11);
+        assertThat(snapshot.getWaitedTimeMillis()).isEqualTo(22);
+        assertThat(snapshot.getCpuTimeNanos()).isEqualTo(NOT_MEASURED);
+    }
+}
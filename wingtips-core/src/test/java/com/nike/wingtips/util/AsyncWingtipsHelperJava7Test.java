@@ -3,6 +3,7 @@ package com.nike.wingtips.util;
 import com.nike.internal.util.Pair;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.resourceusage.ThreadResourceSampler;
 import com.nike.wingtips.util.asynchelperwrapper.CallableWithTracing;
 import com.nike.wingtips.util.asynchelperwrapper.ExecutorServiceWithTracing;
 import com.nike.wingtips.util.asynchelperwrapper.RunnableWithTracing;
@@ -62,6 +63,7 @@ public class AsyncWingtipsHelperJava7Test {
     private void resetTracing() {
         MDC.clear();
         Tracer.getInstance().unregisterFromThread();
+        Tracer.getInstance().setThreadResourceSampler(null);
     }
 
     private TracingState generateTracingStateInfo() {
@@ -274,6 +276,39 @@ public class AsyncWingtipsHelperJava7Test {
         assertThat(postCallInfo.getRight()).isNullOrEmpty();
     }
 
+    @Test
+    public void linkTracingToCurrentThread_counts_async_tasks_on_the_request_span_when_resource_usage_is_measured()
+        throws Exception {
+        // given
+        Tracer.getInstance().setThreadResourceSampler(new ThreadResourceSampler());
+        Span requestSpan = Tracer.getInstance().startRequestWithRootSpan("request");
+        Tracer.getInstance().startSubSpan("subspan", Span.SpanPurpose.LOCAL_ONLY);
+        Runnable runnable = runnableWithTracing(() -> { });
+        Callable<String> callable = callableWithTracing(() -> "foo");
+
+        // when
+        runnable.run();
+        callable.call();
+        runnable.run();
+
+        // then
+        assertThat(requestSpan.getResourceUsage().getAsyncTaskCount()).isEqualTo(3);
+        assertThat(Tracer.getInstance().getCurrentSpan().getResourceUsage().getAsyncTaskCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void linkTracingToCurrentThread_does_not_count_async_tasks_when_resource_usage_is_not_measured() {
+        // given
+        Span requestSpan = Tracer.getInstance().startRequestWithRootSpan("request");
+        Runnable runnable = runnableWithTracing(() -> { });
+
+        // when
+        runnable.run();
+
+        // then
+        assertThat(requestSpan.getResourceUsage()).isNull();
+    }
+
     @DataProvider(value = {
         "true   |   true",
         "false  |   true",
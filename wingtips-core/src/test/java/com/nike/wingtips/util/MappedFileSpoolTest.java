@@ -0,0 +1,265 @@
+package com.nike.wingtips.util;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.nike.wingtips.util.MappedFileSpool.MIN_SEGMENT_SIZE_BYTES;
+import static com.nike.wingtips.util.MappedFileSpool.RECORD_HEADER_SIZE_BYTES;
+import static com.nike.wingtips.util.MappedFileSpool.SEGMENT_HEADER_SIZE_BYTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link MappedFileSpool}.
+ */
+public class MappedFileSpoolTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File spoolDir;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        spoolDir = new File(tempFolder.getRoot(), "spool");
+    }
+
+    private static byte[] record(int i) {
+        return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> asStrings(List<byte[]> records) {
+        List<String> result = new ArrayList<>();
+        for (byte[] record : records) {
+            result.add(new String(record, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private List<String> drainAll(MappedFileSpool spool) {
+        List<byte[]> records = spool.peek(Integer.MAX_VALUE);
+        spool.remove(records.size());
+        return asStrings(records);
+    }
+
+    @Test
+    public void constructor_creates_directory_and_sets_fields() throws IOException {
+        // when
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES * 3 + 42);
+
+        // then
+        assertThat(spoolDir).isDirectory();
+        assertThat(spool.getDirectory()).isEqualTo(spoolDir);
+        assertThat(spool.maxSegments).isEqualTo(3);
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(spool.getDiskBytesUsed()).isEqualTo(0);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new MappedFileSpool(null, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES - 1, Long.MAX_VALUE)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES - 1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void records_are_returned_in_order_across_segments() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES * 10);
+        List<String> expected = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            assertThat(spool.append(record(i))).isTrue();
+            expected.add("record-" + i);
+        }
+
+        // then
+        assertThat(spool.getDiskBytesUsed()).isGreaterThan(MIN_SEGMENT_SIZE_BYTES);
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(1000);
+        assertThat(drainAll(spool)).isEqualTo(expected);
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(spool.getSpooledRecordBytes()).isEqualTo(0);
+        assertThat(spool.getDiskBytesUsed()).isLessThanOrEqualTo(MIN_SEGMENT_SIZE_BYTES);
+    }
+
+    @Test
+    public void peek_respects_max_bytes_but_always_returns_at_least_one_record() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+        for (int i = 0; i < 5; i++) {
+            spool.append(record(i));
+        }
+        int recordSize = record(0).length;
+
+        // expect
+        assertThat(asStrings(spool.peek(recordSize * 2))).containsExactly("record-0", "record-1");
+        assertThat(asStrings(spool.peek(1))).containsExactly("record-0");
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void remove_only_removes_the_requested_number_of_records() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+        for (int i = 0; i < 5; i++) {
+            spool.append(record(i));
+        }
+
+        // when
+        spool.remove(2);
+
+        // then
+        assertThat(drainAll(spool)).containsExactly("record-2", "record-3", "record-4");
+    }
+
+    @Test
+    public void append_drops_records_once_disk_budget_is_used_up_and_accepts_them_again_after_draining() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES * 2);
+        byte[] bigRecord = new byte[MIN_SEGMENT_SIZE_BYTES / 2];
+
+        // when
+        int numAppended = 0;
+        for (int i = 0; i < 10; i++) {
+            if (spool.append(bigRecord))
+                numAppended++;
+        }
+
+        // then
+        assertThat(numAppended).isEqualTo(2);
+        assertThat(spool.getDroppedRecordCount()).isEqualTo(8);
+        assertThat(spool.getDiskBytesUsed()).isEqualTo(MIN_SEGMENT_SIZE_BYTES * 2);
+
+        // and when
+        spool.remove(1);
+
+        // then
+        assertThat(spool.append(bigRecord)).isTrue();
+    }
+
+    @Test
+    public void append_drops_empty_and_oversized_records() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+
+        // expect
+        assertThat(spool.maxRecordSizeBytes())
+            .isEqualTo(MIN_SEGMENT_SIZE_BYTES - SEGMENT_HEADER_SIZE_BYTES - RECORD_HEADER_SIZE_BYTES);
+        assertThat(spool.append(new byte[0])).isFalse();
+        assertThat(spool.append(new byte[spool.maxRecordSizeBytes() + 1])).isFalse();
+        assertThat(spool.append(new byte[spool.maxRecordSizeBytes()])).isTrue();
+        assertThat(spool.getDroppedRecordCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void new_instance_recovers_unread_records_from_existing_segments() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES * 10);
+        for (int i = 0; i < 500; i++) {
+            spool.append(record(i));
+        }
+        spool.remove(300);
+        spool.close();
+
+        // when
+        MappedFileSpool recovered = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES * 10);
+
+        // then
+        assertThat(recovered.getSpooledRecordCount()).isEqualTo(200);
+        List<String> records = drainAll(recovered);
+        assertThat(records).hasSize(200);
+        assertThat(records.get(0)).isEqualTo("record-300");
+        assertThat(records.get(199)).isEqualTo("record-499");
+
+        // and the recovered spool can still be appended to
+        assertThat(recovered.append(record(42))).isTrue();
+        assertThat(drainAll(recovered)).containsExactly("record-42");
+    }
+
+    @Test
+    public void recovery_stops_at_a_partially_written_record() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+        spool.append(record(0));
+        spool.append(record(1));
+        spool.close();
+        // Corrupt a byte in the second record so it fails its CRC check.
+        File segmentFile = spoolDir.listFiles()[0];
+        long secondRecordDataOffset = SEGMENT_HEADER_SIZE_BYTES + RECORD_HEADER_SIZE_BYTES + record(0).length
+                                      + RECORD_HEADER_SIZE_BYTES;
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            raf.seek(secondRecordDataOffset);
+            raf.write('X');
+        }
+
+        // when
+        MappedFileSpool recovered = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+
+        // then
+        assertThat(recovered.getSpooledRecordCount()).isEqualTo(1);
+        assertThat(recovered.append(record(2))).isTrue();
+        assertThat(drainAll(recovered)).containsExactly("record-0", "record-2");
+    }
+
+    @Test
+    public void recovery_deletes_segments_with_a_bad_header() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+        spool.append(record(0));
+        spool.close();
+        File segmentFile = spoolDir.listFiles()[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            raf.writeInt(42);
+        }
+
+        // when
+        MappedFileSpool recovered = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+
+        // then
+        assertThat(recovered.isEmpty()).isTrue();
+        assertThat(segmentFile).doesNotExist();
+    }
+
+    @Test
+    public void recovery_ignores_unrelated_files() throws IOException {
+        // given
+        assertThat(spoolDir.mkdirs()).isTrue();
+        File unrelatedFile = new File(spoolDir, "not-a-segment.txt");
+        assertThat(unrelatedFile.createNewFile()).isTrue();
+
+        // when
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+
+        // then
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(unrelatedFile).exists();
+    }
+
+    @Test
+    public void closed_spool_rejects_appends_and_returns_nothing() throws IOException {
+        // given
+        MappedFileSpool spool = new MappedFileSpool(spoolDir, MIN_SEGMENT_SIZE_BYTES, MIN_SEGMENT_SIZE_BYTES);
+        spool.append(record(0));
+
+        // when
+        spool.close();
+
+        // then
+        assertThat(spool.append(record(1))).isFalse();
+        assertThat(spool.peek(Integer.MAX_VALUE)).isEmpty();
+    }
+}
@@ -0,0 +1,94 @@
+package com.nike.wingtips.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static com.nike.wingtips.util.MappedSegmentRecords.RECORD_HEADER_SIZE_BYTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link MappedSegmentRecords}.
+ */
+public class MappedSegmentRecordsTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final byte[] RECORD = "some-record".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void map_creates_file_of_the_given_size() throws IOException {
+        // given
+        File file = new File(tempFolder.getRoot(), "segment");
+
+        // when
+        MappedByteBuffer buffer = MappedSegmentRecords.map(file, 4096);
+
+        // then
+        assertThat(file).exists();
+        assertThat(file.length()).isEqualTo(4096);
+        assertThat(buffer.capacity()).isEqualTo(4096);
+    }
+
+    @Test
+    public void appendRecord_writes_records_that_can_be_read_back() {
+        // given
+        ByteBuffer segment = ByteBuffer.allocate(256);
+
+        // when
+        int nextPosition = MappedSegmentRecords.appendRecord(segment, 16, RECORD);
+
+        // then
+        assertThat(nextPosition).isEqualTo(16 + RECORD_HEADER_SIZE_BYTES + RECORD.length);
+        assertThat(MappedSegmentRecords.validRecordLengthAt(segment, 16)).isEqualTo(RECORD.length);
+        assertThat(MappedSegmentRecords.readRecord(segment, 16, RECORD.length)).isEqualTo(RECORD);
+        assertThat(MappedSegmentRecords.validRecordLengthAt(segment, nextPosition)).isEqualTo(-1);
+    }
+
+    @Test
+    public void appendRecord_clears_leftover_length_after_the_record() {
+        // given
+        ByteBuffer segment = ByteBuffer.allocate(256);
+        int nextPosition = RECORD_HEADER_SIZE_BYTES + RECORD.length;
+        segment.putInt(nextPosition, 42);
+
+        // when
+        MappedSegmentRecords.appendRecord(segment, 0, RECORD);
+
+        // then
+        assertThat(segment.getInt(nextPosition)).isZero();
+    }
+
+    @Test
+    public void validRecordLengthAt_returns_negative_one_for_bad_crc_or_length() {
+        // given
+        ByteBuffer badCrc = ByteBuffer.allocate(256);
+        MappedSegmentRecords.appendRecord(badCrc, 0, RECORD);
+        badCrc.putInt(4, badCrc.getInt(4) + 1);
+        ByteBuffer tooLong = ByteBuffer.allocate(256);
+        MappedSegmentRecords.appendRecord(tooLong, 0, RECORD);
+        tooLong.putInt(0, 256);
+
+        // expect
+        assertThat(MappedSegmentRecords.validRecordLengthAt(badCrc, 0)).isEqualTo(-1);
+        assertThat(MappedSegmentRecords.validRecordLengthAt(tooLong, 0)).isEqualTo(-1);
+        assertThat(MappedSegmentRecords.validRecordLengthAt(tooLong, 252)).isEqualTo(-1);
+    }
+
+    @Test
+    public void hasRoomFor_checks_against_the_end_of_the_segment() {
+        // given
+        ByteBuffer segment = ByteBuffer.allocate(100);
+
+        // expect
+        assertThat(MappedSegmentRecords.hasRoomFor(segment, 0, 100 - RECORD_HEADER_SIZE_BYTES)).isTrue();
+        assertThat(MappedSegmentRecords.hasRoomFor(segment, 1, 100 - RECORD_HEADER_SIZE_BYTES)).isFalse();
+    }
+}
@@ -162,6 +162,50 @@ public class CallableWithTracingTest {
         assertThat(instance.origCallable).isSameAs(callableMock);
         assertThat(instance.spanStackForExecution).isEqualTo(spanStackMock);
         assertThat(instance.mdcContextMapForExecution).isEqualTo(mdcInfoMock);
+        assertThat(instance.queueWaitRecorder).isNull();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void queue_wait_recorder_constructor_sets_fields_as_expected(boolean useStaticFactory) {
+        // given
+        Deque<Span> spanStackMock = mock(Deque.class);
+        Map<String, String> mdcInfoMock = mock(Map.class);
+        QueueWaitRecorder recorderMock = mock(QueueWaitRecorder.class);
+        long beforeNanoTime = System.nanoTime();
+
+        // when
+        CallableWithTracing instance = (useStaticFactory)
+                                       ? withTracing(callableMock, spanStackMock, mdcInfoMock, recorderMock)
+                                       : new CallableWithTracing(callableMock, spanStackMock, mdcInfoMock, recorderMock);
+
+        // then
+        assertThat(instance.origCallable).isSameAs(callableMock);
+        assertThat(instance.spanStackForExecution).isEqualTo(spanStackMock);
+        assertThat(instance.mdcContextMapForExecution).isEqualTo(mdcInfoMock);
+        assertThat(instance.queueWaitRecorder).isSameAs(recorderMock);
+        assertThat(instance.queuedAtNanoTime).isBetween(beforeNanoTime, System.nanoTime());
+    }
+
+    @Test
+    public void call_records_queue_wait_when_given_a_recorder() throws Exception {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        Deque<Span> spanStack = Tracer.getInstance().getCurrentSpanStackCopy();
+        QueueWaitRecorder recorderMock = mock(QueueWaitRecorder.class);
+        CallableWithTracing instance = new CallableWithTracing(callableMock, spanStack, null, recorderMock);
+        resetTracing();
+
+        // when
+        instance.call();
+
+        // then
+        verify(recorderMock).recordQueueWait(instance.queuedAtNanoTime, spanStack);
+        verify(callableMock).call();
+        assertThat(currentSpanStackWhenCallableWasCalled.get(0)).isEqualTo(spanStack);
     }
 
     @Test
@@ -93,6 +93,27 @@ public class ExecutorServiceWithTracingTest {
 
         // then
         assertThat(instance.delegate).isSameAs(executorServiceMock);
+        assertThat(instance.getQueueWaitRecorder()).isNull();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void queue_wait_recorder_constructor_sets_fields_as_expected(boolean useStaticFactoryMethod) {
+        // given
+        executorServiceMock = mock(ExecutorService.class);
+        QueueWaitRecorder recorder = new QueueWaitRecorder();
+
+        // when
+        instance = (useStaticFactoryMethod)
+                   ? withTracing(executorServiceMock, recorder)
+                   : new ExecutorServiceWithTracing(executorServiceMock, recorder);
+
+        // then
+        assertThat(instance.delegate).isSameAs(executorServiceMock);
+        assertThat(instance.getQueueWaitRecorder()).isSameAs(recorder);
     }
 
     @Test
@@ -510,6 +531,28 @@ public class ExecutorServiceWithTracingTest {
         verifyNoMoreInteractions(executorServiceMock);
     }
 
+    @Test
+    public void tasks_are_wrapped_with_the_queue_wait_recorder() {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder();
+        instance = new ExecutorServiceWithTracing(executorServiceMock, recorder);
+        Runnable origRunnableMock = mock(Runnable.class);
+        Callable<Object> origCallableMock = mock(Callable.class);
+
+        // when
+        instance.execute(origRunnableMock);
+        instance.submit(origCallableMock);
+        List<Callable<Object>> convertedCallables =
+            instance.convertToCallableWithTracingList(Arrays.asList(origCallableMock));
+
+        // then
+        verify(executorServiceMock).execute(runnableCaptor.capture());
+        verify(executorServiceMock).submit(callableCaptor.capture());
+        assertThat(((RunnableWithTracing) runnableCaptor.getValue()).queueWaitRecorder).isSameAs(recorder);
+        assertThat(((CallableWithTracing) callableCaptor.getValue()).queueWaitRecorder).isSameAs(recorder);
+        assertThat(((CallableWithTracing) convertedCallables.get(0)).queueWaitRecorder).isSameAs(recorder);
+    }
+
     @Test
     public void convertToCallableWithTracingList_works_as_expected() {
         // given
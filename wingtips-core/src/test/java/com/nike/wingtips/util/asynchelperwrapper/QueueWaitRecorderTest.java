@@ -0,0 +1,229 @@
+package com.nike.wingtips.util.asynchelperwrapper;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.lifecyclelistener.LatencyHistogram;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link QueueWaitRecorder}.
+ */
+public class QueueWaitRecorderTest {
+
+    private List<Span> completedSpans;
+    private List<String> lifecycleEvents;
+    private SpanLifecycleListener completedSpanCollector;
+
+    @Before
+    public void beforeMethod() {
+        resetTracing();
+        completedSpans = new ArrayList<>();
+        lifecycleEvents = new ArrayList<>();
+        completedSpanCollector = new SpanLifecycleListener() {
+            @Override
+            public void spanStarted(Span span) {
+                lifecycleEvents.add("started:" + span.getSpanId());
+            }
+
+            @Override
+            public void spanSampled(Span span) {
+                lifecycleEvents.add("sampled:" + span.getSpanId());
+            }
+
+            @Override
+            public void spanCompleted(Span span) {
+                lifecycleEvents.add("completed:" + span.getSpanId());
+                completedSpans.add(span);
+            }
+        };
+        Tracer.getInstance().addSpanLifecycleListener(completedSpanCollector);
+    }
+
+    @After
+    public void afterMethod() {
+        Tracer.getInstance().removeSpanLifecycleListener(completedSpanCollector);
+        resetTracing();
+    }
+
+    private void resetTracing() {
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+    }
+
+    private Deque<Span> spanStackWith(Span span) {
+        Deque<Span> spanStack = new ArrayDeque<>();
+        spanStack.push(span);
+        return spanStack;
+    }
+
+    @Test
+    public void default_constructor_never_creates_synthetic_spans() {
+        // when
+        QueueWaitRecorder recorder = new QueueWaitRecorder();
+
+        // then
+        assertThat(recorder.getSyntheticSpanName()).isEqualTo(QueueWaitRecorder.DEFAULT_SYNTHETIC_SPAN_NAME);
+        assertThat(recorder.getSyntheticSpanThresholdNanos()).isEqualTo(-1);
+    }
+
+    @Test
+    public void constructor_converts_threshold_to_nanos() {
+        // when
+        QueueWaitRecorder recorder = new QueueWaitRecorder("foo", 5, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(recorder.getSyntheticSpanName()).isEqualTo("foo");
+        assertThat(recorder.getSyntheticSpanThresholdNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_args() {
+        // expect
+        assertThat(catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new QueueWaitRecorder(null, 0, TimeUnit.MILLISECONDS);
+            }
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new QueueWaitRecorder("foo", 0, null);
+            }
+        })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void recordQueueWait_records_wait_in_histogram_with_parent_trace_id_as_exemplar() {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder();
+        Span parent = Span.generateRootSpanForNewTrace("parent", SpanPurpose.SERVER).build();
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+        // when
+        recorder.recordQueueWait(System.nanoTime() - waitNanos, spanStackWith(parent));
+
+        // then
+        LatencyHistogram.Snapshot snapshot = recorder.getHistogram().snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1);
+        assertThat(snapshot.getMaxNanos()).isGreaterThanOrEqualTo(waitNanos);
+        assertThat(snapshot.getExemplarTraceIdAtPercentile(100)).isEqualTo(parent.getTraceId());
+        assertThat(completedSpans).isEmpty();
+    }
+
+    @Test
+    public void recordQueueWait_records_wait_in_histogram_when_there_is_no_span_stack() {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder("queue", 0, TimeUnit.NANOSECONDS);
+
+        // when
+        recorder.recordQueueWait(System.nanoTime(), null);
+        recorder.recordQueueWait(System.nanoTime(), new ArrayDeque<Span>());
+
+        // then
+        assertThat(recorder.getHistogram().snapshot().getCount()).isEqualTo(2);
+        assertThat(completedSpans).isEmpty();
+    }
+
+    @Test
+    public void recordQueueWait_notifies_listeners_that_the_synthetic_span_started_before_it_completes() {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder("queue", 0, TimeUnit.NANOSECONDS);
+        Span parent = Span.generateRootSpanForNewTrace("parent", SpanPurpose.SERVER).build();
+
+        // when
+        recorder.recordQueueWait(System.nanoTime(), spanStackWith(parent));
+
+        // then
+        assertThat(completedSpans).hasSize(1);
+        String syntheticSpanId = completedSpans.get(0).getSpanId();
+        assertThat(lifecycleEvents).containsExactly(
+            "started:" + syntheticSpanId, "sampled:" + syntheticSpanId, "completed:" + syntheticSpanId
+        );
+    }
+
+    @Test
+    public void recordQueueWait_completes_a_synthetic_child_span_covering_the_wait_when_over_the_threshold() {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder("queue", 5, TimeUnit.MILLISECONDS);
+        Span parent = Span.generateRootSpanForNewTrace("parent", SpanPurpose.SERVER).build();
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        long queuedAtNanoTime = System.nanoTime() - waitNanos;
+
+        // when
+        recorder.recordQueueWait(queuedAtNanoTime, spanStackWith(parent));
+
+        // then
+        assertThat(completedSpans).hasSize(1);
+        Span queueSpan = completedSpans.get(0);
+        assertThat(queueSpan.getSpanName()).isEqualTo("queue");
+        assertThat(queueSpan.getSpanPurpose()).isEqualTo(SpanPurpose.LOCAL_ONLY);
+        assertThat(queueSpan.getTraceId()).isEqualTo(parent.getTraceId());
+        assertThat(queueSpan.getParentSpanId()).isEqualTo(parent.getSpanId());
+        assertThat(queueSpan.getSpanId()).isNotEqualTo(parent.getSpanId());
+        assertThat(queueSpan.getSpanStartTimeNanos()).isEqualTo(queuedAtNanoTime);
+        assertThat(queueSpan.getDurationNanos()).isGreaterThanOrEqualTo(waitNanos);
+        assertThat(queueSpan.getSpanStartTimeEpochMicros())
+            .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())
+                                 - TimeUnit.NANOSECONDS.toMicros(waitNanos));
+        assertThat(parent.isCompleted()).isFalse();
+    }
+
+    @Test
+    public void recordQueueWait_does_not_create_a_synthetic_span_when_under_the_threshold() {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder("queue", 1, TimeUnit.HOURS);
+        Span parent = Span.generateRootSpanForNewTrace("parent", SpanPurpose.SERVER).build();
+
+        // when
+        recorder.recordQueueWait(System.nanoTime(), spanStackWith(parent));
+
+        // then
+        assertThat(recorder.getHistogram().snapshot().getCount()).isEqualTo(1);
+        assertThat(completedSpans).isEmpty();
+    }
+
+    @Test
+    public void queue_wait_is_recorded_for_tasks_run_through_ExecutorServiceWithTracing() throws Exception {
+        // given
+        QueueWaitRecorder recorder = new QueueWaitRecorder("queue", 0, TimeUnit.NANOSECONDS);
+        ExecutorServiceWithTracing executor = new ExecutorServiceWithTracing(
+            Executors.newSingleThreadExecutor(), recorder
+        );
+        Span requestSpan = Tracer.getInstance().startRequestWithRootSpan("request");
+
+        // when
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() { }
+            }).get();
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(recorder.getHistogram().snapshot().getCount()).isEqualTo(1);
+        assertThat(completedSpans).hasSize(1);
+        assertThat(completedSpans.get(0).getParentSpanId()).isEqualTo(requestSpan.getSpanId());
+    }
+}
@@ -161,6 +161,50 @@ public class RunnableWithTracingTest {
         assertThat(instance.origRunnable).isSameAs(runnableMock);
         assertThat(instance.spanStackForExecution).isEqualTo(spanStackMock);
         assertThat(instance.mdcContextMapForExecution).isEqualTo(mdcInfoMock);
+        assertThat(instance.queueWaitRecorder).isNull();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void queue_wait_recorder_constructor_sets_fields_as_expected(boolean useStaticFactory) {
+        // given
+        Deque<Span> spanStackMock = mock(Deque.class);
+        Map<String, String> mdcInfoMock = mock(Map.class);
+        QueueWaitRecorder recorderMock = mock(QueueWaitRecorder.class);
+        long beforeNanoTime = System.nanoTime();
+
+        // when
+        RunnableWithTracing instance = (useStaticFactory)
+                                       ? withTracing(runnableMock, spanStackMock, mdcInfoMock, recorderMock)
+                                       : new RunnableWithTracing(runnableMock, spanStackMock, mdcInfoMock, recorderMock);
+
+        // then
+        assertThat(instance.origRunnable).isSameAs(runnableMock);
+        assertThat(instance.spanStackForExecution).isEqualTo(spanStackMock);
+        assertThat(instance.mdcContextMapForExecution).isEqualTo(mdcInfoMock);
+        assertThat(instance.queueWaitRecorder).isSameAs(recorderMock);
+        assertThat(instance.queuedAtNanoTime).isBetween(beforeNanoTime, System.nanoTime());
+    }
+
+    @Test
+    public void run_records_queue_wait_when_given_a_recorder() throws Exception {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        Deque<Span> spanStack = Tracer.getInstance().getCurrentSpanStackCopy();
+        QueueWaitRecorder recorderMock = mock(QueueWaitRecorder.class);
+        RunnableWithTracing instance = new RunnableWithTracing(runnableMock, spanStack, null, recorderMock);
+        resetTracing();
+
+        // when
+        instance.run();
+
+        // then
+        verify(recorderMock).recordQueueWait(instance.queuedAtNanoTime, spanStack);
+        verify(runnableMock).run();
+        assertThat(currentSpanStackWhenRunnableWasCalled.get(0)).isEqualTo(spanStack);
     }
 
     @Test
@@ -0,0 +1,134 @@
+package com.nike.wingtips.util.spanfile;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link BinarySpanCodec}.
+ */
+@RunWith(DataProviderRunner.class)
+public class BinarySpanCodecTest {
+
+    @DataProvider
+    public static Object[][] spanDataProvider() {
+        return new Object[][] {
+            // Typical root span.
+            { Span.newBuilder("root", SpanPurpose.SERVER).withDurationNanos(42424242L).build() },
+            // Child span with user ID, not sampled.
+            { Span.newBuilder("child", SpanPurpose.CLIENT).withParentSpanId("0123456789abcdef").withUserId("some-user")
+                  .withSampleable(false).withDurationNanos(1L).build() },
+            // 128 bit trace ID.
+            { Span.newBuilder("wide", SpanPurpose.LOCAL_ONLY).withTraceId("0123456789abcdef0123456789abcdef")
+                  .withDurationNanos(0L).build() },
+            // IDs that aren't lowercase hex, and so must be stored as strings.
+            { Span.newBuilder("odd-ids", SpanPurpose.UNKNOWN).withTraceId("ABCDEF0123456789").withSpanId("not-hex")
+                  .withParentSpanId("123").withDurationNanos(Long.MAX_VALUE).build() },
+            // Uncompleted span, and multi-byte UTF-8.
+            { Span.newBuilder("é中 😀", SpanPurpose.SERVER).withUserId("üser").build() },
+            // Every resource usage measurement, including huge values.
+            { Span.newBuilder("measured", SpanPurpose.SERVER).withDurationNanos(42L)
+                  .withResourceUsage(SpanResourceUsage.fromTotals(Long.MAX_VALUE, 1048576, 0, 12, 3))
+                  .withGcPauseMicros(1500L).build() },
+            // GC pause without resource usage, and a zero GC pause.
+            { Span.newBuilder("gc pause only", SpanPurpose.SERVER).withDurationNanos(42L).withGcPauseMicros(250L).build() },
+            { Span.newBuilder("zero gc pause", SpanPurpose.CLIENT).withDurationNanos(42L).withGcPauseMicros(0L).build() },
+            // Some resource usage measurements missing, and an unexpected negative one.
+            { Span.newBuilder("partly measured", SpanPurpose.CLIENT).withDurationNanos(42L)
+                  .withResourceUsage(SpanResourceUsage.fromTotals(-2, ThreadResourceSnapshot.NOT_MEASURED, 5,
+                                                                  ThreadResourceSnapshot.NOT_MEASURED)).build() },
+            // Resource usage with nothing measured.
+            { Span.newBuilder("nothing measured", SpanPurpose.LOCAL_ONLY)
+                  .withResourceUsage(SpanResourceUsage.fromTotals(ThreadResourceSnapshot.NOT_MEASURED,
+                                                                  ThreadResourceSnapshot.NOT_MEASURED,
+                                                                  ThreadResourceSnapshot.NOT_MEASURED,
+                                                                  ThreadResourceSnapshot.NOT_MEASURED)).build() }
+        };
+    }
+
+    @Test
+    @UseDataProvider("spanDataProvider")
+    public void encode_and_decode_round_trip(Span span) {
+        // when
+        Span result = BinarySpanCodec.decode(BinarySpanCodec.encode(span));
+
+        // then
+        assertThat(result).isEqualTo(span);
+        assertThat(result.toJSON()).isEqualTo(span.toJSON());
+        assertThat(result.getGcPauseMicros()).isEqualTo(span.getGcPauseMicros());
+        SpanResourceUsage resourceUsage = span.getResourceUsage();
+        if (resourceUsage == null) {
+            assertThat(result.getResourceUsage()).isNull();
+        }
+        else {
+            assertThat(result.getResourceUsage().getCpuTimeNanos()).isEqualTo(resourceUsage.getCpuTimeNanos());
+            assertThat(result.getResourceUsage().getAllocatedBytes()).isEqualTo(resourceUsage.getAllocatedBytes());
+            assertThat(result.getResourceUsage().getBlockedTimeMillis()).isEqualTo(resourceUsage.getBlockedTimeMillis());
+            assertThat(result.getResourceUsage().getWaitedTimeMillis()).isEqualTo(resourceUsage.getWaitedTimeMillis());
+            assertThat(result.getResourceUsage().getAsyncTaskCount()).isEqualTo(resourceUsage.getAsyncTaskCount());
+        }
+    }
+
+    @Test
+    @UseDataProvider("spanDataProvider")
+    public void decode_still_supports_format_version_1(Span span) {
+        // given - version 1 had no measurement flags byte and no measurements.
+        if (span.getResourceUsage() != null || span.getGcPauseMicros() != null)
+            return;
+        byte[] encoded = BinarySpanCodec.encode(span);
+        assertThat(encoded[0]).isEqualTo(BinarySpanCodec.FORMAT_VERSION);
+        assertThat(encoded[2]).isEqualTo((byte) 0);
+        byte[] version1Bytes = new byte[encoded.length - 1];
+        version1Bytes[0] = 1;
+        version1Bytes[1] = encoded[1];
+        System.arraycopy(encoded, 3, version1Bytes, 2, encoded.length - 3);
+
+        // when
+        Span result = BinarySpanCodec.decode(version1Bytes);
+
+        // then
+        assertThat(result).isEqualTo(span);
+        assertThat(result.toJSON()).isEqualTo(span.toJSON());
+        assertThat(result.getResourceUsage()).isNull();
+        assertThat(result.getGcPauseMicros()).isNull();
+    }
+
+    @Test
+    public void encoded_span_is_much_smaller_than_json() {
+        // given
+        Span span = Span.newBuilder("GET /some/path", SpanPurpose.SERVER)
+                        .withParentSpanId("0123456789abcdef")
+                        .withDurationNanos(123456789L)
+                        .build();
+
+        // expect
+        assertThat(BinarySpanCodec.encode(span).length).isLessThan(span.toJSON().length() / 3);
+    }
+
+    @Test
+    public void decode_throws_IllegalArgumentException_for_bad_bytes() {
+        // given
+        byte[] goodBytes = BinarySpanCodec.encode(Span.newBuilder("foo", SpanPurpose.SERVER).build());
+        final byte[] truncated = Arrays.copyOf(goodBytes, goodBytes.length - 3);
+        final byte[] badVersion = goodBytes.clone();
+        badVersion[0] = 42;
+
+        // expect
+        assertThat(catchThrowable(() -> BinarySpanCodec.decode(truncated))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> BinarySpanCodec.decode(badVersion))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> BinarySpanCodec.decode(new byte[0]))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
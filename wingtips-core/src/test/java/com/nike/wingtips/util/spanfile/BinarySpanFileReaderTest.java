@@ -0,0 +1,146 @@
+package com.nike.wingtips.util.spanfile;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link BinarySpanFileReader}.
+ */
+public class BinarySpanFileReaderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File dir;
+    private Span span1;
+    private Span span2;
+    private ByteArrayOutputStream outBytes;
+    private ByteArrayOutputStream errBytes;
+    private PrintStream out;
+    private PrintStream err;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        dir = tempFolder.newFolder();
+        span1 = Span.newBuilder("span1", SpanPurpose.SERVER).withDurationNanos(1L).build();
+        span2 = Span.newBuilder("span2", SpanPurpose.CLIENT).withDurationNanos(2L).build();
+        BinarySpanFileWriter writer = new BinarySpanFileWriter(dir);
+        writer.spanCompleted(span1);
+        writer.spanCompleted(span2);
+        writer.close();
+
+        outBytes = new ByteArrayOutputStream();
+        errBytes = new ByteArrayOutputStream();
+        out = new PrintStream(outBytes, true, "UTF-8");
+        err = new PrintStream(errBytes, true, "UTF-8");
+    }
+
+    private File onlySegmentFile() throws IOException {
+        List<File> segmentFiles = BinarySpanFileReader.listSegmentFiles(dir);
+        assertThat(segmentFiles).hasSize(1);
+        return segmentFiles.get(0);
+    }
+
+    @Test
+    public void listSegmentFiles_ignores_other_files_and_sorts_by_sequence() throws IOException {
+        // given
+        File segment10 = new File(dir, BinarySpanFileWriter.SEGMENT_FILE_PREFIX + "10" + BinarySpanFileWriter.SEGMENT_FILE_SUFFIX);
+        File segment9 = new File(dir, BinarySpanFileWriter.SEGMENT_FILE_PREFIX + "9" + BinarySpanFileWriter.SEGMENT_FILE_SUFFIX);
+        assertThat(segment10.createNewFile()).isTrue();
+        assertThat(segment9.createNewFile()).isTrue();
+        assertThat(new File(dir, "some-other-file.txt").createNewFile()).isTrue();
+        assertThat(new File(dir, BinarySpanFileWriter.SEGMENT_FILE_PREFIX + "nope" + BinarySpanFileWriter.SEGMENT_FILE_SUFFIX).createNewFile()).isTrue();
+
+        // when
+        List<File> result = BinarySpanFileReader.listSegmentFiles(dir);
+
+        // then
+        assertThat(result).hasSize(3);
+        assertThat(result.subList(1, 3)).containsExactly(segment9, segment10);
+    }
+
+    @Test
+    public void readSegment_stops_at_record_with_bad_crc() throws IOException {
+        // given
+        File segmentFile = onlySegmentFile();
+        int span1Length = BinarySpanCodec.encode(span1).length;
+        int span2CrcPosition = BinarySpanFileWriter.SEGMENT_HEADER_SIZE_BYTES
+                               + BinarySpanFileWriter.RECORD_HEADER_SIZE_BYTES + span1Length + 4;
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            raf.seek(span2CrcPosition);
+            int crc = raf.readInt();
+            raf.seek(span2CrcPosition);
+            raf.writeInt(crc + 1);
+        }
+
+        // expect
+        assertThat(BinarySpanFileReader.readSegment(segmentFile)).containsExactly(span1);
+    }
+
+    @Test
+    public void readSegment_throws_IOException_for_files_that_are_not_segments() throws IOException {
+        // given
+        final File tooShort = tempFolder.newFile();
+        final File badMagic = tempFolder.newFile();
+        try (RandomAccessFile raf = new RandomAccessFile(badMagic, "rw")) {
+            raf.setLength(BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES);
+        }
+
+        // expect
+        assertThat(catchThrowable(() -> BinarySpanFileReader.readSegment(tooShort))).isInstanceOf(IOException.class);
+        assertThat(catchThrowable(() -> BinarySpanFileReader.readSegment(badMagic))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void run_prints_spans_as_json_by_default() throws IOException {
+        // when
+        int exitCode = BinarySpanFileReader.run(new String[] { dir.getAbsolutePath() }, out, err);
+
+        // then
+        assertThat(exitCode).isZero();
+        assertThat(outBytes.toString("UTF-8"))
+            .isEqualTo(span1.toJSON() + System.lineSeparator() + span2.toJSON() + System.lineSeparator());
+        assertThat(errBytes.size()).isZero();
+    }
+
+    @Test
+    public void run_prints_spans_as_key_value_when_requested() throws IOException {
+        // when
+        int exitCode = BinarySpanFileReader.run(
+            new String[] { onlySegmentFile().getAbsolutePath(), "keyvalue" }, out, err
+        );
+
+        // then
+        assertThat(exitCode).isZero();
+        assertThat(outBytes.toString("UTF-8")).isEqualTo(
+            span1.toKeyValueString() + System.lineSeparator() + span2.toKeyValueString() + System.lineSeparator()
+        );
+    }
+
+    @Test
+    public void run_returns_error_exit_code_for_bad_args() throws IOException {
+        // expect
+        assertThat(BinarySpanFileReader.run(new String[0], out, err)).isEqualTo(1);
+        assertThat(BinarySpanFileReader.run(new String[] { dir.getAbsolutePath(), "xml" }, out, err)).isEqualTo(1);
+        assertThat(BinarySpanFileReader.run(new String[] { new File(dir, "nope").getAbsolutePath() }, out, err))
+            .isEqualTo(1);
+        assertThat(outBytes.size()).isZero();
+        assertThat(new String(errBytes.toByteArray(), StandardCharsets.UTF_8)).contains("Usage", "xml", "nope");
+    }
+}
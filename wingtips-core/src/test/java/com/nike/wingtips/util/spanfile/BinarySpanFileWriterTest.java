@@ -0,0 +1,202 @@
+package com.nike.wingtips.util.spanfile;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link BinarySpanFileWriter}.
+ */
+public class BinarySpanFileWriterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File dir;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        dir = tempFolder.newFolder();
+    }
+
+    private Span completedSpan(String name, boolean sampleable) {
+        return Span.newBuilder(name, SpanPurpose.SERVER).withSampleable(sampleable).withDurationNanos(1000L).build();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new BinarySpanFileWriter(null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(
+            () -> new BinarySpanFileWriter(dir, BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES - 1, 1, true)
+        )).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(
+            () -> new BinarySpanFileWriter(dir, BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES, 0, true)
+        )).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void spanCompleted_writes_spans_that_can_be_read_back() throws IOException {
+        // given
+        BinarySpanFileWriter writer = new BinarySpanFileWriter(new File(dir, "created"));
+        List<Span> spans = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            spans.add(completedSpan("span-" + i, true));
+        }
+
+        // when
+        for (Span span : spans) {
+            writer.spanStarted(span);
+            writer.spanSampled(span);
+            writer.spanCompleted(span);
+        }
+        writer.close();
+
+        // then
+        assertThat(BinarySpanFileReader.readSpans(writer.getDirectory())).isEqualTo(spans);
+        assertThat(writer.getDroppedSpanCount()).isZero();
+    }
+
+    @Test
+    public void spanCompleted_honors_sampledSpansOnly() throws IOException {
+        // given
+        Span sampled = completedSpan("sampled", true);
+        Span notSampled = completedSpan("not-sampled", false);
+        File allDir = tempFolder.newFolder();
+        BinarySpanFileWriter sampledOnlyWriter = new BinarySpanFileWriter(dir);
+        BinarySpanFileWriter allWriter =
+            new BinarySpanFileWriter(allDir, BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES, 1, false);
+
+        // when
+        for (BinarySpanFileWriter writer : new BinarySpanFileWriter[] { sampledOnlyWriter, allWriter }) {
+            writer.spanCompleted(sampled);
+            writer.spanCompleted(notSampled);
+            writer.close();
+        }
+
+        // then
+        assertThat(BinarySpanFileReader.readSpans(dir)).containsExactly(sampled);
+        assertThat(BinarySpanFileReader.readSpans(allDir)).containsExactly(sampled, notSampled);
+    }
+
+    @Test
+    public void segments_roll_and_oldest_segments_are_deleted() throws IOException {
+        // given
+        int maxSegments = 3;
+        BinarySpanFileWriter writer =
+            new BinarySpanFileWriter(dir, BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES, maxSegments, true);
+        List<Span> spans = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            spans.add(completedSpan("span-" + i, true));
+        }
+
+        // when
+        for (Span span : spans) {
+            writer.spanCompleted(span);
+        }
+        writer.close();
+
+        // then
+        List<File> segmentFiles = BinarySpanFileReader.listSegmentFiles(dir);
+        assertThat(segmentFiles).hasSize(maxSegments);
+        assertThat(BinarySpanFileReader.parseSegmentSequence(segmentFiles.get(0).getName())).isGreaterThan(0);
+        List<Span> retained = BinarySpanFileReader.readSpans(dir);
+        assertThat(retained.size()).isLessThan(spans.size());
+        // The retained spans are the newest ones, in order.
+        assertThat(retained).isEqualTo(spans.subList(spans.size() - retained.size(), spans.size()));
+    }
+
+    @Test
+    public void new_writer_keeps_existing_segments_and_starts_a_new_one() throws IOException {
+        // given
+        Span first = completedSpan("first", true);
+        Span second = completedSpan("second", true);
+        BinarySpanFileWriter firstWriter = new BinarySpanFileWriter(dir);
+        firstWriter.spanCompleted(first);
+        firstWriter.close();
+
+        // when
+        BinarySpanFileWriter secondWriter = new BinarySpanFileWriter(dir);
+        secondWriter.spanCompleted(second);
+        secondWriter.close();
+
+        // then
+        assertThat(BinarySpanFileReader.listSegmentFiles(dir)).hasSize(2);
+        assertThat(BinarySpanFileReader.readSpans(dir)).containsExactly(first, second);
+    }
+
+    @Test
+    public void spans_are_dropped_if_too_big_for_a_segment_or_after_close() throws IOException {
+        // given
+        BinarySpanFileWriter writer =
+            new BinarySpanFileWriter(dir, BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES, 1, true);
+        StringBuilder hugeName = new StringBuilder();
+        while (hugeName.length() < BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES) {
+            hugeName.append("too-big");
+        }
+
+        // when
+        writer.spanCompleted(completedSpan(hugeName.toString(), true));
+        writer.close();
+        writer.spanCompleted(completedSpan("after-close", true));
+
+        // then
+        assertThat(writer.getDroppedSpanCount()).isEqualTo(2);
+        assertThat(BinarySpanFileReader.readSpans(dir)).isEmpty();
+    }
+
+    @Test
+    public void next_segment_is_created_ahead_of_time_and_deleted_on_close_if_unused() throws Exception {
+        // given
+        BinarySpanFileWriter writer = new BinarySpanFileWriter(dir);
+
+        // when
+        writer.spanCompleted(completedSpan("first", true));
+        writer.nextSegment.get();
+
+        // then
+        List<File> segmentFiles = BinarySpanFileReader.listSegmentFiles(dir);
+        assertThat(segmentFiles).hasSize(2);
+        assertThat(segmentFiles.get(1)).isEqualTo(writer.nextSegmentFile);
+        assertThat(BinarySpanFileReader.readSegment(segmentFiles.get(1))).isEmpty();
+
+        // and when
+        writer.close();
+
+        // then
+        assertThat(BinarySpanFileReader.listSegmentFiles(dir)).containsExactly(segmentFiles.get(0));
+    }
+
+    @Test
+    public void segment_header_has_magic_version_size_and_zeroed_reserved_bytes() throws IOException {
+        // given
+        BinarySpanFileWriter writer =
+            new BinarySpanFileWriter(dir, BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES, 1, true);
+
+        // when
+        writer.spanCompleted(completedSpan("first", true));
+        writer.close();
+
+        // then
+        try (RandomAccessFile raf = new RandomAccessFile(BinarySpanFileReader.listSegmentFiles(dir).get(0), "r")) {
+            assertThat(raf.readInt()).isEqualTo(BinarySpanFileWriter.SEGMENT_MAGIC);
+            assertThat(raf.readInt()).isEqualTo(BinarySpanFileWriter.SEGMENT_FORMAT_VERSION);
+            assertThat(raf.readInt()).isEqualTo(BinarySpanFileWriter.MIN_SEGMENT_SIZE_BYTES);
+            assertThat(raf.readInt()).isZero();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.nike.wingtips.lifecyclelistener;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of the Java 11+ (JFR-backed) version of {@link JfrSpanLifecycleListener}.
+ */
+public class JfrSpanLifecycleListenerJava11Test {
+
+    private List<RecordedEvent> recordEvents(JfrSpanLifecycleListener listener, Span span, boolean enableEvents)
+        throws Exception {
+        Path file = Files.createTempFile("wingtips-jfr-test", ".jfr");
+        try (Recording recording = new Recording()) {
+            if (enableEvents) {
+                recording.enable("com.nike.wingtips.SpanStarted");
+                recording.enable("com.nike.wingtips.SpanCompleted");
+            }
+            else {
+                recording.disable("com.nike.wingtips.SpanStarted");
+                recording.disable("com.nike.wingtips.SpanCompleted");
+            }
+            recording.start();
+
+            listener.spanStarted(span);
+            span.close();
+            listener.spanCompleted(span);
+
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                                .filter(e -> e.getEventType().getName().startsWith("com.nike.wingtips."))
+                                .collect(Collectors.toList());
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void emits_span_started_and_completed_events() throws Exception {
+        // given
+        JfrSpanLifecycleListener listener = new JfrSpanLifecycleListener();
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).withParentSpanId("parent").build();
+
+        // when
+        List<RecordedEvent> events = recordEvents(listener, span, true);
+
+        // then
+        assertThat(JfrSpanLifecycleListener.isJfrAvailable()).isTrue();
+        assertThat(events).hasSize(2);
+
+        RecordedEvent started = events.stream()
+                                      .filter(e -> e.getEventType().getName().equals("com.nike.wingtips.SpanStarted"))
+                                      .findFirst().get();
+        assertThat(started.getString("traceId")).isEqualTo(span.getTraceId());
+        assertThat(started.getString("spanId")).isEqualTo(span.getSpanId());
+        assertThat(started.getString("parentSpanId")).isEqualTo("parent");
+        assertThat(started.getString("spanName")).isEqualTo("foo");
+        assertThat(started.getString("spanPurpose")).isEqualTo("CLIENT");
+        assertThat(started.getBoolean("sampleable")).isEqualTo(span.isSampleable());
+
+        RecordedEvent completed = events.stream()
+                                        .filter(e -> e.getEventType().getName().equals("com.nike.wingtips.SpanCompleted"))
+                                        .findFirst().get();
+        assertThat(completed.getString("traceId")).isEqualTo(span.getTraceId());
+        assertThat(completed.getString("spanId")).isEqualTo(span.getSpanId());
+        assertThat(completed.getDuration("spanDuration").toNanos()).isEqualTo(span.getDurationNanos());
+        assertThat(completed.getInstant("spanStartTime"))
+            .isEqualTo(Instant.ofEpochMilli(span.getSpanStartTimeEpochMicros() / 1000));
+    }
+
+    @Test
+    public void emits_nothing_when_the_events_are_disabled() throws Exception {
+        // given
+        JfrSpanLifecycleListener listener = new JfrSpanLifecycleListener();
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+
+        // when
+        List<RecordedEvent> events = recordEvents(listener, span, false);
+
+        // then
+        assertThat(events).isEmpty();
+    }
+}
@@ -0,0 +1,111 @@
+package com.nike.wingtips.log4j2;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.ContextDataInjector;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.ThreadContextDataInjector;
+import org.apache.logging.log4j.spi.CopyOnWrite;
+import org.apache.logging.log4j.spi.DefaultThreadContextMap;
+import org.apache.logging.log4j.spi.ReadOnlyThreadContextMap;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StringMap;
+
+import java.util.List;
+
+/**
+ * A Log4j2 {@link ContextDataInjector} that adds the current Wingtips span's trace ID and JSON to each log event's
+ * context data, under the same {@link Tracer#TRACE_ID_MDC_KEY} and {@link Tracer#SPAN_JSON_MDC_KEY} keys that {@link
+ * Tracer} normally puts in the MDC. It reads the current span straight from {@link Tracer} when the event is created,
+ * so layouts can keep using {@code %X{traceId}} and {@code %X{spanJson}} without Wingtips touching the MDC on every
+ * span change. That keeps Log4j2's garbage-free mode garbage-free - the span's JSON is built once per span and cached.
+ *
+ * <p>Everything else in the event's context data (the {@link ThreadContext} contents and any configuration
+ * properties) is injected by the same {@link ThreadContextDataInjector} Log4j2 would use by default.
+ *
+ * <p>To use it, tell Log4j2 about it with the {@code log4j2.contextDataInjector} system property (or the same key in a
+ * {@code log4j2.component.properties} file), and turn off {@link Tracer}'s MDC updates at application startup:
+ * <pre>
+ *  -Dlog4j2.contextDataInjector=com.nike.wingtips.log4j2.WingtipsContextDataInjector
+ *
+ *  Tracer.getInstance().setMdcUpdatesEnabled(false);
+ * </pre>
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsContextDataInjector implements ContextDataInjector {
+
+    protected final ContextDataInjector delegate;
+
+    /**
+     * Creates a new instance that delegates to the {@link ThreadContextDataInjector} that matches the current {@link
+     * ThreadContext} map implementation. This is the constructor Log4j2 uses.
+     */
+    public WingtipsContextDataInjector() {
+        this(createDefaultThreadContextInjector());
+    }
+
+    /**
+     * @param delegate The injector that adds everything except the Wingtips span info. Cannot be null.
+     */
+    public WingtipsContextDataInjector(ContextDataInjector delegate) {
+        if (delegate == null)
+            throw new IllegalArgumentException("delegate cannot be null");
+
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return The same {@link ThreadContextDataInjector} Log4j2 picks when no custom injector is configured.
+     */
+    protected static ContextDataInjector createDefaultThreadContextInjector() {
+        ReadOnlyThreadContextMap threadContextMap = ThreadContext.getThreadContextMap();
+        // The map is null when a legacy custom ThreadContextMap is installed.
+        if (threadContextMap == null || threadContextMap instanceof DefaultThreadContextMap)
+            return new ThreadContextDataInjector.ForDefaultThreadContextMap();
+
+        if (threadContextMap instanceof CopyOnWrite)
+            return new ThreadContextDataInjector.ForCopyOnWriteThreadContextMap();
+
+        return new ThreadContextDataInjector.ForGarbageFreeThreadContextMap();
+    }
+
+    @Override
+    public StringMap injectContextData(List<Property> properties, StringMap reusable) {
+        StringMap result = delegate.injectContextData(properties, reusable);
+        Span span = Tracer.getInstance().getCurrentSpan();
+        if (span == null)
+            return result;
+
+        if (result != reusable) {
+            // The delegate handed back the thread context's own (frozen) map rather than filling in the reusable one.
+            reusable.putAll(result);
+            result = reusable;
+        }
+
+        addSpanData(span, result);
+        return result;
+    }
+
+    @Override
+    public ReadOnlyStringMap rawContextData() {
+        ReadOnlyStringMap rawContextData = delegate.rawContextData();
+        Span span = Tracer.getInstance().getCurrentSpan();
+        if (span == null)
+            return rawContextData;
+
+        StringMap result = new SortedArrayStringMap(rawContextData);
+        addSpanData(span, result);
+        return result;
+    }
+
+    /**
+     * Adds the given span's info to the given context data.
+     */
+    protected void addSpanData(Span span, StringMap contextData) {
+        contextData.putValue(Tracer.TRACE_ID_MDC_KEY, span.getTraceId());
+        contextData.putValue(Tracer.SPAN_JSON_MDC_KEY, span.toJSON());
+    }
+}
@@ -0,0 +1,170 @@
+package com.nike.wingtips.log4j2;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.ContextDataInjector;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.ThreadContextDataInjector;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StringMap;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link WingtipsContextDataInjector}.
+ */
+public class WingtipsContextDataInjectorTest {
+
+    private WingtipsContextDataInjector injector;
+
+    @Before
+    public void beforeMethod() {
+        resetTracing();
+        Tracer.getInstance().setMdcUpdatesEnabled(false);
+        injector = new WingtipsContextDataInjector();
+    }
+
+    @After
+    public void afterMethod() {
+        resetTracing();
+        Tracer.getInstance().setMdcUpdatesEnabled(true);
+    }
+
+    private void resetTracing() {
+        Tracer.getInstance().unregisterFromThread();
+        ThreadContext.clearMap();
+    }
+
+    @Test
+    public void default_constructor_uses_one_of_the_log4j2_thread_context_injectors() {
+        // expect
+        assertThat(injector.delegate).isInstanceOfAny(
+            ThreadContextDataInjector.ForDefaultThreadContextMap.class,
+            ThreadContextDataInjector.ForCopyOnWriteThreadContextMap.class,
+            ThreadContextDataInjector.ForGarbageFreeThreadContextMap.class
+        );
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_delegate() {
+        // when
+        Throwable ex = catchThrowable(new ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new WingtipsContextDataInjector(null);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void injectContextData_adds_current_span_info_without_touching_the_thread_context() {
+        // given
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span child = Tracer.getInstance().startSubSpan("child", Span.SpanPurpose.LOCAL_ONLY);
+        StringMap reusable = new SortedArrayStringMap();
+
+        // when
+        StringMap result = injector.injectContextData(null, reusable);
+
+        // then
+        assertThat(result).isSameAs(reusable);
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.<String>getValue(Tracer.TRACE_ID_MDC_KEY)).isEqualTo(root.getTraceId());
+        assertThat(result.<String>getValue(Tracer.SPAN_JSON_MDC_KEY)).isEqualTo(child.toJSON());
+        assertThat(ThreadContext.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void injectContextData_keeps_thread_context_and_config_properties() {
+        // given
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        ThreadContext.put("foo", "bar");
+        List<Property> properties = Collections.singletonList(Property.createProperty("prop", "value"));
+
+        // when
+        StringMap result = injector.injectContextData(properties, new SortedArrayStringMap());
+
+        // then
+        assertThat(result.size()).isEqualTo(4);
+        assertThat(result.<String>getValue("foo")).isEqualTo("bar");
+        assertThat(result.<String>getValue("prop")).isEqualTo("value");
+        assertThat(result.<String>getValue(Tracer.TRACE_ID_MDC_KEY)).isEqualTo(span.getTraceId());
+    }
+
+    @Test
+    public void injectContextData_copies_a_frozen_map_returned_by_the_delegate() {
+        // given
+        final StringMap frozen = new SortedArrayStringMap();
+        frozen.putValue("foo", "bar");
+        frozen.freeze();
+        injector = new WingtipsContextDataInjector(new ContextDataInjector() {
+            @Override
+            public StringMap injectContextData(List<Property> properties, StringMap reusable) {
+                return frozen;
+            }
+
+            @Override
+            public ReadOnlyStringMap rawContextData() {
+                return frozen;
+            }
+        });
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        StringMap reusable = new SortedArrayStringMap();
+
+        // when
+        StringMap result = injector.injectContextData(null, reusable);
+
+        // then
+        assertThat(result).isSameAs(reusable);
+        assertThat(result.<String>getValue("foo")).isEqualTo("bar");
+        assertThat(result.<String>getValue(Tracer.TRACE_ID_MDC_KEY)).isEqualTo(span.getTraceId());
+    }
+
+    @Test
+    public void injectContextData_returns_delegate_result_when_there_is_no_current_span() {
+        // given
+        ThreadContext.put("foo", "bar");
+
+        // when
+        StringMap result = injector.injectContextData(null, new SortedArrayStringMap());
+
+        // then
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.<String>getValue("foo")).isEqualTo("bar");
+    }
+
+    @Test
+    public void rawContextData_includes_current_span_info() {
+        // given
+        ThreadContext.put("foo", "bar");
+
+        // expect
+        assertThat(injector.rawContextData().size()).isEqualTo(1);
+
+        // and given
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+
+        // when
+        ReadOnlyStringMap result = injector.rawContextData();
+
+        // then
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.<String>getValue("foo")).isEqualTo("bar");
+        assertThat(result.<String>getValue(Tracer.TRACE_ID_MDC_KEY)).isEqualTo(span.getTraceId());
+        assertThat(result.<String>getValue(Tracer.SPAN_JSON_MDC_KEY)).isEqualTo(span.toJSON());
+    }
+}
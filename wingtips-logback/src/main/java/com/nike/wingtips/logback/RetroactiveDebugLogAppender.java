@@ -0,0 +1,519 @@
+package com.nike.wingtips.logback;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * A Logback appender that lets you keep DEBUG logging off in production and still get the DEBUG logs for the requests
+ * that went wrong. It wraps one or more other appenders (attached with {@code <appender-ref>}, just like Logback's
+ * {@code AsyncAppender}). Events at or above {@link #setPassThroughLevel(String) passThroughLevel} (INFO by default)
+ * go straight to them. Events below it (DEBUG and TRACE) are held in memory per trace, keyed by the {@link
+ * Tracer#TRACE_ID_MDC_KEY} MDC value. When the trace's overall request span completes, its buffered events are sent
+ * to the wrapped appenders if the request:
+ * <ul>
+ *     <li>was slow - the request span took at least {@link #setSlowThresholdMillis(long) slowThresholdMillis},</li>
+ *     <li>had errors - an event at or above {@link #setErrorLevel(String) errorLevel} (ERROR by default) was logged
+ *     for the trace, or</li>
+ *     <li>was flagged for debug logs - an event with the {@link #FLUSH_DEBUG_LOGS_MARKER} marker was logged for the
+ *     trace.</li>
+ * </ul>
+ * Otherwise they're dropped. Buffered events are sent in the order they were logged, but after any events that were
+ * passed straight through in the meantime.
+ *
+ * <p>Memory is bounded. Each trace keeps at most {@link #setMaxEventsPerTrace(int) maxEventsPerTrace} events (the
+ * oldest are dropped first), and no more than {@link #setMaxBufferedEvents(int) maxBufferedEvents} are buffered across
+ * all traces (new events are dropped once the cap is reached). A trace's buffer is evicted once it's older than {@link
+ * #setMaxBufferAgeMillis(long) maxBufferAgeMillis}, so requests whose span never completes (e.g. a leaked span) can't
+ * hold on to the global cap forever. DEBUG/TRACE events with no trace ID in the MDC are dropped, as are those logged
+ * after their request span has completed. See {@link #getDroppedEventCount()}.
+ *
+ * <p>Root loggers still need to be set to DEBUG (or TRACE) for the events to reach this appender. The appender
+ * registers itself as a {@link SpanLifecycleListener} with {@link Tracer} when it starts and removes itself when it
+ * stops. It looks up the request span on the logging thread, so it must not sit behind an {@code AsyncAppender} -
+ * wrap the {@code AsyncAppender} with this appender instead.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RetroactiveDebugLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+    implements AppenderAttachable<ILoggingEvent>, SpanLifecycleListener {
+
+    /**
+     * Log any event with this marker (at any level) while a request is in flight to have its buffered DEBUG and TRACE
+     * events sent on when the request completes, e.g. {@code logger.info(FLUSH_DEBUG_LOGS_MARKER, "Debug logs
+     * requested for this call")}.
+     */
+    public static final Marker FLUSH_DEBUG_LOGS_MARKER = MarkerFactory.getMarker("WINGTIPS_FLUSH_DEBUG_LOGS");
+
+    public static final int DEFAULT_MAX_EVENTS_PER_TRACE = 256;
+    public static final int DEFAULT_MAX_BUFFERED_EVENTS = 10_000;
+    public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 1000;
+    public static final long DEFAULT_MAX_BUFFER_AGE_MILLIS = 60_000;
+    protected static final long STALE_BUFFER_CHECK_INTERVAL_MILLIS = 1000;
+
+    protected final AppenderAttachableImpl<ILoggingEvent> aai = new AppenderAttachableImpl<>();
+    protected final ConcurrentMap<String, TraceBuffer> traceBuffers = new ConcurrentHashMap<>();
+    protected final AtomicInteger bufferedEventCount = new AtomicInteger();
+    protected final AtomicLong droppedEventCount = new AtomicLong();
+    protected final AtomicLong flushedTraceCount = new AtomicLong();
+    protected final AtomicLong discardedTraceCount = new AtomicLong();
+    protected final AtomicLong evictedTraceCount = new AtomicLong();
+    protected final AtomicLong nextStaleBufferCheckMillis = new AtomicLong();
+
+    protected int maxEventsPerTrace = DEFAULT_MAX_EVENTS_PER_TRACE;
+    protected int maxBufferedEvents = DEFAULT_MAX_BUFFERED_EVENTS;
+    protected long slowThresholdMillis = DEFAULT_SLOW_THRESHOLD_MILLIS;
+    protected long maxBufferAgeMillis = DEFAULT_MAX_BUFFER_AGE_MILLIS;
+    protected Level passThroughLevel = Level.INFO;
+    protected Level errorLevel = Level.ERROR;
+    protected boolean registerWithTracer = true;
+
+    @Override
+    public void start() {
+        if (isStarted())
+            return;
+
+        if (maxEventsPerTrace <= 0) {
+            addError("maxEventsPerTrace must be greater than 0. Invalid value: " + maxEventsPerTrace);
+            return;
+        }
+
+        if (maxBufferedEvents <= 0) {
+            addError("maxBufferedEvents must be greater than 0. Invalid value: " + maxBufferedEvents);
+            return;
+        }
+
+        if (!aai.iteratorForAppenders().hasNext())
+            addWarn("No attached appenders found for appender [" + getName() + "]. Nothing will be logged.");
+
+        if (registerWithTracer)
+            Tracer.getInstance().addSpanLifecycleListener(this);
+
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted())
+            return;
+
+        super.stop();
+        if (registerWithTracer)
+            Tracer.getInstance().removeSpanLifecycleListener(this);
+
+        // Anything still buffered belongs to requests that haven't completed, so there's no way to decide on it.
+        clear();
+        aai.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        boolean buffer = !event.getLevel().isGreaterOrEqual(passThroughLevel);
+        boolean error = event.getLevel().isGreaterOrEqual(errorLevel);
+        boolean flushRequested = hasFlushMarker(event);
+
+        if (!buffer) {
+            aai.appendLoopOnAppenders(event);
+            if (!error && !flushRequested)
+                return;
+        }
+
+        TraceBuffer traceBuffer = traceBufferFor(event);
+        if (traceBuffer == null) {
+            if (buffer)
+                droppedEventCount.incrementAndGet();
+            return;
+        }
+
+        if (buffer) {
+            // The event's values (MDC, formatted message, thread name) must be captured now, on the logging thread.
+            event.prepareForDeferredProcessing();
+        }
+
+        synchronized (traceBuffer) {
+            if (traceBuffer.done) {
+                if (buffer)
+                    droppedEventCount.incrementAndGet();
+                return;
+            }
+
+            traceBuffer.hadError |= error;
+            traceBuffer.flushRequested |= flushRequested;
+
+            if (buffer)
+                bufferEvent(traceBuffer, event);
+        }
+    }
+
+    /**
+     * Adds the given event to the given trace buffer, dropping the trace's oldest event if the trace is full, or the
+     * given event if the global cap has been reached. Must be called while synchronized on the trace buffer.
+     */
+    protected void bufferEvent(TraceBuffer traceBuffer, ILoggingEvent event) {
+        if (traceBuffer.events.size() >= maxEventsPerTrace) {
+            // The trace is full - make room by dropping its oldest event, which leaves the global count unchanged.
+            traceBuffer.events.pollFirst();
+            droppedEventCount.incrementAndGet();
+        }
+        else if (bufferedEventCount.incrementAndGet() > maxBufferedEvents) {
+            bufferedEventCount.decrementAndGet();
+            droppedEventCount.incrementAndGet();
+            return;
+        }
+
+        traceBuffer.events.addLast(event);
+    }
+
+    protected boolean hasFlushMarker(ILoggingEvent event) {
+        Marker marker = event.getMarker();
+        return marker != null && marker.contains(FLUSH_DEBUG_LOGS_MARKER);
+    }
+
+    /**
+     * @return The buffer for the trace the given event belongs to, creating it if necessary, or null if the event
+     * doesn't belong to an in-flight request on this thread.
+     */
+    protected TraceBuffer traceBufferFor(ILoggingEvent event) {
+        String traceId = event.getMDCPropertyMap().get(Tracer.TRACE_ID_MDC_KEY);
+        if (traceId == null)
+            return null;
+
+        TraceBuffer traceBuffer = traceBuffers.get(traceId);
+        if (traceBuffer != null)
+            return traceBuffer;
+
+        Span requestSpan = getCurrentOverallRequestSpan();
+        if (requestSpan == null || requestSpan.isCompleted() || !traceId.equals(requestSpan.getTraceId()))
+            return null;
+
+        long nowMillis = currentTimeMillis();
+        evictStaleTraceBuffersIfDue(nowMillis);
+
+        TraceBuffer newTraceBuffer = new TraceBuffer(traceId, requestSpan.getSpanId(), nowMillis);
+        traceBuffer = traceBuffers.putIfAbsent(traceId, newTraceBuffer);
+        if (traceBuffer != null)
+            return traceBuffer;
+
+        // The request span may have completed between the check above and adding the buffer, in which case
+        //      spanCompleted() may have already come and gone and nothing would ever remove the buffer.
+        if (requestSpan.isCompleted()) {
+            removeTraceBuffer(newTraceBuffer);
+            return null;
+        }
+
+        return newTraceBuffer;
+    }
+
+    /**
+     * Drops the buffers that are older than {@link #maxBufferAgeMillis}, checking at most once every {@link
+     * #STALE_BUFFER_CHECK_INTERVAL_MILLIS}. Called whenever a new trace buffer is about to be created. If an evicted
+     * trace's request is still in flight, its later events start a new buffer.
+     */
+    protected void evictStaleTraceBuffersIfDue(long nowMillis) {
+        if (maxBufferAgeMillis < 0)
+            return;
+
+        long nextCheckMillis = nextStaleBufferCheckMillis.get();
+        if (nowMillis < nextCheckMillis
+            || !nextStaleBufferCheckMillis.compareAndSet(nextCheckMillis, nowMillis + STALE_BUFFER_CHECK_INTERVAL_MILLIS)
+        ) {
+            return;
+        }
+
+        for (TraceBuffer traceBuffer : traceBuffers.values()) {
+            if (nowMillis - traceBuffer.createdAtMillis <= maxBufferAgeMillis)
+                continue;
+
+            List<ILoggingEvent> events = removeTraceBuffer(traceBuffer);
+            if (events != null) {
+                evictedTraceCount.incrementAndGet();
+                droppedEventCount.addAndGet(events.size());
+            }
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    protected Span getCurrentOverallRequestSpan() {
+        return Tracer.getInstance().getCurrentOverallRequestSpan();
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        TraceBuffer traceBuffer = traceBuffers.get(span.getTraceId());
+        if (traceBuffer == null || !span.getSpanId().equals(traceBuffer.requestSpanId))
+            return;
+
+        List<ILoggingEvent> events = removeTraceBuffer(traceBuffer);
+        if (events == null)
+            return;
+
+        boolean flush;
+        synchronized (traceBuffer) {
+            flush = traceBuffer.hadError || traceBuffer.flushRequested || isSlow(span);
+        }
+
+        if (!flush) {
+            discardedTraceCount.incrementAndGet();
+            droppedEventCount.addAndGet(events.size());
+            return;
+        }
+
+        flushedTraceCount.incrementAndGet();
+        for (ILoggingEvent event : events) {
+            aai.appendLoopOnAppenders(event);
+        }
+    }
+
+    protected boolean isSlow(Span span) {
+        Long durationNanos = span.getDurationNanos();
+        return slowThresholdMillis >= 0
+               && durationNanos != null
+               && durationNanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Removes the given buffer from {@link #traceBuffers} and marks it done so no more events are added to it.
+     *
+     * @return The events the buffer held, or null if it had already been removed.
+     */
+    protected List<ILoggingEvent> removeTraceBuffer(TraceBuffer traceBuffer) {
+        traceBuffers.remove(traceBuffer.traceId, traceBuffer);
+        synchronized (traceBuffer) {
+            if (traceBuffer.done)
+                return null;
+
+            traceBuffer.done = true;
+            List<ILoggingEvent> events = new ArrayList<>(traceBuffer.events);
+            traceBuffer.events.clear();
+            bufferedEventCount.addAndGet(-events.size());
+            return events;
+        }
+    }
+
+    /**
+     * Drops everything that's currently buffered.
+     */
+    public void clear() {
+        for (TraceBuffer traceBuffer : traceBuffers.values()) {
+            List<ILoggingEvent> events = removeTraceBuffer(traceBuffer);
+            if (events != null)
+                droppedEventCount.addAndGet(events.size());
+        }
+    }
+
+    /**
+     * @return The number of DEBUG/TRACE events currently buffered across all traces.
+     */
+    public int getBufferedEventCount() {
+        return bufferedEventCount.get();
+    }
+
+    /**
+     * @return The number of traces that currently have a buffer.
+     */
+    public int getBufferedTraceCount() {
+        return traceBuffers.size();
+    }
+
+    /**
+     * @return The number of DEBUG/TRACE events that were never sent on - because of the memory caps, because they
+     * couldn't be tied to an in-flight request, or because their request completed without needing them.
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    /**
+     * @return The number of traces whose buffered events were sent on.
+     */
+    public long getFlushedTraceCount() {
+        return flushedTraceCount.get();
+    }
+
+    /**
+     * @return The number of traces whose buffered events were dropped because the request was fast and error-free.
+     */
+    public long getDiscardedTraceCount() {
+        return discardedTraceCount.get();
+    }
+
+    /**
+     * @return The number of traces whose buffers were dropped because they were older than {@link
+     * #getMaxBufferAgeMillis()}.
+     */
+    public long getEvictedTraceCount() {
+        return evictedTraceCount.get();
+    }
+
+    public int getMaxEventsPerTrace() {
+        return maxEventsPerTrace;
+    }
+
+    /**
+     * @param maxEventsPerTrace The maximum number of events to buffer for a single trace. Once reached, the trace's
+     * oldest events are dropped to make room. Defaults to {@link #DEFAULT_MAX_EVENTS_PER_TRACE}.
+     */
+    public void setMaxEventsPerTrace(int maxEventsPerTrace) {
+        this.maxEventsPerTrace = maxEventsPerTrace;
+    }
+
+    public int getMaxBufferedEvents() {
+        return maxBufferedEvents;
+    }
+
+    /**
+     * @param maxBufferedEvents The maximum number of events to buffer across all traces. Once reached, new events are
+     * dropped until some traces complete. Defaults to {@link #DEFAULT_MAX_BUFFERED_EVENTS}.
+     */
+    public void setMaxBufferedEvents(int maxBufferedEvents) {
+        this.maxBufferedEvents = maxBufferedEvents;
+    }
+
+    public long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    /**
+     * @param slowThresholdMillis Requests whose overall request span takes at least this long have their buffered
+     * events sent on. Pass a negative value to never treat a request as slow. Defaults to {@link
+     * #DEFAULT_SLOW_THRESHOLD_MILLIS}.
+     */
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    public long getMaxBufferAgeMillis() {
+        return maxBufferAgeMillis;
+    }
+
+    /**
+     * @param maxBufferAgeMillis Trace buffers older than this are dropped (checked when new traces are buffered), so
+     * requests that never complete don't use up {@link #setMaxBufferedEvents(int) maxBufferedEvents}. Should be longer
+     * than your slowest requests. Pass a negative value to never evict buffers. Defaults to {@link
+     * #DEFAULT_MAX_BUFFER_AGE_MILLIS}.
+     */
+    public void setMaxBufferAgeMillis(long maxBufferAgeMillis) {
+        this.maxBufferAgeMillis = maxBufferAgeMillis;
+    }
+
+    public String getPassThroughLevel() {
+        return passThroughLevel.toString();
+    }
+
+    /**
+     * @param passThroughLevel Events at or above this level are sent straight on. Events below it are buffered.
+     * Defaults to INFO.
+     */
+    public void setPassThroughLevel(String passThroughLevel) {
+        this.passThroughLevel = Level.toLevel(passThroughLevel, Level.INFO);
+    }
+
+    public String getErrorLevel() {
+        return errorLevel.toString();
+    }
+
+    /**
+     * @param errorLevel An event at or above this level marks its trace as having errors, so the trace's buffered
+     * events are sent on when it completes. Defaults to ERROR.
+     */
+    public void setErrorLevel(String errorLevel) {
+        this.errorLevel = Level.toLevel(errorLevel, Level.ERROR);
+    }
+
+    public boolean isRegisterWithTracer() {
+        return registerWithTracer;
+    }
+
+    /**
+     * @param registerWithTracer Whether this appender should add itself to {@link Tracer}'s span lifecycle listeners
+     * when it starts. Defaults to true. Only turn this off if you call {@link #spanCompleted(Span)} yourself.
+     */
+    public void setRegisterWithTracer(boolean registerWithTracer) {
+        this.registerWithTracer = registerWithTracer;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getClass().getSimpleName() + ".");
+        aai.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return aai.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return aai.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return aai.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        aai.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return aai.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return aai.detachAppender(name);
+    }
+
+    protected static class TraceBuffer {
+        protected final String traceId;
+        protected final String requestSpanId;
+        protected final long createdAtMillis;
+        // All fields below are guarded by synchronizing on this buffer.
+        protected final ArrayDeque<ILoggingEvent> events = new ArrayDeque<>();
+        protected boolean hadError;
+        protected boolean flushRequested;
+        protected boolean done;
+
+        protected TraceBuffer(String traceId, String requestSpanId, long createdAtMillis) {
+            this.traceId = traceId;
+            this.requestSpanId = requestSpanId;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+}
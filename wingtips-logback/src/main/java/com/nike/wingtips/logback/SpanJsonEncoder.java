@@ -0,0 +1,308 @@
+package com.nike.wingtips.logback;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+/**
+ * A Logback encoder for span log files. It writes each completed span logged by {@link Tracer} as one line of JSON,
+ * byte-for-byte the same as {@link Span#toJSON()}, but it writes the span's fields as UTF-8 straight into a reusable
+ * per-thread byte buffer. No JSON string is built, the SLF4J message isn't formatted, and no layout runs. For this to
+ * work {@link Tracer} has to hand over the span object itself, so call {@link Tracer#setLogSpansAsObjects(boolean)
+ * Tracer.getInstance().setLogSpansAsObjects(true)} at startup.
+ *
+ * <p>An event is treated as a span event if it comes from the {@link #VALID_SPAN_LOGGER_NAME} or {@link
+ * #INVALID_SPAN_LOGGER_NAME} logger and its last argument is a {@link Span}. Any other event (including span log
+ * batches, which {@link Tracer} always logs as strings) is formatted with the {@link #setLayout(Layout) layout} if
+ * there is one, or written as its formatted message plus a line separator if there isn't.
+ *
+ * <p>NOTE: the span lines don't say which logger they came from, so if you want invalid spans kept separate give the
+ * {@link #INVALID_SPAN_LOGGER_NAME} logger its own appender.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanJsonEncoder extends EncoderBase<ILoggingEvent> {
+
+    public static final String VALID_SPAN_LOGGER_NAME = "VALID_WINGTIPS_SPANS";
+    public static final String INVALID_SPAN_LOGGER_NAME = "INVALID_WINGTIPS_SPANS";
+
+    /**
+     * Per-thread buffers bigger than this aren't kept between events, so one huge span name can't pin memory forever.
+     */
+    public static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024;
+
+    protected static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    protected static final byte[] TRACE_ID_PREFIX = utf8("{\"" + Span.TRACE_ID_FIELD + "\":\"");
+    protected static final byte[] PARENT_SPAN_ID_PREFIX = fieldPrefix(Span.PARENT_SPAN_ID_FIELD);
+    protected static final byte[] SPAN_ID_PREFIX = fieldPrefix(Span.SPAN_ID_FIELD);
+    protected static final byte[] SPAN_NAME_PREFIX = fieldPrefix(Span.SPAN_NAME_FIELD);
+    protected static final byte[] SAMPLEABLE_PREFIX = fieldPrefix(Span.SAMPLEABLE_FIELD);
+    protected static final byte[] USER_ID_PREFIX = fieldPrefix(Span.USER_ID_FIELD);
+    protected static final byte[] SPAN_PURPOSE_PREFIX = fieldPrefix(Span.SPAN_PURPOSE_FIELD);
+    protected static final byte[] START_TIME_EPOCH_MICROS_PREFIX = fieldPrefix(Span.START_TIME_EPOCH_MICROS_FIELD);
+    protected static final byte[] DURATION_NANOS_PREFIX = fieldPrefix(Span.DURATION_NANOS_FIELD);
+    protected static final byte[] CPU_TIME_NANOS_PREFIX = fieldPrefix(Span.CPU_TIME_NANOS_FIELD);
+    protected static final byte[] ALLOCATED_BYTES_PREFIX = fieldPrefix(Span.ALLOCATED_BYTES_FIELD);
+    protected static final byte[] BLOCKED_TIME_MILLIS_PREFIX = fieldPrefix(Span.BLOCKED_TIME_MILLIS_FIELD);
+    protected static final byte[] WAITED_TIME_MILLIS_PREFIX = fieldPrefix(Span.WAITED_TIME_MILLIS_FIELD);
+    protected static final byte[] ASYNC_TASK_COUNT_PREFIX = fieldPrefix(Span.ASYNC_TASK_COUNT_FIELD);
+    protected static final byte[] GC_PAUSE_MICROS_PREFIX = fieldPrefix(Span.GC_PAUSE_MICROS_FIELD);
+    protected static final byte[] JSON_SUFFIX = utf8("\"}");
+    protected static final byte[] LINE_SEPARATOR = utf8(CoreConstants.LINE_SEPARATOR);
+    protected static final byte[] TRUE = utf8("true");
+    protected static final byte[] FALSE = utf8("false");
+    protected static final byte[] NULL = utf8("null");
+    protected static final byte[] LONG_MIN_VALUE = utf8(String.valueOf(Long.MIN_VALUE));
+
+    protected static final ThreadLocal<ByteBuilder> byteBuilderThreadLocal = new ThreadLocal<ByteBuilder>() {
+        @Override
+        protected ByteBuilder initialValue() {
+            return new ByteBuilder(512);
+        }
+    };
+
+    protected Layout<ILoggingEvent> layout;
+
+    private static byte[] utf8(String str) {
+        return str.getBytes(UTF_8);
+    }
+
+    private static byte[] fieldPrefix(String fieldName) {
+        return utf8("\",\"" + fieldName + "\":\"");
+    }
+
+    @Override
+    public void start() {
+        if (layout != null && layout.getContext() == null)
+            layout.setContext(getContext());
+
+        super.start();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Span span = getLoggedSpan(event);
+        if (span == null) {
+            String formatted = (layout == null)
+                               ? event.getFormattedMessage() + CoreConstants.LINE_SEPARATOR
+                               : layout.doLayout(event);
+            return formatted.getBytes(UTF_8);
+        }
+
+        ByteBuilder bytes = byteBuilderThreadLocal.get();
+        try {
+            writeSpanJson(span, bytes);
+            bytes.append(LINE_SEPARATOR);
+            return bytes.toByteArray();
+        }
+        finally {
+            if (bytes.capacity() > MAX_RETAINED_BUFFER_SIZE)
+                byteBuilderThreadLocal.remove();
+            else
+                bytes.reset();
+        }
+    }
+
+    /**
+     * @return The span logged by the given event if it's a span event from {@link Tracer} (see the class javadocs),
+     * otherwise null.
+     */
+    protected Span getLoggedSpan(ILoggingEvent event) {
+        String loggerName = event.getLoggerName();
+        if (!VALID_SPAN_LOGGER_NAME.equals(loggerName) && !INVALID_SPAN_LOGGER_NAME.equals(loggerName))
+            return null;
+
+        Object[] args = event.getArgumentArray();
+        if (args == null || args.length == 0)
+            return null;
+
+        Object lastArg = args[args.length - 1];
+        return (lastArg instanceof Span) ? (Span) lastArg : null;
+    }
+
+    /**
+     * Writes the same JSON as {@link Span#toJSON()} for the given span to the given {@link ByteBuilder}. Keep the two
+     * in sync.
+     */
+    protected void writeSpanJson(Span span, ByteBuilder bytes) {
+        bytes.append(TRACE_ID_PREFIX).appendUtf8(span.getTraceId());
+        bytes.append(PARENT_SPAN_ID_PREFIX).appendUtf8(span.getParentSpanId());
+        bytes.append(SPAN_ID_PREFIX).appendUtf8(span.getSpanId());
+        bytes.append(SPAN_NAME_PREFIX).appendUtf8(span.getSpanName());
+        bytes.append(SAMPLEABLE_PREFIX).append(span.isSampleable() ? TRUE : FALSE);
+        bytes.append(USER_ID_PREFIX).appendUtf8(span.getUserId());
+        bytes.append(SPAN_PURPOSE_PREFIX).appendUtf8(span.getSpanPurpose().name());
+        bytes.append(START_TIME_EPOCH_MICROS_PREFIX).appendLong(span.getSpanStartTimeEpochMicros());
+        if (span.isCompleted()) {
+            bytes.append(DURATION_NANOS_PREFIX).appendLong(span.getDurationNanos());
+            SpanResourceUsage resourceUsage = span.getResourceUsage();
+            if (resourceUsage != null) {
+                appendMeasurement(bytes, CPU_TIME_NANOS_PREFIX, resourceUsage.getCpuTimeNanos());
+                appendMeasurement(bytes, ALLOCATED_BYTES_PREFIX, resourceUsage.getAllocatedBytes());
+                appendMeasurement(bytes, BLOCKED_TIME_MILLIS_PREFIX, resourceUsage.getBlockedTimeMillis());
+                appendMeasurement(bytes, WAITED_TIME_MILLIS_PREFIX, resourceUsage.getWaitedTimeMillis());
+                if (resourceUsage.getAsyncTaskCount() > 0)
+                    bytes.append(ASYNC_TASK_COUNT_PREFIX).appendLong(resourceUsage.getAsyncTaskCount());
+            }
+            Long gcPauseMicros = span.getGcPauseMicros();
+            if (gcPauseMicros != null)
+                bytes.append(GC_PAUSE_MICROS_PREFIX).appendLong(gcPauseMicros);
+        }
+        bytes.append(JSON_SUFFIX);
+    }
+
+    private static void appendMeasurement(ByteBuilder bytes, byte[] fieldPrefix, long value) {
+        if (value != ThreadResourceSnapshot.NOT_MEASURED)
+            bytes.append(fieldPrefix).appendLong(value);
+    }
+
+    /**
+     * @return The layout used for events that aren't span events, or null if they're written as their formatted
+     * message.
+     */
+    public Layout<ILoggingEvent> getLayout() {
+        return layout;
+    }
+
+    /**
+     * Sets the layout used for events that aren't span events (e.g. a {@code PatternLayout}). Its output is written
+     * as UTF-8. Pass null to have them written as their formatted message plus a line separator.
+     */
+    public void setLayout(Layout<ILoggingEvent> layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * A growable byte array that strings and numbers are written into directly, without creating intermediate strings
+     * or char arrays. Not thread safe - {@link SpanJsonEncoder} keeps one per thread.
+     */
+    protected static class ByteBuilder {
+        protected byte[] buf;
+        protected int count;
+
+        public ByteBuilder(int initialCapacity) {
+            this.buf = new byte[initialCapacity];
+        }
+
+        public int capacity() {
+            return buf.length;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public void reset() {
+            count = 0;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        protected void ensureCapacity(int additional) {
+            int needed = count + additional;
+            if (needed > buf.length)
+                buf = Arrays.copyOf(buf, Math.max(needed, buf.length * 2));
+        }
+
+        public ByteBuilder append(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+            return this;
+        }
+
+        /**
+         * Appends the UTF-8 encoding of the given string, or {@code null} if it's null (the same as {@link
+         * StringBuilder#append(String)}). Unpaired surrogates are written as {@code ?}, the same as {@link
+         * String#getBytes(Charset)}.
+         */
+        public ByteBuilder appendUtf8(String str) {
+            if (str == null)
+                return append(NULL);
+
+            int len = str.length();
+            // Worst case is 3 bytes per char - a surrogate pair is 2 chars and 4 bytes.
+            ensureCapacity(len * 3);
+            byte[] b = buf;
+            int pos = count;
+            for (int i = 0; i < len; i++) {
+                char c = str.charAt(i);
+                if (c < 0x80) {
+                    b[pos++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    b[pos++] = (byte) (0xC0 | (c >> 6));
+                    b[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+                else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                        b[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                        b[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                        b[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                        b[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                    }
+                    else {
+                        b[pos++] = '?';
+                    }
+                }
+                else {
+                    b[pos++] = (byte) (0xE0 | (c >> 12));
+                    b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            count = pos;
+            return this;
+        }
+
+        /**
+         * Appends the decimal digits of the given value, the same as {@link StringBuilder#append(long)}.
+         */
+        public ByteBuilder appendLong(long value) {
+            if (value == Long.MIN_VALUE)
+                return append(LONG_MIN_VALUE);
+
+            ensureCapacity(20);
+            if (value < 0) {
+                buf[count++] = '-';
+                value = -value;
+            }
+
+            int digits = 1;
+            for (long remaining = value / 10; remaining != 0; remaining /= 10) {
+                digits++;
+            }
+
+            int pos = count + digits;
+            do {
+                buf[--pos] = (byte) ('0' + (value % 10));
+                value /= 10;
+            } while (value != 0);
+
+            count += digits;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.nike.wingtips.logback;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import static com.nike.wingtips.logback.RetroactiveDebugLogAppender.FLUSH_DEBUG_LOGS_MARKER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link RetroactiveDebugLogAppender}.
+ */
+public class RetroactiveDebugLogAppenderTest {
+
+    private LoggerContext loggerContext;
+    private Logger logger;
+    private ListAppender<ILoggingEvent> delegate;
+    private ClockControlledAppender appender;
+
+    private static class ClockControlledAppender extends RetroactiveDebugLogAppender {
+        long nowMillis = 1_000_000;
+
+        @Override
+        protected long currentTimeMillis() {
+            return nowMillis;
+        }
+    }
+
+    @Before
+    public void beforeMethod() {
+        resetTracing();
+
+        loggerContext = new LoggerContext();
+        logger = loggerContext.getLogger("test");
+        logger.setLevel(Level.TRACE);
+        logger.setAdditive(false);
+
+        delegate = new ListAppender<>();
+        delegate.setName("delegate");
+        delegate.setContext(loggerContext);
+        delegate.start();
+
+        appender = new ClockControlledAppender();
+        appender.setContext(loggerContext);
+        appender.setSlowThresholdMillis(-1);
+        appender.addAppender(delegate);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void afterMethod() {
+        appender.stop();
+        resetTracing();
+    }
+
+    private void resetTracing() {
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+        for (SpanLifecycleListener listener : new ArrayList<>(Tracer.getInstance().getSpanLifecycleListeners())) {
+            Tracer.getInstance().removeSpanLifecycleListener(listener);
+        }
+    }
+
+    private List<String> delegateMessages() {
+        List<String> result = new ArrayList<>();
+        for (ILoggingEvent event : delegate.list) {
+            result.add(event.getFormattedMessage());
+        }
+        return result;
+    }
+
+    @Test
+    public void start_registers_with_Tracer_and_stop_unregisters_and_detaches() {
+        // expect
+        assertThat(appender.isStarted()).isTrue();
+        assertThat(Tracer.getInstance().getSpanLifecycleListeners()).containsExactly(appender);
+
+        // when
+        appender.stop();
+
+        // then
+        assertThat(appender.isStarted()).isFalse();
+        assertThat(Tracer.getInstance().getSpanLifecycleListeners()).isEmpty();
+        assertThat(appender.getAppender(delegate.getName())).isNull();
+        assertThat(delegate.isStarted()).isFalse();
+    }
+
+    @Test
+    public void start_does_not_start_if_settings_are_invalid() {
+        // given
+        RetroactiveDebugLogAppender badPerTrace = new RetroactiveDebugLogAppender();
+        badPerTrace.setContext(loggerContext);
+        badPerTrace.setMaxEventsPerTrace(0);
+        RetroactiveDebugLogAppender badGlobal = new RetroactiveDebugLogAppender();
+        badGlobal.setContext(loggerContext);
+        badGlobal.setMaxBufferedEvents(0);
+
+        // when
+        badPerTrace.start();
+        badGlobal.start();
+
+        // then
+        assertThat(badPerTrace.isStarted()).isFalse();
+        assertThat(badGlobal.isStarted()).isFalse();
+        assertThat(Tracer.getInstance().getSpanLifecycleListeners()).containsExactly(appender);
+    }
+
+    @Test
+    public void info_and_above_pass_straight_through_and_debug_is_dropped_for_fast_error_free_requests() {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+
+        // when
+        logger.debug("debug");
+        logger.trace("trace");
+        logger.info("info");
+        logger.warn("warn");
+
+        // then
+        assertThat(delegateMessages()).containsExactly("info", "warn");
+        assertThat(appender.getBufferedEventCount()).isEqualTo(2);
+        assertThat(appender.getBufferedTraceCount()).isEqualTo(1);
+
+        // and when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("info", "warn");
+        assertThat(appender.getBufferedEventCount()).isEqualTo(0);
+        assertThat(appender.getBufferedTraceCount()).isEqualTo(0);
+        assertThat(appender.getDroppedEventCount()).isEqualTo(2);
+        assertThat(appender.getDiscardedTraceCount()).isEqualTo(1);
+        assertThat(appender.getFlushedTraceCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void debug_events_are_flushed_in_order_when_the_request_is_slow() {
+        // given
+        appender.setSlowThresholdMillis(0);
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        logger.debug("first");
+        Tracer.getInstance().startSubSpan("child", Span.SpanPurpose.LOCAL_ONLY);
+        logger.trace("second");
+        Tracer.getInstance().completeSubSpan();
+
+        // expect - completing a sub span doesn't flush
+        assertThat(delegateMessages()).isEmpty();
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("first", "second");
+        assertThat(appender.getFlushedTraceCount()).isEqualTo(1);
+        assertThat(appender.getBufferedEventCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void debug_events_are_flushed_when_the_trace_logs_an_error() {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        logger.debug("debug");
+        logger.error("error");
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("error", "debug");
+    }
+
+    @Test
+    public void debug_events_are_flushed_when_an_error_is_logged_before_any_debug_event() {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        logger.error("error");
+        logger.debug("debug");
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("error", "debug");
+    }
+
+    @Test
+    public void debug_events_are_flushed_when_the_flush_marker_is_logged() {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        logger.debug("debug");
+        logger.info(FLUSH_DEBUG_LOGS_MARKER, "flush please");
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("flush please", "debug");
+    }
+
+    @Test
+    public void flushed_events_keep_the_MDC_from_when_they_were_logged() {
+        // given
+        appender.setSlowThresholdMillis(0);
+        Span requestSpan = Tracer.getInstance().startRequestWithRootSpan("foo");
+        logger.debug("debug");
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(MDC.get(Tracer.TRACE_ID_MDC_KEY)).isNull();
+        assertThat(delegate.list).hasSize(1);
+        assertThat(delegate.list.get(0).getMDCPropertyMap().get(Tracer.TRACE_ID_MDC_KEY))
+            .isEqualTo(requestSpan.getTraceId());
+    }
+
+    @Test
+    public void debug_events_without_an_in_flight_request_are_dropped() {
+        // when - no trace at all
+        logger.debug("no trace");
+
+        // and when - trace ID in the MDC but no span stack on this thread
+        MDC.put(Tracer.TRACE_ID_MDC_KEY, "some-trace");
+        logger.debug("no span stack");
+
+        // then
+        assertThat(delegateMessages()).isEmpty();
+        assertThat(appender.getBufferedTraceCount()).isEqualTo(0);
+        assertThat(appender.getDroppedEventCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void each_trace_keeps_only_its_newest_events() {
+        // given
+        appender.setMaxEventsPerTrace(2);
+        appender.setSlowThresholdMillis(0);
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+
+        // when
+        logger.debug("one");
+        logger.debug("two");
+        logger.debug("three");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("two", "three");
+        assertThat(appender.getDroppedEventCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void new_events_are_dropped_once_the_global_cap_is_reached() {
+        // given
+        appender.setMaxBufferedEvents(2);
+        appender.setSlowThresholdMillis(0);
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+
+        // when
+        logger.debug("one");
+        logger.debug("two");
+        logger.debug("three");
+
+        // then
+        assertThat(appender.getBufferedEventCount()).isEqualTo(2);
+        assertThat(appender.getDroppedEventCount()).isEqualTo(1);
+
+        // and when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("one", "two");
+    }
+
+    @Test
+    public void buffers_of_requests_that_never_complete_are_evicted_once_too_old() {
+        // given
+        appender.setMaxBufferedEvents(2);
+        appender.setMaxBufferAgeMillis(5000);
+        appender.setSlowThresholdMillis(0);
+        Tracer.getInstance().startRequestWithRootSpan("leaked-request");
+        logger.debug("leaked one");
+        logger.debug("leaked two");
+        // The request span is never completed.
+        Tracer.getInstance().unregisterFromThread();
+
+        // when - a new request starts before the leaked buffer is too old
+        appender.nowMillis += 5000;
+        Tracer.getInstance().startRequestWithRootSpan("too-early");
+        logger.debug("dropped");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then - the leaked buffer is still there and holds the global cap
+        assertThat(delegateMessages()).isEmpty();
+        assertThat(appender.getBufferedEventCount()).isEqualTo(2);
+        assertThat(appender.getEvictedTraceCount()).isEqualTo(0);
+
+        // and when - a new request starts after the leaked buffer is too old and the next check is due
+        appender.nowMillis += RetroactiveDebugLogAppender.STALE_BUFFER_CHECK_INTERVAL_MILLIS;
+        Tracer.getInstance().startRequestWithRootSpan("in-time");
+        logger.debug("kept");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("kept");
+        assertThat(appender.getBufferedTraceCount()).isEqualTo(0);
+        assertThat(appender.getBufferedEventCount()).isEqualTo(0);
+        assertThat(appender.getEvictedTraceCount()).isEqualTo(1);
+        assertThat(appender.getDroppedEventCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void stale_buffers_are_checked_for_at_most_once_per_interval_and_never_if_disabled() {
+        // given
+        appender.setMaxBufferAgeMillis(0);
+        String firstTraceId = Tracer.getInstance().startRequestWithRootSpan("first").getTraceId();
+        logger.debug("first");
+        Tracer.getInstance().unregisterFromThread();
+
+        // when - the previous check was too recent
+        appender.nowMillis += RetroactiveDebugLogAppender.STALE_BUFFER_CHECK_INTERVAL_MILLIS - 1;
+        String secondTraceId = Tracer.getInstance().startRequestWithRootSpan("second").getTraceId();
+        logger.debug("second");
+        Tracer.getInstance().unregisterFromThread();
+
+        // then
+        assertThat(appender.traceBuffers).containsOnlyKeys(firstTraceId, secondTraceId);
+
+        // and when - eviction is disabled
+        appender.setMaxBufferAgeMillis(-1);
+        appender.nowMillis += RetroactiveDebugLogAppender.STALE_BUFFER_CHECK_INTERVAL_MILLIS;
+        String thirdTraceId = Tracer.getInstance().startRequestWithRootSpan("third").getTraceId();
+        logger.debug("third");
+        Tracer.getInstance().unregisterFromThread();
+
+        // then
+        assertThat(appender.traceBuffers).containsOnlyKeys(firstTraceId, secondTraceId, thirdTraceId);
+        assertThat(appender.getMaxBufferAgeMillis()).isEqualTo(-1);
+
+        // and when - eviction is enabled and a check is due
+        appender.setMaxBufferAgeMillis(0);
+        Tracer.getInstance().startRequestWithRootSpan("fourth");
+        logger.debug("fourth");
+
+        // then - only the buffer created in the same millisecond survives
+        assertThat(appender.traceBuffers).hasSize(2).containsKey(thirdTraceId);
+        assertThat(appender.getEvictedTraceCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void traces_are_buffered_independently() {
+        // given
+        String slowTraceId = Tracer.getInstance().startRequestWithRootSpan("slow-request").getTraceId();
+        logger.debug("slow trace");
+        Deque<Span> slowStack = Tracer.getInstance().unregisterFromThread();
+
+        Tracer.getInstance().startRequestWithRootSpan("fast-request");
+        logger.debug("fast trace");
+        logger.error("fast error");
+
+        // when
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("fast error", "fast trace");
+        assertThat(appender.getBufferedTraceCount()).isEqualTo(1);
+        assertThat(appender.traceBuffers).containsOnlyKeys(slowTraceId);
+
+        // and when
+        Tracer.getInstance().registerWithThread(slowStack);
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).containsExactly("fast error", "fast trace");
+        assertThat(appender.getBufferedTraceCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void clear_drops_everything_buffered() {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("foo");
+        logger.debug("debug");
+
+        // when
+        appender.clear();
+        logger.debug("after clear");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(delegateMessages()).isEmpty();
+        assertThat(appender.getBufferedEventCount()).isEqualTo(0);
+        assertThat(appender.getDroppedEventCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void level_settings_fall_back_to_defaults_for_bad_values() {
+        // when
+        appender.setPassThroughLevel("DEBUG");
+        appender.setErrorLevel("WARN");
+
+        // then
+        assertThat(appender.getPassThroughLevel()).isEqualTo("DEBUG");
+        assertThat(appender.getErrorLevel()).isEqualTo("WARN");
+
+        // and when
+        appender.setPassThroughLevel("not-a-level");
+        appender.setErrorLevel("not-a-level");
+
+        // then
+        assertThat(appender.getPassThroughLevel()).isEqualTo("INFO");
+        assertThat(appender.getErrorLevel()).isEqualTo("ERROR");
+    }
+}
@@ -0,0 +1,250 @@
+package com.nike.wingtips.logback;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.OutputStreamAppender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link SpanJsonEncoder}.
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanJsonEncoderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private LoggerContext loggerContext;
+    private SpanJsonEncoder encoder;
+
+    @Before
+    public void beforeMethod() {
+        resetTracing();
+        loggerContext = new LoggerContext();
+        encoder = new SpanJsonEncoder();
+        encoder.setContext(loggerContext);
+        encoder.start();
+    }
+
+    @After
+    public void afterMethod() {
+        resetTracing();
+    }
+
+    private void resetTracing() {
+        Tracer.getInstance().unregisterFromThread();
+        Tracer.getInstance().setLogSpansAsObjects(false);
+    }
+
+    private ILoggingEvent event(String loggerName, String message, Object... args) {
+        return new LoggingEvent(
+            getClass().getName(), loggerContext.getLogger(loggerName), Level.INFO, message, null, args
+        );
+    }
+
+    private ILoggingEvent spanEvent(Span span) {
+        return event(SpanJsonEncoder.VALID_SPAN_LOGGER_NAME, "{}[DISTRIBUTED_TRACING] {}", "", span);
+    }
+
+    private byte[] expectedLine(Span span) {
+        return (span.toJSON() + CoreConstants.LINE_SEPARATOR).getBytes(UTF_8);
+    }
+
+    @DataProvider
+    public static Object[][] spanNameDataProvider() {
+        return new Object[][] {
+            { "plain-ascii" },
+            { "café über naïve" },
+            { "日本語のスパン" },
+            { "emoji 🚀 rocket" },
+            { "lone high \ud83d surrogate" },
+            { "lone low \ude80 surrogate" },
+            { "trailing high \ud83d" },
+            { "" }
+        };
+    }
+
+    @Test
+    @UseDataProvider("spanNameDataProvider")
+    public void encode_writes_the_same_bytes_as_toJSON_for_an_uncompleted_span(String spanName) {
+        // given
+        Span span = Span.newBuilder(spanName, SpanPurpose.CLIENT)
+                        .withParentSpanId("parent")
+                        .withUserId("user-é")
+                        .build();
+
+        // when
+        byte[] result = encoder.encode(spanEvent(span));
+
+        // then
+        assertThat(result).isEqualTo(expectedLine(span));
+    }
+
+    @DataProvider(value = {
+        "0",
+        "1",
+        "9",
+        "10",
+        "1234567890123456",
+        "-1",
+        "-987654321",
+        "9223372036854775807",
+        "-9223372036854775808"
+    })
+    @Test
+    public void encode_writes_the_same_bytes_as_toJSON_for_a_completed_span(long number) {
+        // given
+        Span span = Span.fromJSON(
+            "{\"traceId\":\"t\",\"parentSpanId\":\"null\",\"spanId\":\"s\",\"spanName\":\"completed\","
+            + "\"sampleable\":\"false\",\"userId\":\"null\",\"spanPurpose\":\"SERVER\","
+            + "\"startTimeEpochMicros\":\"" + number + "\",\"durationNanos\":\"" + number + "\","
+            + "\"cpuTimeNanos\":\"" + number + "\",\"allocatedBytes\":\"42\",\"waitedTimeMillis\":\"7\","
+            + "\"asyncTaskCount\":\"3\",\"gcPauseMicros\":\"" + number + "\"}"
+        );
+
+        // when
+        byte[] result = encoder.encode(spanEvent(span));
+
+        // then
+        assertThat(span.isCompleted()).isTrue();
+        assertThat(span.getResourceUsage().getBlockedTimeMillis()).isEqualTo(ThreadResourceSnapshot.NOT_MEASURED);
+        assertThat(span.getGcPauseMicros()).isEqualTo(number);
+        assertThat(result).isEqualTo(expectedLine(span));
+    }
+
+    @Test
+    public void encode_writes_span_events_from_the_invalid_span_logger() {
+        // given
+        Span span = Span.newBuilder("invalid", SpanPurpose.LOCAL_ONLY).build();
+        ILoggingEvent event = event(
+            SpanJsonEncoder.INVALID_SPAN_LOGGER_NAME, "{}[DISTRIBUTED_TRACING] {}", "[INCORRECT_TIMING] ", span
+        );
+
+        // when
+        byte[] result = encoder.encode(event);
+
+        // then
+        assertThat(result).isEqualTo(expectedLine(span));
+    }
+
+    @Test
+    public void encode_writes_other_events_as_their_formatted_message_when_there_is_no_layout() {
+        // given
+        Span span = Span.newBuilder("other", SpanPurpose.LOCAL_ONLY).build();
+
+        // expect - span argument from some other logger
+        assertThat(new String(encoder.encode(event("some.app.Logger", "started {}", span)), UTF_8))
+            .isEqualTo("started " + span.toJSON() + CoreConstants.LINE_SEPARATOR);
+        // and expect - span logger without a span argument (e.g. a span log batch)
+        assertThat(new String(encoder.encode(event(SpanJsonEncoder.VALID_SPAN_LOGGER_NAME, "batch {}", "[]")), UTF_8))
+            .isEqualTo("batch []" + CoreConstants.LINE_SEPARATOR);
+        // and expect - no arguments at all
+        assertThat(new String(encoder.encode(event(SpanJsonEncoder.VALID_SPAN_LOGGER_NAME, "café")), UTF_8))
+            .isEqualTo("café" + CoreConstants.LINE_SEPARATOR);
+        assertThat(encoder.headerBytes()).isNull();
+        assertThat(encoder.footerBytes()).isNull();
+    }
+
+    @Test
+    public void encode_uses_the_layout_for_other_events() {
+        // given
+        PatternLayout layout = new PatternLayout();
+        layout.setPattern("%level %logger - %msg%n");
+        encoder = new SpanJsonEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setLayout(layout);
+        encoder.start();
+        layout.start();
+        Span span = Span.newBuilder("span", SpanPurpose.LOCAL_ONLY).build();
+
+        // when
+        byte[] otherResult = encoder.encode(event("some.app.Logger", "hello {}", "world"));
+        byte[] spanResult = encoder.encode(spanEvent(span));
+
+        // then
+        assertThat(encoder.getLayout()).isSameAs(layout);
+        assertThat(layout.getContext()).isSameAs(loggerContext);
+        assertThat(new String(otherResult, UTF_8)).isEqualTo("INFO some.app.Logger - hello world" + CoreConstants.LINE_SEPARATOR);
+        assertThat(spanResult).isEqualTo(expectedLine(span));
+    }
+
+    @Test
+    public void encode_does_not_keep_oversized_buffers() {
+        // given
+        StringBuilder hugeName = new StringBuilder();
+        while (hugeName.length() < SpanJsonEncoder.MAX_RETAINED_BUFFER_SIZE) {
+            hugeName.append("0123456789");
+        }
+        Span hugeSpan = Span.newBuilder(hugeName.toString(), SpanPurpose.LOCAL_ONLY).build();
+        Span smallSpan = Span.newBuilder("small", SpanPurpose.LOCAL_ONLY).build();
+
+        // when
+        byte[] hugeResult = encoder.encode(spanEvent(hugeSpan));
+
+        // then
+        assertThat(hugeResult).isEqualTo(expectedLine(hugeSpan));
+        assertThat(SpanJsonEncoder.byteBuilderThreadLocal.get().capacity())
+            .isLessThanOrEqualTo(SpanJsonEncoder.MAX_RETAINED_BUFFER_SIZE);
+
+        // and when
+        byte[] smallResult = encoder.encode(spanEvent(smallSpan));
+
+        // then
+        assertThat(smallResult).isEqualTo(expectedLine(smallSpan));
+        assertThat(SpanJsonEncoder.byteBuilderThreadLocal.get().size()).isZero();
+    }
+
+    @Test
+    public void spans_logged_as_objects_by_Tracer_are_written_as_json_lines() {
+        // given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(output);
+        appender.start();
+        Logger spanLogger = (Logger) LoggerFactory.getLogger(SpanJsonEncoder.VALID_SPAN_LOGGER_NAME);
+        spanLogger.addAppender(appender);
+        Tracer.getInstance().setLogSpansAsObjects(true);
+
+        try {
+            // when
+            Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+            Span childSpan = Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+            Tracer.getInstance().completeSubSpan();
+            Tracer.getInstance().completeRequestSpan();
+
+            // then
+            assertThat(new String(output.toByteArray(), UTF_8)).isEqualTo(
+                childSpan.toJSON() + CoreConstants.LINE_SEPARATOR + rootSpan.toJSON() + CoreConstants.LINE_SEPARATOR
+            );
+        }
+        finally {
+            spanLogger.detachAppender(appender);
+            appender.stop();
+        }
+    }
+}
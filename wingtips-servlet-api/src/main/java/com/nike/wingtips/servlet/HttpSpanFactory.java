@@ -3,6 +3,7 @@ package com.nike.wingtips.servlet;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 
 import java.util.List;
 
@@ -43,6 +44,25 @@ public class HttpSpanFactory {
         return HttpRequestTracingUtils.fromRequestWithHeaders(new RequestWithHeadersServletAdapter(servletRequest), userIdHeaderKeys);
     }
 
+    /**
+     * The same as {@link #fromHttpServletRequest(HttpServletRequest, List)} except the given {@link Propagation} determines which header format(s)
+     * the span info is extracted from rather than {@link HttpRequestTracingUtils#getDefaultPropagation()}.
+     *
+     * @param servletRequest The incoming request that may have {@link Span} information embedded in the headers. If this argument is null then this method will return null.
+     * @param userIdHeaderKeys The header keys to search for a user ID - see {@link #fromHttpServletRequest(HttpServletRequest, List)} for details.
+     * @param propagation The {@link Propagation} to extract span info with. Cannot be null.
+     * @return The {@link Span} extracted from the given request by the given {@link Propagation}, or null if the request is null or doesn't contain
+     *         span info that the {@link Propagation} understands.
+     */
+    public static Span fromHttpServletRequest(HttpServletRequest servletRequest, List<String> userIdHeaderKeys, Propagation propagation) {
+        if (servletRequest == null)
+            return null;
+
+        return HttpRequestTracingUtils.fromRequestWithHeaders(
+            new RequestWithHeadersServletAdapter(servletRequest), userIdHeaderKeys, propagation
+        );
+    }
+
     /**
      * @return A {@link Span} object created from the headers if they exist (see {@link #fromHttpServletRequest(HttpServletRequest, List)} for details), or if the headers don't
      *         have enough information then this will return a new root span with a span name based on the results of {@link #getSpanName(HttpServletRequest)} and user ID based
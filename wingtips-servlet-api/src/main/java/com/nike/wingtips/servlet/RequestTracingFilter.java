@@ -3,6 +3,8 @@ package com.nike.wingtips.servlet;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.TraceHeaders;
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 import com.nike.wingtips.util.TracingState;
 
 import org.slf4j.Logger;
@@ -137,7 +139,7 @@ public class RequestTracingFilter implements Filter {
         try {
             // See if there's trace info in the incoming request's headers. If so it becomes the parent trace.
             Tracer tracer = Tracer.getInstance();
-            final Span parentSpan = HttpSpanFactory.fromHttpServletRequest(request, getUserIdHeaderKeys());
+            final Span parentSpan = HttpSpanFactory.fromHttpServletRequest(request, getUserIdHeaderKeys(), getPropagation());
             Span newSpan;
 
             if (parentSpan != null) {
@@ -228,6 +230,19 @@ public class RequestTracingFilter implements Filter {
         return userIdHeaderKeysFromInitParam;
     }
 
+    /**
+     * The {@link Propagation} that determines which header format(s) the caller's tracing info is extracted from. Override this method if you need
+     * a format other than the global default, e.g. to accept W3C Trace Context headers in addition to B3 by returning a
+     * {@link com.nike.wingtips.http.CompositePropagation}.
+     *
+     * <p>By default this method will return {@link HttpRequestTracingUtils#getDefaultPropagation()}.
+     *
+     * @return The {@link Propagation} to use when extracting the caller's span from incoming requests. Should never return null.
+     */
+    protected Propagation getPropagation() {
+        return HttpRequestTracingUtils.getDefaultPropagation();
+    }
+
     /**
      * Helper method for determining (and then caching) the {@link ServletRuntime} implementation appropriate for
      * the current Servlet runtime environment. If the current Servlet runtime environment supports the Servlet 3 API
@@ -1,10 +1,15 @@
 package com.nike.wingtips.servlet;
 
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.inflight.InFlightSpanRegistry;
 import com.nike.wingtips.util.TracingState;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Deque;
+
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 
@@ -141,6 +146,13 @@ abstract class ServletRuntime {
             asyncRequest.getAsyncContext().addListener(
                 new WingtipsRequestSpanCompletionAsyncListener(originalRequestTracingState)
             );
+
+            // The request thread is about to go do other work, so an in-flight registry shouldn't associate the
+            //      request with it anymore.
+            InFlightSpanRegistry inFlightSpanRegistry = Tracer.getInstance().getInFlightSpanRegistry();
+            Deque<Span> spanStack = originalRequestTracingState.spanStack;
+            if (inFlightSpanRegistry != null && spanStack != null && !spanStack.isEmpty())
+                inFlightSpanRegistry.detachFromThread(spanStack.peekLast());
         }
 
         @Override
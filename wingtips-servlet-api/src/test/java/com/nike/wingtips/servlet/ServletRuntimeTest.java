@@ -1,5 +1,9 @@
 package com.nike.wingtips.servlet;
 
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.inflight.InFlightSpanRegistry;
 import com.nike.wingtips.servlet.ServletRuntime.Servlet2Runtime;
 import com.nike.wingtips.servlet.ServletRuntime.Servlet3Runtime;
 import com.nike.wingtips.util.TracingState;
@@ -7,12 +11,15 @@ import com.nike.wingtips.util.TracingState;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
@@ -51,6 +58,11 @@ public class ServletRuntimeTest {
         requestMock = mock(HttpServletRequest.class);
     }
 
+    @After
+    public void afterMethod() {
+        Tracer.getInstance().setInFlightSpanRegistry(null);
+    }
+
     @DataProvider(value = {
         "true   |   true    |   true",
         "true   |   false   |   false",
@@ -186,6 +198,26 @@ public class ServletRuntimeTest {
         assertThat(listener.originalRequestTracingState).isSameAs(tracingStateMock);
     }
 
+    @Test
+    public void setupTracingCompletionWhenAsyncRequestCompletes_detaches_request_span_from_thread_in_InFlightSpanRegistry(
+    ) {
+        // given
+        doReturn(mock(AsyncContext.class)).when(requestMock).getAsyncContext();
+        InFlightSpanRegistry registry = new InFlightSpanRegistry();
+        Tracer.getInstance().setInFlightSpanRegistry(registry);
+        Span requestSpan = Span.newBuilder("request", SpanPurpose.SERVER).build();
+        registry.register(requestSpan, null);
+        TracingState tracingState = new TracingState(
+            new LinkedList<>(Collections.singletonList(requestSpan)), Collections.<String, String>emptyMap()
+        );
+
+        // when
+        servlet3Runtime.setupTracingCompletionWhenAsyncRequestCompletes(requestMock, tracingState);
+
+        // then
+        assertThat(registry.getInFlightSpans(0).get(0).getThread()).isNull();
+    }
+
     @DataProvider(value = {
         "FORWARD    |   false",
         "INCLUDE    |   false",
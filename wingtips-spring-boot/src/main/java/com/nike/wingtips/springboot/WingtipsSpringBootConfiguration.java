@@ -1,9 +1,17 @@
 package com.nike.wingtips.springboot;
 
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.metrics.NoOpTracerMetrics;
+import com.nike.wingtips.metrics.StripedTracerMetrics;
 import com.nike.wingtips.servlet.RequestTracingFilter;
+import com.nike.wingtips.springboot.metrics.TracerPipelineMetricsSource;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineEndpoint;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMeterBinder;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMetricsSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
@@ -12,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 
 import java.io.IOException;
+import java.util.List;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -44,6 +53,12 @@ import javax.servlet.ServletResponse;
  * registered, it will not look for any user ID headers, and the span logging format will not be changed (defaults to
  * JSON).
  *
+ * <p>The health of the tracing pipeline is exposed via {@link WingtipsPipelineMetricsSource} beans (a {@link
+ * TracerPipelineMetricsSource} is always registered). If the Spring Boot actuator is on the classpath they're reported
+ * by a {@link WingtipsPipelineEndpoint} (at {@code /wingtips} by default), and if Micrometer is on the classpath
+ * they're registered with your {@code MeterRegistry} by a {@link WingtipsPipelineMeterBinder}. Set {@code
+ * wingtips.tracer-metrics-enabled=true} to include the tracer's own span counts and overhead.
+ *
  * <p>If you want Zipkin support in your Wingtips Spring Boot application, please see {@code
  * WingtipsWithZipkinSpringBootConfiguration} from the {@code wingtips-zipkin2-spring-boot} Wingtips module.
  *
@@ -78,6 +93,11 @@ public class WingtipsSpringBootConfiguration {
         if (wingtipsProperties.getSpanLoggingFormat() != null) {
             Tracer.getInstance().setSpanLoggingRepresentation(wingtipsProperties.getSpanLoggingFormat());
         }
+        // Install tracer metrics if requested, unless the app already installed its own.
+        if (wingtipsProperties.isTracerMetricsEnabled()
+            && Tracer.getInstance().getTracerMetrics() instanceof NoOpTracerMetrics) {
+            Tracer.getInstance().setTracerMetrics(new StripedTracerMetrics());
+        }
     }
 
     /**
@@ -112,6 +132,44 @@ public class WingtipsSpringBootConfiguration {
         return frb;
     }
 
+    /**
+     * @return A {@link WingtipsPipelineMetricsSource} for the {@link Tracer} itself.
+     */
+    @Bean
+    public TracerPipelineMetricsSource wingtipsTracerPipelineMetricsSource() {
+        return new TracerPipelineMetricsSource(Tracer.getInstance());
+    }
+
+    /**
+     * Exposes {@link WingtipsPipelineEndpoint} when the Spring Boot actuator is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.AbstractEndpoint")
+    public static class WingtipsPipelineEndpointConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public WingtipsPipelineEndpoint wingtipsPipelineEndpoint(List<WingtipsPipelineMetricsSource> metricsSources) {
+            return new WingtipsPipelineEndpoint(metricsSources);
+        }
+    }
+
+    /**
+     * Exposes {@link WingtipsPipelineMeterBinder} when Micrometer is on the classpath. Spring Boot 2 binds it to the
+     * {@code MeterRegistry} automatically, but Spring Boot 1.5 needs {@code micrometer-spring-legacy} for that - see
+     * the {@link WingtipsPipelineMeterBinder} javadocs.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    public static class WingtipsPipelineMeterBinderConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public WingtipsPipelineMeterBinder wingtipsPipelineMeterBinder(
+            List<WingtipsPipelineMetricsSource> metricsSources
+        ) {
+            return new WingtipsPipelineMeterBinder(metricsSources);
+        }
+    }
+
     /**
      * A dummy servlet filter that does nothing - it simply calls {@link
      * FilterChain#doFilter(ServletRequest, ServletResponse)} to propagate the request/response down the filter
@@ -1,6 +1,7 @@
 package com.nike.wingtips.springboot;
 
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.metrics.StripedTracerMetrics;
 import com.nike.wingtips.servlet.RequestTracingFilter;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -25,6 +26,12 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *         {@link Tracer.SpanLoggingRepresentation} enum. Must be either JSON or KEY_VALUE. If missing then the span
  *         logging format will not be changed (defaults to JSON).
  *     </li>
+ *     <li>
+ *         wingtips.tracer-metrics-enabled - Installs a {@link StripedTracerMetrics} on the {@link Tracer} (if it
+ *         doesn't already have one) so the tracer's own span counts and overhead are reported by the Wingtips
+ *         actuator endpoint and Micrometer binder, if and only if this property value is set to true. If false or
+ *         missing then only the metrics that don't need {@link StripedTracerMetrics} are reported.
+ *     </li>
  * </ul>
  *
  * <p>For example you could set the following properties in your {@code application.properties}:
@@ -43,6 +50,7 @@ public class WingtipsSpringBootProperties {
     private boolean wingtipsDisabled = false;
     private String userIdHeaderKeys;
     private Tracer.SpanLoggingRepresentation spanLoggingFormat;
+    private boolean tracerMetricsEnabled = false;
 
     public boolean isWingtipsDisabled() {
         return wingtipsDisabled;
@@ -67,4 +75,12 @@ public class WingtipsSpringBootProperties {
     public void setSpanLoggingFormat(Tracer.SpanLoggingRepresentation spanLoggingFormat) {
         this.spanLoggingFormat = spanLoggingFormat;
     }
+
+    public boolean isTracerMetricsEnabled() {
+        return tracerMetricsEnabled;
+    }
+
+    public void setTracerMetricsEnabled(String tracerMetricsEnabled) {
+        this.tracerMetricsEnabled = "true".equalsIgnoreCase(tracerMetricsEnabled);
+    }
 }
@@ -0,0 +1,139 @@
+package com.nike.wingtips.springboot.metrics;
+
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.metrics.StripedTracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics.SpanLifecycleEvent;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMetric.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link WingtipsPipelineMetricsSource} for the {@link Tracer} itself. The number of registered {@link
+ * com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}s is always reported. If the tracer has a {@link
+ * StripedTracerMetrics} installed when this class is created (see {@link Tracer#setTracerMetrics(
+ * com.nike.wingtips.metrics.TracerMetrics)}, or the {@code wingtips.tracer-metrics-enabled} property), then span
+ * throughput, the observed sample ratio, dirty span stacks, and the time spent in lifecycle listeners and span
+ * serialization are reported as well.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TracerPipelineMetricsSource implements WingtipsPipelineMetricsSource {
+
+    protected final Tracer tracer;
+    protected final List<WingtipsPipelineMetric> metrics;
+
+    /**
+     * @param tracer The tracer to report on. Cannot be null.
+     */
+    public TracerPipelineMetricsSource(final Tracer tracer) {
+        if (tracer == null)
+            throw new IllegalArgumentException("tracer cannot be null");
+
+        this.tracer = tracer;
+
+        List<WingtipsPipelineMetric> metricsList = new ArrayList<>();
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.lifecycle.listeners", Type.GAUGE, "Number of registered span lifecycle listeners"
+        ) {
+            @Override
+            public double getValue() {
+                return tracer.getSpanLifecycleListeners().size();
+            }
+        });
+
+        if (tracer.getTracerMetrics() instanceof StripedTracerMetrics)
+            addTracerMetrics((StripedTracerMetrics) tracer.getTracerMetrics(), metricsList);
+
+        this.metrics = Collections.unmodifiableList(metricsList);
+    }
+
+    protected void addTracerMetrics(final StripedTracerMetrics tracerMetrics, List<WingtipsPipelineMetric> metricsList) {
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.spans.started", Type.COUNTER, "Spans started"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getSpansStarted();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.spans.sampled", Type.COUNTER, "Spans started that were sampled"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getSpansSampled();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.spans.completed", Type.COUNTER, "Spans completed"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getSpansCompleted();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.spans.sampled.ratio", Type.GAUGE,
+            "Fraction of started spans that were sampled (0 to 1), since startup"
+        ) {
+            @Override
+            public double getValue() {
+                long started = tracerMetrics.getSpansStarted();
+                return (started == 0) ? 0 : ((double) tracerMetrics.getSpansSampled()) / started;
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.span.stack.depth.max", Type.GAUGE, "Deepest span stack seen"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getMaxSpanStackDepth();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.span.stacks.dirty", Type.COUNTER,
+            "Span stacks found with leftover spans (usually a missed completeRequestSpan or unregister call)"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getDirtySpanStackCount();
+            }
+        });
+
+        for (final SpanLifecycleEvent event : SpanLifecycleEvent.values()) {
+            metricsList.add(new WingtipsPipelineMetric(
+                "wingtips.tracer.listeners." + event.name().toLowerCase() + ".nanos", Type.COUNTER,
+                "Total nanoseconds spent notifying span lifecycle listeners of " + event.name().toLowerCase()
+                + " spans"
+            ) {
+                @Override
+                public double getValue() {
+                    return tracerMetrics.getSpanLifecycleListenerNanos(event);
+                }
+            });
+        }
+
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.serialized.spans", Type.COUNTER, "Spans serialized for logging"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getSerializedSpans();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.tracer.serialization.nanos", Type.COUNTER, "Total nanoseconds spent serializing spans for logging"
+        ) {
+            @Override
+            public double getValue() {
+                return tracerMetrics.getSerializationNanos();
+            }
+        });
+    }
+
+    @Override
+    public List<WingtipsPipelineMetric> getPipelineMetrics() {
+        return metrics;
+    }
+}
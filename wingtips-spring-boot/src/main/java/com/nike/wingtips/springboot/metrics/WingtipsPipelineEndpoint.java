@@ -0,0 +1,48 @@
+package com.nike.wingtips.springboot.metrics;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Spring Boot actuator endpoint (id {@code wingtips}, so {@code /wingtips} by default) that reports the current
+ * value of every {@link WingtipsPipelineMetric} from the given {@link WingtipsPipelineMetricsSource}s, keyed by metric
+ * name. Counters are reported as whole numbers. Registered automatically by {@code WingtipsSpringBootConfiguration}
+ * when the Spring Boot actuator is on the classpath.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsPipelineEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    public static final String ENDPOINT_ID = "wingtips";
+
+    protected final List<WingtipsPipelineMetricsSource> metricsSources;
+
+    /**
+     * @param metricsSources The sources to report metrics for. May be null or empty, in which case the endpoint will
+     * report nothing.
+     */
+    public WingtipsPipelineEndpoint(List<WingtipsPipelineMetricsSource> metricsSources) {
+        super(ENDPOINT_ID);
+        this.metricsSources = (metricsSources == null)
+                              ? Collections.<WingtipsPipelineMetricsSource>emptyList()
+                              : metricsSources;
+    }
+
+    @Override
+    public Map<String, Object> invoke() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (WingtipsPipelineMetricsSource source : metricsSources) {
+            for (WingtipsPipelineMetric metric : source.getPipelineMetrics()) {
+                double value = metric.getValue();
+                result.put(
+                    metric.getName(),
+                    (metric.getType() == WingtipsPipelineMetric.Type.COUNTER) ? (Object) (long) value : value
+                );
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package com.nike.wingtips.springboot.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A Micrometer {@link MeterBinder} that registers every {@link WingtipsPipelineMetric} from the given {@link
+ * WingtipsPipelineMetricsSource}s with a {@link MeterRegistry} - {@link WingtipsPipelineMetric.Type#COUNTER} metrics
+ * as {@link FunctionCounter}s and {@link WingtipsPipelineMetric.Type#GAUGE} metrics as {@link Gauge}s. The meters read
+ * the metric values whenever the registry publishes, so there's no extra work on the request path. The meters don't
+ * carry the metrics' descriptions, since Micrometer only takes those through its builders and those can't be called
+ * from this module's Java 7 code - the {@code WingtipsPipelineEndpoint} reports them instead.
+ *
+ * <p>{@code WingtipsSpringBootConfiguration} exposes one of these as a bean when Micrometer is on the classpath. Spring
+ * Boot 2 binds {@link MeterBinder} beans to the {@link MeterRegistry} automatically. Spring Boot 1.5 only does that if
+ * you add {@code io.micrometer:micrometer-spring-legacy}. Otherwise call {@link #bindTo(MeterRegistry)} on the bean
+ * yourself.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsPipelineMeterBinder implements MeterBinder {
+
+    protected static final ToDoubleFunction<WingtipsPipelineMetric> METRIC_VALUE_FUNCTION =
+        new ToDoubleFunction<WingtipsPipelineMetric>() {
+            @Override
+            public double applyAsDouble(WingtipsPipelineMetric metric) {
+                return metric.getValue();
+            }
+        };
+
+    protected static final List<Tag> NO_TAGS = Collections.emptyList();
+
+    protected final List<WingtipsPipelineMetricsSource> metricsSources;
+
+    /**
+     * @param metricsSources The sources whose metrics should be registered. May be null or empty, in which case
+     * nothing will be registered.
+     */
+    public WingtipsPipelineMeterBinder(List<WingtipsPipelineMetricsSource> metricsSources) {
+        this.metricsSources = (metricsSources == null)
+                              ? Collections.<WingtipsPipelineMetricsSource>emptyList()
+                              : metricsSources;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (WingtipsPipelineMetricsSource source : metricsSources) {
+            for (WingtipsPipelineMetric metric : source.getPipelineMetrics()) {
+                // The FunctionCounter/Gauge builders are static interface methods, which can't be called from Java 7
+                //      source, so register through the registry's own methods instead.
+                if (metric.getType() == WingtipsPipelineMetric.Type.COUNTER)
+                    registry.more().counter(metric.getName(), NO_TAGS, metric, METRIC_VALUE_FUNCTION);
+                else
+                    registry.gauge(metric.getName(), NO_TAGS, metric, METRIC_VALUE_FUNCTION);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.nike.wingtips.springboot.metrics;
+
+/**
+ * A single named value describing the health of the Wingtips tracing pipeline (span throughput, queue depths, drops,
+ * etc), as reported by a {@link WingtipsPipelineMetricsSource}. The value is read fresh each time {@link #getValue()}
+ * is called, so the same instance can be exposed by {@link WingtipsPipelineEndpoint} and registered with Micrometer
+ * via {@link WingtipsPipelineMeterBinder}.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class WingtipsPipelineMetric {
+
+    /**
+     * The kind of value a {@link WingtipsPipelineMetric} represents.
+     */
+    public enum Type {
+        /**
+         * A cumulative total that only ever goes up (e.g. spans completed since startup).
+         */
+        COUNTER,
+        /**
+         * A point-in-time value that can go up or down (e.g. spans currently queued).
+         */
+        GAUGE
+    }
+
+    protected final String name;
+    protected final Type type;
+    protected final String description;
+
+    /**
+     * @param name The metric name, in Micrometer's dot-separated style (e.g. {@code wingtips.tracer.spans.started}).
+     * Cannot be null.
+     * @param type The kind of value this metric represents. Cannot be null.
+     * @param description A short human readable description of the metric. May be null.
+     */
+    public WingtipsPipelineMetric(String name, Type type, String description) {
+        if (name == null)
+            throw new IllegalArgumentException("name cannot be null");
+
+        if (type == null)
+            throw new IllegalArgumentException("type cannot be null");
+
+        this.name = name;
+        this.type = type;
+        this.description = description;
+    }
+
+    /**
+     * @return The current value of this metric.
+     */
+    public abstract double getValue();
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
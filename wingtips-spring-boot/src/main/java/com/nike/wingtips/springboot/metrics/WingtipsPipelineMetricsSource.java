@@ -0,0 +1,19 @@
+package com.nike.wingtips.springboot.metrics;
+
+import java.util.List;
+
+/**
+ * Supplies {@link WingtipsPipelineMetric}s for one part of the Wingtips tracing pipeline. Expose implementations as
+ * Spring beans and {@link WingtipsPipelineEndpoint} and {@link WingtipsPipelineMeterBinder} will pick them all up.
+ * See {@link TracerPipelineMetricsSource} for the metrics of the {@link com.nike.wingtips.Tracer} itself, and the
+ * {@code wingtips-zipkin2-spring-boot} module for the Zipkin reporter's metrics.
+ */
+public interface WingtipsPipelineMetricsSource {
+
+    /**
+     * @return The metrics this source provides. Should return the same metrics (by name) on every call - the values
+     * are read from each metric when needed. Never null.
+     */
+    List<WingtipsPipelineMetric> getPipelineMetrics();
+
+}
@@ -2,15 +2,23 @@ package com.nike.wingtips.springboot;
 
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.Tracer.SpanLoggingRepresentation;
+import com.nike.wingtips.metrics.NoOpTracerMetrics;
+import com.nike.wingtips.metrics.StripedTracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics;
 import com.nike.wingtips.servlet.RequestTracingFilter;
 import com.nike.wingtips.springboot.WingtipsSpringBootConfiguration.DoNothingServletFilter;
 import com.nike.wingtips.springboot.componenttest.componentscanonly.ComponentTestMainWithComponentScanOnly;
 import com.nike.wingtips.springboot.componenttest.manualimportandcomponentscan.ComponentTestMainWithBothManualImportAndComponentScan;
 import com.nike.wingtips.springboot.componenttest.manualimportonly.ComponentTestMainManualImportOnly;
+import com.nike.wingtips.springboot.metrics.TracerPipelineMetricsSource;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineEndpoint;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMeterBinder;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.SpringApplication;
@@ -44,6 +52,20 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 @RunWith(DataProviderRunner.class)
 public class WingtipsSpringBootConfigurationTest {
 
+    @Before
+    public void beforeMethod() {
+        resetTracerMetrics();
+    }
+
+    @After
+    public void afterMethod() {
+        resetTracerMetrics();
+    }
+
+    private void resetTracerMetrics() {
+        Tracer.getInstance().setTracerMetrics(NoOpTracerMetrics.INSTANCE);
+    }
+
     private WingtipsSpringBootProperties generateProps(boolean disabled,
                                                        String userIdHeaderKeys,
                                                        SpanLoggingRepresentation spanLoggingFormat) {
@@ -76,6 +98,55 @@ public class WingtipsSpringBootConfigurationTest {
         assertThat(Tracer.getInstance().getSpanLoggingRepresentation()).isEqualTo(expectedSpanLoggingFormat);
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void constructor_installs_StripedTracerMetrics_only_if_tracerMetricsEnabled_is_true(
+        boolean tracerMetricsEnabled
+    ) {
+        // given
+        WingtipsSpringBootProperties props = generateProps(false, null, null);
+        props.setTracerMetricsEnabled(String.valueOf(tracerMetricsEnabled));
+
+        // when
+        new WingtipsSpringBootConfiguration(props);
+
+        // then
+        if (tracerMetricsEnabled)
+            assertThat(Tracer.getInstance().getTracerMetrics()).isInstanceOf(StripedTracerMetrics.class);
+        else
+            assertThat(Tracer.getInstance().getTracerMetrics()).isSameAs(NoOpTracerMetrics.INSTANCE);
+    }
+
+    @Test
+    public void constructor_does_not_replace_existing_TracerMetrics_when_tracerMetricsEnabled_is_true() {
+        // given
+        TracerMetrics existingMetrics = new StripedTracerMetrics();
+        Tracer.getInstance().setTracerMetrics(existingMetrics);
+        WingtipsSpringBootProperties props = generateProps(false, null, null);
+        props.setTracerMetricsEnabled("true");
+
+        // when
+        new WingtipsSpringBootConfiguration(props);
+
+        // then
+        assertThat(Tracer.getInstance().getTracerMetrics()).isSameAs(existingMetrics);
+    }
+
+    @Test
+    public void wingtipsTracerPipelineMetricsSource_returns_source_for_Tracer_singleton() {
+        // given
+        WingtipsSpringBootConfiguration conf = new WingtipsSpringBootConfiguration(generateProps(false, null, null));
+
+        // when
+        TracerPipelineMetricsSource source = conf.wingtipsTracerPipelineMetricsSource();
+
+        // then
+        assertThat(source.getPipelineMetrics()).isNotEmpty();
+    }
+
     @DataProvider(value = {
         "true   |   true",
         "true   |   false",
@@ -217,6 +288,12 @@ public class WingtipsSpringBootConfigurationTest {
             assertThat(config).isNotNull();
             assertThat(props).isNotNull();
             assertThat(config.wingtipsProperties).isSameAs(props);
+
+            // The actuator and Micrometer are on the test classpath, so the pipeline metrics beans should be too.
+            assertThat(serverAppContext.getBean(TracerPipelineMetricsSource.class)).isNotNull();
+            assertThat(serverAppContext.getBean(WingtipsPipelineEndpoint.class).invoke())
+                .containsKey("wingtips.tracer.lifecycle.listeners");
+            assertThat(serverAppContext.getBean(WingtipsPipelineMeterBinder.class)).isNotNull();
         }
         finally {
             SpringApplication.exit(serverAppContext);
@@ -50,6 +50,31 @@ public class WingtipsSpringBootPropertiesTest {
         assertThat(props.isWingtipsDisabled()).isEqualTo(expectedGetterResult);
     }
 
+    @DataProvider(value = {
+        "true   |   true",
+        "TRUE   |   true",
+        "false  |   false",
+        "       |   false",
+        "junk   |   false",
+        "null   |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void tracerMetricsEnabled_getter_and_setter_works_as_expected(
+        String propValueAsStringForSetter, boolean expectedGetterResult
+    ) {
+        // when
+        props.setTracerMetricsEnabled(propValueAsStringForSetter);
+
+        // then
+        assertThat(props.isTracerMetricsEnabled()).isEqualTo(expectedGetterResult);
+    }
+
+    @Test
+    public void tracerMetricsEnabled_defaults_to_false() {
+        // expect
+        assertThat(props.isTracerMetricsEnabled()).isFalse();
+    }
+
     @Test
     public void exercise_standard_getters_and_setters() {
         // userIdHeaderKeys getter/setter
@@ -0,0 +1,138 @@
+package com.nike.wingtips.springboot.metrics;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.metrics.NoOpTracerMetrics;
+import com.nike.wingtips.metrics.StripedTracerMetrics;
+import com.nike.wingtips.metrics.TracerMetrics.SpanLifecycleEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link TracerPipelineMetricsSource}.
+ */
+public class TracerPipelineMetricsSourceTest {
+
+    @Before
+    public void beforeMethod() {
+        resetTracer();
+    }
+
+    @After
+    public void afterMethod() {
+        resetTracer();
+    }
+
+    private void resetTracer() {
+        Tracer.getInstance().completeRequestSpan();
+        for (SpanLifecycleListener listener : new ArrayList<>(Tracer.getInstance().getSpanLifecycleListeners())) {
+            Tracer.getInstance().removeSpanLifecycleListener(listener);
+        }
+        Tracer.getInstance().setTracerMetrics(NoOpTracerMetrics.INSTANCE);
+    }
+
+    private Map<String, WingtipsPipelineMetric> metricsByName(WingtipsPipelineMetricsSource source) {
+        Map<String, WingtipsPipelineMetric> result = new HashMap<>();
+        for (WingtipsPipelineMetric metric : source.getPipelineMetrics()) {
+            result.put(metric.getName(), metric);
+        }
+        return result;
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_tracer() {
+        // when
+        Throwable ex = catchThrowable(() -> new TracerPipelineMetricsSource(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class).hasMessage("tracer cannot be null");
+    }
+
+    @Test
+    public void only_lifecycle_listener_count_is_reported_without_StripedTracerMetrics() {
+        // given
+        Tracer.getInstance().addSpanLifecycleListener(mock(SpanLifecycleListener.class));
+        TracerPipelineMetricsSource source = new TracerPipelineMetricsSource(Tracer.getInstance());
+
+        // when
+        Map<String, WingtipsPipelineMetric> metrics = metricsByName(source);
+
+        // then
+        assertThat(metrics).hasSize(1);
+        WingtipsPipelineMetric listenerCount = metrics.get("wingtips.tracer.lifecycle.listeners");
+        assertThat(listenerCount.getType()).isEqualTo(WingtipsPipelineMetric.Type.GAUGE);
+        assertThat(listenerCount.getValue()).isEqualTo(1);
+
+        // and when
+        Tracer.getInstance().addSpanLifecycleListener(mock(SpanLifecycleListener.class));
+
+        // then
+        assertThat(listenerCount.getValue()).isEqualTo(2);
+    }
+
+    @Test
+    public void tracer_metrics_are_reported_when_StripedTracerMetrics_is_installed() {
+        // given
+        StripedTracerMetrics tracerMetrics = new StripedTracerMetrics();
+        Tracer.getInstance().setTracerMetrics(tracerMetrics);
+        TracerPipelineMetricsSource source = new TracerPipelineMetricsSource(Tracer.getInstance());
+        Span sampledSpan = Span.newBuilder("sampled", Span.SpanPurpose.SERVER).withSampleable(true).build();
+        Span unsampledSpan = Span.newBuilder("unsampled", Span.SpanPurpose.SERVER).withSampleable(false).build();
+
+        // when
+        tracerMetrics.spanStarted(sampledSpan);
+        tracerMetrics.spanSampled(sampledSpan);
+        tracerMetrics.spanStarted(unsampledSpan);
+        tracerMetrics.spanCompleted(sampledSpan);
+        tracerMetrics.spanStackPushed(3);
+        tracerMetrics.spanLifecycleListenersNotified(SpanLifecycleEvent.COMPLETED, 1234);
+        tracerMetrics.spansSerialized(2, 5678);
+        Map<String, WingtipsPipelineMetric> metrics = metricsByName(source);
+
+        // then
+        assertThat(metrics.get("wingtips.tracer.spans.started").getValue()).isEqualTo(2);
+        assertThat(metrics.get("wingtips.tracer.spans.started").getType())
+            .isEqualTo(WingtipsPipelineMetric.Type.COUNTER);
+        assertThat(metrics.get("wingtips.tracer.spans.sampled").getValue()).isEqualTo(1);
+        assertThat(metrics.get("wingtips.tracer.spans.completed").getValue()).isEqualTo(1);
+        assertThat(metrics.get("wingtips.tracer.spans.sampled.ratio").getValue()).isEqualTo(0.5);
+        assertThat(metrics.get("wingtips.tracer.span.stack.depth.max").getValue()).isEqualTo(3);
+        assertThat(metrics.get("wingtips.tracer.span.stacks.dirty").getValue()).isEqualTo(0);
+        assertThat(metrics.get("wingtips.tracer.listeners.completed.nanos").getValue()).isEqualTo(1234);
+        assertThat(metrics.get("wingtips.tracer.listeners.started.nanos").getValue()).isEqualTo(0);
+        assertThat(metrics.get("wingtips.tracer.serialized.spans").getValue()).isEqualTo(2);
+        assertThat(metrics.get("wingtips.tracer.serialization.nanos").getValue()).isEqualTo(5678);
+    }
+
+    @Test
+    public void sampled_ratio_is_0_when_no_spans_have_started() {
+        // given
+        Tracer.getInstance().setTracerMetrics(new StripedTracerMetrics());
+        TracerPipelineMetricsSource source = new TracerPipelineMetricsSource(Tracer.getInstance());
+
+        // expect
+        assertThat(metricsByName(source).get("wingtips.tracer.spans.sampled.ratio").getValue()).isEqualTo(0);
+    }
+
+    @Test
+    public void metric_names_are_unique_and_the_same_list_is_returned_each_time() {
+        // given
+        Tracer.getInstance().setTracerMetrics(new StripedTracerMetrics());
+        TracerPipelineMetricsSource source = new TracerPipelineMetricsSource(Tracer.getInstance());
+
+        // expect
+        assertThat(metricsByName(source)).hasSameSizeAs(source.getPipelineMetrics());
+        assertThat(source.getPipelineMetrics()).isSameAs(source.getPipelineMetrics());
+    }
+}
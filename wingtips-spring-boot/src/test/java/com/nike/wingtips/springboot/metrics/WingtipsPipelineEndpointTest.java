@@ -0,0 +1,75 @@
+package com.nike.wingtips.springboot.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link WingtipsPipelineEndpoint}.
+ */
+public class WingtipsPipelineEndpointTest {
+
+    static WingtipsPipelineMetric fixedMetric(String name, WingtipsPipelineMetric.Type type, final double value) {
+        return new WingtipsPipelineMetric(name, type, "description for " + name) {
+            @Override
+            public double getValue() {
+                return value;
+            }
+        };
+    }
+
+    static WingtipsPipelineMetricsSource fixedSource(final WingtipsPipelineMetric... metrics) {
+        return new WingtipsPipelineMetricsSource() {
+            @Override
+            public List<WingtipsPipelineMetric> getPipelineMetrics() {
+                return Arrays.asList(metrics);
+            }
+        };
+    }
+
+    @Test
+    public void endpoint_id_is_wingtips() {
+        // when
+        WingtipsPipelineEndpoint endpoint = new WingtipsPipelineEndpoint(null);
+
+        // then
+        assertThat(endpoint.getId()).isEqualTo("wingtips");
+    }
+
+    @Test
+    public void invoke_returns_all_metrics_from_all_sources_in_order() {
+        // given
+        WingtipsPipelineEndpoint endpoint = new WingtipsPipelineEndpoint(Arrays.asList(
+            fixedSource(
+                fixedMetric("foo.counter", WingtipsPipelineMetric.Type.COUNTER, 42),
+                fixedMetric("foo.gauge", WingtipsPipelineMetric.Type.GAUGE, 0.25)
+            ),
+            fixedSource(fixedMetric("bar.gauge", WingtipsPipelineMetric.Type.GAUGE, 7))
+        ));
+
+        // when
+        Map<String, Object> result = endpoint.invoke();
+
+        // then
+        assertThat(result.keySet()).containsExactly("foo.counter", "foo.gauge", "bar.gauge");
+        assertThat(result.get("foo.counter")).isEqualTo(42L);
+        assertThat(result.get("foo.gauge")).isEqualTo(0.25);
+        assertThat(result.get("bar.gauge")).isEqualTo(7.0);
+    }
+
+    @Test
+    public void invoke_returns_empty_map_when_there_are_no_sources() {
+        // given
+        WingtipsPipelineEndpoint endpoint = new WingtipsPipelineEndpoint(
+            Collections.<WingtipsPipelineMetricsSource>emptyList()
+        );
+
+        // expect
+        assertThat(endpoint.invoke()).isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package com.nike.wingtips.springboot.metrics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static com.nike.wingtips.springboot.metrics.WingtipsPipelineEndpointTest.fixedMetric;
+import static com.nike.wingtips.springboot.metrics.WingtipsPipelineEndpointTest.fixedSource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link WingtipsPipelineMeterBinder}.
+ */
+public class WingtipsPipelineMeterBinderTest {
+
+    @Test
+    public void bindTo_registers_counters_and_gauges_that_read_live_values() {
+        // given
+        final AtomicLong counterValue = new AtomicLong(5);
+        WingtipsPipelineMetric counter = new WingtipsPipelineMetric(
+            "foo.counter", WingtipsPipelineMetric.Type.COUNTER, "some counter"
+        ) {
+            @Override
+            public double getValue() {
+                return counterValue.get();
+            }
+        };
+        WingtipsPipelineMeterBinder binder = new WingtipsPipelineMeterBinder(Collections.singletonList(
+            fixedSource(counter, fixedMetric("foo.gauge", WingtipsPipelineMetric.Type.GAUGE, 0.5))
+        ));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // when
+        binder.bindTo(registry);
+
+        // then
+        FunctionCounter functionCounter = registry.get("foo.counter").functionCounter();
+        assertThat(functionCounter.count()).isEqualTo(5);
+        Gauge gauge = registry.get("foo.gauge").gauge();
+        assertThat(gauge.value()).isEqualTo(0.5);
+
+        // and when
+        counterValue.set(9);
+
+        // then
+        assertThat(functionCounter.count()).isEqualTo(9);
+    }
+
+    @Test
+    public void bindTo_does_nothing_when_there_are_no_sources() {
+        // given
+        WingtipsPipelineMeterBinder binder = new WingtipsPipelineMeterBinder(null);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // when
+        binder.bindTo(registry);
+
+        // then
+        assertThat(registry.getMeters()).isEmpty();
+    }
+}
@@ -3,6 +3,7 @@ package com.nike.wingtips.spring.interceptor;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 import com.nike.wingtips.spring.util.HttpRequestWrapperWithModifiableHeaders;
 import com.nike.wingtips.util.TracingState;
 
@@ -101,7 +102,7 @@ public class WingtipsAsyncClientHttpRequestInterceptor implements AsyncClientHtt
 
         try {
             // Whether we created a subspan or not we want to add the tracing headers with the current span's info.
-            propagateTracingHeaders(wrapperRequest, tracer.getCurrentSpan());
+            propagateTracingHeaders(wrapperRequest, tracer.getCurrentSpan(), getPropagation());
 
             // Execute the request/interceptor chain, and add the callback to finish the subspan (if one exists).
             ListenableFuture<ClientHttpResponse> result = execution.executeAsync(wrapperRequest, body);
@@ -145,6 +146,17 @@ public class WingtipsAsyncClientHttpRequestInterceptor implements AsyncClientHtt
         );
     }
 
+    /**
+     * Returns the {@link Propagation} that determines which tracing header format(s) are sent on downstream calls. Defaults to
+     * {@link HttpRequestTracingUtils#getDefaultPropagation()}. You can override this method to send a different format, e.g. W3C Trace Context
+     * headers via {@link com.nike.wingtips.http.W3CTraceContextPropagation}.
+     *
+     * @return The {@link Propagation} to use when setting tracing headers on downstream calls. Should never return null.
+     */
+    protected Propagation getPropagation() {
+        return HttpRequestTracingUtils.getDefaultPropagation();
+    }
+
     /**
      * A {@link ListenableFutureCallback} that will complete the given {@link TracingState} (e.g. tracing state
      * representing a subspan) when executed. This should be attached as a callback to the result of {@link
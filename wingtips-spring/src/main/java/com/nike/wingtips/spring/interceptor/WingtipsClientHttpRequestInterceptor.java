@@ -4,6 +4,7 @@ import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 import com.nike.wingtips.spring.util.HttpRequestWrapperWithModifiableHeaders;
 
 import org.springframework.http.HttpRequest;
@@ -83,7 +84,7 @@ public class WingtipsClientHttpRequestInterceptor implements ClientHttpRequestIn
             }
 
             HttpRequest wrapperRequest = new HttpRequestWrapperWithModifiableHeaders(request);
-            propagateTracingHeaders(wrapperRequest, tracer.getCurrentSpan());
+            propagateTracingHeaders(wrapperRequest, tracer.getCurrentSpan(), getPropagation());
 
             return execution.execute(wrapperRequest, body);
         }
@@ -112,4 +113,15 @@ public class WingtipsClientHttpRequestInterceptor implements ClientHttpRequestIn
             "resttemplate_downstream_call", getRequestMethodAsString(request.getMethod()), request.getURI().toString()
         );
     }
+
+    /**
+     * Returns the {@link Propagation} that determines which tracing header format(s) are sent on downstream calls. Defaults to
+     * {@link HttpRequestTracingUtils#getDefaultPropagation()}. You can override this method to send a different format, e.g. W3C Trace Context
+     * headers via {@link com.nike.wingtips.http.W3CTraceContextPropagation}.
+     *
+     * @return The {@link Propagation} to use when setting tracing headers on downstream calls. Should never return null.
+     */
+    protected Propagation getPropagation() {
+        return HttpRequestTracingUtils.getDefaultPropagation();
+    }
 }
@@ -4,6 +4,7 @@ import com.nike.internal.util.Pair;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.http.Propagation;
 import com.nike.wingtips.spring.interceptor.WingtipsAsyncClientHttpRequestInterceptor;
 import com.nike.wingtips.spring.interceptor.WingtipsClientHttpRequestInterceptor;
 import com.nike.wingtips.spring.util.asynchelperwrapper.FailureCallbackWithTracing;
@@ -95,7 +96,8 @@ public class WingtipsSpringUtil {
      * ({@link WingtipsClientHttpRequestInterceptor} or {@link WingtipsAsyncClientHttpRequestInterceptor}), however
      * you can call this method to do manual propagation if needed.
      *
-     * <p>This method conforms to the <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a>.
+     * <p>The headers sent are determined by {@link HttpRequestTracingUtils#getDefaultPropagation()}, which conforms to the
+     * <a href="https://github.com/openzipkin/b3-propagation">B3 propagation spec</a> unless it has been changed.
      *
      * @param httpMessage The {@link HttpMessage} to set tracing headers on. Can be null - if this is null then this
      * method will do nothing.
@@ -109,6 +111,23 @@ public class WingtipsSpringUtil {
         HttpRequestTracingUtils.propagateTracingHeaders(headersForPropagation, span);
     }
 
+    /**
+     * The same as {@link #propagateTracingHeaders(HttpMessage, Span)} except the given {@link Propagation} determines which header format(s) are
+     * sent rather than {@link HttpRequestTracingUtils#getDefaultPropagation()}.
+     *
+     * @param httpMessage The {@link HttpMessage} to set tracing headers on. Can be null - if this is null then this
+     * method will do nothing.
+     * @param span The {@link Span} to get the tracing info from to set on the headers. Can be null - if this is null
+     * then this method will do nothing.
+     * @param propagation The {@link Propagation} to set the headers with. Cannot be null.
+     */
+    public static void propagateTracingHeaders(HttpMessage httpMessage, Span span, Propagation propagation) {
+        HttpHeadersForPropagation headersForPropagation = (httpMessage == null)
+                                                          ? null
+                                                          : new HttpHeadersForPropagation(httpMessage);
+        HttpRequestTracingUtils.propagateTracingHeaders(headersForPropagation, span, propagation);
+    }
+
     /**
      * @param method The HTTP method.
      * @return "UNKNOWN" if the method is null, otherwise {@link HttpMethod#name()}.
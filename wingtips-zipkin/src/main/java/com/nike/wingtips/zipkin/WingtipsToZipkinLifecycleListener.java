@@ -2,6 +2,8 @@ package com.nike.wingtips.zipkin;
 
 import com.nike.wingtips.Span;
 import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.zipkin.util.DeferredConversionZipkinSpanSender;
+import com.nike.wingtips.zipkin.util.DeferredConversionZipkinSpanSender.SpanConversion;
 import com.nike.wingtips.zipkin.util.WingtipsToZipkinSpanConverter;
 import com.nike.wingtips.zipkin.util.WingtipsToZipkinSpanConverterDefaultImpl;
 import com.nike.wingtips.zipkin.util.ZipkinSpanSender;
@@ -32,6 +34,12 @@ import zipkin.Endpoint;
  *     as a {@link ZipkinSpanSender}. So if you're accustomed to using specific Zipkin {@code SpanCollector}s you can use them with
  *     Wingtips unchanged.
  * </p>
+ * <p>
+ *     By default spans are converted to Zipkin spans on the thread that completes them (usually a request handling thread). If you pass
+ *     {@code deferSpanConversion = true} to the kitchen-sink constructor (which requires a {@link DeferredConversionZipkinSpanSender}, like the
+ *     default {@link ZipkinSpanSenderDefaultHttpImpl}) then the completed Wingtips spans are instead queued as-is, and converted in bulk on the
+ *     sender's thread, so only the enqueue happens on the thread that completed the span.
+ * </p>
  *
  * @deprecated Please migrate to the wingtips-zipkin2 dependency.
  * 
@@ -48,6 +56,11 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
     protected final Endpoint zipkinEndpoint;
     protected final WingtipsToZipkinSpanConverter zipkinSpanConverter;
     protected final ZipkinSpanSender zipkinSpanSender;
+    /**
+     * The same object as {@link #zipkinSpanSender} if span conversion is deferred to the sender thread, otherwise null.
+     */
+    protected final DeferredConversionZipkinSpanSender deferredConversionSender;
+    protected final SpanConversion deferredSpanConversion;
 
     protected final AtomicLong spanHandlingErrorCounter = new AtomicLong(0);
     protected long lastSpanHandlingErrorLogTimeEpochMillis = 0;
@@ -65,14 +78,63 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
      *                                what value you should send.
      * @param zipkinSpanConverter The {@link WingtipsToZipkinSpanConverter} that should be used to convert Wingtips spans to Zipkin spans.
      * @param zipkinSpanSender The {@link ZipkinSpanSender} for collecting and sending Zipkin spans to the Zipkin server.
+     * @param deferSpanConversion Pass in true to queue completed Wingtips spans as-is and convert them in bulk on the sender thread, rather than
+     *                            converting them on the thread that completes them. If this is true then {@code zipkinSpanSender} must be a
+     *                            {@link DeferredConversionZipkinSpanSender}.
      */
     public WingtipsToZipkinLifecycleListener(String serviceName, String localComponentNamespace, WingtipsToZipkinSpanConverter zipkinSpanConverter,
-                                             ZipkinSpanSender zipkinSpanSender) {
+                                             ZipkinSpanSender zipkinSpanSender, boolean deferSpanConversion) {
+        if (deferSpanConversion && !(zipkinSpanSender instanceof DeferredConversionZipkinSpanSender)) {
+            throw new IllegalArgumentException(
+                "zipkinSpanSender must be a DeferredConversionZipkinSpanSender when deferSpanConversion is true. Invalid sender: "
+                + zipkinSpanSender
+            );
+        }
+
         this.serviceName = serviceName;
         this.localComponentNamespace = localComponentNamespace;
         this.zipkinEndpoint = Endpoint.builder().serviceName(serviceName).build();
         this.zipkinSpanConverter = zipkinSpanConverter;
         this.zipkinSpanSender = zipkinSpanSender;
+
+        if (deferSpanConversion) {
+            this.deferredConversionSender = (DeferredConversionZipkinSpanSender) zipkinSpanSender;
+            this.deferredSpanConversion = new SpanConversion() {
+                @Override
+                public zipkin.Span convertToZipkinSpan(Span wingtipsSpan) {
+                    try {
+                        return convertWingtipsSpanToZipkinSpan(wingtipsSpan);
+                    }
+                    catch(Throwable ex) {
+                        handleSpanError(wingtipsSpan, ex);
+                        return null;
+                    }
+                }
+            };
+        }
+        else {
+            this.deferredConversionSender = null;
+            this.deferredSpanConversion = null;
+        }
+    }
+
+    /**
+     * Constructor that converts spans on the thread that completes them. Calls the kitchen-sink constructor with
+     * {@code deferSpanConversion = false}.
+     *
+     * @param serviceName The name of this service. This is used to build the Zipkin {@link Endpoint} that will be used for client/server/local
+     *                    Zipkin annotations when sending spans to Zipkin.
+     * @param localComponentNamespace The {@link zipkin.Constants#LOCAL_COMPONENT} namespace that should be used when creating certain Zipkin
+     *                                annotations when the Wingtips span's {@link Span#getSpanPurpose()} is
+     *                                {@link com.nike.wingtips.Span.SpanPurpose#LOCAL_ONLY}. See the {@link zipkin.Constants#LOCAL_COMPONENT}
+     *                                javadocs for more information on what this is and how it's used by the Zipkin server, so you know
+     *                                what value you should send.
+     * @param zipkinSpanConverter The {@link WingtipsToZipkinSpanConverter} that should be used to convert Wingtips spans to Zipkin spans.
+     * @param zipkinSpanSender The {@link ZipkinSpanSender} for collecting and sending Zipkin spans to the Zipkin server.
+     */
+    public WingtipsToZipkinLifecycleListener(String serviceName, String localComponentNamespace, WingtipsToZipkinSpanConverter zipkinSpanConverter,
+                                             ZipkinSpanSender zipkinSpanSender) {
+        this(serviceName, localComponentNamespace, zipkinSpanConverter, zipkinSpanSender, false);
     }
 
     /**
@@ -90,10 +152,31 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
      *                               e.g. {@code http://localhost:9411}, or {@code https://zipkinserver.doesnotexist.com/}
      */
     public WingtipsToZipkinLifecycleListener(String serviceName, String localComponentNamespace, String postZipkinSpansBaseUrl) {
+        this(serviceName, localComponentNamespace, postZipkinSpansBaseUrl, false);
+    }
+
+    /**
+     * Convenience constructor that uses {@link WingtipsToZipkinSpanConverterDefaultImpl} and {@link ZipkinSpanSenderDefaultHttpImpl} as the
+     * implementations for {@link #zipkinSpanConverter} and {@link #zipkinSpanSender}, and lets you choose whether span conversion is deferred
+     * to the sender thread.
+     *
+     * @param serviceName The name of this service. This is used to build the Zipkin {@link Endpoint} that will be used for client/server/local
+     *                    Zipkin annotations when sending spans to Zipkin.
+     * @param localComponentNamespace The {@link zipkin.Constants#LOCAL_COMPONENT} namespace that should be used when creating certain Zipkin
+     *                                annotations when the Wingtips span's {@link Span#getSpanPurpose()} is
+     *                                {@link com.nike.wingtips.Span.SpanPurpose#LOCAL_ONLY}.
+     * @param postZipkinSpansBaseUrl The base URL of the Zipkin server. This should include the scheme, host, and port (if non-standard for the scheme).
+     *                               e.g. {@code http://localhost:9411}, or {@code https://zipkinserver.doesnotexist.com/}
+     * @param deferSpanConversion Pass in true to queue completed Wingtips spans as-is and convert them in bulk on the sender thread, rather than
+     *                            converting them on the thread that completes them.
+     */
+    public WingtipsToZipkinLifecycleListener(String serviceName, String localComponentNamespace, String postZipkinSpansBaseUrl,
+                                             boolean deferSpanConversion) {
         this(serviceName,
              localComponentNamespace,
              new WingtipsToZipkinSpanConverterDefaultImpl(),
-             new ZipkinSpanSenderDefaultHttpImpl(postZipkinSpansBaseUrl, true)
+             new ZipkinSpanSenderDefaultHttpImpl(postZipkinSpansBaseUrl, true),
+             deferSpanConversion
         );
     }
 
@@ -110,26 +193,43 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
     @Override
     public void spanCompleted(Span span) {
         try {
-            zipkin.Span zipkinSpan = zipkinSpanConverter.convertWingtipsSpanToZipkinSpan(span, zipkinEndpoint, localComponentNamespace);
+            if (deferredConversionSender != null) {
+                deferredConversionSender.handleUnconvertedSpan(span, deferredSpanConversion);
+                return;
+            }
+
+            zipkin.Span zipkinSpan = convertWingtipsSpanToZipkinSpan(span);
             zipkinSpanSender.handleSpan(zipkinSpan);
         }
         catch(Throwable ex) {
-            long currentBadSpanCount = spanHandlingErrorCounter.incrementAndGet();
-
-            // Only log once every MIN_SPAN_HANDLING_ERROR_LOG_INTERVAL_MILLIS time interval to prevent log spam from a malicious (or broken) caller.
-            long currentTimeMillis = System.currentTimeMillis();
-            long timeSinceLastLogMsgMillis = currentTimeMillis - lastSpanHandlingErrorLogTimeEpochMillis;
-            if (timeSinceLastLogMsgMillis >= MIN_SPAN_HANDLING_ERROR_LOG_INTERVAL_MILLIS) {
-                // We're not synchronizing the read and write to lastSpanHandlingErrorLogTimeEpochMillis, and that's ok. If we get a few extra
-                //      log messages due to a race condition it's not the end of the world - we're still satisfying the goal of not allowing a
-                //      malicious caller to endlessly spam the logs.
-                lastSpanHandlingErrorLogTimeEpochMillis = currentTimeMillis;
-
-                zipkinConversionOrReportingErrorLogger.warn(
-                    "There have been {} spans that were not zipkin compatible, or that experienced an error during span handling. Latest example: "
-                    + "wingtips_span_with_error=\"{}\", conversion_or_handling_error=\"{}\"",
-                    currentBadSpanCount, span.toKeyValueString(), ex.toString());
-            }
+            handleSpanError(span, ex);
+        }
+    }
+
+    protected zipkin.Span convertWingtipsSpanToZipkinSpan(Span span) {
+        return zipkinSpanConverter.convertWingtipsSpanToZipkinSpan(span, zipkinEndpoint, localComponentNamespace);
+    }
+
+    /**
+     * Counts the given span conversion or handling error, and logs it (rate limited to once every
+     * {@link #MIN_SPAN_HANDLING_ERROR_LOG_INTERVAL_MILLIS}).
+     */
+    protected void handleSpanError(Span span, Throwable ex) {
+        long currentBadSpanCount = spanHandlingErrorCounter.incrementAndGet();
+
+        // Only log once every MIN_SPAN_HANDLING_ERROR_LOG_INTERVAL_MILLIS time interval to prevent log spam from a malicious (or broken) caller.
+        long currentTimeMillis = System.currentTimeMillis();
+        long timeSinceLastLogMsgMillis = currentTimeMillis - lastSpanHandlingErrorLogTimeEpochMillis;
+        if (timeSinceLastLogMsgMillis >= MIN_SPAN_HANDLING_ERROR_LOG_INTERVAL_MILLIS) {
+            // We're not synchronizing the read and write to lastSpanHandlingErrorLogTimeEpochMillis, and that's ok. If we get a few extra
+            //      log messages due to a race condition it's not the end of the world - we're still satisfying the goal of not allowing a
+            //      malicious caller to endlessly spam the logs.
+            lastSpanHandlingErrorLogTimeEpochMillis = currentTimeMillis;
+
+            zipkinConversionOrReportingErrorLogger.warn(
+                "There have been {} spans that were not zipkin compatible, or that experienced an error during span handling. Latest example: "
+                + "wingtips_span_with_error=\"{}\", conversion_or_handling_error=\"{}\"",
+                currentBadSpanCount, span.toKeyValueString(), ex.toString());
         }
     }
 }
\ No newline at end of file
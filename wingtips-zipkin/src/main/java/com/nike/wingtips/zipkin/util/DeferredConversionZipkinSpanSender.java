@@ -0,0 +1,36 @@
+package com.nike.wingtips.zipkin.util;
+
+import com.nike.wingtips.Span;
+
+/**
+ * A {@link ZipkinSpanSender} that can also accept completed Wingtips spans that haven't been converted to Zipkin spans yet, and convert them
+ * itself in bulk on its sender thread. This keeps the conversion work (ID parsing, building the annotations, etc) off the thread that
+ * completed the span - usually a request handling thread - leaving only an enqueue on that thread.
+ *
+ * @deprecated Please migrate to the wingtips-zipkin2 dependency.
+ */
+@Deprecated
+public interface DeferredConversionZipkinSpanSender extends ZipkinSpanSender {
+
+    /**
+     * Queues the given completed Wingtips span to be converted with the given {@link SpanConversion} and sent later on the sender thread. As
+     * with {@link #handleSpan(zipkin.Span)}, DO NOT BLOCK IN THIS METHOD'S IMPLEMENTATION.
+     *
+     * @param wingtipsSpan The completed Wingtips span.
+     * @param conversion The conversion to apply to the span on the sender thread.
+     */
+    void handleUnconvertedSpan(Span wingtipsSpan, SpanConversion conversion);
+
+    /**
+     * Converts a Wingtips span to a Zipkin span on the sender thread.
+     */
+    interface SpanConversion {
+
+        /**
+         * @param wingtipsSpan The Wingtips span to convert.
+         * @return The Zipkin span to send, or null if the span couldn't be converted and should be skipped. Implementations should handle
+         * (and report) their own errors rather than throwing.
+         */
+        zipkin.Span convertToZipkinSpan(Span wingtipsSpan);
+    }
+}
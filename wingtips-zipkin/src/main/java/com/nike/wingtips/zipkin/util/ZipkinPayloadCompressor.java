@@ -0,0 +1,27 @@
+package com.nike.wingtips.zipkin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses span payloads as {@link ZipkinSpanSenderDefaultHttpImpl} streams them to the Zipkin server. See {@link ZipkinPayloadCompressors}
+ * for the built-in implementations.
+ *
+ * @deprecated Please migrate to the wingtips-zipkin2 dependency.
+ */
+@Deprecated
+public interface ZipkinPayloadCompressor {
+
+    /**
+     * @return The HTTP {@code Content-Encoding} header value for payloads compressed by this compressor, or null if payloads are sent
+     * uncompressed.
+     */
+    String getContentEncoding();
+
+    /**
+     * @param out The stream to write compressed bytes to.
+     * @return A stream that compresses what's written to it and writes the result to the given stream. Closing the returned stream must
+     * finish the compressed data, release any resources held by the compressor, and close the given stream.
+     */
+    OutputStream wrap(OutputStream out) throws IOException;
+}
@@ -0,0 +1,115 @@
+package com.nike.wingtips.zipkin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The built-in {@link ZipkinPayloadCompressor}s.
+ *
+ * <p>NOTE: The Zipkin server itself only understands gzip compressed payloads. Only use {@link #deflate(int)} if you're sending spans to
+ * something that understands {@code Content-Encoding: deflate}, e.g. a proxy or alternative collector.
+ *
+ * @deprecated Please migrate to the wingtips-zipkin2 dependency.
+ */
+@Deprecated
+public final class ZipkinPayloadCompressors {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ZipkinPayloadCompressor NONE = new ZipkinPayloadCompressor() {
+        @Override
+        public String getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public OutputStream wrap(OutputStream out) {
+            return out;
+        }
+    };
+
+    private static final ZipkinPayloadCompressor DEFAULT_GZIP = gzip(Deflater.DEFAULT_COMPRESSION);
+
+    // Intentionally private - use the static factory methods.
+    private ZipkinPayloadCompressors() {
+        // Nothing to do
+    }
+
+    /**
+     * @return A compressor that sends payloads uncompressed.
+     */
+    public static ZipkinPayloadCompressor none() {
+        return NONE;
+    }
+
+    /**
+     * @return A gzip compressor that uses the default compression level.
+     */
+    public static ZipkinPayloadCompressor gzip() {
+        return DEFAULT_GZIP;
+    }
+
+    /**
+     * @param level The compression level - 0 (no compression) to 9 (best compression), or {@link Deflater#DEFAULT_COMPRESSION}. Lower
+     * levels use less CPU on the sending thread at the cost of larger payloads.
+     * @return A gzip compressor that uses the given compression level.
+     */
+    public static ZipkinPayloadCompressor gzip(final int level) {
+        validateLevel(level);
+        return new ZipkinPayloadCompressor() {
+            @Override
+            public String getContentEncoding() {
+                return "gzip";
+            }
+
+            @Override
+            public OutputStream wrap(OutputStream out) throws IOException {
+                return new GZIPOutputStream(out, BUFFER_SIZE) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @param level The compression level - 0 (no compression) to 9 (best compression), or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return A compressor that produces zlib-wrapped deflate data, i.e. HTTP {@code Content-Encoding: deflate}.
+     */
+    public static ZipkinPayloadCompressor deflate(final int level) {
+        validateLevel(level);
+        return new ZipkinPayloadCompressor() {
+            @Override
+            public String getContentEncoding() {
+                return "deflate";
+            }
+
+            @Override
+            public OutputStream wrap(OutputStream out) {
+                final Deflater deflater = new Deflater(level);
+                return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        }
+                        finally {
+                            // DeflaterOutputStream only ends the Deflater itself if it created it.
+                            deflater.end();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    private static void validateLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9, or -1 for the default. Invalid value: " + level);
+        }
+    }
+}
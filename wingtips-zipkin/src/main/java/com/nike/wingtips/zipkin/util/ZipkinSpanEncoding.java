@@ -0,0 +1,102 @@
+package com.nike.wingtips.zipkin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import zipkin.Codec;
+
+/**
+ * The wire formats that {@link ZipkinSpanSenderDefaultHttpImpl} can stream span lists in when posting them to the Zipkin server's
+ * {@code POST /api/v1/spans} endpoint. {@link #writeSpans(List, OutputStream)} produces exactly the same bytes as the corresponding
+ * {@link Codec#writeSpans(List)}, but writes them to the stream a span at a time so the whole payload never has to be held in memory.
+ *
+ * @deprecated Please migrate to the wingtips-zipkin2 dependency.
+ */
+@Deprecated
+public enum ZipkinSpanEncoding {
+    /**
+     * Zipkin v1 JSON - a JSON array of span objects.
+     */
+    JSON("application/json", Codec.JSON) {
+        @Override
+        protected void writeListStart(int numSpans, OutputStream out) throws IOException {
+            out.write('[');
+        }
+
+        @Override
+        protected void writeListSeparator(OutputStream out) throws IOException {
+            out.write(',');
+        }
+
+        @Override
+        protected void writeListEnd(OutputStream out) throws IOException {
+            out.write(']');
+        }
+    },
+    /**
+     * Zipkin v1 Thrift - a TBinaryProtocol list of span structs. This is more compact and cheaper to encode than JSON.
+     */
+    THRIFT("application/x-thrift", Codec.THRIFT) {
+        private static final int THRIFT_TYPE_STRUCT = 12;
+
+        @Override
+        protected void writeListStart(int numSpans, OutputStream out) throws IOException {
+            // TBinaryProtocol list header: element type byte followed by a big-endian int32 size.
+            out.write(THRIFT_TYPE_STRUCT);
+            out.write((numSpans >>> 24) & 0xFF);
+            out.write((numSpans >>> 16) & 0xFF);
+            out.write((numSpans >>> 8) & 0xFF);
+            out.write(numSpans & 0xFF);
+        }
+
+        @Override
+        protected void writeListSeparator(OutputStream out) {
+            // Thrift list elements are not separated.
+        }
+
+        @Override
+        protected void writeListEnd(OutputStream out) {
+            // Thrift lists have no end marker.
+        }
+    };
+
+    private final String contentType;
+    private final Codec codec;
+
+    ZipkinSpanEncoding(String contentType, Codec codec) {
+        this.contentType = contentType;
+        this.codec = codec;
+    }
+
+    /**
+     * @return The HTTP {@code Content-Type} to use when sending spans in this encoding.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Writes the given spans to the given stream as a list in this encoding. The stream is not flushed or closed.
+     *
+     * @param spans The spans to write.
+     * @param out The stream to write to.
+     */
+    public void writeSpans(List<zipkin.Span> spans, OutputStream out) throws IOException {
+        writeListStart(spans.size(), out);
+        boolean first = true;
+        for (zipkin.Span span : spans) {
+            if (!first)
+                writeListSeparator(out);
+            out.write(codec.writeSpan(span));
+            first = false;
+        }
+        writeListEnd(out);
+    }
+
+    protected abstract void writeListStart(int numSpans, OutputStream out) throws IOException;
+
+    protected abstract void writeListSeparator(OutputStream out) throws IOException;
+
+    protected abstract void writeListEnd(OutputStream out) throws IOException;
+}
@@ -1,53 +1,141 @@
 package com.nike.wingtips.zipkin.util;
 
+import com.nike.wingtips.Span;
+import com.nike.wingtips.util.MappedFileSpool;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
 
+import zipkin.Annotation;
+import zipkin.BinaryAnnotation;
 import zipkin.Codec;
 
 /**
  * A default no-dependencies implementation of {@link ZipkinSpanSender} that collects spans into batches and sends them to the Zipkin server
  * at a regular intervals over HTTP.
  *
+ * <p>The queue of spans waiting to be sent is bounded both by span count and by the estimated JSON size of the queued spans, so a slow or
+ * unavailable Zipkin server can't cause the queue to grow until it takes down your service. Spans that arrive when the queue is full are
+ * dropped (see {@link #getDroppedSpanCount()}). Each time the queue is drained the spans are split into batches of at most
+ * {@code maxBatchPayloadBytes} (estimated) so no single request to the Zipkin server is unreasonably large. Batches that fail to send are
+ * retried with jittered exponential backoff (on the sender thread, or on the batch's send lane if there are several), and spans from batches
+ * that still fail after {@code maxSendAttempts} attempts are counted in {@link #getFailedSpanCount()}. Batches waiting to be retried count
+ * towards the queue's byte budget.
+ *
+ * <p>By default batches are sent one at a time on the single sender thread, so throughput is capped at one Zipkin server round trip at a
+ * time. If you pass a {@code maxInFlightBatches} greater than 1 to the kitchen-sink constructor then batches are instead handed off to that
+ * many send lanes, each with its own thread, so that many batches can be in flight at once. Spans are assigned to a lane by trace ID, so spans
+ * for a given trace are still sent in order. A failed batch is retried on its lane before the lane moves on to the next batch. Each lane reuses its HTTP connection via the JDK's keep-alive cache - note that
+ * the cache only holds {@code http.maxConnections} (default 5) idle connections per destination, so raise that system property if you use
+ * more lanes than that.
+ *
+ * <p>Batches are sent whenever {@code batchSendingPeriodMillis} elapses, or as soon as a full batch's worth of spans (see
+ * {@code maxBatchPayloadBytes}) has been queued, whichever comes first.
+ *
+ * <p>If you pass a {@link ZipkinSpanEncoding} to the kitchen-sink constructor then batches are sent using a streaming path: spans are encoded
+ * (as JSON or Thrift) one at a time straight into the {@link ZipkinPayloadCompressor} wrapping a chunked HTTP request body, so the full
+ * payload is never held in memory (let alone several copies of it). Otherwise the original path is used, where the whole batch is encoded to
+ * JSON as a byte array and passed to {@link #sendSpans(byte[])} (which you can override to use a different HTTP client).
+ *
+ * <p>This class also implements {@link DeferredConversionZipkinSpanSender}, so completed Wingtips spans can be handed to
+ * {@link #handleUnconvertedSpan(Span, SpanConversion)} and converted to Zipkin spans in bulk on the sender thread. Unconverted spans are held
+ * in a separate queue with the same span count limit, and count towards the same byte budget (using an estimate of their converted size).
+ * If that queue is full and a spool is configured (see below), the span is converted on the caller's thread and spooled instead.
+ *
+ * <p>If you pass a {@link MappedFileSpool} to the kitchen-sink constructor then spans are written to it (Thrift encoded) instead of being
+ * dropped when the queue is full or a batch fails all its send attempts. Once a batch has failed, later batches go straight to the spool
+ * without trying the Zipkin server, and the spooled spans are replayed on the sender thread every {@code batchSendingPeriodMillis} (or
+ * {@link #DEFAULT_SPAN_BATCH_SENDING_PERIOD_MILLIS} if automatic batch sending is disabled) until the Zipkin server accepts them. See
+ * {@link #getSpooledSpanCount()}.
+ *
  * @deprecated Please migrate to the wingtips-zipkin2 dependency.
  * 
  * @author Nic Munroe
  */
 @Deprecated
-public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
+public class ZipkinSpanSenderDefaultHttpImpl implements DeferredConversionZipkinSpanSender {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     public static final int DEFAULT_SPAN_BATCH_SENDING_PERIOD_MILLIS = 1000;
     public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
     public static final int DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+    public static final int DEFAULT_MAX_QUEUED_SPANS = 10000;
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 10L * 1024 * 1024;
+    public static final int DEFAULT_MAX_BATCH_PAYLOAD_BYTES = 500 * 1000;
+    public static final int DEFAULT_MAX_SEND_ATTEMPTS = 3;
+    public static final long DEFAULT_RETRY_BASE_BACKOFF_MILLIS = 200;
+    public static final long MAX_RETRY_BACKOFF_MILLIS = 10000;
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 1;
+    public static final int STREAMING_BUFFER_SIZE = 8192;
 
     protected final URL postZipkinSpansUrl;
     protected final boolean compressZipkinSpanPayload;
     protected final int connectTimeoutMillis;
     protected final int readTimeoutMillis;
+    protected final long maxQueuedBytes;
+    protected final int maxBatchPayloadBytes;
+    protected final int maxSendAttempts;
+    protected final long retryBaseBackoffMillis;
+    protected final int maxInFlightBatches;
+    /**
+     * The encoding for the streaming send path, or null to use the original non-streaming path.
+     */
+    protected final ZipkinSpanEncoding spanEncoding;
+    protected final ZipkinPayloadCompressor payloadCompressor;
     protected final ZipkinSpanSenderJob senderJob;
+    /**
+     * Where spans go when they can't be queued or sent - null if spooling is disabled.
+     */
+    protected final MappedFileSpool spool;
+    /**
+     * Set when a batch fails all its send attempts, and cleared when spooled spans are successfully replayed. While set, batches are
+     * spooled without trying the Zipkin server.
+     */
+    protected volatile boolean collectorUnreachable;
 
-    protected final BlockingQueue<zipkin.Span> zipkinSpanSendingQueue = new LinkedBlockingQueue<>();
+    protected final BlockingQueue<zipkin.Span> zipkinSpanSendingQueue;
+    protected final BlockingQueue<PendingSpanConversion> pendingConversionQueue;
+    protected final AtomicLong queuedBytesEstimate = new AtomicLong();
+    protected final AtomicLong droppedSpanCount = new AtomicLong();
+    protected final AtomicLong failedSpanCount = new AtomicLong();
+    protected final AtomicLong spooledSpanCount = new AtomicLong();
     protected final ScheduledExecutorService zipkinSpanSendingScheduler;
+    /**
+     * The executors for the send lanes - null unless {@link #maxInFlightBatches} is greater than 1.
+     */
+    protected final ExecutorService[] sendLaneExecutors;
+    /**
+     * Limits the number of batches that have been handed to the send lanes but not finished yet, so the sender thread blocks (and the span
+     * queue fills up and starts dropping spans) rather than piling up an unbounded backlog of batches when the Zipkin server can't keep up.
+     */
+    protected final Semaphore sendLanePermits;
 
     /**
      * Kitchen-sink constructor that creates a new instance allowing you to specify all the given configuration options.
@@ -59,12 +147,44 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
      * @param readTimeoutMillis The read timeout in milliseconds that should be used when waiting for a response from the Zipkin server.
      * @param batchSendingPeriodMillis The period in milliseconds that should be used between sending span batches to the Zipkin server. If you pass in
      *                                 0 it will disable automatic batch sending, at which point {@link #flush()} is the only
-     *                                 way to send spans. <b>IMPORTANT NOTE:</b> The queue that stores spans is unbounded, so make sure you
-     *                                 select a period that is short enough to keep the queue from getting too big and taking up too much memory on
-     *                                 your server.
+     *                                 way to send spans. Spans that arrive when the queue is full are dropped, so make sure you select a period that
+     *                                 is short enough for the queue limits to hold the spans your server generates in that period.
+     * @param maxQueuedSpans The maximum number of spans that can be waiting to be sent. Must be greater than 0.
+     * @param maxQueuedBytes The maximum estimated JSON size in bytes of the spans that can be waiting to be sent. Must be greater than 0.
+     * @param maxBatchPayloadBytes The maximum estimated uncompressed JSON size in bytes of a single request to the Zipkin server. Must be greater
+     *                             than 0. A single span that is larger than this is sent on its own.
+     * @param maxSendAttempts The maximum number of times to try sending a batch before giving up on it. Must be greater than 0 - pass in 1 to
+     *                        disable retries.
+     * @param retryBaseBackoffMillis The backoff before the first retry of a failed batch. The backoff doubles (up to
+     *                               {@link #MAX_RETRY_BACKOFF_MILLIS}) for each subsequent retry, and is jittered so that retries from many
+     *                               servers don't all hit the Zipkin server at the same time. Cannot be negative.
+     * @param maxInFlightBatches The maximum number of batches that can be sent to the Zipkin server concurrently. Must be greater than 0. Pass
+     *                           in 1 to send batches one at a time on the sender thread.
+     * @param spanEncoding The encoding to stream spans in, or null to use the original non-streaming JSON send path (see
+     *                     {@link #sendSpans(byte[])}).
+     * @param payloadCompressor The compression to use on the streaming send path. If this is null then {@link ZipkinPayloadCompressors#gzip()}
+     *                          is used if {@code compressZipkinSpanPayload} is true, and {@link ZipkinPayloadCompressors#none()} if it's false.
+     *                          Ignored when {@code spanEncoding} is null.
+     * @param spool The spool to write spans to when they can't be queued or sent, or null to drop them instead. Spans already in the spool
+     *              (e.g. from before a restart) will be replayed.
      */
     public ZipkinSpanSenderDefaultHttpImpl(String postZipkinSpansBaseUrl, boolean compressZipkinSpanPayload, int connectTimeoutMillis, int readTimeoutMillis,
-                                           int batchSendingPeriodMillis) {
+                                           int batchSendingPeriodMillis, int maxQueuedSpans, long maxQueuedBytes, int maxBatchPayloadBytes,
+                                           int maxSendAttempts, long retryBaseBackoffMillis, int maxInFlightBatches,
+                                           ZipkinSpanEncoding spanEncoding, ZipkinPayloadCompressor payloadCompressor, MappedFileSpool spool) {
+        if (maxQueuedSpans <= 0)
+            throw new IllegalArgumentException("maxQueuedSpans must be greater than 0. Invalid value: " + maxQueuedSpans);
+        if (maxQueuedBytes <= 0)
+            throw new IllegalArgumentException("maxQueuedBytes must be greater than 0. Invalid value: " + maxQueuedBytes);
+        if (maxBatchPayloadBytes <= 0)
+            throw new IllegalArgumentException("maxBatchPayloadBytes must be greater than 0. Invalid value: " + maxBatchPayloadBytes);
+        if (maxSendAttempts <= 0)
+            throw new IllegalArgumentException("maxSendAttempts must be greater than 0. Invalid value: " + maxSendAttempts);
+        if (retryBaseBackoffMillis < 0)
+            throw new IllegalArgumentException("retryBaseBackoffMillis cannot be negative. Invalid value: " + retryBaseBackoffMillis);
+        if (maxInFlightBatches <= 0)
+            throw new IllegalArgumentException("maxInFlightBatches must be greater than 0. Invalid value: " + maxInFlightBatches);
+
         try {
             String urlString = postZipkinSpansBaseUrl + (postZipkinSpansBaseUrl.endsWith("/") ? "" : "/") + "api/v1/spans";
             this.postZipkinSpansUrl = new URL(urlString);
@@ -74,7 +194,34 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
         this.compressZipkinSpanPayload = compressZipkinSpanPayload;
         this.connectTimeoutMillis = connectTimeoutMillis;
         this.readTimeoutMillis = readTimeoutMillis;
-        this.senderJob = new ZipkinSpanSenderJob(this, zipkinSpanSendingQueue);
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.maxBatchPayloadBytes = maxBatchPayloadBytes;
+        this.maxSendAttempts = maxSendAttempts;
+        this.retryBaseBackoffMillis = retryBaseBackoffMillis;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.spanEncoding = spanEncoding;
+        if (payloadCompressor == null) {
+            payloadCompressor = (compressZipkinSpanPayload) ? ZipkinPayloadCompressors.gzip() : ZipkinPayloadCompressors.none();
+        }
+        this.payloadCompressor = payloadCompressor;
+        this.spool = spool;
+        this.zipkinSpanSendingQueue = new LinkedBlockingQueue<>(maxQueuedSpans);
+        this.pendingConversionQueue = new LinkedBlockingQueue<>(maxQueuedSpans);
+        this.senderJob = new ZipkinSpanSenderJob(this, zipkinSpanSendingQueue, pendingConversionQueue, maxBatchPayloadBytes,
+                                                 maxInFlightBatches);
+
+        if (maxInFlightBatches > 1) {
+            this.sendLaneExecutors = new ExecutorService[maxInFlightBatches];
+            for (int i = 0; i < maxInFlightBatches; i++) {
+                sendLaneExecutors[i] = configureSendLaneExecutor(i);
+            }
+            // Allow each lane to have one batch waiting behind the one it's sending.
+            this.sendLanePermits = new Semaphore(maxInFlightBatches * 2);
+        }
+        else {
+            this.sendLaneExecutors = null;
+            this.sendLanePermits = null;
+        }
 
         this.zipkinSpanSendingScheduler = configureScheduledExecutorServiceForBatching();
 
@@ -82,12 +229,49 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
             zipkinSpanSendingScheduler.scheduleAtFixedRate(senderJob, batchSendingPeriodMillis,
                                                            batchSendingPeriodMillis, TimeUnit.MILLISECONDS);
         }
+
+        if (spool != null) {
+            long replayPeriodMillis = (batchSendingPeriodMillis > 0) ? batchSendingPeriodMillis : DEFAULT_SPAN_BATCH_SENDING_PERIOD_MILLIS;
+            zipkinSpanSendingScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        replaySpooledSpans();
+                    }
+                    catch (Throwable ex) {
+                        logger.error("An unexpected error occurred attempting to replay spooled Zipkin spans.", ex);
+                    }
+                }
+            }, replayPeriodMillis, replayPeriodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Convenience constructor that calls the kitchen-sink constructor passing in the given arguments, and {@link #DEFAULT_MAX_QUEUED_SPANS},
+     * {@link #DEFAULT_MAX_QUEUED_BYTES}, {@link #DEFAULT_MAX_BATCH_PAYLOAD_BYTES}, {@link #DEFAULT_MAX_SEND_ATTEMPTS},
+     * {@link #DEFAULT_RETRY_BASE_BACKOFF_MILLIS}, and {@link #DEFAULT_MAX_IN_FLIGHT_BATCHES} for the queue limits, batch size limit, retry
+     * behavior, and send concurrency. Spans are sent using the original non-streaming JSON send path, and spooling is disabled.
+     *
+     * @param postZipkinSpansBaseUrl The base URL of the Zipkin server. This should include the scheme, host, and port (if non-standard for the scheme).
+     *                               e.g. {@code http://localhost:9411}, or {@code https://zipkinserver.doesnotexist.com/}
+     * @param compressZipkinSpanPayload Pass in true if the payload sent to the Zipkin server should be gzipped, false to pass the payload uncompressed.
+     * @param connectTimeoutMillis The timeout in milliseconds that should be used when attempting to connect to the Zipkin server.
+     * @param readTimeoutMillis The read timeout in milliseconds that should be used when waiting for a response from the Zipkin server.
+     * @param batchSendingPeriodMillis The period in milliseconds that should be used between sending span batches to the Zipkin server. If you pass in
+     *                                 0 it will disable automatic batch sending, at which point {@link #flush()} is the only
+     *                                 way to send spans.
+     */
+    public ZipkinSpanSenderDefaultHttpImpl(String postZipkinSpansBaseUrl, boolean compressZipkinSpanPayload, int connectTimeoutMillis, int readTimeoutMillis,
+                                           int batchSendingPeriodMillis) {
+        this(postZipkinSpansBaseUrl, compressZipkinSpanPayload, connectTimeoutMillis, readTimeoutMillis, batchSendingPeriodMillis,
+             DEFAULT_MAX_QUEUED_SPANS, DEFAULT_MAX_QUEUED_BYTES, DEFAULT_MAX_BATCH_PAYLOAD_BYTES, DEFAULT_MAX_SEND_ATTEMPTS,
+             DEFAULT_RETRY_BASE_BACKOFF_MILLIS, DEFAULT_MAX_IN_FLIGHT_BATCHES, null, null, null);
     }
 
     /**
      * Convenience constructor that calls the kitchen-sink constructor passing in {@link #DEFAULT_CONNECT_TIMEOUT_MILLIS},
      * {@link #DEFAULT_READ_TIMEOUT_MILLIS}, and {@link #DEFAULT_SPAN_BATCH_SENDING_PERIOD_MILLIS} for the default connect timeout,
-     * read timeout, and span batching period respectively.
+     * read timeout, and span batching period respectively, along with the default queue, batch size, and retry settings.
      *
      * @param postZipkinSpansBaseUrl The base URL of the Zipkin server. This should include the scheme, host, and port (if non-standard for the scheme).
      *                               e.g. {@code http://localhost:9411}, or {@code https://zipkinserver.doesnotexist.com/}
@@ -100,7 +284,158 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
 
     @Override
     public void handleSpan(zipkin.Span span) {
-        zipkinSpanSendingQueue.offer(span);
+        if (!enqueue(zipkinSpanSendingQueue, span, estimateSpanSizeInBytes(span)) && spoolSpans(Collections.singletonList(span)) == 0)
+            droppedSpanCount.incrementAndGet();
+    }
+
+    @Override
+    public void handleUnconvertedSpan(Span wingtipsSpan, SpanConversion conversion) {
+        if (enqueue(pendingConversionQueue, new PendingSpanConversion(wingtipsSpan, conversion), estimateUnconvertedSpanSizeInBytes(wingtipsSpan)))
+            return;
+
+        // The queue is full. If we have a spool then convert the span here and spool it the same way handleSpan() would, otherwise it's
+        //      dropped (without paying for a conversion that would be thrown away).
+        if (spool != null) {
+            zipkin.Span convertedSpan;
+            try {
+                convertedSpan = conversion.convertToZipkinSpan(wingtipsSpan);
+            }
+            catch (Throwable ex) {
+                spanConversionFailed(wingtipsSpan, ex);
+                return;
+            }
+
+            if (convertedSpan == null || spoolSpans(Collections.singletonList(convertedSpan)) > 0)
+                return;
+        }
+
+        droppedSpanCount.incrementAndGet();
+    }
+
+    /**
+     * @return true if the item was queued, false if the queue is full or {@link #zipkinSpanSendingScheduler} has been shut down (in which
+     * case nothing would ever send it).
+     */
+    protected <T> boolean enqueue(BlockingQueue<T> queue, T item, int sizeEstimate) {
+        if (zipkinSpanSendingScheduler.isShutdown())
+            return false;
+
+        long queuedBytesAfterAdd = queuedBytesEstimate.addAndGet(sizeEstimate);
+        if (queuedBytesAfterAdd > maxQueuedBytes || !queue.offer(item)) {
+            queuedBytesEstimate.addAndGet(-sizeEstimate);
+            return false;
+        }
+
+        // Kick off a send as soon as another full batch's worth of spans has been queued rather than waiting for the next scheduled send.
+        // Only the add that crosses the threshold triggers it, so this doesn't flood the scheduler with sender jobs.
+        if (queuedBytesAfterAdd / maxBatchPayloadBytes > (queuedBytesAfterAdd - sizeEstimate) / maxBatchPayloadBytes) {
+            try {
+                flush();
+            }
+            catch (RejectedExecutionException ex) {
+                // The scheduler was shut down after the check above. Take the item back out (unless a final drain already got it) rather
+                //      than throwing into the caller's request thread.
+                if (queue.remove(item)) {
+                    queuedBytesEstimate.addAndGet(-sizeEstimate);
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Called by {@link ZipkinSpanSenderJob} after it drains spans from the queue, to release their share of the queue's byte budget.
+     *
+     * @param spanSizeEstimateTotal The sum of {@link #estimateSpanSizeInBytes(zipkin.Span)} for the drained spans.
+     */
+    protected void spansRemovedFromQueue(long spanSizeEstimateTotal) {
+        queuedBytesEstimate.addAndGet(-spanSizeEstimateTotal);
+    }
+
+    /**
+     * Called by {@link ZipkinSpanSenderJob} when a queued Wingtips span's {@link SpanConversion} throws. The span is counted as dropped
+     * (see {@link #getDroppedSpanCount()}) and the rest of the drained spans are sent as usual.
+     *
+     * @param wingtipsSpan The span that couldn't be converted.
+     * @param conversionError The error thrown by the conversion.
+     */
+    protected void spanConversionFailed(Span wingtipsSpan, Throwable conversionError) {
+        droppedSpanCount.incrementAndGet();
+        logger.warn("Unable to convert Wingtips span to a Zipkin span - the span will be dropped. trace_id={}, span_id={}",
+                    wingtipsSpan.getTraceId(), wingtipsSpan.getSpanId(), conversionError);
+    }
+
+    /**
+     * @return The number of spans that were dropped without being sent because the queue was full (either by span count or by estimated bytes)
+     * or because their {@link SpanConversion} threw.
+     */
+    public long getDroppedSpanCount() {
+        return droppedSpanCount.get();
+    }
+
+    /**
+     * @return The number of spans that were dropped because the batch they were in could not be sent to the Zipkin server after
+     * {@code maxSendAttempts} attempts.
+     */
+    public long getFailedSpanCount() {
+        return failedSpanCount.get();
+    }
+
+    /**
+     * @return The number of spans that have been written to the spool (if one was passed to the constructor) rather than being dropped.
+     */
+    public long getSpooledSpanCount() {
+        return spooledSpanCount.get();
+    }
+
+    /**
+     * @return The estimated JSON size in bytes of the spans currently waiting in the queue.
+     */
+    public long getQueuedBytesEstimate() {
+        return queuedBytesEstimate.get();
+    }
+
+    /**
+     * Cheaply estimates the size of the given span when serialized to Zipkin v1 JSON, without actually serializing it. This errs on the
+     * high side, and is used for the queue's byte budget and for splitting drained spans into batches.
+     *
+     * @param span The span to estimate the size of.
+     * @return The estimated JSON size of the given span in bytes.
+     */
+    protected static int estimateSpanSizeInBytes(zipkin.Span span) {
+        // IDs, timestamp, duration, and JSON punctuation.
+        int size = 180 + utf8SizeEstimate(span.name);
+        for (Annotation annotation : span.annotations) {
+            size += 60 + utf8SizeEstimate(annotation.value) + endpointSizeEstimate(annotation.endpoint);
+        }
+        for (BinaryAnnotation binaryAnnotation : span.binaryAnnotations) {
+            size += 40 + utf8SizeEstimate(binaryAnnotation.key) + ((binaryAnnotation.value == null) ? 0 : binaryAnnotation.value.length * 2)
+                    + endpointSizeEstimate(binaryAnnotation.endpoint);
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the Zipkin v1 JSON size of the given Wingtips span once it's converted, for the queue's byte budget. This assumes the
+     * conversion adds two annotations with endpoints, which is what {@link WingtipsToZipkinSpanConverterDefaultImpl} does for client and server
+     * spans (local spans get a single, similarly sized, binary annotation).
+     *
+     * @param wingtipsSpan The unconverted span to estimate the size of.
+     * @return The estimated JSON size in bytes of the given span after conversion.
+     */
+    protected static int estimateUnconvertedSpanSizeInBytes(Span wingtipsSpan) {
+        return 180 + utf8SizeEstimate(wingtipsSpan.getSpanName()) + (2 * (60 + 80 + 64));
+    }
+
+    private static int endpointSizeEstimate(zipkin.Endpoint endpoint) {
+        return (endpoint == null) ? 0 : 80 + utf8SizeEstimate(endpoint.serviceName);
+    }
+
+    private static int utf8SizeEstimate(String str) {
+        // Worst case is 3 bytes per char, but escaping and multi-byte chars are rare in span data so 2 is plenty to err on the high side.
+        return (str == null) ? 0 : str.length() * 2;
     }
 
     @Override
@@ -117,17 +452,269 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
         });
     }
 
+    /**
+     * @param laneIndex The index of the send lane the executor is for.
+     * @return The executor for the given send lane. This should be single threaded, so batches on a lane are sent in order.
+     */
+    protected ExecutorService configureSendLaneExecutor(final int laneIndex) {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(r, "zipkin-span-sender-lane-" + laneIndex);
+            }
+        });
+    }
+
     protected void sendSpans(List<zipkin.Span> spanList) {
+        sendSpans(spanList, 1);
+    }
+
+    /**
+     * Hands the given batch off to the given send lane's executor to be sent via {@link #sendSpansWithInlineRetries(List)}, blocking first if
+     * too many batches are already waiting on the send lanes. Only used when {@link #maxInFlightBatches} is greater than 1.
+     *
+     * @param spanList The batch of spans to send.
+     * @param laneIndex The index of the send lane to use.
+     */
+    protected void sendSpansOnLane(final List<zipkin.Span> spanList, int laneIndex) throws InterruptedException {
+        sendLanePermits.acquire();
         try {
-            sendSpans(Codec.JSON.writeSpans(spanList));
+            sendLaneExecutors[laneIndex].execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        sendSpansWithInlineRetries(spanList);
+                    }
+                    catch (Throwable ex) {
+                        logger.error("An unexpected error occurred attempting to post Zipkin spans to the Zipkin server.", ex);
+                    }
+                    finally {
+                        sendLanePermits.release();
+                    }
+                }
+            });
+        }
+        catch (RuntimeException ex) {
+            sendLanePermits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param span The span to assign to a send lane.
+     * @param numLanes The number of send lanes.
+     * @return The index of the send lane for the given span. All spans with the same trace ID get the same lane.
+     */
+    protected static int sendLaneIndexForSpan(zipkin.Span span, int numLanes) {
+        long traceIdHash = span.traceId ^ span.traceIdHigh;
+        return (int) (((traceIdHash ^ (traceIdHash >>> 32)) & Integer.MAX_VALUE) % numLanes);
+    }
+
+    /**
+     * Makes one attempt at sending the given batch of spans. If it fails and there are attempts left then a retry is scheduled on
+     * {@link #zipkinSpanSendingScheduler} after a jittered backoff (see {@link #calculateRetryBackoffMillis(int)}), otherwise the spans are
+     * counted as failed and an error is logged. The batch counts towards {@link #maxQueuedBytes} while it waits for its retry.
+     *
+     * @param spanList The batch of spans to send.
+     * @param attemptNumber The attempt number of this send, starting with 1.
+     */
+    protected void sendSpans(final List<zipkin.Span> spanList, final int attemptNumber) {
+        if (spool != null && collectorUnreachable && attemptNumber == 1) {
+            failedSpanCount.addAndGet(spanList.size() - spoolSpans(spanList));
+            return;
+        }
+
+        try {
+            sendSpansOnce(spanList);
         } catch (IOException e) {
-            Set<String> affectedTraceIds = new HashSet<>(spanList.size());
-            for (zipkin.Span span : spanList) {
-                affectedTraceIds.add(String.valueOf(span.traceId));
+            if (attemptNumber < maxSendAttempts) {
+                long backoffMillis = calculateRetryBackoffMillis(attemptNumber);
+                logger.debug("Failed to post Zipkin spans to the Zipkin server, will retry. attempt_number={}, retry_backoff_millis={}, "
+                             + "exception_cause=\"{}\"", attemptNumber, backoffMillis, e.toString());
+                final long batchBytesEstimate = estimateBatchSizeInBytes(spanList);
+                queuedBytesEstimate.addAndGet(batchBytesEstimate);
+                try {
+                    zipkinSpanSendingScheduler.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            spansRemovedFromQueue(batchBytesEstimate);
+                            sendSpans(spanList, attemptNumber + 1);
+                        }
+                    }, backoffMillis, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                catch (RejectedExecutionException ree) {
+                    // The scheduler has been shut down, so there's no way to retry. Fall through to treat it as a failure.
+                    spansRemovedFromQueue(batchBytesEstimate);
+                }
+            }
+
+            handleUnsendableBatch(spanList, attemptNumber, e);
+        }
+    }
+
+    /**
+     * Sends the given batch of spans on the calling send lane thread, retrying there after a jittered backoff (see {@link
+     * #calculateRetryBackoffMillis(int)}) up to {@link #maxSendAttempts} times. The lane's permit stays held and the lane's later batches wait
+     * while this batch is retried, so retries keep the lane's ordering and stay bounded by {@link #sendLanePermits}. The batch counts towards
+     * {@link #maxQueuedBytes} while it waits for a retry.
+     *
+     * @param spanList The batch of spans to send.
+     */
+    protected void sendSpansWithInlineRetries(List<zipkin.Span> spanList) {
+        if (spool != null && collectorUnreachable) {
+            failedSpanCount.addAndGet(spanList.size() - spoolSpans(spanList));
+            return;
+        }
+
+        long retryBytesEstimate = 0;
+        try {
+            for (int attemptNumber = 1; ; attemptNumber++) {
+                try {
+                    sendSpansOnce(spanList);
+                    return;
+                }
+                catch (IOException e) {
+                    if (attemptNumber >= maxSendAttempts) {
+                        handleUnsendableBatch(spanList, attemptNumber, e);
+                        return;
+                    }
+
+                    long backoffMillis = calculateRetryBackoffMillis(attemptNumber);
+                    logger.debug("Failed to post Zipkin spans to the Zipkin server, will retry. attempt_number={}, retry_backoff_millis={}, "
+                                 + "exception_cause=\"{}\"", attemptNumber, backoffMillis, e.toString());
+                    if (retryBytesEstimate == 0) {
+                        retryBytesEstimate = estimateBatchSizeInBytes(spanList);
+                        queuedBytesEstimate.addAndGet(retryBytesEstimate);
+                    }
+                    try {
+                        Thread.sleep(backoffMillis);
+                    }
+                    catch (InterruptedException ie) {
+                        // The lane is being shut down, so there's no way to retry.
+                        Thread.currentThread().interrupt();
+                        handleUnsendableBatch(spanList, attemptNumber, e);
+                        return;
+                    }
+                }
+            }
+        }
+        finally {
+            spansRemovedFromQueue(retryBytesEstimate);
+        }
+    }
+
+    /**
+     * Spools the given batch (if spooling is enabled) or counts its spans as failed, after it failed its last send attempt.
+     */
+    protected void handleUnsendableBatch(List<zipkin.Span> spanList, int attempts, IOException e) {
+        if (spool != null) {
+            collectorUnreachable = true;
+            int numSpooled = spoolSpans(spanList);
+            if (numSpooled == spanList.size()) {
+                logger.warn("Unable to post Zipkin spans to the Zipkin server - spooling them to disk until it's reachable again. "
+                            + "attempts={}, exception_cause=\"{}\"", attempts, e.toString());
+                return;
             }
-            logger.error("An error occurred attempting to post Zipkin spans to the Zipkin server. affected_trace_ids={}, exception_cause=\"{}\"",
-                         affectedTraceIds.toString(), e.toString());
+            failedSpanCount.addAndGet(spanList.size() - numSpooled);
+        }
+        else {
+            failedSpanCount.addAndGet(spanList.size());
+        }
+
+        Set<String> affectedTraceIds = new HashSet<>(spanList.size());
+        for (zipkin.Span span : spanList) {
+            affectedTraceIds.add(String.valueOf(span.traceId));
+        }
+        logger.error("An error occurred attempting to post Zipkin spans to the Zipkin server. affected_trace_ids={}, attempts={}, "
+                     + "exception_cause=\"{}\"", affectedTraceIds.toString(), attempts, e.toString());
+    }
+
+    protected static long estimateBatchSizeInBytes(List<zipkin.Span> spanList) {
+        long size = 0;
+        for (zipkin.Span span : spanList) {
+            size += estimateSpanSizeInBytes(span);
+        }
+        return size;
+    }
+
+    /**
+     * Makes a single attempt at sending the given spans, using the streaming path if {@link #spanEncoding} is set or
+     * {@link #sendSpans(byte[])} otherwise.
+     */
+    protected void sendSpansOnce(List<zipkin.Span> spanList) throws IOException {
+        if (spanEncoding == null)
+            sendSpans(Codec.JSON.writeSpans(spanList));
+        else
+            sendSpansStreaming(spanList);
+    }
+
+    /**
+     * Writes the given spans to the {@link #spool}, Thrift encoded.
+     *
+     * @return The number of spans that were spooled - 0 if spooling is disabled, and less than the number of spans if the spool filled up.
+     */
+    protected int spoolSpans(List<zipkin.Span> spanList) {
+        if (spool == null)
+            return 0;
+
+        int numSpooled = 0;
+        for (zipkin.Span span : spanList) {
+            if (spool.append(Codec.THRIFT.writeSpan(span)))
+                numSpooled++;
         }
+        spooledSpanCount.addAndGet(numSpooled);
+        return numSpooled;
+    }
+
+    /**
+     * Sends everything in the {@link #spool} to the Zipkin server in batches of up to {@link #maxBatchPayloadBytes} (encoded), stopping at the
+     * first batch that fails. Spans are only removed from the spool once the batch containing them has been sent. Called periodically on the
+     * sender thread when spooling is enabled.
+     */
+    protected void replaySpooledSpans() {
+        while (!spool.isEmpty()) {
+            List<byte[]> records = spool.peek(maxBatchPayloadBytes);
+            List<zipkin.Span> spans = new ArrayList<>(records.size());
+            for (byte[] record : records) {
+                try {
+                    spans.add(Codec.THRIFT.readSpan(record));
+                }
+                catch (RuntimeException ex) {
+                    failedSpanCount.incrementAndGet();
+                    logger.warn("Discarding a spooled Zipkin span that could not be decoded. exception_cause=\"{}\"", ex.toString());
+                }
+            }
+
+            if (!spans.isEmpty()) {
+                try {
+                    sendSpansOnce(spans);
+                }
+                catch (IOException e) {
+                    collectorUnreachable = true;
+                    logger.debug("The Zipkin server is still unreachable, will retry replaying spooled spans later. spooled_span_count={}, "
+                                 + "exception_cause=\"{}\"", spool.getSpooledRecordCount(), e.toString());
+                    return;
+                }
+            }
+
+            spool.remove(records.size());
+            collectorUnreachable = false;
+        }
+
+        collectorUnreachable = false;
+    }
+
+    /**
+     * @param attemptNumber The number of the attempt that just failed, starting with 1.
+     * @return How long to wait before the next attempt. This is {@link #retryBaseBackoffMillis} doubled for each previous retry and capped at
+     * {@link #MAX_RETRY_BACKOFF_MILLIS}, with the lower half of that range replaced by a random value so retries are spread out.
+     */
+    protected long calculateRetryBackoffMillis(int attemptNumber) {
+        long backoff = retryBaseBackoffMillis << Math.min(attemptNumber - 1, 20);
+        backoff = Math.min(backoff, MAX_RETRY_BACKOFF_MILLIS);
+        long halfBackoff = backoff / 2;
+        return halfBackoff + ThreadLocalRandom.current().nextLong(backoff - halfBackoff + 1);
     }
 
     /**
@@ -164,6 +751,44 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
         connection.setFixedLengthStreamingMode(spanListJsonPayloadBytes.length);
         connection.getOutputStream().write(spanListJsonPayloadBytes);
 
+        consumeResponse(connection);
+    }
+
+    /**
+     * The streaming send path, used when {@link #spanEncoding} is not null. POSTs the given spans to the Zipkin server endpoint at
+     * {@link #postZipkinSpansUrl}, encoding them with {@link #spanEncoding} one at a time straight into a {@link #payloadCompressor} stream
+     * over a chunked request body. Only one span's encoded bytes and the stream buffers are held in memory at a time, rather than the whole
+     * payload.
+     */
+    protected void sendSpansStreaming(List<zipkin.Span> spanList) throws IOException {
+        logger.trace("Streaming spans to zipkin");
+
+        // intentionally not closing the connection, so as to use keep-alives
+        HttpURLConnection connection = (HttpURLConnection) postZipkinSpansUrl.openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setRequestMethod("POST");
+        connection.addRequestProperty("Content-Type", spanEncoding.getContentType());
+        String contentEncoding = payloadCompressor.getContentEncoding();
+        if (contentEncoding != null)
+            connection.addRequestProperty("Content-Encoding", contentEncoding);
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(STREAMING_BUFFER_SIZE);
+
+        // Closing the request body stream finishes the request - it doesn't close the underlying connection.
+        try (OutputStream out = payloadCompressor.wrap(new BufferedOutputStream(connection.getOutputStream(), STREAMING_BUFFER_SIZE))) {
+            spanEncoding.writeSpans(spanList, out);
+        }
+
+        consumeResponse(connection);
+    }
+
+    /**
+     * Reads and discards the response (or error response) to the given request so the connection can go back into the keep-alive pool.
+     *
+     * @throws IOException if the request failed.
+     */
+    protected void consumeResponse(HttpURLConnection connection) throws IOException {
         try (InputStream in = connection.getInputStream()) {
             while (in.read() != -1) ; // skip
         } catch (IOException e) {
@@ -176,29 +801,169 @@ public class ZipkinSpanSenderDefaultHttpImpl implements ZipkinSpanSender {
         }
     }
 
+    /**
+     * A Wingtips span waiting to be converted on the sender thread, along with the conversion to use.
+     */
+    protected static class PendingSpanConversion {
+        public final Span wingtipsSpan;
+        public final SpanConversion conversion;
+
+        public PendingSpanConversion(Span wingtipsSpan, SpanConversion conversion) {
+            this.wingtipsSpan = wingtipsSpan;
+            this.conversion = conversion;
+        }
+    }
+
     protected static class ZipkinSpanSenderJob implements Runnable {
         private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
         protected final ZipkinSpanSenderDefaultHttpImpl zipkinSpanSender;
         protected final BlockingQueue<zipkin.Span> zipkinSpanSendingQueue;
+        /**
+         * The queue of Wingtips spans waiting to be converted - may be null, in which case only {@link #zipkinSpanSendingQueue} is drained.
+         */
+        protected final BlockingQueue<PendingSpanConversion> pendingConversionQueue;
+        protected final int maxBatchPayloadBytes;
+        protected final int numSendLanes;
 
         public ZipkinSpanSenderJob(ZipkinSpanSenderDefaultHttpImpl zipkinSpanSender, BlockingQueue<zipkin.Span> zipkinSpanSendingQueue) {
+            this(zipkinSpanSender, zipkinSpanSendingQueue, null, DEFAULT_MAX_BATCH_PAYLOAD_BYTES, DEFAULT_MAX_IN_FLIGHT_BATCHES);
+        }
+
+        public ZipkinSpanSenderJob(ZipkinSpanSenderDefaultHttpImpl zipkinSpanSender, BlockingQueue<zipkin.Span> zipkinSpanSendingQueue,
+                                   BlockingQueue<PendingSpanConversion> pendingConversionQueue, int maxBatchPayloadBytes, int numSendLanes) {
             this.zipkinSpanSender = zipkinSpanSender;
             this.zipkinSpanSendingQueue = zipkinSpanSendingQueue;
+            this.pendingConversionQueue = pendingConversionQueue;
+            this.maxBatchPayloadBytes = maxBatchPayloadBytes;
+            this.numSendLanes = numSendLanes;
         }
 
         @Override
         public void run() {
             try {
-                if (zipkinSpanSendingQueue.isEmpty())
+                boolean hasPendingConversions = pendingConversionQueue != null && !pendingConversionQueue.isEmpty();
+                if (zipkinSpanSendingQueue.isEmpty() && !hasPendingConversions)
                     return;
 
                 List<zipkin.Span> drainedSpans = new ArrayList<>(zipkinSpanSendingQueue.size());
-                zipkinSpanSendingQueue.drainTo(drainedSpans);
-                if (!drainedSpans.isEmpty())
-                    zipkinSpanSender.sendSpans(drainedSpans);
+                List<PendingSpanConversion> pendingConversions = Collections.emptyList();
+                int[] alreadyConvertedSpanSizeEstimates;
+                long drainedBytesEstimate = 0;
+                try {
+                    zipkinSpanSendingQueue.drainTo(drainedSpans);
+                    alreadyConvertedSpanSizeEstimates = new int[drainedSpans.size()];
+                    for (int i = 0; i < alreadyConvertedSpanSizeEstimates.length; i++) {
+                        alreadyConvertedSpanSizeEstimates[i] = estimateSpanSizeInBytes(drainedSpans.get(i));
+                        drainedBytesEstimate += alreadyConvertedSpanSizeEstimates[i];
+                    }
+
+                    if (hasPendingConversions) {
+                        pendingConversions = new ArrayList<>(pendingConversionQueue.size());
+                        pendingConversionQueue.drainTo(pendingConversions);
+                        for (PendingSpanConversion pending : pendingConversions) {
+                            drainedBytesEstimate += estimateUnconvertedSpanSizeInBytes(pending.wingtipsSpan);
+                        }
+                    }
+                }
+                finally {
+                    // The drained spans no longer take up room in the queues, so release their share of the byte budget before converting
+                    //      and sending them (which can be slow or fail).
+                    if (drainedBytesEstimate > 0)
+                        zipkinSpanSender.spansRemovedFromQueue(drainedBytesEstimate);
+                }
+
+                // Convert any unconverted spans in bulk here on the sender thread. A conversion that blows up only costs us that one span.
+                for (PendingSpanConversion pending : pendingConversions) {
+                    try {
+                        zipkin.Span convertedSpan = pending.conversion.convertToZipkinSpan(pending.wingtipsSpan);
+                        if (convertedSpan != null)
+                            drainedSpans.add(convertedSpan);
+                    }
+                    catch (Throwable ex) {
+                        zipkinSpanSender.spanConversionFailed(pending.wingtipsSpan, ex);
+                    }
+                }
+
+                if (drainedSpans.isEmpty())
+                    return;
+
+                // Split the spans into batches that fit within maxBatchPayloadBytes.
+                int[] spanSizeEstimates = new int[drainedSpans.size()];
+                System.arraycopy(alreadyConvertedSpanSizeEstimates, 0, spanSizeEstimates, 0, alreadyConvertedSpanSizeEstimates.length);
+                for (int i = alreadyConvertedSpanSizeEstimates.length; i < spanSizeEstimates.length; i++) {
+                    spanSizeEstimates[i] = estimateSpanSizeInBytes(drainedSpans.get(i));
+                }
+
+                if (numSendLanes <= 1) {
+                    sendInBatches(drainedSpans, spanSizeEstimates, -1);
+                    return;
+                }
+
+                // Split the spans up by send lane (keeping their order within each lane), then batch each lane's spans.
+                List<List<Integer>> spanIndexesByLane = new ArrayList<>(numSendLanes);
+                for (int lane = 0; lane < numSendLanes; lane++) {
+                    spanIndexesByLane.add(new ArrayList<Integer>());
+                }
+                for (int i = 0; i < spanSizeEstimates.length; i++) {
+                    spanIndexesByLane.get(sendLaneIndexForSpan(drainedSpans.get(i), numSendLanes)).add(i);
+                }
+                for (int lane = 0; lane < numSendLanes; lane++) {
+                    List<Integer> spanIndexes = spanIndexesByLane.get(lane);
+                    if (spanIndexes.isEmpty())
+                        continue;
+
+                    List<zipkin.Span> laneSpans = new ArrayList<>(spanIndexes.size());
+                    int[] laneSpanSizeEstimates = new int[spanIndexes.size()];
+                    for (int i = 0; i < laneSpanSizeEstimates.length; i++) {
+                        laneSpans.add(drainedSpans.get(spanIndexes.get(i)));
+                        laneSpanSizeEstimates[i] = spanSizeEstimates[spanIndexes.get(i)];
+                    }
+                    sendInBatches(laneSpans, laneSpanSizeEstimates, lane);
+                }
+            }
+            catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            catch(Throwable ex) {
+                logger.error("An unexpected error occurred attempting to post Zipkin spans to the Zipkin server.", ex);
+            }
+        }
+
+        /**
+         * Splits the given spans into batches that fit within {@link #maxBatchPayloadBytes} and sends each one.
+         *
+         * @param spans The spans to send.
+         * @param spanSizeEstimates The estimated size of each span in {@code spans}.
+         * @param laneIndex The send lane to send the batches on, or -1 to send them directly on this thread.
+         */
+        protected void sendInBatches(List<zipkin.Span> spans, int[] spanSizeEstimates, int laneIndex) throws InterruptedException {
+            List<zipkin.Span> batch = new ArrayList<>();
+            long batchBytesEstimate = 0;
+            for (int i = 0; i < spanSizeEstimates.length; i++) {
+                if (!batch.isEmpty() && batchBytesEstimate + spanSizeEstimates[i] > maxBatchPayloadBytes) {
+                    sendBatch(batch, laneIndex);
+                    batch = new ArrayList<>();
+                    batchBytesEstimate = 0;
+                }
+                batch.add(spans.get(i));
+                batchBytesEstimate += spanSizeEstimates[i];
+            }
+            sendBatch(batch, laneIndex);
+        }
+
+        protected void sendBatch(List<zipkin.Span> batch, int laneIndex) throws InterruptedException {
+            try {
+                if (laneIndex < 0)
+                    zipkinSpanSender.sendSpans(batch);
+                else
+                    zipkinSpanSender.sendSpansOnLane(batch, laneIndex);
+            }
+            catch (InterruptedException ex) {
+                throw ex;
             }
             catch(Throwable ex) {
+                // Don't let one bad batch stop the rest of the drained spans from being sent.
                 logger.error("An unexpected error occurred attempting to post Zipkin spans to the Zipkin server.", ex);
             }
         }
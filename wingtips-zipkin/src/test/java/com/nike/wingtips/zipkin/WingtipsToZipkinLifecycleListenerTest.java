@@ -1,6 +1,8 @@
 package com.nike.wingtips.zipkin;
 
 import com.nike.wingtips.Span;
+import com.nike.wingtips.zipkin.util.DeferredConversionZipkinSpanSender;
+import com.nike.wingtips.zipkin.util.DeferredConversionZipkinSpanSender.SpanConversion;
 import com.nike.wingtips.zipkin.util.WingtipsToZipkinSpanConverter;
 import com.nike.wingtips.zipkin.util.WingtipsToZipkinSpanConverterDefaultImpl;
 import com.nike.wingtips.zipkin.util.ZipkinSpanSender;
@@ -9,6 +11,7 @@ import com.nike.wingtips.zipkin.util.ZipkinSpanSenderDefaultHttpImpl;
 import org.assertj.core.api.ThrowableAssert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.slf4j.Logger;
 
@@ -87,6 +90,116 @@ public class WingtipsToZipkinLifecycleListenerTest {
         assertThat(Whitebox.getInternalState(spanSender, "postZipkinSpansUrl")).isEqualTo(new URL(baseUrl + "/api/v1/spans"));
     }
 
+    @Test
+    public void kitchen_sink_constructor_with_deferSpanConversion_sets_fields_as_expected() {
+        // given
+        DeferredConversionZipkinSpanSender deferredSenderMock = mock(DeferredConversionZipkinSpanSender.class);
+
+        // when
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, localComponentNamespace, spanConverterMock, deferredSenderMock, true
+        );
+
+        // then
+        assertThat(listener.zipkinSpanSender).isSameAs(deferredSenderMock);
+        assertThat(listener.deferredConversionSender).isSameAs(deferredSenderMock);
+        assertThat(listener.deferredSpanConversion).isNotNull();
+    }
+
+    @Test
+    public void kitchen_sink_constructor_without_deferSpanConversion_does_not_set_deferred_fields() {
+        // when
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, localComponentNamespace, spanConverterMock, mock(DeferredConversionZipkinSpanSender.class), false
+        );
+
+        // then
+        assertThat(listener.deferredConversionSender).isNull();
+        assertThat(listener.deferredSpanConversion).isNull();
+    }
+
+    @Test
+    public void kitchen_sink_constructor_throws_IllegalArgumentException_if_deferSpanConversion_is_true_but_sender_does_not_support_it() {
+        // when
+        Throwable ex = catchThrowable(new ThrowableAssert.ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new WingtipsToZipkinLifecycleListener(serviceName, localComponentNamespace, spanConverterMock, spanSenderMock, true);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void convenience_constructor_with_deferSpanConversion_uses_default_sender_for_deferred_conversion() {
+        // when
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, localComponentNamespace, "http://localhost:4242", true
+        );
+
+        // then
+        assertThat(listener.zipkinSpanSender).isInstanceOf(ZipkinSpanSenderDefaultHttpImpl.class);
+        assertThat(listener.deferredConversionSender).isSameAs(listener.zipkinSpanSender);
+    }
+
+    @Test
+    public void spanCompleted_with_deferred_conversion_enqueues_unconverted_span_without_converting_it() {
+        // given
+        DeferredConversionZipkinSpanSender deferredSenderMock = mock(DeferredConversionZipkinSpanSender.class);
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, localComponentNamespace, spanConverterMock, deferredSenderMock, true
+        );
+
+        // when
+        listener.spanCompleted(spanMock);
+
+        // then
+        verify(deferredSenderMock).handleUnconvertedSpan(spanMock, listener.deferredSpanConversion);
+        verifyZeroInteractions(spanConverterMock);
+    }
+
+    @Test
+    public void deferred_SpanConversion_converts_using_span_converter() {
+        // given
+        DeferredConversionZipkinSpanSender deferredSenderMock = mock(DeferredConversionZipkinSpanSender.class);
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, localComponentNamespace, spanConverterMock, deferredSenderMock, true
+        );
+        zipkin.Span zipkinSpan = zipkin.Span.builder().traceId(42).id(4242).name("foo").build();
+        doReturn(zipkinSpan).when(spanConverterMock).convertWingtipsSpanToZipkinSpan(any(Span.class), any(Endpoint.class), any(String.class));
+
+        listener.spanCompleted(spanMock);
+        ArgumentCaptor<SpanConversion> conversionCaptor = ArgumentCaptor.forClass(SpanConversion.class);
+        verify(deferredSenderMock).handleUnconvertedSpan(any(Span.class), conversionCaptor.capture());
+
+        // when
+        zipkin.Span result = conversionCaptor.getValue().convertToZipkinSpan(spanMock);
+
+        // then
+        assertThat(result).isSameAs(zipkinSpan);
+        verify(spanConverterMock).convertWingtipsSpanToZipkinSpan(spanMock, listener.zipkinEndpoint, localComponentNamespace);
+    }
+
+    @Test
+    public void deferred_SpanConversion_returns_null_and_counts_error_when_conversion_fails() {
+        // given
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, localComponentNamespace, spanConverterMock, mock(DeferredConversionZipkinSpanSender.class), true
+        );
+        doThrow(new RuntimeException("kaboom"))
+            .when(spanConverterMock).convertWingtipsSpanToZipkinSpan(any(Span.class), any(Endpoint.class), any(String.class));
+        long errorCountBefore = listener.spanHandlingErrorCounter.get();
+
+        // when
+        zipkin.Span result = listener.deferredSpanConversion.convertToZipkinSpan(spanMock);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(listener.spanHandlingErrorCounter.get()).isEqualTo(errorCountBefore + 1);
+    }
+
     @Test
     public void spanStarted_does_nothing() {
         // when
@@ -0,0 +1,144 @@
+package com.nike.wingtips.zipkin.util;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.assertj.core.api.ThrowableAssert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ZipkinPayloadCompressors}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ZipkinPayloadCompressorsTest {
+
+    private static byte[] payload() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(UUID.randomUUID().toString()).append("some repeated text ");
+        }
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    private static byte[] compress(ZipkinPayloadCompressor compressor, byte[] payload) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.wrap(compressed)) {
+            out.write(payload);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try (InputStream closeMe = in) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int read;
+            while ((read = closeMe.read(buf)) != -1) {
+                result.write(buf, 0, read);
+            }
+            return result.toByteArray();
+        }
+    }
+
+    @Test
+    public void none_does_not_wrap_or_compress() throws IOException {
+        // given
+        ZipkinPayloadCompressor compressor = ZipkinPayloadCompressors.none();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // expect
+        assertThat(compressor.getContentEncoding()).isNull();
+        assertThat(compressor.wrap(out)).isSameAs(out);
+    }
+
+    @DataProvider(value = {
+        "-1",
+        "0",
+        "1",
+        "9"
+    })
+    @Test
+    public void gzip_compresses_with_given_level(int level) throws IOException {
+        // given
+        ZipkinPayloadCompressor compressor = ZipkinPayloadCompressors.gzip(level);
+        byte[] payload = payload();
+
+        // when
+        byte[] compressed = compress(compressor, payload);
+
+        // then
+        assertThat(compressor.getContentEncoding()).isEqualTo("gzip");
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(compressed)))).isEqualTo(payload);
+        if (level != 0)
+            assertThat(compressed.length).isLessThan(payload.length);
+    }
+
+    @Test
+    public void gzip_with_no_args_returns_default_level_gzip_compressor() throws IOException {
+        // given
+        ZipkinPayloadCompressor compressor = ZipkinPayloadCompressors.gzip();
+        byte[] payload = payload();
+
+        // expect
+        assertThat(compressor.getContentEncoding()).isEqualTo("gzip");
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(compress(compressor, payload))))).isEqualTo(payload);
+    }
+
+    @DataProvider(value = {
+        "-1",
+        "1",
+        "9"
+    })
+    @Test
+    public void deflate_compresses_with_zlib_format(int level) throws IOException {
+        // given
+        ZipkinPayloadCompressor compressor = ZipkinPayloadCompressors.deflate(level);
+        byte[] payload = payload();
+
+        // when
+        byte[] compressed = compress(compressor, payload);
+
+        // then
+        assertThat(compressor.getContentEncoding()).isEqualTo("deflate");
+        assertThat(compressed.length).isLessThan(payload.length);
+        assertThat(readFully(new InflaterInputStream(new ByteArrayInputStream(compressed)))).isEqualTo(payload);
+    }
+
+    @DataProvider(value = {
+        "-2",
+        "10"
+    })
+    @Test
+    public void gzip_and_deflate_throw_IllegalArgumentException_for_invalid_level(final int level) {
+        // when
+        Throwable gzipEx = catchThrowable(new ThrowableAssert.ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                ZipkinPayloadCompressors.gzip(level);
+            }
+        });
+        Throwable deflateEx = catchThrowable(new ThrowableAssert.ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                ZipkinPayloadCompressors.deflate(level);
+            }
+        });
+
+        // then
+        assertThat(gzipEx).isInstanceOf(IllegalArgumentException.class);
+        assertThat(deflateEx).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.nike.wingtips.zipkin.util;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import zipkin.Codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link ZipkinSpanEncoding}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ZipkinSpanEncodingTest {
+
+    private static Codec codecFor(ZipkinSpanEncoding encoding) {
+        return (encoding == ZipkinSpanEncoding.THRIFT) ? Codec.THRIFT : Codec.JSON;
+    }
+
+    @DataProvider(value = {
+        "JSON   |   0",
+        "JSON   |   1",
+        "JSON   |   10",
+        "THRIFT |   0",
+        "THRIFT |   1",
+        "THRIFT |   10",
+    }, splitBy = "\\|")
+    @Test
+    public void writeSpans_writes_same_bytes_as_zipkin_codec(ZipkinSpanEncoding encoding, int numSpans) throws IOException {
+        // given
+        List<zipkin.Span> spans = new ArrayList<>();
+        for (int i = 0; i < numSpans; i++) {
+            spans.add(ZipkinSpanSenderDefaultHttpImplTest.zipkinSpan(i + 1, UUID.randomUUID().toString()));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        encoding.writeSpans(spans, out);
+
+        // then
+        assertThat(out.toByteArray()).isEqualTo(codecFor(encoding).writeSpans(spans));
+        assertThat(codecFor(encoding).readSpans(out.toByteArray())).isEqualTo(spans);
+    }
+
+    @DataProvider(value = {
+        "JSON   |   application/json",
+        "THRIFT |   application/x-thrift",
+    }, splitBy = "\\|")
+    @Test
+    public void getContentType_returns_expected_value(ZipkinSpanEncoding encoding, String expectedContentType) {
+        // expect
+        assertThat(encoding.getContentType()).isEqualTo(expectedContentType);
+    }
+
+    @Test
+    public void writeSpans_handles_empty_list() throws IOException {
+        // given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        ZipkinSpanEncoding.JSON.writeSpans(Collections.<zipkin.Span>emptyList(), out);
+
+        // then
+        assertThat(new String(out.toByteArray(), "UTF-8")).isEqualTo("[]");
+    }
+}
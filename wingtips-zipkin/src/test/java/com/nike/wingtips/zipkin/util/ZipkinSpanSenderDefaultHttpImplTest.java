@@ -1,5 +1,7 @@
 package com.nike.wingtips.zipkin.util;
 
+import com.nike.wingtips.util.MappedFileSpool;
+
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
@@ -7,26 +9,38 @@ import org.assertj.core.api.ThrowableAssert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.internal.util.reflection.Whitebox;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -37,11 +51,14 @@ import zipkin.junit.ZipkinRule;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -56,6 +73,9 @@ public class ZipkinSpanSenderDefaultHttpImplTest {
     @Rule
     public final ZipkinRule zipkinRule = new ZipkinRule();
 
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
     private final Random random = new Random(System.nanoTime());
 
     private String baseUrl;
@@ -160,6 +180,81 @@ public class ZipkinSpanSenderDefaultHttpImplTest {
                                                   TimeUnit.MILLISECONDS);
     }
 
+    @Test
+    public void new_kitchen_sink_constructor_sets_queue_batch_and_retry_fields_as_expected() {
+        // given
+        final ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+
+        // when
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            "http://localhost:4242", true, 1000, 2000, 0, 42, 4242L, 1234, 5, 300L, 3, ZipkinSpanEncoding.THRIFT, null, null
+        ) {
+            @Override
+            protected ScheduledExecutorService configureScheduledExecutorServiceForBatching() {
+                return schedulerMock;
+            }
+        };
+
+        // then
+        assertThat(impl.zipkinSpanSendingQueue.remainingCapacity()).isEqualTo(42);
+        assertThat(impl.maxQueuedBytes).isEqualTo(4242L);
+        assertThat(impl.maxBatchPayloadBytes).isEqualTo(1234);
+        assertThat(impl.maxSendAttempts).isEqualTo(5);
+        assertThat(impl.retryBaseBackoffMillis).isEqualTo(300L);
+        assertThat(impl.maxInFlightBatches).isEqualTo(3);
+        assertThat(impl.sendLaneExecutors).hasSize(3);
+        assertThat(impl.sendLanePermits.availablePermits()).isEqualTo(6);
+        assertThat(impl.senderJob.maxBatchPayloadBytes).isEqualTo(1234);
+        assertThat(impl.senderJob.numSendLanes).isEqualTo(3);
+        assertThat(impl.spanEncoding).isEqualTo(ZipkinSpanEncoding.THRIFT);
+        assertThat(impl.payloadCompressor).isSameAs(ZipkinPayloadCompressors.gzip());
+
+        shutdownSendLanes(impl);
+        assertThat(impl.senderJob.zipkinSpanSendingQueue).isSameAs(impl.zipkinSpanSendingQueue);
+    }
+
+    @Test
+    public void convenience_constructor_uses_default_queue_batch_and_retry_settings() {
+        // expect
+        assertThat(implSpy.zipkinSpanSendingQueue.remainingCapacity())
+            .isEqualTo(ZipkinSpanSenderDefaultHttpImpl.DEFAULT_MAX_QUEUED_SPANS);
+        assertThat(implSpy.maxQueuedBytes).isEqualTo(ZipkinSpanSenderDefaultHttpImpl.DEFAULT_MAX_QUEUED_BYTES);
+        assertThat(implSpy.maxBatchPayloadBytes).isEqualTo(ZipkinSpanSenderDefaultHttpImpl.DEFAULT_MAX_BATCH_PAYLOAD_BYTES);
+        assertThat(implSpy.maxSendAttempts).isEqualTo(ZipkinSpanSenderDefaultHttpImpl.DEFAULT_MAX_SEND_ATTEMPTS);
+        assertThat(implSpy.retryBaseBackoffMillis).isEqualTo(ZipkinSpanSenderDefaultHttpImpl.DEFAULT_RETRY_BASE_BACKOFF_MILLIS);
+        assertThat(implSpy.maxInFlightBatches).isEqualTo(ZipkinSpanSenderDefaultHttpImpl.DEFAULT_MAX_IN_FLIGHT_BATCHES);
+        assertThat(implSpy.sendLaneExecutors).isNull();
+        assertThat(implSpy.sendLanePermits).isNull();
+        assertThat(implSpy.spanEncoding).isNull();
+        assertThat(implSpy.payloadCompressor).isSameAs(ZipkinPayloadCompressors.gzip());
+    }
+
+    @DataProvider(value = {
+        "0  |   1   |   1   |   1   |   0   |   1",
+        "1  |   0   |   1   |   1   |   0   |   1",
+        "1  |   1   |   0   |   1   |   0   |   1",
+        "1  |   1   |   1   |   0   |   0   |   1",
+        "1  |   1   |   1   |   1   |   -1  |   1",
+        "1  |   1   |   1   |   1   |   0   |   0",
+    }, splitBy = "\\|")
+    @Test
+    public void kitchen_sink_constructor_throws_IllegalArgumentException_for_invalid_queue_batch_retry_or_concurrency_args(
+        final int maxQueuedSpans, final long maxQueuedBytes, final int maxBatchPayloadBytes, final int maxSendAttempts,
+        final long retryBaseBackoffMillis, final int maxInFlightBatches
+    ) {
+        // when
+        Throwable ex = catchThrowable(new ThrowableAssert.ThrowingCallable() {
+            @Override
+            public void call() throws Throwable {
+                new ZipkinSpanSenderDefaultHttpImpl("http://localhost:4242", true, 1000, 1000, 0, maxQueuedSpans, maxQueuedBytes,
+                                                    maxBatchPayloadBytes, maxSendAttempts, retryBaseBackoffMillis, maxInFlightBatches, null, null, null);
+            }
+        });
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void constructor_throws_wrapped_MalformedURLException_if_url_is_malformed() {
         // given
@@ -194,6 +289,483 @@ public class ZipkinSpanSenderDefaultHttpImplTest {
             .contains(zipkinSpan);
     }
 
+    @Test
+    public void handleSpan_tracks_estimated_queued_bytes() {
+        // given
+        zipkin.Span zipkinSpan = zipkinSpan(42, "foo");
+
+        // when
+        implSpy.handleSpan(zipkinSpan);
+
+        // then
+        assertThat(implSpy.getQueuedBytesEstimate())
+            .isEqualTo(ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(zipkinSpan));
+        assertThat(implSpy.getDroppedSpanCount()).isZero();
+    }
+
+    @Test
+    public void handleSpan_drops_span_when_queue_span_count_limit_is_hit() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 2, Long.MAX_VALUE, 1000, 1, 0, 1, null, null, null
+        );
+        zipkin.Span span = zipkinSpan(42, "foo");
+
+        // when
+        impl.handleSpan(span);
+        impl.handleSpan(span);
+        impl.handleSpan(span);
+
+        // then
+        assertThat(impl.zipkinSpanSendingQueue).hasSize(2);
+        assertThat(impl.getDroppedSpanCount()).isEqualTo(1);
+        assertThat(impl.getQueuedBytesEstimate()).isEqualTo(2L * ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(span));
+    }
+
+    @Test
+    public void handleSpan_drops_span_when_queue_byte_budget_is_hit() {
+        // given
+        zipkin.Span span = zipkinSpan(42, "foo");
+        int spanSize = ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(span);
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, (spanSize * 2) + 1, 1000, 1, 0, 1, null, null, null
+        );
+
+        // when
+        impl.handleSpan(span);
+        impl.handleSpan(span);
+        impl.handleSpan(span);
+
+        // then
+        assertThat(impl.zipkinSpanSendingQueue).hasSize(2);
+        assertThat(impl.getDroppedSpanCount()).isEqualTo(1);
+        assertThat(impl.getQueuedBytesEstimate()).isEqualTo(2L * spanSize);
+    }
+
+    @Test
+    public void handleSpan_triggers_flush_each_time_a_full_batch_worth_of_spans_is_queued() {
+        // given
+        zipkin.Span span = zipkinSpan(42, "foo");
+        int spanSize = ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(span);
+        final ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, spanSize * 2, 1, 0, 1, null, null, null
+        ) {
+            @Override
+            protected ScheduledExecutorService configureScheduledExecutorServiceForBatching() {
+                return schedulerMock;
+            }
+        };
+
+        // when
+        impl.handleSpan(span);
+
+        // then
+        verify(schedulerMock, never()).execute(any(Runnable.class));
+
+        // and when
+        impl.handleSpan(span);
+        impl.handleSpan(span);
+
+        // then
+        verify(schedulerMock).execute(impl.senderJob);
+
+        // and when
+        impl.handleSpan(span);
+
+        // then
+        verify(schedulerMock, times(2)).execute(impl.senderJob);
+    }
+
+    @Test
+    public void handleSpan_and_handleUnconvertedSpan_drop_spans_instead_of_throwing_after_the_scheduler_is_shut_down() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, 1, 1, 0, 1, null, null, null
+        );
+        impl.zipkinSpanSendingScheduler.shutdown();
+        com.nike.wingtips.Span wingtipsSpan = com.nike.wingtips.Span.newBuilder("foo", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+
+        // when
+        impl.handleSpan(zipkinSpan(42, "foo"));
+        impl.handleUnconvertedSpan(wingtipsSpan, mock(DeferredConversionZipkinSpanSender.SpanConversion.class));
+
+        // then
+        assertThat(impl.zipkinSpanSendingQueue).isEmpty();
+        assertThat(impl.pendingConversionQueue).isEmpty();
+        assertThat(impl.getQueuedBytesEstimate()).isZero();
+        assertThat(impl.getDroppedSpanCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void handleSpan_drops_span_instead_of_throwing_if_the_scheduler_rejects_the_flush() {
+        // given
+        final ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+        doThrow(new RejectedExecutionException("shut down")).when(schedulerMock).execute(any(Runnable.class));
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, 1, 1, 0, 1, null, null, null
+        ) {
+            @Override
+            protected ScheduledExecutorService configureScheduledExecutorServiceForBatching() {
+                return schedulerMock;
+            }
+        };
+
+        // when
+        impl.handleSpan(zipkinSpan(42, "foo"));
+
+        // then
+        verify(schedulerMock).execute(impl.senderJob);
+        assertThat(impl.zipkinSpanSendingQueue).isEmpty();
+        assertThat(impl.getQueuedBytesEstimate()).isZero();
+        assertThat(impl.getDroppedSpanCount()).isEqualTo(1);
+    }
+
+    private static class SpoolingSenderForTesting extends ZipkinSpanSenderDefaultHttpImpl {
+        public final List<List<zipkin.Span>> sentBatches = new ArrayList<>();
+        public boolean failSends;
+
+        public SpoolingSenderForTesting(String baseUrl, int maxQueuedSpans, MappedFileSpool spool) {
+            super(baseUrl, false, 1000, 1000, 0, maxQueuedSpans, Long.MAX_VALUE, 100000, 1, 0, 1, null, null, spool);
+        }
+
+        @Override
+        protected ScheduledExecutorService configureScheduledExecutorServiceForBatching() {
+            return mock(ScheduledExecutorService.class);
+        }
+
+        @Override
+        protected void sendSpans(byte[] spanListJsonPayloadBytes) throws IOException {
+            if (failSends)
+                throw new IOException("kaboom");
+            sentBatches.add(Codec.JSON.readSpans(spanListJsonPayloadBytes));
+        }
+    }
+
+    private MappedFileSpool newSpool() throws IOException {
+        return new MappedFileSpool(tempFolder.newFolder(), MappedFileSpool.MIN_SEGMENT_SIZE_BYTES * 4, MappedFileSpool.MIN_SEGMENT_SIZE_BYTES * 16);
+    }
+
+    @Test
+    public void kitchen_sink_constructor_schedules_spool_replay_when_spool_is_passed_in() throws IOException {
+        // given
+        final ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+
+        // when
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, 1000, 1, 0, 1, null, null, newSpool()
+        ) {
+            @Override
+            protected ScheduledExecutorService configureScheduledExecutorServiceForBatching() {
+                return schedulerMock;
+            }
+        };
+
+        // then
+        assertThat(impl.spool).isNotNull();
+        verify(schedulerMock).scheduleWithFixedDelay(
+            any(Runnable.class), eq((long) ZipkinSpanSenderDefaultHttpImpl.DEFAULT_SPAN_BATCH_SENDING_PERIOD_MILLIS),
+            eq((long) ZipkinSpanSenderDefaultHttpImpl.DEFAULT_SPAN_BATCH_SENDING_PERIOD_MILLIS), eq(TimeUnit.MILLISECONDS)
+        );
+    }
+
+    @Test
+    public void handleSpan_spools_span_instead_of_dropping_it_when_queue_is_full() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = new SpoolingSenderForTesting(baseUrl, 1, spool);
+        zipkin.Span span1 = zipkinSpan(1, "foo");
+        zipkin.Span span2 = zipkinSpan(2, "bar");
+
+        // when
+        impl.handleSpan(span1);
+        impl.handleSpan(span2);
+
+        // then
+        assertThat(impl.zipkinSpanSendingQueue).containsExactly(span1);
+        assertThat(impl.getDroppedSpanCount()).isZero();
+        assertThat(impl.getSpooledSpanCount()).isEqualTo(1);
+        assertThat(Codec.THRIFT.readSpan(spool.peek(Integer.MAX_VALUE).get(0))).isEqualTo(span2);
+    }
+
+    @Test
+    public void handleUnconvertedSpan_converts_and_spools_span_instead_of_dropping_it_when_queue_is_full() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = new SpoolingSenderForTesting(baseUrl, 1, spool);
+        com.nike.wingtips.Span wingtipsSpan1 = com.nike.wingtips.Span.newBuilder("foo", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        com.nike.wingtips.Span wingtipsSpan2 = com.nike.wingtips.Span.newBuilder("bar", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        zipkin.Span convertedSpan2 = zipkinSpan(2, "bar");
+        DeferredConversionZipkinSpanSender.SpanConversion conversionMock = mock(DeferredConversionZipkinSpanSender.SpanConversion.class);
+        doReturn(convertedSpan2).when(conversionMock).convertToZipkinSpan(wingtipsSpan2);
+
+        // when
+        impl.handleUnconvertedSpan(wingtipsSpan1, conversionMock);
+        impl.handleUnconvertedSpan(wingtipsSpan2, conversionMock);
+
+        // then
+        assertThat(impl.pendingConversionQueue).hasSize(1);
+        assertThat(impl.pendingConversionQueue.peek().wingtipsSpan).isSameAs(wingtipsSpan1);
+        verify(conversionMock, never()).convertToZipkinSpan(wingtipsSpan1);
+        assertThat(impl.getDroppedSpanCount()).isZero();
+        assertThat(impl.getSpooledSpanCount()).isEqualTo(1);
+        assertThat(Codec.THRIFT.readSpan(spool.peek(Integer.MAX_VALUE).get(0))).isEqualTo(convertedSpan2);
+    }
+
+    @Test
+    public void handleUnconvertedSpan_counts_span_as_dropped_if_its_conversion_throws_when_queue_is_full() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = new SpoolingSenderForTesting(baseUrl, 1, spool);
+        com.nike.wingtips.Span wingtipsSpan1 = com.nike.wingtips.Span.newBuilder("foo", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        com.nike.wingtips.Span wingtipsSpan2 = com.nike.wingtips.Span.newBuilder("bar", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        DeferredConversionZipkinSpanSender.SpanConversion conversionMock = mock(DeferredConversionZipkinSpanSender.SpanConversion.class);
+        doThrow(new RuntimeException("kaboom")).when(conversionMock).convertToZipkinSpan(wingtipsSpan2);
+
+        // when
+        impl.handleUnconvertedSpan(wingtipsSpan1, conversionMock);
+        impl.handleUnconvertedSpan(wingtipsSpan2, conversionMock);
+
+        // then
+        assertThat(impl.pendingConversionQueue).hasSize(1);
+        assertThat(impl.getDroppedSpanCount()).isEqualTo(1);
+        assertThat(impl.getSpooledSpanCount()).isZero();
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void sendSpans_spools_batch_that_fails_all_attempts_and_spools_later_batches_directly() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = spy(new SpoolingSenderForTesting(baseUrl, 100, spool));
+        impl.failSends = true;
+        List<zipkin.Span> batch1 = Arrays.asList(zipkinSpan(1, "foo"), zipkinSpan(2, "bar"));
+        List<zipkin.Span> batch2 = Collections.singletonList(zipkinSpan(3, "baz"));
+
+        // when
+        impl.sendSpans(batch1);
+
+        // then
+        assertThat(impl.collectorUnreachable).isTrue();
+        assertThat(impl.getFailedSpanCount()).isZero();
+        assertThat(impl.getSpooledSpanCount()).isEqualTo(2);
+
+        // and when
+        impl.sendSpans(batch2);
+
+        // then
+        verify(impl, times(1)).sendSpansOnce(any(List.class));
+        assertThat(impl.getSpooledSpanCount()).isEqualTo(3);
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void replaySpooledSpans_sends_spooled_spans_and_removes_them_from_spool() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = new SpoolingSenderForTesting(baseUrl, 100, spool);
+        List<zipkin.Span> spans = Arrays.asList(zipkinSpan(1, "foo"), zipkinSpan(2, "bar"), zipkinSpan(3, "baz"));
+        impl.spoolSpans(spans);
+        impl.collectorUnreachable = true;
+
+        // when
+        impl.replaySpooledSpans();
+
+        // then
+        assertThat(impl.sentBatches).containsExactly(spans);
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(impl.collectorUnreachable).isFalse();
+    }
+
+    @Test
+    public void replaySpooledSpans_leaves_spans_in_spool_when_zipkin_is_still_unreachable() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = new SpoolingSenderForTesting(baseUrl, 100, spool);
+        impl.spoolSpans(Arrays.asList(zipkinSpan(1, "foo"), zipkinSpan(2, "bar")));
+        impl.failSends = true;
+
+        // when
+        impl.replaySpooledSpans();
+
+        // then
+        assertThat(impl.sentBatches).isEmpty();
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(2);
+        assertThat(impl.collectorUnreachable).isTrue();
+    }
+
+    @Test
+    public void replaySpooledSpans_discards_records_that_cannot_be_decoded() throws IOException {
+        // given
+        MappedFileSpool spool = newSpool();
+        SpoolingSenderForTesting impl = new SpoolingSenderForTesting(baseUrl, 100, spool);
+        spool.append("not a thrift span".getBytes());
+        zipkin.Span goodSpan = zipkinSpan(1, "foo");
+        impl.spoolSpans(Collections.singletonList(goodSpan));
+
+        // when
+        impl.replaySpooledSpans();
+
+        // then
+        assertThat(impl.sentBatches).containsExactly(Collections.singletonList(goodSpan));
+        assertThat(impl.getFailedSpanCount()).isEqualTo(1);
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void sendLaneIndexForSpan_assigns_all_spans_for_a_trace_to_the_same_lane() {
+        // given
+        long traceId = random.nextLong();
+        zipkin.Span span1 = zipkin.Span.builder().traceId(traceId).id(random.nextLong()).name("foo").build();
+        zipkin.Span span2 = zipkin.Span.builder().traceId(traceId).id(random.nextLong()).name("bar").build();
+
+        for (int numLanes = 1; numLanes < 10; numLanes++) {
+            // when
+            int lane1 = ZipkinSpanSenderDefaultHttpImpl.sendLaneIndexForSpan(span1, numLanes);
+            int lane2 = ZipkinSpanSenderDefaultHttpImpl.sendLaneIndexForSpan(span2, numLanes);
+
+            // then
+            assertThat(lane1).isEqualTo(lane2).isBetween(0, numLanes - 1);
+        }
+    }
+
+    @Test
+    public void sendSpansOnLane_sends_batch_on_lane_thread_and_releases_permit() throws InterruptedException {
+        // given
+        final List<String> sendingThreadNames = new CopyOnWriteArrayList<>();
+        final CountDownLatch sentLatch = new CountDownLatch(1);
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, 1000, 1, 0, 2, null, null, null
+        ) {
+            @Override
+            protected void sendSpansWithInlineRetries(List<zipkin.Span> spanList) {
+                sendingThreadNames.add(Thread.currentThread().getName());
+                sentLatch.countDown();
+            }
+        };
+        int initialPermits = impl.sendLanePermits.availablePermits();
+
+        try {
+            // when
+            impl.sendSpansOnLane(Collections.singletonList(zipkinSpan(42, "foo")), 1);
+
+            // then
+            assertThat(sentLatch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(sendingThreadNames).containsExactly("zipkin-span-sender-lane-1");
+            impl.sendLaneExecutors[1].shutdown();
+            impl.sendLaneExecutors[1].awaitTermination(5, TimeUnit.SECONDS);
+            assertThat(impl.sendLanePermits.availablePermits()).isEqualTo(initialPermits);
+        }
+        finally {
+            shutdownSendLanes(impl);
+        }
+    }
+
+    @Test
+    public void sendSpansOnLane_retries_failed_batch_on_its_lane_before_the_lane_sends_the_next_batch() throws InterruptedException {
+        // given
+        final ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+        final List<String> attempts = new CopyOnWriteArrayList<>();
+        final List<Long> queuedBytesDuringRetry = new CopyOnWriteArrayList<>();
+        final List<Integer> permitsDuringRetry = new CopyOnWriteArrayList<>();
+        final CountDownLatch sentLatch = new CountDownLatch(1);
+        final ZipkinSpanSenderDefaultHttpImpl[] implHolder = new ZipkinSpanSenderDefaultHttpImpl[1];
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, 1000, 3, 1, 2, null, null, null
+        ) {
+            @Override
+            protected ScheduledExecutorService configureScheduledExecutorServiceForBatching() {
+                return schedulerMock;
+            }
+
+            @Override
+            protected void sendSpansOnce(List<zipkin.Span> spanList) throws IOException {
+                String name = spanList.get(0).name;
+                attempts.add(name + "@" + Thread.currentThread().getName());
+                if (name.equals("first") && attempts.size() == 1)
+                    throw new IOException("kaboom");
+                if (name.equals("first")) {
+                    queuedBytesDuringRetry.add(implHolder[0].getQueuedBytesEstimate());
+                    permitsDuringRetry.add(implHolder[0].sendLanePermits.availablePermits());
+                }
+                if (name.equals("second"))
+                    sentLatch.countDown();
+            }
+        };
+        implHolder[0] = impl;
+        int initialPermits = impl.sendLanePermits.availablePermits();
+        List<zipkin.Span> firstBatch = Collections.singletonList(zipkinSpan(42, "first"));
+
+        try {
+            // when
+            impl.sendSpansOnLane(firstBatch, 1);
+            impl.sendSpansOnLane(Collections.singletonList(zipkinSpan(42, "second")), 1);
+
+            // then
+            assertThat(sentLatch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(attempts).containsExactly(
+                "first@zipkin-span-sender-lane-1", "first@zipkin-span-sender-lane-1", "second@zipkin-span-sender-lane-1"
+            );
+            verify(schedulerMock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+            assertThat(queuedBytesDuringRetry).containsExactly(ZipkinSpanSenderDefaultHttpImpl.estimateBatchSizeInBytes(firstBatch));
+            // Both batches still hold their permits while the first one is retried.
+            assertThat(permitsDuringRetry).containsExactly(initialPermits - 2);
+            impl.sendLaneExecutors[1].shutdown();
+            impl.sendLaneExecutors[1].awaitTermination(5, TimeUnit.SECONDS);
+            assertThat(impl.sendLanePermits.availablePermits()).isEqualTo(initialPermits);
+            assertThat(impl.getQueuedBytesEstimate()).isZero();
+            assertThat(impl.getFailedSpanCount()).isZero();
+        }
+        finally {
+            shutdownSendLanes(impl);
+        }
+    }
+
+    @Test
+    public void sendSpansWithInlineRetries_counts_failed_spans_once_out_of_attempts() {
+        // given
+        final AtomicInteger numAttempts = new AtomicInteger();
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 100, Long.MAX_VALUE, 1000, 3, 0, 2, null, null, null
+        ) {
+            @Override
+            protected void sendSpansOnce(List<zipkin.Span> spanList) throws IOException {
+                numAttempts.incrementAndGet();
+                throw new IOException("kaboom");
+            }
+        };
+
+        try {
+            // when
+            impl.sendSpansWithInlineRetries(Arrays.asList(zipkinSpan(42, "foo"), zipkinSpan(43, "bar")));
+
+            // then
+            assertThat(numAttempts.get()).isEqualTo(3);
+            assertThat(impl.getFailedSpanCount()).isEqualTo(2);
+            assertThat(impl.getQueuedBytesEstimate()).isZero();
+        }
+        finally {
+            shutdownSendLanes(impl);
+        }
+    }
+
+    @Test
+    public void estimateSpanSizeInBytes_is_at_least_the_actual_json_size() {
+        // given
+        zipkin.Span span = new WingtipsToZipkinSpanConverterDefaultImpl().convertWingtipsSpanToZipkinSpan(
+            com.nike.wingtips.Span.newBuilder("some span name", com.nike.wingtips.Span.SpanPurpose.CLIENT)
+                                  .withDurationNanos(42000L)
+                                  .withParentSpanId("1234")
+                                  .build(),
+            zipkin.Endpoint.builder().serviceName("some-service").ipv4(42).build(),
+            "some-namespace"
+        );
+
+        // expect
+        assertThat(ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(span))
+            .isGreaterThanOrEqualTo(Codec.JSON.writeSpan(span).length);
+    }
+
     @Test
     public void flush_kicks_off_sender_job_immediately() {
         // when
@@ -256,6 +828,86 @@ public class ZipkinSpanSenderDefaultHttpImplTest {
         assertThat(ex).isSameAs(runtimeException);
     }
 
+    @Test
+    public void sendSpans_schedules_retry_with_backoff_when_attempts_remain() throws IOException {
+        // given
+        doThrow(new IOException("kaboom")).when(implSpy).sendSpans(any(byte[].class));
+        List<zipkin.Span> spans = Collections.singletonList(zipkinSpan(42, "foo"));
+
+        // when
+        implSpy.sendSpans(spans);
+
+        // then
+        ArgumentCaptor<Runnable> retryTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Long> backoffCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(schedulerMock).schedule(retryTaskCaptor.capture(), backoffCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+        long baseBackoff = ZipkinSpanSenderDefaultHttpImpl.DEFAULT_RETRY_BASE_BACKOFF_MILLIS;
+        assertThat(backoffCaptor.getValue()).isBetween(baseBackoff / 2, baseBackoff);
+        assertThat(implSpy.getFailedSpanCount()).isZero();
+
+        // and then - the batch counts towards the byte budget while it waits for its retry
+        assertThat(implSpy.getQueuedBytesEstimate()).isEqualTo(ZipkinSpanSenderDefaultHttpImpl.estimateBatchSizeInBytes(spans));
+
+        // and when
+        retryTaskCaptor.getValue().run();
+
+        // then
+        verify(implSpy).sendSpans(spans, 2);
+        verify(implSpy, times(2)).sendSpans(any(byte[].class));
+    }
+
+    @Test
+    public void sendSpans_counts_failed_spans_and_does_not_retry_when_out_of_attempts() throws IOException {
+        // given
+        doThrow(new IOException("kaboom")).when(implSpy).sendSpans(any(byte[].class));
+        List<zipkin.Span> spans = Arrays.asList(zipkinSpan(42, "foo"), zipkinSpan(43, "bar"));
+
+        // when
+        implSpy.sendSpans(spans, ZipkinSpanSenderDefaultHttpImpl.DEFAULT_MAX_SEND_ATTEMPTS);
+
+        // then
+        verify(schedulerMock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertThat(implSpy.getFailedSpanCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void sendSpans_counts_failed_spans_when_retry_cannot_be_scheduled() throws IOException {
+        // given
+        doThrow(new IOException("kaboom")).when(implSpy).sendSpans(any(byte[].class));
+        doThrow(new RejectedExecutionException("intentional test exception"))
+            .when(schedulerMock).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+        // when
+        implSpy.sendSpans(Collections.singletonList(zipkinSpan(42, "foo")));
+
+        // then
+        assertThat(implSpy.getFailedSpanCount()).isEqualTo(1);
+        assertThat(implSpy.getQueuedBytesEstimate()).isZero();
+    }
+
+    @DataProvider(value = {
+        "100    |   1   |   100",
+        "100    |   2   |   200",
+        "100    |   3   |   400",
+        "100    |   30  |   10000",
+        "0      |   1   |   0",
+    }, splitBy = "\\|")
+    @Test
+    public void calculateRetryBackoffMillis_doubles_caps_and_jitters_backoff(
+        long retryBaseBackoffMillis, int attemptNumber, long expectedMaxBackoff
+    ) {
+        // given
+        Whitebox.setInternalState(implSpy, "retryBaseBackoffMillis", retryBaseBackoffMillis);
+
+        for (int i = 0; i < 100; i++) {
+            // when
+            long result = implSpy.calculateRetryBackoffMillis(attemptNumber);
+
+            // then
+            assertThat(result).isBetween(expectedMaxBackoff / 2, expectedMaxBackoff);
+        }
+    }
+
     @Test
     public void sendSpans_sends_to_zipkin_server_as_expected() {
         // given
@@ -320,6 +972,111 @@ public class ZipkinSpanSenderDefaultHttpImplTest {
         }
     }
 
+    private enum StreamingCompressionScenario {
+        NONE(ZipkinPayloadCompressors.none()),
+        GZIP(ZipkinPayloadCompressors.gzip()),
+        GZIP_FASTEST(ZipkinPayloadCompressors.gzip(Deflater.BEST_SPEED)),
+        DEFLATE(ZipkinPayloadCompressors.deflate(Deflater.DEFAULT_COMPRESSION));
+
+        public final ZipkinPayloadCompressor compressor;
+
+        StreamingCompressionScenario(ZipkinPayloadCompressor compressor) {
+            this.compressor = compressor;
+        }
+
+        public byte[] decompress(byte[] bytes) throws IOException {
+            switch (this) {
+                case NONE:
+                    return bytes;
+                case DEFLATE:
+                    return readFully(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+                default:
+                    return readFully(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+            }
+        }
+    }
+
+    @DataProvider(value = {
+        "JSON   |   NONE",
+        "JSON   |   GZIP",
+        "JSON   |   GZIP_FASTEST",
+        "JSON   |   DEFLATE",
+        "THRIFT |   NONE",
+        "THRIFT |   GZIP",
+        "THRIFT |   GZIP_FASTEST",
+        "THRIFT |   DEFLATE",
+    }, splitBy = "\\|")
+    @Test
+    public void sendSpans_streams_encoded_and_compressed_spans_in_chunked_request_when_spanEncoding_is_set(
+        ZipkinSpanEncoding encoding, StreamingCompressionScenario compressionScenario
+    ) throws IOException, InterruptedException {
+        MockWebServer zipkinServer = new MockWebServer();
+        try {
+            // given
+            zipkinServer.start(0);
+            zipkinServer.enqueue(new MockResponse());
+
+            ZipkinSpanSenderDefaultHttpImpl impl = spy(new ZipkinSpanSenderDefaultHttpImpl(
+                zipkinServer.url("/").toString(), false, 1000, 5000, 0, 100, Long.MAX_VALUE, 100000, 1, 0, 1, encoding,
+                compressionScenario.compressor, null
+            ));
+
+            List<zipkin.Span> sentSpans = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                sentSpans.add(zipkinSpan(random.nextLong(), UUID.randomUUID().toString()));
+            }
+
+            // when
+            impl.sendSpans(sentSpans);
+
+            // then
+            verify(impl).sendSpansStreaming(sentSpans);
+            verify(impl, never()).sendSpans(any(byte[].class));
+
+            RecordedRequest zipkinServerReq = zipkinServer.takeRequest();
+            assertThat(zipkinServerReq.getPath()).isEqualTo("/api/v1/spans");
+            assertThat(zipkinServerReq.getHeader("Content-Type")).isEqualTo(encoding.getContentType());
+            assertThat(zipkinServerReq.getHeader("Content-Encoding")).isEqualTo(compressionScenario.compressor.getContentEncoding());
+            assertThat(zipkinServerReq.getHeader("Transfer-Encoding")).isEqualTo("chunked");
+
+            byte[] receivedPayloadBytes = compressionScenario.decompress(zipkinServerReq.getBody().readByteArray());
+            Codec codec = (encoding == ZipkinSpanEncoding.THRIFT) ? Codec.THRIFT : Codec.JSON;
+            assertThat(codec.readSpans(receivedPayloadBytes)).isEqualTo(sentSpans);
+        } finally {
+            zipkinServer.shutdown();
+        }
+    }
+
+    @Test
+    public void sendSpans_streaming_path_propagates_errors_to_retry_logic() throws IOException {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl impl = spy(new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, false, 1000, 5000, 0, 100, Long.MAX_VALUE, 100000, 1, 0, 1, ZipkinSpanEncoding.JSON, null, null
+        ));
+        doThrow(new IOException("kaboom")).when(impl).sendSpansStreaming(any(List.class));
+
+        // when
+        impl.sendSpans(Arrays.asList(zipkinSpan(42, "foo"), zipkinSpan(43, "bar")));
+
+        // then
+        assertThat(impl.getFailedSpanCount()).isEqualTo(2);
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                result.write(buf, 0, read);
+            }
+            return result.toByteArray();
+        }
+        finally {
+            in.close();
+        }
+    }
+
     private byte[] unGzip(byte[] orig) throws IOException {
         ByteArrayInputStream gzippedBytes = new ByteArrayInputStream(orig);
         GZIPInputStream gzipInputStream = new GZIPInputStream(gzippedBytes);
@@ -358,6 +1115,300 @@ public class ZipkinSpanSenderDefaultHttpImplTest {
         verify(senderImplMock).sendSpans(zipkinSpans);
     }
 
+    @Test
+    public void ZipkinSpanSenderJob_splits_drained_spans_into_batches_and_releases_queued_bytes() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl senderImplMock = mock(ZipkinSpanSenderDefaultHttpImpl.class);
+        BlockingQueue<zipkin.Span> spanBlockingQueue = new LinkedBlockingQueue<>();
+        List<zipkin.Span> zipkinSpans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            zipkinSpans.add(zipkinSpan(i, "span-" + i));
+        }
+        spanBlockingQueue.addAll(zipkinSpans);
+        int spanSize = ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(zipkinSpans.get(0));
+
+        ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob senderJob =
+            new ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob(senderImplMock, spanBlockingQueue, null, spanSize * 2, 1);
+
+        // when
+        senderJob.run();
+
+        // then
+        verify(senderImplMock).spansRemovedFromQueue(5L * spanSize);
+        verify(senderImplMock).sendSpans(zipkinSpans.subList(0, 2));
+        verify(senderImplMock).sendSpans(zipkinSpans.subList(2, 4));
+        verify(senderImplMock).sendSpans(zipkinSpans.subList(4, 5));
+    }
+
+    @Test
+    public void ZipkinSpanSenderJob_with_multiple_lanes_sends_each_trace_on_its_lane_in_order() throws InterruptedException {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl senderImplMock = mock(ZipkinSpanSenderDefaultHttpImpl.class);
+        BlockingQueue<zipkin.Span> spanBlockingQueue = new LinkedBlockingQueue<>();
+        int numLanes = 3;
+        List<List<zipkin.Span>> expectedSpansByLane = new ArrayList<>();
+        for (int lane = 0; lane < numLanes; lane++) {
+            expectedSpansByLane.add(new ArrayList<zipkin.Span>());
+        }
+        for (int i = 0; i < 20; i++) {
+            zipkin.Span span = zipkin.Span.builder().traceId(i % 7).id(i + 1).name("span-" + i).build();
+            spanBlockingQueue.add(span);
+            expectedSpansByLane.get(ZipkinSpanSenderDefaultHttpImpl.sendLaneIndexForSpan(span, numLanes)).add(span);
+        }
+
+        ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob senderJob =
+            new ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob(senderImplMock, spanBlockingQueue, null, Integer.MAX_VALUE, numLanes);
+
+        // when
+        senderJob.run();
+
+        // then
+        for (int lane = 0; lane < numLanes; lane++) {
+            verify(senderImplMock).sendSpansOnLane(expectedSpansByLane.get(lane), lane);
+        }
+        verify(senderImplMock, never()).sendSpans(any(List.class));
+    }
+
+    @Test
+    public void parallel_lanes_outperform_serial_sending_against_slow_mock_collector() throws Exception {
+        MockWebServer zipkinServer = new MockWebServer();
+        final AtomicInteger concurrentRequests = new AtomicInteger();
+        final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+        final long collectorLatencyMillis = 100;
+        int numLanes = 4;
+        int numSpans = 40;
+        int spansPerBatch = 5;
+        int expectedBatchesPerRun = numSpans / spansPerBatch;
+        final CountDownLatch allRequestsReceived = new CountDownLatch(expectedBatchesPerRun * 2);
+        ZipkinSpanSenderDefaultHttpImpl serialImpl = null;
+        ZipkinSpanSenderDefaultHttpImpl parallelImpl = null;
+        try {
+            // given
+            zipkinServer.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    int concurrent = concurrentRequests.incrementAndGet();
+                    synchronized (maxConcurrentRequests) {
+                        maxConcurrentRequests.set(Math.max(maxConcurrentRequests.get(), concurrent));
+                    }
+                    Thread.sleep(collectorLatencyMillis);
+                    concurrentRequests.decrementAndGet();
+                    allRequestsReceived.countDown();
+                    return new MockResponse();
+                }
+            });
+            zipkinServer.start(0);
+            String zipkinBaseUrl = zipkinServer.url("/").toString();
+
+            // Trace IDs 0 to (numSpans - 1) spread evenly across the lanes, and the span names are all the same length so each batch
+            //      holds exactly spansPerBatch spans.
+            List<zipkin.Span> spans = new ArrayList<>();
+            for (int i = 0; i < numSpans; i++) {
+                spans.add(zipkin.Span.builder().traceId(i).id(i + 1).name("span").build());
+            }
+            int maxBatchPayloadBytes = ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(spans.get(0)) * spansPerBatch;
+            serialImpl = new ZipkinSpanSenderDefaultHttpImpl(
+                zipkinBaseUrl, false, 1000, 5000, 0, 1000, Long.MAX_VALUE, maxBatchPayloadBytes, 1, 0, 1, null, null, null
+            );
+            parallelImpl = new ZipkinSpanSenderDefaultHttpImpl(
+                zipkinBaseUrl, false, 1000, 5000, 0, 1000, Long.MAX_VALUE, maxBatchPayloadBytes, 1, 0, numLanes, null, null, null
+            );
+
+            // when
+            long serialStartNanos = System.nanoTime();
+            serialImpl.zipkinSpanSendingQueue.addAll(spans);
+            serialImpl.senderJob.run();
+            long serialElapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - serialStartNanos);
+            int serialMaxConcurrency = maxConcurrentRequests.getAndSet(0);
+
+            long parallelStartNanos = System.nanoTime();
+            parallelImpl.zipkinSpanSendingQueue.addAll(spans);
+            parallelImpl.senderJob.run();
+            assertThat(allRequestsReceived.await(10, TimeUnit.SECONDS)).isTrue();
+            long parallelElapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parallelStartNanos);
+            int parallelMaxConcurrency = maxConcurrentRequests.get();
+
+            // then
+            assertThat(zipkinServer.getRequestCount()).isEqualTo(expectedBatchesPerRun * 2);
+            assertThat(serialMaxConcurrency).isEqualTo(1);
+            assertThat(parallelMaxConcurrency).isGreaterThan(1).isLessThanOrEqualTo(numLanes);
+            // Serial sending takes one collector round trip per batch, while the lanes split the batches between them.
+            assertThat(serialElapsedMillis).isGreaterThanOrEqualTo(expectedBatchesPerRun * collectorLatencyMillis);
+            assertThat(parallelElapsedMillis).isLessThan(serialElapsedMillis / 2);
+        }
+        finally {
+            if (parallelImpl != null)
+                shutdownSendLanes(parallelImpl);
+            zipkinServer.shutdown();
+        }
+    }
+
+    private void shutdownSendLanes(ZipkinSpanSenderDefaultHttpImpl impl) {
+        for (ExecutorService laneExecutor : impl.sendLaneExecutors) {
+            laneExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void handleUnconvertedSpan_queues_span_for_conversion_and_counts_towards_byte_budget() {
+        // given
+        com.nike.wingtips.Span wingtipsSpan = com.nike.wingtips.Span.newBuilder("foo", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        DeferredConversionZipkinSpanSender.SpanConversion conversionMock = mock(DeferredConversionZipkinSpanSender.SpanConversion.class);
+
+        // when
+        implSpy.handleUnconvertedSpan(wingtipsSpan, conversionMock);
+
+        // then
+        assertThat(implSpy.pendingConversionQueue).hasSize(1);
+        ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion pending = implSpy.pendingConversionQueue.peek();
+        assertThat(pending.wingtipsSpan).isSameAs(wingtipsSpan);
+        assertThat(pending.conversion).isSameAs(conversionMock);
+        assertThat(implSpy.zipkinSpanSendingQueue).isEmpty();
+        assertThat(implSpy.getQueuedBytesEstimate())
+            .isEqualTo(ZipkinSpanSenderDefaultHttpImpl.estimateUnconvertedSpanSizeInBytes(wingtipsSpan));
+        verifyZeroInteractions(conversionMock);
+    }
+
+    @Test
+    public void handleUnconvertedSpan_drops_span_when_queue_is_full() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl impl = new ZipkinSpanSenderDefaultHttpImpl(
+            baseUrl, true, 1000, 1000, 0, 1, Long.MAX_VALUE, 100000, 1, 0, 1, null, null, null
+        );
+        com.nike.wingtips.Span wingtipsSpan = com.nike.wingtips.Span.newBuilder("foo", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        DeferredConversionZipkinSpanSender.SpanConversion conversionMock = mock(DeferredConversionZipkinSpanSender.SpanConversion.class);
+
+        // when
+        impl.handleUnconvertedSpan(wingtipsSpan, conversionMock);
+        impl.handleUnconvertedSpan(wingtipsSpan, conversionMock);
+
+        // then
+        assertThat(impl.pendingConversionQueue).hasSize(1);
+        assertThat(impl.getDroppedSpanCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void ZipkinSpanSenderJob_converts_pending_spans_and_sends_them_with_already_converted_spans() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl senderImplMock = mock(ZipkinSpanSenderDefaultHttpImpl.class);
+        BlockingQueue<zipkin.Span> spanBlockingQueue = new LinkedBlockingQueue<>();
+        BlockingQueue<ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion> pendingQueue = new LinkedBlockingQueue<>();
+
+        zipkin.Span alreadyConvertedSpan = zipkinSpan(1, "already-converted");
+        spanBlockingQueue.add(alreadyConvertedSpan);
+
+        com.nike.wingtips.Span goodWingtipsSpan = com.nike.wingtips.Span.newBuilder("good", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        com.nike.wingtips.Span badWingtipsSpan = com.nike.wingtips.Span.newBuilder("bad", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        zipkin.Span convertedSpan = zipkinSpan(2, "converted");
+        DeferredConversionZipkinSpanSender.SpanConversion conversionMock = mock(DeferredConversionZipkinSpanSender.SpanConversion.class);
+        doReturn(convertedSpan).when(conversionMock).convertToZipkinSpan(goodWingtipsSpan);
+        doReturn(null).when(conversionMock).convertToZipkinSpan(badWingtipsSpan);
+        pendingQueue.add(new ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion(goodWingtipsSpan, conversionMock));
+        pendingQueue.add(new ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion(badWingtipsSpan, conversionMock));
+
+        ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob senderJob = new ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob(
+            senderImplMock, spanBlockingQueue, pendingQueue, Integer.MAX_VALUE, 1
+        );
+
+        // when
+        senderJob.run();
+
+        // then
+        assertThat(pendingQueue).isEmpty();
+        verify(senderImplMock).sendSpans(Arrays.asList(alreadyConvertedSpan, convertedSpan));
+        verify(senderImplMock).spansRemovedFromQueue(
+            ZipkinSpanSenderDefaultHttpImpl.estimateSpanSizeInBytes(alreadyConvertedSpan)
+            + ZipkinSpanSenderDefaultHttpImpl.estimateUnconvertedSpanSizeInBytes(goodWingtipsSpan)
+            + ZipkinSpanSenderDefaultHttpImpl.estimateUnconvertedSpanSizeInBytes(badWingtipsSpan)
+        );
+    }
+
+    @Test
+    public void ZipkinSpanSenderJob_drops_only_the_span_whose_conversion_throws_and_still_releases_all_drained_bytes() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl senderImplMock = mock(ZipkinSpanSenderDefaultHttpImpl.class);
+        BlockingQueue<ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion> pendingQueue = new LinkedBlockingQueue<>();
+
+        com.nike.wingtips.Span explodingWingtipsSpan = com.nike.wingtips.Span.newBuilder("explodes", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        com.nike.wingtips.Span goodWingtipsSpan = com.nike.wingtips.Span.newBuilder("good", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        zipkin.Span convertedSpan = zipkinSpan(2, "converted");
+        RuntimeException conversionError = new RuntimeException("kaboom");
+        DeferredConversionZipkinSpanSender.SpanConversion conversionMock = mock(DeferredConversionZipkinSpanSender.SpanConversion.class);
+        doThrow(conversionError).when(conversionMock).convertToZipkinSpan(explodingWingtipsSpan);
+        doReturn(convertedSpan).when(conversionMock).convertToZipkinSpan(goodWingtipsSpan);
+        pendingQueue.add(new ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion(explodingWingtipsSpan, conversionMock));
+        pendingQueue.add(new ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion(goodWingtipsSpan, conversionMock));
+
+        ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob senderJob = new ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob(
+            senderImplMock, new LinkedBlockingQueue<zipkin.Span>(), pendingQueue, Integer.MAX_VALUE, 1
+        );
+
+        // when
+        senderJob.run();
+
+        // then
+        verify(senderImplMock).spanConversionFailed(explodingWingtipsSpan, conversionError);
+        verify(senderImplMock).sendSpans(Collections.singletonList(convertedSpan));
+        verify(senderImplMock).spansRemovedFromQueue(
+            ZipkinSpanSenderDefaultHttpImpl.estimateUnconvertedSpanSizeInBytes(explodingWingtipsSpan)
+            + ZipkinSpanSenderDefaultHttpImpl.estimateUnconvertedSpanSizeInBytes(goodWingtipsSpan)
+        );
+    }
+
+    @Test
+    public void spanConversionFailed_counts_the_span_as_dropped() {
+        // given
+        com.nike.wingtips.Span wingtipsSpan = com.nike.wingtips.Span.newBuilder("explodes", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+
+        // when
+        implSpy.spanConversionFailed(wingtipsSpan, new RuntimeException("kaboom"));
+
+        // then
+        assertThat(implSpy.getDroppedSpanCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void ZipkinSpanSenderJob_releases_bytes_but_sends_nothing_if_all_pending_conversions_fail() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl senderImplMock = mock(ZipkinSpanSenderDefaultHttpImpl.class);
+        BlockingQueue<ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion> pendingQueue = new LinkedBlockingQueue<>();
+        com.nike.wingtips.Span badWingtipsSpan = com.nike.wingtips.Span.newBuilder("bad", com.nike.wingtips.Span.SpanPurpose.SERVER).build();
+        pendingQueue.add(new ZipkinSpanSenderDefaultHttpImpl.PendingSpanConversion(
+            badWingtipsSpan, mock(DeferredConversionZipkinSpanSender.SpanConversion.class)
+        ));
+
+        ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob senderJob = new ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob(
+            senderImplMock, new LinkedBlockingQueue<zipkin.Span>(), pendingQueue, Integer.MAX_VALUE, 1
+        );
+
+        // when
+        senderJob.run();
+
+        // then
+        verify(senderImplMock).spansRemovedFromQueue(ZipkinSpanSenderDefaultHttpImpl.estimateUnconvertedSpanSizeInBytes(badWingtipsSpan));
+        verify(senderImplMock, never()).sendSpans(any(List.class));
+    }
+
+    @Test
+    public void ZipkinSpanSenderJob_sends_remaining_batches_when_one_batch_throws() {
+        // given
+        ZipkinSpanSenderDefaultHttpImpl senderImplMock = mock(ZipkinSpanSenderDefaultHttpImpl.class);
+        BlockingQueue<zipkin.Span> spanBlockingQueue = new LinkedBlockingQueue<>();
+        List<zipkin.Span> zipkinSpans = Arrays.asList(zipkinSpan(1, "foo"), zipkinSpan(2, "bar"));
+        spanBlockingQueue.addAll(zipkinSpans);
+        doThrow(new RuntimeException("kaboom")).when(senderImplMock).sendSpans(zipkinSpans.subList(0, 1));
+
+        ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob senderJob =
+            new ZipkinSpanSenderDefaultHttpImpl.ZipkinSpanSenderJob(senderImplMock, spanBlockingQueue, null, 1, 1);
+
+        // when
+        senderJob.run();
+
+        // then
+        verify(senderImplMock).sendSpans(zipkinSpans.subList(0, 1));
+        verify(senderImplMock).sendSpans(zipkinSpans.subList(1, 2));
+    }
+
     @Test
     public void ZipkinSpanSenderJob_does_nothing_if_blocking_queue_is_empty() {
         // given
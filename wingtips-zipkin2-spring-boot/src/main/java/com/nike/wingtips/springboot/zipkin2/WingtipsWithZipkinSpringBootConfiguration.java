@@ -5,15 +5,28 @@ import com.nike.wingtips.servlet.RequestTracingFilter;
 import com.nike.wingtips.springboot.WingtipsSpringBootConfiguration;
 import com.nike.wingtips.springboot.WingtipsSpringBootProperties;
 import com.nike.wingtips.zipkin2.WingtipsToZipkinLifecycleListener;
+import com.nike.wingtips.zipkin2.util.ShardedReporter;
+import com.nike.wingtips.zipkin2.util.TimedSender;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverter;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverterDefaultImpl;
+import com.nike.wingtips.zipkin2.util.WingtipsZipkinReporterMetrics;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import zipkin2.codec.Encoding;
+import zipkin2.codec.SpanBytesEncoder;
+import zipkin2.reporter.AsyncReporter;
 import zipkin2.reporter.Reporter;
+import zipkin2.reporter.Sender;
+import zipkin2.reporter.urlconnection.URLConnectionSender;
 
 /**
  * Wingtips with Zipkin Spring Boot configuration - this is a logical extension of {@link
@@ -41,6 +54,12 @@ import zipkin2.reporter.Reporter;
  * WingtipsToZipkinLifecycleListener} will still be registered with Wingtips with {@code "unknown"} used for the
  * service name. It's still highly recommended that you set service-name even though it's not strictly required.
  *
+ * <p>The default Zipkin reporting pipeline can be tuned for high span volumes with additional {@code wingtips.zipkin.*}
+ * properties (encoding, compression, message and queue sizes, close timeout, number of sender threads, and reporter
+ * metrics) - see {@link WingtipsZipkinProperties} for the full list and {@link
+ * #generateZipkinReporterFromProperties()} for how they're applied. When reporter metrics are enabled they're also
+ * exposed via the Wingtips actuator endpoint and Micrometer binder - see {@link ZipkinReporterPipelineMetricsSource}.
+ *
  * <p>The properties that control {@link WingtipsSpringBootConfiguration} are defined in {@link
  * WingtipsSpringBootProperties}. See the javadocs for those classes for details, but for convenience here's an example
  * of what they might look like in your {@code application.properties}:
@@ -66,6 +85,8 @@ public class WingtipsWithZipkinSpringBootConfiguration {
 
     protected final WingtipsToZipkinSpanConverter zipkinSpanConverterOverride;
 
+    protected WingtipsZipkinReporterMetrics zipkinReporterMetrics;
+
     @Autowired
     @SuppressWarnings("WeakerAccess")
     public WingtipsWithZipkinSpringBootConfiguration(WingtipsZipkinProperties wingtipsZipkinProperties,
@@ -84,7 +105,7 @@ public class WingtipsWithZipkinSpringBootConfiguration {
         if (wingtipsZipkinProperties.shouldApplyWingtipsToZipkinLifecycleListener()) {
             Reporter<zipkin2.Span> zipkinSpanReporter = (zipkinReporterOverride != null)
                 ? zipkinReporterOverride
-                : WingtipsToZipkinLifecycleListener.generateBasicZipkinReporter(wingtipsZipkinProperties.getBaseUrl());
+                : generateZipkinReporterFromProperties();
 
             WingtipsToZipkinSpanConverter zipkinSpanConverter = (zipkinSpanConverterOverride != null)
                 ? zipkinSpanConverterOverride
@@ -100,6 +121,85 @@ public class WingtipsWithZipkinSpringBootConfiguration {
         }
     }
 
+    /**
+     * Builds the default Zipkin reporting pipeline using the tuning options in {@link WingtipsZipkinProperties}: one
+     * {@link AsyncReporter} over a {@link URLConnectionSender} per {@link WingtipsZipkinProperties#getSenderThreads()},
+     * wrapped in a {@link ShardedReporter} if there's more than one. Options that aren't set are left at their Zipkin
+     * defaults. If {@link WingtipsZipkinProperties#isReporterMetricsEnabled()} is true then {@link
+     * #zipkinReporterMetrics} is created and wired into the reporters, and each sender is wrapped in a {@link
+     * TimedSender} so send latency and failures are recorded too.
+     *
+     * @return The {@link Reporter} to use when no override {@link Reporter} bean was supplied.
+     */
+    protected Reporter<zipkin2.Span> generateZipkinReporterFromProperties() {
+        WingtipsZipkinProperties props = wingtipsZipkinProperties;
+        Encoding encoding = props.getZipkinEncoding();
+        SpanBytesEncoder spanBytesEncoder = (encoding == Encoding.PROTO3)
+                                            ? SpanBytesEncoder.PROTO3
+                                            : SpanBytesEncoder.JSON_V2;
+        int numReporters = props.getSenderThreads();
+        String baseUrl = props.getBaseUrl();
+        String endpoint = baseUrl + (baseUrl.endsWith("/") ? "" : "/") + "api/v2/spans";
+
+        if (props.isReporterMetricsEnabled())
+            zipkinReporterMetrics = new WingtipsZipkinReporterMetrics(numReporters);
+
+        List<AsyncReporter<zipkin2.Span>> reporters = new ArrayList<>(numReporters);
+        for (int i = 0; i < numReporters; i++) {
+            URLConnectionSender.Builder senderBuilder = URLConnectionSender
+                .newBuilder()
+                .endpoint(endpoint)
+                .encoding(encoding)
+                .compressionEnabled(props.isCompressionEnabled());
+            if (props.getMessageMaxBytes() != null)
+                senderBuilder.messageMaxBytes(props.getMessageMaxBytes());
+
+            Sender sender = senderBuilder.build();
+            if (zipkinReporterMetrics != null)
+                sender = new TimedSender(sender, zipkinReporterMetrics);
+
+            AsyncReporter.Builder reporterBuilder = AsyncReporter.builder(sender);
+            if (props.getMessageMaxBytes() != null)
+                reporterBuilder.messageMaxBytes(props.getMessageMaxBytes());
+            if (props.getMessageTimeoutMillis() != null)
+                reporterBuilder.messageTimeout(props.getMessageTimeoutMillis(), TimeUnit.MILLISECONDS);
+            if (props.getCloseTimeoutMillis() != null)
+                reporterBuilder.closeTimeout(props.getCloseTimeoutMillis(), TimeUnit.MILLISECONDS);
+            if (props.getQueuedMaxBytes() != null)
+                reporterBuilder.queuedMaxBytes(divideAmongReporters(props.getQueuedMaxBytes(), numReporters));
+            if (props.getQueuedMaxSpans() != null)
+                reporterBuilder.queuedMaxSpans(divideAmongReporters(props.getQueuedMaxSpans(), numReporters));
+            if (zipkinReporterMetrics != null)
+                reporterBuilder.metrics(zipkinReporterMetrics.forReporter(i));
+
+            reporters.add(reporterBuilder.build(spanBytesEncoder));
+        }
+
+        return (numReporters == 1) ? reporters.get(0) : new ShardedReporter<>(reporters);
+    }
+
+    protected static int divideAmongReporters(int total, int numReporters) {
+        return Math.max(1, (total + numReporters - 1) / numReporters);
+    }
+
+    /**
+     * @return The metrics for the default Zipkin reporting pipeline, or null if {@code
+     * wingtips.zipkin.reporter-metrics-enabled} was not true, the Zipkin listener was not registered, or an override
+     * {@link Reporter} bean is being used.
+     */
+    public WingtipsZipkinReporterMetrics getZipkinReporterMetrics() {
+        return zipkinReporterMetrics;
+    }
+
+    /**
+     * @return A {@link ZipkinReporterPipelineMetricsSource} for {@link #getZipkinReporterMetrics()}. Reports nothing if
+     * there are no reporter metrics.
+     */
+    @Bean
+    public ZipkinReporterPipelineMetricsSource wingtipsZipkinReporterPipelineMetricsSource() {
+        return new ZipkinReporterPipelineMetricsSource(zipkinReporterMetrics);
+    }
+
     @SuppressWarnings("WeakerAccess")
     public static class DefaultOverrides {
         /**
@@ -4,6 +4,12 @@ import com.nike.wingtips.zipkin2.WingtipsToZipkinLifecycleListener;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.Locale;
+
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.urlconnection.URLConnectionSender;
+
 /**
  * A {@link ConfigurationProperties} companion for {@link WingtipsWithZipkinSpringBootConfiguration} that allows you to
  * specify the configuration of {@link WingtipsToZipkinLifecycleListener} via your Spring Boot application's properties
@@ -30,11 +36,55 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *     </li>
  * </ul>
  *
+ * <p>The following optional properties tune the default Zipkin reporting pipeline (an {@link AsyncReporter} over a
+ * {@link URLConnectionSender}). They're ignored if you supply your own {@link zipkin2.reporter.Reporter} bean. Any
+ * that are left out use the Zipkin defaults.
+ * <ul>
+ *     <li>
+ *         wingtips.zipkin.encoding - {@code JSON} (Zipkin v2 JSON, the default) or {@code PROTO3}. PROTO3 is smaller
+ *         and cheaper to encode, but requires Zipkin Server 2.8+.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.compression-enabled - Whether to gzip messages sent to Zipkin. Defaults to true.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.message-max-bytes - The maximum size of a single message (batch of spans) sent to Zipkin.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.message-timeout-millis - How long spans can wait before a partially full message is sent.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.queued-max-bytes - The maximum encoded bytes of spans waiting to be sent. Spans are dropped
+ *         when this is exceeded.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.queued-max-spans - The maximum number of spans waiting to be sent. Spans are dropped when
+ *         this is exceeded.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.close-timeout-millis - How long to wait for queued spans to be sent when the reporter is
+ *         closed.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.sender-threads - The number of reporters (each with its own queue and sender thread) to
+ *         spread spans across. Defaults to 1. The queued-max-bytes and queued-max-spans limits are for the whole
+ *         pipeline and are split evenly between the reporters.
+ *     </li>
+ *     <li>
+ *         wingtips.zipkin.reporter-metrics-enabled - Set to true to collect reporter metrics (spans, bytes, drops,
+ *         and queue depth), which are then available from {@link
+ *         WingtipsWithZipkinSpringBootConfiguration#getZipkinReporterMetrics()}. Defaults to false.
+ *     </li>
+ * </ul>
+ *
  * <p>For example you could set the following properties in your {@code application.properties}:
  * <pre>
  *     wingtips.zipkin.zipkin-disabled=false
  *     wingtips.zipkin.base-url=http://localhost:9411
  *     wingtips.zipkin.service-name=some-service-name
+ *     wingtips.zipkin.encoding=PROTO3
+ *     wingtips.zipkin.queued-max-spans=100000
+ *     wingtips.zipkin.sender-threads=4
  * </pre>
  *
  * @author <a href="mailto:ales.justin@jboss.org">Ales Justin</a>
@@ -46,6 +96,15 @@ public class WingtipsZipkinProperties {
     // TODO: Look for a non-empty `spring.application.name` property value before defaulting to `unknown`. See https://github.com/Nike-Inc/wingtips/pull/70#pullrequestreview-136998397
     private String serviceName = "unknown";
     private String baseUrl;
+    private String encoding = Encoding.JSON.name();
+    private boolean compressionEnabled = true;
+    private Integer messageMaxBytes;
+    private Long messageTimeoutMillis;
+    private Integer queuedMaxBytes;
+    private Integer queuedMaxSpans;
+    private Long closeTimeoutMillis;
+    private int senderThreads = 1;
+    private boolean reporterMetricsEnabled = false;
 
     public boolean shouldApplyWingtipsToZipkinLifecycleListener() {
         return (!zipkinDisabled && serviceName != null && baseUrl != null);
@@ -74,4 +133,102 @@ public class WingtipsZipkinProperties {
     public void setBaseUrl(String baseUrl) {
         this.baseUrl = baseUrl;
     }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return {@link #getEncoding()} as a Zipkin {@link Encoding}, defaulting to {@link Encoding#JSON} if it's null
+     * or blank. Throws {@link IllegalArgumentException} if it's anything other than {@code JSON} or {@code PROTO3}
+     * (ignoring case).
+     */
+    public Encoding getZipkinEncoding() {
+        if (encoding == null || encoding.trim().isEmpty())
+            return Encoding.JSON;
+
+        String normalized = encoding.trim().toUpperCase(Locale.ROOT);
+        if (Encoding.JSON.name().equals(normalized))
+            return Encoding.JSON;
+        if (Encoding.PROTO3.name().equals(normalized))
+            return Encoding.PROTO3;
+
+        throw new IllegalArgumentException(
+            "Invalid wingtips.zipkin.encoding value: " + encoding + ". Only JSON and PROTO3 are supported."
+        );
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(String compressionEnabled) {
+        this.compressionEnabled = !"false".equalsIgnoreCase(compressionEnabled);
+    }
+
+    public Integer getMessageMaxBytes() {
+        return messageMaxBytes;
+    }
+
+    public void setMessageMaxBytes(Integer messageMaxBytes) {
+        this.messageMaxBytes = messageMaxBytes;
+    }
+
+    public Long getMessageTimeoutMillis() {
+        return messageTimeoutMillis;
+    }
+
+    public void setMessageTimeoutMillis(Long messageTimeoutMillis) {
+        this.messageTimeoutMillis = messageTimeoutMillis;
+    }
+
+    public Integer getQueuedMaxBytes() {
+        return queuedMaxBytes;
+    }
+
+    public void setQueuedMaxBytes(Integer queuedMaxBytes) {
+        this.queuedMaxBytes = queuedMaxBytes;
+    }
+
+    public Integer getQueuedMaxSpans() {
+        return queuedMaxSpans;
+    }
+
+    public void setQueuedMaxSpans(Integer queuedMaxSpans) {
+        this.queuedMaxSpans = queuedMaxSpans;
+    }
+
+    public Long getCloseTimeoutMillis() {
+        return closeTimeoutMillis;
+    }
+
+    public void setCloseTimeoutMillis(Long closeTimeoutMillis) {
+        this.closeTimeoutMillis = closeTimeoutMillis;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        if (senderThreads < 1) {
+            throw new IllegalArgumentException(
+                "wingtips.zipkin.sender-threads must be at least 1. Invalid value: " + senderThreads
+            );
+        }
+
+        this.senderThreads = senderThreads;
+    }
+
+    public boolean isReporterMetricsEnabled() {
+        return reporterMetricsEnabled;
+    }
+
+    public void setReporterMetricsEnabled(String reporterMetricsEnabled) {
+        this.reporterMetricsEnabled = "true".equalsIgnoreCase(reporterMetricsEnabled);
+    }
 }
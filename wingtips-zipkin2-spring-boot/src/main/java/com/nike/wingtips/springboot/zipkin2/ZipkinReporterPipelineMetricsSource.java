@@ -0,0 +1,133 @@
+package com.nike.wingtips.springboot.zipkin2;
+
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMetric;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMetric.Type;
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMetricsSource;
+import com.nike.wingtips.zipkin2.util.TimedSender;
+import com.nike.wingtips.zipkin2.util.WingtipsZipkinReporterMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link WingtipsPipelineMetricsSource} for the default Zipkin reporting pipeline built by {@link
+ * WingtipsWithZipkinSpringBootConfiguration}. Reports the spans and bytes currently queued, span and message
+ * throughput, drops, and (via {@link TimedSender}) send counts, failures, and latency - all summed across every
+ * sender thread.
+ *
+ * <p>Only reports anything when {@code wingtips.zipkin.reporter-metrics-enabled=true} and the default reporter is in
+ * use, since otherwise there's no {@link WingtipsZipkinReporterMetrics} to read from.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ZipkinReporterPipelineMetricsSource implements WingtipsPipelineMetricsSource {
+
+    protected final List<WingtipsPipelineMetric> metrics;
+
+    /**
+     * @param reporterMetrics The reporter metrics to read from. May be null, in which case no metrics are reported.
+     */
+    public ZipkinReporterPipelineMetricsSource(final WingtipsZipkinReporterMetrics reporterMetrics) {
+        if (reporterMetrics == null) {
+            this.metrics = Collections.emptyList();
+            return;
+        }
+
+        List<WingtipsPipelineMetric> metricsList = new ArrayList<>();
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.queued.spans", Type.GAUGE, "Spans waiting to be sent to Zipkin"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getQueuedSpans();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.queued.bytes", Type.GAUGE, "Encoded bytes of spans waiting to be sent to Zipkin"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getQueuedBytes();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.spans", Type.COUNTER, "Spans reported to the Zipkin reporter"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getSpans();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.span.bytes", Type.COUNTER, "Encoded bytes of spans reported to the Zipkin reporter"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getSpanBytes();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.spans.dropped", Type.COUNTER, "Spans dropped because the queue was full or a send failed"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getSpansDropped();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.messages", Type.COUNTER, "Messages sent to Zipkin"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getMessages();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.messages.dropped", Type.COUNTER, "Messages that failed to send to Zipkin"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getMessagesDropped();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.sends", Type.COUNTER, "Send attempts to Zipkin"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getSends();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.sends.failed", Type.COUNTER, "Send attempts to Zipkin that failed"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getSendFailures();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.send.nanos", Type.COUNTER, "Total nanoseconds spent sending to Zipkin"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getSendNanos();
+            }
+        });
+        metricsList.add(new WingtipsPipelineMetric(
+            "wingtips.zipkin.send.nanos.max", Type.GAUGE, "Longest single send to Zipkin, in nanoseconds"
+        ) {
+            @Override
+            public double getValue() {
+                return reporterMetrics.getMaxSendNanos();
+            }
+        });
+
+        this.metrics = Collections.unmodifiableList(metricsList);
+    }
+
+    @Override
+    public List<WingtipsPipelineMetric> getPipelineMetrics() {
+        return metrics;
+    }
+}
@@ -12,8 +12,11 @@ import com.nike.wingtips.springboot.zipkin2.componenttest.componenttestoverrided
 import com.nike.wingtips.springboot.zipkin2.componenttest.manualimportandcomponentscan.ComponentTestMainWithBothManualImportAndComponentScan;
 import com.nike.wingtips.springboot.zipkin2.componenttest.manualimportonly.ComponentTestMainManualImportOnly;
 import com.nike.wingtips.zipkin2.WingtipsToZipkinLifecycleListener;
+import com.nike.wingtips.zipkin2.util.ShardedReporter;
+import com.nike.wingtips.zipkin2.util.TimedSender;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverter;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverterDefaultImpl;
+import com.nike.wingtips.zipkin2.util.WingtipsZipkinReporterMetrics;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -37,6 +40,7 @@ import java.util.UUID;
 
 import zipkin2.Endpoint;
 import zipkin2.Span;
+import zipkin2.codec.Encoding;
 import zipkin2.reporter.AsyncReporter;
 import zipkin2.reporter.Reporter;
 import zipkin2.reporter.urlconnection.URLConnectionSender;
@@ -188,6 +192,95 @@ public class WingtipsWithZipkinSpringBootConfigurationTest {
         verifyNoMoreInteractions(props);
     }
 
+    @Test
+    public void constructor_builds_tuned_AsyncReporter_from_props() throws MalformedURLException {
+        // given
+        String baseUrl = "http://localhost:4242/";
+        WingtipsZipkinProperties props = generateProps(false, baseUrl, UUID.randomUUID().toString());
+        props.setEncoding("PROTO3");
+        props.setCompressionEnabled("false");
+        props.setMessageMaxBytes(12345);
+        props.setQueuedMaxSpans(42);
+        props.setReporterMetricsEnabled("true");
+
+        // when
+        WingtipsWithZipkinSpringBootConfiguration conf = new WingtipsWithZipkinSpringBootConfiguration(props, null);
+
+        // then
+        WingtipsToZipkinLifecycleListener listener =
+            (WingtipsToZipkinLifecycleListener) Tracer.getInstance().getSpanLifecycleListeners().get(0);
+        Object zipkinSpanReporter = Whitebox.getInternalState(listener, "zipkinSpanReporter");
+        assertThat(zipkinSpanReporter).isInstanceOf(AsyncReporter.class);
+        assertThat(Whitebox.getInternalState(zipkinSpanReporter, "messageMaxBytes")).isEqualTo(12345);
+
+        // Reporter metrics are enabled, so the sender should be wrapped for send timing.
+        Object timedSender = Whitebox.getInternalState(zipkinSpanReporter, "sender");
+        assertThat(timedSender).isInstanceOf(TimedSender.class);
+        URLConnectionSender sender = (URLConnectionSender) ((TimedSender) timedSender).getDelegate();
+        assertThat(sender.encoding()).isEqualTo(Encoding.PROTO3);
+        assertThat(sender.messageMaxBytes()).isEqualTo(12345);
+        assertThat(Whitebox.getInternalState(sender, "compressionEnabled")).isEqualTo(false);
+        assertThat(Whitebox.getInternalState(sender, "endpoint")).isEqualTo(new URL(baseUrl + "api/v2/spans"));
+
+        assertThat(conf.getZipkinReporterMetrics()).isNotNull();
+        assertThat(Whitebox.getInternalState(timedSender, "metrics")).isSameAs(conf.getZipkinReporterMetrics());
+        assertThat(conf.wingtipsZipkinReporterPipelineMetricsSource().getPipelineMetrics()).isNotEmpty();
+    }
+
+    @Test
+    public void constructor_builds_ShardedReporter_when_senderThreads_is_greater_than_1() {
+        // given
+        WingtipsZipkinProperties props = generateProps(
+            false, "http://localhost:4242", UUID.randomUUID().toString()
+        );
+        props.setSenderThreads(3);
+
+        // when
+        WingtipsWithZipkinSpringBootConfiguration conf = new WingtipsWithZipkinSpringBootConfiguration(props, null);
+
+        // then
+        WingtipsToZipkinLifecycleListener listener =
+            (WingtipsToZipkinLifecycleListener) Tracer.getInstance().getSpanLifecycleListeners().get(0);
+        Object zipkinSpanReporter = Whitebox.getInternalState(listener, "zipkinSpanReporter");
+        assertThat(zipkinSpanReporter).isInstanceOf(ShardedReporter.class);
+        List<Reporter<Span>> delegates = ((ShardedReporter<Span>) zipkinSpanReporter).getDelegates();
+        assertThat(delegates).hasSize(3);
+        for (Reporter<Span> delegate : delegates) {
+            assertThat(delegate).isInstanceOf(AsyncReporter.class);
+        }
+
+        assertThat(conf.getZipkinReporterMetrics()).isNull();
+    }
+
+    @DataProvider(value = {
+        "100    |   1   |   100",
+        "100    |   3   |   34",
+        "2      |   4   |   1",
+    }, splitBy = "\\|")
+    @Test
+    public void divideAmongReporters_works_as_expected(int total, int numReporters, int expectedResult) {
+        // expect
+        assertThat(WingtipsWithZipkinSpringBootConfiguration.divideAmongReporters(total, numReporters))
+            .isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void getZipkinReporterMetrics_returns_null_when_reporter_override_is_used() {
+        // given
+        WingtipsZipkinProperties props = generateProps(false, "http://localhost:4242", "foo");
+        props.setReporterMetricsEnabled("true");
+
+        // when
+        WingtipsWithZipkinSpringBootConfiguration conf = new WingtipsWithZipkinSpringBootConfiguration(
+            props, DefaultOverridesScenario.WITH_REPORTER_OVERRIDE.defaultOverrides
+        );
+
+        // then
+        WingtipsZipkinReporterMetrics metrics = conf.getZipkinReporterMetrics();
+        assertThat(metrics).isNull();
+        assertThat(conf.wingtipsZipkinReporterPipelineMetricsSource().getPipelineMetrics()).isEmpty();
+    }
+
     @SuppressWarnings("unused")
     private enum ComponentTestSetup {
         MANUAL_IMPORT_ONLY(ComponentTestMainManualImportOnly.class, false, null, null),
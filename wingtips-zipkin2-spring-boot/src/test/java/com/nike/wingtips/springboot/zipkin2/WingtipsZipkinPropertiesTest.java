@@ -9,7 +9,10 @@ import org.junit.runner.RunWith;
 
 import java.util.UUID;
 
+import zipkin2.codec.Encoding;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 /**
  * Tests the functionality of {@link WingtipsZipkinProperties}.
@@ -69,6 +72,130 @@ public class WingtipsZipkinPropertiesTest {
             props.setServiceName(null);
             assertThat(props.getServiceName()).isNull();
         }
+
+        // Reporter tuning getters/setters
+        {
+            assertThat(props.getMessageMaxBytes()).isNull();
+            props.setMessageMaxBytes(42);
+            assertThat(props.getMessageMaxBytes()).isEqualTo(42);
+
+            assertThat(props.getMessageTimeoutMillis()).isNull();
+            props.setMessageTimeoutMillis(4242L);
+            assertThat(props.getMessageTimeoutMillis()).isEqualTo(4242L);
+
+            assertThat(props.getQueuedMaxBytes()).isNull();
+            props.setQueuedMaxBytes(1234);
+            assertThat(props.getQueuedMaxBytes()).isEqualTo(1234);
+
+            assertThat(props.getQueuedMaxSpans()).isNull();
+            props.setQueuedMaxSpans(5678);
+            assertThat(props.getQueuedMaxSpans()).isEqualTo(5678);
+
+            assertThat(props.getCloseTimeoutMillis()).isNull();
+            props.setCloseTimeoutMillis(99L);
+            assertThat(props.getCloseTimeoutMillis()).isEqualTo(99L);
+        }
+    }
+
+    @DataProvider(value = {
+        "null       |   JSON",
+        "           |   JSON",
+        "JSON       |   JSON",
+        "json       |   JSON",
+        "PROTO3     |   PROTO3",
+        "proto3     |   PROTO3"
+    }, splitBy = "\\|")
+    @Test
+    public void getZipkinEncoding_parses_encoding_as_expected(String encodingString, Encoding expectedResult) {
+        // given
+        props.setEncoding(encodingString);
+
+        // when
+        Encoding result = props.getZipkinEncoding();
+
+        // then
+        assertThat(result).isEqualTo(expectedResult);
+        assertThat(props.getEncoding()).isEqualTo(encodingString);
+    }
+
+    @DataProvider(value = {
+        "THRIFT",
+        "junk"
+    })
+    @Test
+    public void getZipkinEncoding_throws_IllegalArgumentException_for_unsupported_encoding(String encodingString) {
+        // given
+        props.setEncoding(encodingString);
+
+        // when
+        Throwable ex = catchThrowable(() -> props.getZipkinEncoding());
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "true   |   true",
+        "TRUE   |   true",
+        "false  |   false",
+        "FALSE  |   false",
+        "       |   true",
+        "junk   |   true",
+        "null   |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void compressionEnabled_getter_and_setter_works_as_expected(
+        String propValueAsStringForSetter, boolean expectedGetterResult
+    ) {
+        // when
+        props.setCompressionEnabled(propValueAsStringForSetter);
+
+        // then
+        assertThat(props.isCompressionEnabled()).isEqualTo(expectedGetterResult);
+    }
+
+    @DataProvider(value = {
+        "true   |   true",
+        "TRUE   |   true",
+        "false  |   false",
+        "       |   false",
+        "junk   |   false",
+        "null   |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void reporterMetricsEnabled_getter_and_setter_works_as_expected(
+        String propValueAsStringForSetter, boolean expectedGetterResult
+    ) {
+        // when
+        props.setReporterMetricsEnabled(propValueAsStringForSetter);
+
+        // then
+        assertThat(props.isReporterMetricsEnabled()).isEqualTo(expectedGetterResult);
+    }
+
+    @Test
+    public void senderThreads_defaults_to_1_and_setter_works() {
+        // expect
+        assertThat(props.getSenderThreads()).isEqualTo(1);
+
+        // when
+        props.setSenderThreads(4);
+
+        // then
+        assertThat(props.getSenderThreads()).isEqualTo(4);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void setSenderThreads_throws_IllegalArgumentException_for_less_than_1(int senderThreads) {
+        // when
+        Throwable ex = catchThrowable(() -> props.setSenderThreads(senderThreads));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
     }
 
     @DataProvider(value = {
@@ -0,0 +1,75 @@
+package com.nike.wingtips.springboot.zipkin2;
+
+import com.nike.wingtips.springboot.metrics.WingtipsPipelineMetric;
+import com.nike.wingtips.zipkin2.util.WingtipsZipkinReporterMetrics;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import zipkin2.reporter.ReporterMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link ZipkinReporterPipelineMetricsSource}.
+ */
+public class ZipkinReporterPipelineMetricsSourceTest {
+
+    private Map<String, WingtipsPipelineMetric> metricsByName(ZipkinReporterPipelineMetricsSource source) {
+        Map<String, WingtipsPipelineMetric> result = new HashMap<>();
+        for (WingtipsPipelineMetric metric : source.getPipelineMetrics()) {
+            result.put(metric.getName(), metric);
+        }
+        return result;
+    }
+
+    @Test
+    public void reports_nothing_when_reporter_metrics_are_null() {
+        // when
+        ZipkinReporterPipelineMetricsSource source = new ZipkinReporterPipelineMetricsSource(null);
+
+        // then
+        assertThat(source.getPipelineMetrics()).isEmpty();
+    }
+
+    @Test
+    public void reports_live_values_summed_across_reporters() {
+        // given
+        WingtipsZipkinReporterMetrics reporterMetrics = new WingtipsZipkinReporterMetrics(2);
+        ZipkinReporterPipelineMetricsSource source = new ZipkinReporterPipelineMetricsSource(reporterMetrics);
+        ReporterMetrics first = reporterMetrics.forReporter(0);
+        ReporterMetrics second = reporterMetrics.forReporter(1);
+
+        // when
+        first.incrementSpans(3);
+        second.incrementSpans(4);
+        first.incrementSpanBytes(100);
+        first.updateQueuedSpans(2);
+        second.updateQueuedSpans(5);
+        second.updateQueuedBytes(50);
+        first.incrementSpansDropped(1);
+        first.incrementMessages();
+        second.incrementMessagesDropped(new RuntimeException("intentional test exception"));
+        reporterMetrics.recordSend(1000, true);
+        reporterMetrics.recordSend(3000, false);
+        Map<String, WingtipsPipelineMetric> metrics = metricsByName(source);
+
+        // then
+        assertThat(metrics).hasSameSizeAs(source.getPipelineMetrics());
+        assertThat(metrics.get("wingtips.zipkin.spans").getValue()).isEqualTo(7);
+        assertThat(metrics.get("wingtips.zipkin.spans").getType()).isEqualTo(WingtipsPipelineMetric.Type.COUNTER);
+        assertThat(metrics.get("wingtips.zipkin.span.bytes").getValue()).isEqualTo(100);
+        assertThat(metrics.get("wingtips.zipkin.queued.spans").getValue()).isEqualTo(7);
+        assertThat(metrics.get("wingtips.zipkin.queued.spans").getType()).isEqualTo(WingtipsPipelineMetric.Type.GAUGE);
+        assertThat(metrics.get("wingtips.zipkin.queued.bytes").getValue()).isEqualTo(50);
+        assertThat(metrics.get("wingtips.zipkin.spans.dropped").getValue()).isEqualTo(1);
+        assertThat(metrics.get("wingtips.zipkin.messages").getValue()).isEqualTo(1);
+        assertThat(metrics.get("wingtips.zipkin.messages.dropped").getValue()).isEqualTo(1);
+        assertThat(metrics.get("wingtips.zipkin.sends").getValue()).isEqualTo(2);
+        assertThat(metrics.get("wingtips.zipkin.sends.failed").getValue()).isEqualTo(1);
+        assertThat(metrics.get("wingtips.zipkin.send.nanos").getValue()).isEqualTo(4000);
+        assertThat(metrics.get("wingtips.zipkin.send.nanos.max").getValue()).isEqualTo(3000);
+    }
+}
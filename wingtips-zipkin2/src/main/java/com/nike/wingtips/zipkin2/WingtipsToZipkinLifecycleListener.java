@@ -3,6 +3,7 @@ package com.nike.wingtips.zipkin2;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverter;
+import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanBytesEncoder;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverterDefaultImpl;
 
 import org.slf4j.Logger;
@@ -12,6 +13,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import zipkin2.Endpoint;
+import zipkin2.codec.Encoding;
 import zipkin2.reporter.AsyncReporter;
 import zipkin2.reporter.Reporter;
 import zipkin2.reporter.Sender;
@@ -67,6 +69,19 @@ import zipkin2.reporter.urlconnection.URLConnectionSender;
  *  WingtipsToZipkinLifecycleListener w2zListener = new WingtipsToZipkinLifecycleListener(serviceName, spanConverter, zipkinV1Reporter);
  * </pre>
  *
+ * <p>If you're sending Zipkin v2 JSON or PROTO3 you can skip the intermediate {@link zipkin2.Span} objects entirely by
+ * using the {@link #WingtipsToZipkinLifecycleListener(String, Reporter)} constructor with a reporter built around a
+ * {@link WingtipsToZipkinSpanBytesEncoder}, which writes Wingtips spans straight to bytes. For example:
+ *
+ * <pre>
+ *  Reporter&lt;com.nike.wingtips.Span> directReporter = AsyncReporter
+ *      .builder(URLConnectionSender.newBuilder().endpoint(zipkinV2Url).encoding(Encoding.PROTO3).build())
+ *      .build(new WingtipsToZipkinSpanBytesEncoder(Encoding.PROTO3, serviceName));
+ *  WingtipsToZipkinLifecycleListener w2zListener = new WingtipsToZipkinLifecycleListener(serviceName, directReporter);
+ * </pre>
+ *
+ * A custom {@link WingtipsToZipkinSpanConverter} is not used on this path.
+ *
  * @author Nic Munroe
  */
 @SuppressWarnings("WeakerAccess")
@@ -78,6 +93,7 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
     protected final Endpoint zipkinEndpoint;
     protected final WingtipsToZipkinSpanConverter zipkinSpanConverter;
     protected final Reporter<zipkin2.Span> zipkinSpanReporter;
+    protected final Reporter<Span> wingtipsSpanReporter;
 
     protected final AtomicLong spanHandlingErrorCounter = new AtomicLong(0);
     protected long lastSpanHandlingErrorLogTimeEpochMillis = 0;
@@ -102,6 +118,31 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
         this.zipkinEndpoint = Endpoint.newBuilder().serviceName(serviceName).build();
         this.zipkinSpanConverter = zipkinSpanConverter;
         this.zipkinSpanReporter = zipkinSpanReporter;
+        this.wingtipsSpanReporter = null;
+    }
+
+    /**
+     * Constructor for the direct encoding path, where Wingtips spans are handed straight to a reporter that encodes
+     * them to Zipkin bytes itself (see {@link WingtipsToZipkinSpanBytesEncoder}) rather than being converted to
+     * {@link zipkin2.Span}s first. This skips the intermediate {@link zipkin2.Span} object for every completed span.
+     * See {@link #generateBasicDirectEncodingZipkinReporter(String, String, Encoding)} for an easy way to create the
+     * reporter, or build one yourself with {@code AsyncReporter.builder(sender).build(wingtipsToZipkinBytesEncoder)}.
+     *
+     * @param serviceName The name of this service. Note that the local endpoint of the encoded spans is determined
+     * by the reporter's {@link WingtipsToZipkinSpanBytesEncoder}, so this should match the service name that encoder
+     * was created with.
+     * @param wingtipsSpanReporter The reporter for collecting, encoding, and sending Wingtips spans to the Zipkin
+     * server. Cannot be null.
+     */
+    public WingtipsToZipkinLifecycleListener(String serviceName, Reporter<Span> wingtipsSpanReporter) {
+        if (wingtipsSpanReporter == null)
+            throw new IllegalArgumentException("wingtipsSpanReporter cannot be null");
+
+        this.serviceName = serviceName;
+        this.zipkinEndpoint = Endpoint.newBuilder().serviceName(serviceName).build();
+        this.zipkinSpanConverter = null;
+        this.zipkinSpanReporter = null;
+        this.wingtipsSpanReporter = wingtipsSpanReporter;
     }
 
     /**
@@ -142,6 +183,27 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
         );
     }
 
+    /**
+     * @param postZipkinSpansBaseUrl The Zipkin base URL. This is everything except the endpoint path, i.e.
+     * {@code http://foo.bar:9411}.
+     * @param serviceName The name of this service, used as the local endpoint of every encoded span.
+     * @param encoding The encoding to send spans with - {@link Encoding#JSON} or {@link Encoding#PROTO3}.
+     * @return A new {@link AsyncReporter} that encodes Wingtips spans directly to Zipkin v2 bytes with a {@link
+     * WingtipsToZipkinSpanBytesEncoder} and uses a basic {@link URLConnectionSender} for sending them via HTTP to the
+     * standard Zipkin {@code POST /api/v2/spans} endpoint.
+     */
+    public static Reporter<Span> generateBasicDirectEncodingZipkinReporter(
+        String postZipkinSpansBaseUrl, String serviceName, Encoding encoding
+    ) {
+        URLConnectionSender sender = URLConnectionSender
+            .newBuilder()
+            .endpoint(postZipkinSpansBaseUrl + (postZipkinSpansBaseUrl.endsWith("/") ? "" : "/") + "api/v2/spans")
+            .encoding(encoding)
+            .build();
+
+        return AsyncReporter.builder(sender).build(new WingtipsToZipkinSpanBytesEncoder(encoding, serviceName));
+    }
+
     @Override
     public void spanStarted(Span span) {
         // Do nothing
@@ -155,6 +217,11 @@ public class WingtipsToZipkinLifecycleListener implements SpanLifecycleListener
     @Override
     public void spanCompleted(Span span) {
         try {
+            if (wingtipsSpanReporter != null) {
+                wingtipsSpanReporter.report(span);
+                return;
+            }
+
             zipkin2.Span zipkinSpan = zipkinSpanConverter.convertWingtipsSpanToZipkinSpan(span, zipkinEndpoint);
             zipkinSpanReporter.report(zipkinSpan);
         }
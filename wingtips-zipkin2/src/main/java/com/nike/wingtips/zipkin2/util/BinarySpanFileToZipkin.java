@@ -0,0 +1,77 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.util.spanfile.BinarySpanFileReader;
+import com.nike.wingtips.util.spanfile.BinarySpanFileWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import zipkin2.codec.Encoding;
+
+/**
+ * Command line tool that converts the binary span segment files written by {@link BinarySpanFileWriter} into a Zipkin
+ * v2 span list, so locally retained spans can be loaded into a Zipkin server:
+ * <pre>
+ *     java -cp ... com.nike.wingtips.zipkin2.util.BinarySpanFileToZipkin &lt;file-or-directory&gt; &lt;service-name&gt; [json|proto3] &gt; spans.json
+ *     curl -H 'Content-Type: application/json' --data-binary @spans.json http://localhost:9411/api/v2/spans
+ * </pre>
+ * The output format defaults to JSON. The spans are encoded with {@link WingtipsToZipkinSpanBytesEncoder}, so they
+ * match what {@code WingtipsToZipkinLifecycleListener} would have sent.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinarySpanFileToZipkin {
+
+    // Intentionally protected - use the static methods.
+    protected BinarySpanFileToZipkin() { /* do nothing */ }
+
+    /**
+     * @param fileOrDirectory A segment file, or a directory of segment files.
+     * @param serviceName The Zipkin service name to use for the spans.
+     * @param encoding {@link Encoding#JSON} or {@link Encoding#PROTO3}.
+     * @return The spans in the given segment file(s), encoded as a Zipkin v2 span list.
+     * @throws IOException If a file can't be read or isn't a valid segment file.
+     */
+    public static byte[] convert(File fileOrDirectory, String serviceName, Encoding encoding) throws IOException {
+        List<Span> spans = BinarySpanFileReader.readSpans(fileOrDirectory);
+        return new WingtipsToZipkinSpanBytesEncoder(encoding, serviceName).encodeList(spans);
+    }
+
+    /**
+     * Command line entry point - see the class javadocs.
+     */
+    public static void main(String[] args) throws IOException {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    protected static int run(String[] args, OutputStream out, PrintStream err) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            err.println("Usage: BinarySpanFileToZipkin <file-or-directory> <service-name> [json|proto3]");
+            return 1;
+        }
+
+        String format = (args.length > 2) ? args[2] : "json";
+        Encoding encoding;
+        if ("json".equalsIgnoreCase(format))
+            encoding = Encoding.JSON;
+        else if ("proto3".equalsIgnoreCase(format))
+            encoding = Encoding.PROTO3;
+        else {
+            err.println("Unknown output format: " + format + ". Must be json or proto3.");
+            return 1;
+        }
+
+        File fileOrDirectory = new File(args[0]);
+        if (!fileOrDirectory.exists()) {
+            err.println("File not found: " + fileOrDirectory.getAbsolutePath());
+            return 1;
+        }
+
+        out.write(convert(fileOrDirectory, args[1], encoding));
+        out.flush();
+        return 0;
+    }
+}
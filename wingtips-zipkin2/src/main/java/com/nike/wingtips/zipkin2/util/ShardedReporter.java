@@ -0,0 +1,93 @@
+package com.nike.wingtips.zipkin2.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.Reporter;
+
+/**
+ * A {@link Reporter} that spreads spans across several delegate reporters. A single {@link AsyncReporter} has one
+ * queue and one thread sending batches, so at high span rates that one thread (and its one in-flight HTTP call) can
+ * become the bottleneck. Sharding across several {@link AsyncReporter}s gives you several queues and sender threads
+ * working in parallel.
+ *
+ * <p>Spans are assigned to a delegate based on the ID of the thread that reports them, so there's no shared state to
+ * contend on when reporting and spans from a given thread stay in order. {@link #flush()} and {@link #close()} are
+ * passed through to any delegates that are {@link Flushable} or {@link Closeable}.
+ *
+ * @param <S> The type of span being reported.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ShardedReporter<S> implements Reporter<S>, Flushable, Closeable {
+
+    protected final List<Reporter<S>> delegates;
+    protected final int numDelegates;
+
+    /**
+     * @param delegates The reporters to spread spans across. Cannot be null or empty, and cannot contain null entries.
+     */
+    public ShardedReporter(List<? extends Reporter<S>> delegates) {
+        if (delegates == null || delegates.isEmpty())
+            throw new IllegalArgumentException("delegates cannot be null or empty");
+
+        if (delegates.contains(null))
+            throw new IllegalArgumentException("delegates cannot contain null entries");
+
+        this.delegates = Collections.unmodifiableList(new ArrayList<Reporter<S>>(delegates));
+        this.numDelegates = this.delegates.size();
+    }
+
+    public List<Reporter<S>> getDelegates() {
+        return delegates;
+    }
+
+    @Override
+    public void report(S span) {
+        delegates.get((int) ((Thread.currentThread().getId() & Long.MAX_VALUE) % numDelegates)).report(span);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (Reporter<S> delegate : delegates) {
+            if (delegate instanceof Flushable)
+                ((Flushable) delegate).flush();
+        }
+    }
+
+    /**
+     * Closes all the delegates that are {@link Closeable}. Every delegate gets a chance to close even if an earlier one
+     * throws - the first exception is rethrown after they have all been closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException firstIoException = null;
+        RuntimeException firstRuntimeException = null;
+        for (Reporter<S> delegate : delegates) {
+            if (!(delegate instanceof Closeable))
+                continue;
+
+            try {
+                ((Closeable) delegate).close();
+            }
+            catch (IOException ex) {
+                if (firstIoException == null)
+                    firstIoException = ex;
+            }
+            catch (RuntimeException ex) {
+                if (firstRuntimeException == null)
+                    firstRuntimeException = ex;
+            }
+        }
+
+        if (firstIoException != null)
+            throw firstIoException;
+
+        if (firstRuntimeException != null)
+            throw firstRuntimeException;
+    }
+}
@@ -0,0 +1,215 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.util.MappedFileSpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import zipkin2.codec.BytesEncoder;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.Reporter;
+
+/**
+ * A {@link Reporter} that normally passes spans through to another {@link Reporter} (usually an {@link
+ * AsyncReporter}), but writes them straight to a {@link MappedFileSpool} instead once the number of spans queued in
+ * memory reaches a threshold. This keeps a burst of spans (or a slow Zipkin server) from filling up the in-memory
+ * queue and causing spans to be dropped.
+ *
+ * <p>The queue depth comes from a {@link WingtipsZipkinReporterMetrics} that the delegate reporter(s) must be
+ * reporting to. Spooled spans are replayed by a {@link SpoolingSender} using the same spool, so the {@code encoder}
+ * must produce the same encoding as that sender. If a span can't be spooled (e.g. the spool is full) it's passed to
+ * the delegate reporter as normal.
+ *
+ * <p>Spans aren't encoded or written to the spool on the thread calling {@link #report(zipkin2.Span)}. Instead they're
+ * offered to a bounded handoff queue that a background thread drains into the spool, so request threads never block
+ * on the spool's lock or its disk I/O. If the handoff queue is full the span is passed to the delegate reporter.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpoolingReporter implements Reporter<zipkin2.Span>, Flushable, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolingReporter.class);
+
+    public static final int DEFAULT_SPOOL_HANDOFF_QUEUE_CAPACITY = 10000;
+
+    protected final Reporter<zipkin2.Span> delegate;
+    protected final WingtipsZipkinReporterMetrics metrics;
+    protected final long queuedSpansThreshold;
+    protected final BytesEncoder<zipkin2.Span> encoder;
+    protected final MappedFileSpool spool;
+    protected final BlockingQueue<zipkin2.Span> spoolHandoffQueue;
+    protected final ExecutorService spoolWriter;
+
+    /**
+     * Creates a new instance with a spool handoff queue that holds up to {@link #DEFAULT_SPOOL_HANDOFF_QUEUE_CAPACITY}
+     * spans.
+     *
+     * @param delegate The reporter to pass spans to while the queue is below the threshold. Cannot be null.
+     * @param metrics The metrics the delegate reporter(s) report their queue depth to. Cannot be null.
+     * @param queuedSpansThreshold The number of spans queued in memory at or above which new spans are spooled
+     * instead. Must be greater than 0.
+     * @param encoder The encoder for spooled spans. Cannot be null. Must match the encoding of the {@link
+     * SpoolingSender} that replays the spool.
+     * @param spool The spool to write spans to. Cannot be null.
+     */
+    public SpoolingReporter(Reporter<zipkin2.Span> delegate,
+                            WingtipsZipkinReporterMetrics metrics,
+                            long queuedSpansThreshold,
+                            BytesEncoder<zipkin2.Span> encoder,
+                            MappedFileSpool spool) {
+        this(delegate, metrics, queuedSpansThreshold, encoder, spool, DEFAULT_SPOOL_HANDOFF_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param delegate The reporter to pass spans to while the queue is below the threshold. Cannot be null.
+     * @param metrics The metrics the delegate reporter(s) report their queue depth to. Cannot be null.
+     * @param queuedSpansThreshold The number of spans queued in memory at or above which new spans are spooled
+     * instead. Must be greater than 0.
+     * @param encoder The encoder for spooled spans. Cannot be null. Must match the encoding of the {@link
+     * SpoolingSender} that replays the spool.
+     * @param spool The spool to write spans to. Cannot be null.
+     * @param spoolHandoffQueueCapacity The maximum number of spans waiting for the background thread to write them to
+     * the spool. Must be greater than 0.
+     */
+    public SpoolingReporter(Reporter<zipkin2.Span> delegate,
+                            WingtipsZipkinReporterMetrics metrics,
+                            long queuedSpansThreshold,
+                            BytesEncoder<zipkin2.Span> encoder,
+                            MappedFileSpool spool,
+                            int spoolHandoffQueueCapacity) {
+        if (delegate == null)
+            throw new IllegalArgumentException("delegate cannot be null");
+
+        if (metrics == null)
+            throw new IllegalArgumentException("metrics cannot be null");
+
+        if (queuedSpansThreshold <= 0) {
+            throw new IllegalArgumentException(
+                "queuedSpansThreshold must be greater than 0. Invalid value: " + queuedSpansThreshold
+            );
+        }
+
+        if (encoder == null)
+            throw new IllegalArgumentException("encoder cannot be null");
+
+        if (spool == null)
+            throw new IllegalArgumentException("spool cannot be null");
+
+        if (spoolHandoffQueueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                "spoolHandoffQueueCapacity must be greater than 0. Invalid value: " + spoolHandoffQueueCapacity
+            );
+        }
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.queuedSpansThreshold = queuedSpansThreshold;
+        this.encoder = encoder;
+        this.spool = spool;
+        this.spoolHandoffQueue = new ArrayBlockingQueue<>(spoolHandoffQueueCapacity);
+        this.spoolWriter = configureSpoolWriter();
+        spoolWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeHandedOffSpansToSpool();
+            }
+        });
+    }
+
+    protected ExecutorService configureSpoolWriter() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "wingtips-zipkin-spool-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void report(zipkin2.Span span) {
+        if (metrics.getQueuedSpans() >= queuedSpansThreshold && spoolHandoffQueue.offer(span))
+            return;
+
+        delegate.report(span);
+    }
+
+    /**
+     * Runs on the {@link #spoolWriter} thread until it's interrupted, writing spans from the {@link
+     * #spoolHandoffQueue} to the spool.
+     */
+    protected void writeHandedOffSpansToSpool() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                spoolOrReport(spoolHandoffQueue.take());
+                spoolPendingSpans();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes everything currently in the {@link #spoolHandoffQueue} to the spool.
+     */
+    protected void spoolPendingSpans() {
+        List<zipkin2.Span> pendingSpans = new ArrayList<>(spoolHandoffQueue.size());
+        spoolHandoffQueue.drainTo(pendingSpans);
+        for (zipkin2.Span span : pendingSpans) {
+            spoolOrReport(span);
+        }
+    }
+
+    /**
+     * Appends the given span to the spool, or passes it to the {@link #delegate} if it can't be spooled.
+     */
+    protected void spoolOrReport(zipkin2.Span span) {
+        try {
+            if (spool.append(encoder.encode(span)))
+                return;
+        }
+        catch (Throwable ex) {
+            logger.warn("Unable to spool Zipkin span - it will be passed to the delegate reporter instead.", ex);
+        }
+
+        delegate.report(span);
+    }
+
+    /**
+     * Writes any spans still waiting in the spool handoff queue to the spool (on the calling thread), then flushes the
+     * delegate reporter if it's {@link Flushable}.
+     */
+    @Override
+    public void flush() throws IOException {
+        spoolPendingSpans();
+
+        if (delegate instanceof Flushable)
+            ((Flushable) delegate).flush();
+    }
+
+    /**
+     * Stops the background spool writer thread and writes any spans still waiting for it to the spool, then closes the
+     * delegate reporter if it's {@link Closeable}. The spool is left open, since it belongs to the {@link
+     * SpoolingSender} that replays it.
+     */
+    @Override
+    public void close() throws IOException {
+        spoolWriter.shutdownNow();
+        spoolPendingSpans();
+
+        if (delegate instanceof Closeable)
+            ((Closeable) delegate).close();
+    }
+}
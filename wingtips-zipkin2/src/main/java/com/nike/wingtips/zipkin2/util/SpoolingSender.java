@@ -0,0 +1,289 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.util.MappedFileSpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.Sender;
+
+/**
+ * A Zipkin {@link Sender} that wraps another {@link Sender} and writes messages to a {@link MappedFileSpool} when they
+ * can't be sent, so a Zipkin server outage of a few minutes doesn't make the {@link AsyncReporter} in front of it drop
+ * spans. A background thread replays the spooled spans through the wrapped sender once it's reachable again.
+ *
+ * <p>When a send fails, its encoded spans are appended to the spool and the send is reported as successful (unless
+ * the spool is full, in which case the original error is thrown so the spans are counted as dropped). After that,
+ * new messages go straight to the spool without trying the wrapped sender until the replay thread manages to send a
+ * message, so the {@link AsyncReporter} isn't held up waiting for connection timeouts. Replayed messages are sized to
+ * fit {@link #messageMaxBytes()}.
+ *
+ * <p>The spool holds individually encoded spans in this sender's {@link #encoding()}. If you spool spans from
+ * anywhere else (e.g. {@link SpoolingReporter}), make sure they're encoded the same way.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpoolingSender extends Sender {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolingSender.class);
+
+    public static final long DEFAULT_REPLAY_INTERVAL_MILLIS = 1000;
+
+    protected final Sender delegate;
+    protected final MappedFileSpool spool;
+    protected final ScheduledExecutorService replayScheduler;
+    protected final AtomicLong spooledSpanCount = new AtomicLong();
+    protected final AtomicLong replayedSpanCount = new AtomicLong();
+    protected volatile boolean collectorUnreachable;
+
+    /**
+     * Creates a new instance that tries to replay spooled spans every {@link #DEFAULT_REPLAY_INTERVAL_MILLIS}
+     * milliseconds.
+     *
+     * @param delegate The {@link Sender} to send spans with. Cannot be null.
+     * @param spool The spool to hold spans that can't be sent. Cannot be null.
+     */
+    public SpoolingSender(Sender delegate, MappedFileSpool spool) {
+        this(delegate, spool, DEFAULT_REPLAY_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param delegate The {@link Sender} to send spans with. Cannot be null.
+     * @param spool The spool to hold spans that can't be sent. Cannot be null. Any spans already in it (e.g. from
+     * before a restart) will be replayed.
+     * @param replayIntervalMillis How often to check the spool and try to replay it. Must be greater than 0.
+     */
+    public SpoolingSender(Sender delegate, MappedFileSpool spool, long replayIntervalMillis) {
+        if (delegate == null)
+            throw new IllegalArgumentException("delegate cannot be null");
+
+        if (spool == null)
+            throw new IllegalArgumentException("spool cannot be null");
+
+        if (replayIntervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                "replayIntervalMillis must be greater than 0. Invalid value: " + replayIntervalMillis
+            );
+        }
+
+        this.delegate = delegate;
+        this.spool = spool;
+        this.replayScheduler = configureReplayScheduler();
+        replayScheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    replaySpooledSpans();
+                }
+                catch (Throwable ex) {
+                    logger.error("Unexpected error replaying spooled Zipkin spans.", ex);
+                }
+            }
+        }, replayIntervalMillis, replayIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    protected ScheduledExecutorService configureReplayScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "wingtips-zipkin-spool-replayer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public Encoding encoding() {
+        return delegate.encoding();
+    }
+
+    @Override
+    public int messageMaxBytes() {
+        return delegate.messageMaxBytes();
+    }
+
+    @Override
+    public int messageSizeInBytes(List<byte[]> encodedSpans) {
+        return delegate.messageSizeInBytes(encodedSpans);
+    }
+
+    @Override
+    public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+        return new SpoolingCall(encodedSpans);
+    }
+
+    /**
+     * Sends the given spans with the {@link #delegate}, or spools them if the collector is known to be unreachable or
+     * the send fails.
+     *
+     * @throws IOException If sending failed and the spans couldn't all be spooled.
+     */
+    protected void sendOrSpool(List<byte[]> encodedSpans) throws IOException {
+        if (collectorUnreachable) {
+            spoolOrThrow(encodedSpans, null);
+            return;
+        }
+
+        try {
+            delegate.sendSpans(encodedSpans).execute();
+        }
+        catch (IOException | RuntimeException ex) {
+            collectorUnreachable = true;
+            logger.warn(
+                "Unable to send spans to Zipkin - spooling them to disk until Zipkin is reachable again. "
+                + "exception_cause=\"{}\"", ex.toString()
+            );
+            spoolOrThrow(encodedSpans, ex);
+        }
+    }
+
+    protected void spoolOrThrow(List<byte[]> encodedSpans, Exception sendFailure) throws IOException {
+        int numSpooled = 0;
+        for (byte[] encodedSpan : encodedSpans) {
+            if (spool.append(encodedSpan))
+                numSpooled++;
+        }
+        spooledSpanCount.addAndGet(numSpooled);
+
+        if (numSpooled < encodedSpans.size()) {
+            String message = "Zipkin is unreachable and the span spool is full - "
+                             + (encodedSpans.size() - numSpooled) + " spans were dropped";
+            if (sendFailure instanceof IOException)
+                throw new IOException(message, sendFailure);
+            if (sendFailure instanceof RuntimeException)
+                throw (RuntimeException) sendFailure;
+            throw new IOException(message);
+        }
+    }
+
+    /**
+     * Sends everything in the spool with the {@link #delegate}, one message at a time, stopping at the first failure.
+     * Spans are only removed from the spool once the message containing them has been sent. Called periodically on
+     * the replay thread.
+     */
+    protected void replaySpooledSpans() {
+        while (!spool.isEmpty()) {
+            List<byte[]> batch = nextReplayBatch();
+            if (batch.isEmpty())
+                return;
+
+            try {
+                delegate.sendSpans(batch).execute();
+            }
+            catch (IOException | RuntimeException ex) {
+                collectorUnreachable = true;
+                logger.debug("Zipkin is still unreachable, will retry replaying spooled spans later. "
+                             + "spooled_span_count={}, exception_cause=\"{}\"", spool.getSpooledRecordCount(), ex.toString());
+                return;
+            }
+
+            spool.remove(batch.size());
+            replayedSpanCount.addAndGet(batch.size());
+            collectorUnreachable = false;
+        }
+
+        // The spool is empty, so if we haven't had a chance to test the collector yet then let the next normal send
+        //      try it.
+        collectorUnreachable = false;
+    }
+
+    /**
+     * @return The oldest spooled spans, limited to what will fit in a single message.
+     */
+    protected List<byte[]> nextReplayBatch() {
+        int maxBytes = messageMaxBytes();
+        List<byte[]> batch = new ArrayList<>(spool.peek(maxBytes));
+        while (batch.size() > 1 && delegate.messageSizeInBytes(batch) > maxBytes) {
+            batch.remove(batch.size() - 1);
+        }
+        return batch;
+    }
+
+    /**
+     * @return The number of spans that have been written to the spool.
+     */
+    public long getSpooledSpanCount() {
+        return spooledSpanCount.get();
+    }
+
+    /**
+     * @return The number of spooled spans that have since been sent.
+     */
+    public long getReplayedSpanCount() {
+        return replayedSpanCount.get();
+    }
+
+    public MappedFileSpool getSpool() {
+        return spool;
+    }
+
+    public Sender getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CheckResult check() {
+        return delegate.check();
+    }
+
+    /**
+     * Stops the replay thread, and closes the {@link #delegate} and the spool. Anything left in the spool stays on
+     * disk and is replayed by the next {@link SpoolingSender} that uses the same spool directory.
+     */
+    @Override
+    public void close() throws IOException {
+        replayScheduler.shutdownNow();
+        try {
+            delegate.close();
+        }
+        finally {
+            spool.close();
+        }
+    }
+
+    protected class SpoolingCall extends Call.Base<Void> {
+
+        protected final List<byte[]> encodedSpans;
+
+        public SpoolingCall(List<byte[]> encodedSpans) {
+            this.encodedSpans = encodedSpans;
+        }
+
+        @Override
+        protected Void doExecute() throws IOException {
+            sendOrSpool(encodedSpans);
+            return null;
+        }
+
+        @Override
+        protected void doEnqueue(Callback<Void> callback) {
+            try {
+                sendOrSpool(encodedSpans);
+            }
+            catch (IOException | RuntimeException ex) {
+                callback.onError(ex);
+                return;
+            }
+            callback.onSuccess(null);
+        }
+
+        @Override
+        public Call<Void> clone() {
+            return new SpoolingCall(encodedSpans);
+        }
+    }
+}
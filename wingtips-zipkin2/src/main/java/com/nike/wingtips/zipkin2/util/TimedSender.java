@@ -0,0 +1,128 @@
+package com.nike.wingtips.zipkin2.util;
+
+import java.io.IOException;
+import java.util.List;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * A {@link Sender} that passes everything through to a delegate {@link Sender}, recording how long each send takes
+ * (and whether it failed) with {@link WingtipsZipkinReporterMetrics#recordSend(long, boolean)}. Zipkin's {@link
+ * zipkin2.reporter.ReporterMetrics} only counts messages, so this is how you find out whether a slow Zipkin server is
+ * what's backing up your reporter queues:
+ * <pre>
+ *     WingtipsZipkinReporterMetrics metrics = new WingtipsZipkinReporterMetrics(1);
+ *     Sender sender = new TimedSender(URLConnectionSender.create("http://localhost:9411/api/v2/spans"), metrics);
+ *     Reporter&lt;zipkin2.Span&gt; reporter = AsyncReporter.builder(sender).metrics(metrics.forReporter(0)).build();
+ * </pre>
+ */
+@SuppressWarnings("WeakerAccess")
+public class TimedSender extends Sender {
+
+    protected final Sender delegate;
+    protected final WingtipsZipkinReporterMetrics metrics;
+
+    /**
+     * @param delegate The {@link Sender} that does the actual sending. Cannot be null.
+     * @param metrics The metrics to record send timings to. Cannot be null.
+     */
+    public TimedSender(Sender delegate, WingtipsZipkinReporterMetrics metrics) {
+        if (delegate == null)
+            throw new IllegalArgumentException("delegate cannot be null");
+
+        if (metrics == null)
+            throw new IllegalArgumentException("metrics cannot be null");
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Encoding encoding() {
+        return delegate.encoding();
+    }
+
+    @Override
+    public int messageMaxBytes() {
+        return delegate.messageMaxBytes();
+    }
+
+    @Override
+    public int messageSizeInBytes(List<byte[]> encodedSpans) {
+        return delegate.messageSizeInBytes(encodedSpans);
+    }
+
+    @Override
+    public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+        return new TimedCall(delegate.sendSpans(encodedSpans));
+    }
+
+    public Sender getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CheckResult check() {
+        return delegate.check();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    protected class TimedCall extends Call.Base<Void> {
+
+        protected final Call<Void> delegateCall;
+
+        public TimedCall(Call<Void> delegateCall) {
+            this.delegateCall = delegateCall;
+        }
+
+        @Override
+        protected Void doExecute() throws IOException {
+            long startNanos = System.nanoTime();
+            boolean success = false;
+            try {
+                delegateCall.execute();
+                success = true;
+                return null;
+            }
+            finally {
+                metrics.recordSend(System.nanoTime() - startNanos, success);
+            }
+        }
+
+        @Override
+        protected void doEnqueue(final Callback<Void> callback) {
+            final long startNanos = System.nanoTime();
+            delegateCall.enqueue(new Callback<Void>() {
+                @Override
+                public void onSuccess(Void value) {
+                    metrics.recordSend(System.nanoTime() - startNanos, true);
+                    callback.onSuccess(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    metrics.recordSend(System.nanoTime() - startNanos, false);
+                    callback.onError(t);
+                }
+            });
+        }
+
+        @Override
+        protected void doCancel() {
+            delegateCall.cancel();
+        }
+
+        @Override
+        public Call<Void> clone() {
+            return new TimedCall(delegateCall.clone());
+        }
+    }
+}
@@ -0,0 +1,693 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import zipkin2.codec.BytesEncoder;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.AsyncReporter;
+
+/**
+ * A Zipkin {@link BytesEncoder} that writes Wingtips {@link Span}s directly to Zipkin v2 JSON or PROTO3 bytes, without
+ * creating an intermediate {@link zipkin2.Span} (and {@link zipkin2.Endpoint}) for every span the way {@link
+ * WingtipsToZipkinSpanConverter} + {@link zipkin2.codec.SpanBytesEncoder} does. Pass it to {@link
+ * AsyncReporter.Builder#build(BytesEncoder)} to get a {@code Reporter<com.nike.wingtips.Span>}, and hand that reporter
+ * to {@link com.nike.wingtips.zipkin2.WingtipsToZipkinLifecycleListener#WingtipsToZipkinLifecycleListener(String,
+ * zipkin2.reporter.Reporter)}. Make sure the {@link zipkin2.reporter.Sender} is configured with the same {@link
+ * Encoding} as this encoder.
+ *
+ * <p>The output matches what {@link WingtipsToZipkinSpanConverterDefaultImpl} followed by {@link
+ * zipkin2.codec.SpanBytesEncoder#JSON_V2} or {@link zipkin2.codec.SpanBytesEncoder#PROTO3} would produce: IDs shorter
+ * than 16 (or 32 for trace IDs) characters are left-padded with zeros, span and service names are lowercased, and zero
+ * timestamps/durations are omitted, and the resource usage and GC pause measurements become the same tags. IDs that are not lowercase hex cause an {@link IllegalArgumentException}, just like
+ * {@link zipkin2.Span.Builder} would.
+ *
+ * <p>The local endpoint (service name) is fixed per encoder and pre-encoded once at construction time.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsToZipkinSpanBytesEncoder implements BytesEncoder<Span> {
+
+    protected static final byte[] HEX_DIGITS_TO_VALUES = new byte[128];
+    static {
+        for (int i = 0; i < HEX_DIGITS_TO_VALUES.length; i++) {
+            HEX_DIGITS_TO_VALUES[i] = -1;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            HEX_DIGITS_TO_VALUES[c] = (byte) (c - '0');
+        }
+        for (char c = 'a'; c <= 'f'; c++) {
+            HEX_DIGITS_TO_VALUES[c] = (byte) (c - 'a' + 10);
+        }
+    }
+
+    // Proto3 field keys - (field_number << 3) | wire_type. See zipkin2's zipkin.proto.
+    protected static final int PROTO_LIST_OF_SPANS_SPAN_KEY = (1 << 3) | 2;
+    protected static final int PROTO_TRACE_ID_KEY = (1 << 3) | 2;
+    protected static final int PROTO_PARENT_ID_KEY = (2 << 3) | 2;
+    protected static final int PROTO_ID_KEY = (3 << 3) | 2;
+    protected static final int PROTO_KIND_KEY = (4 << 3);
+    protected static final int PROTO_NAME_KEY = (5 << 3) | 2;
+    protected static final int PROTO_TIMESTAMP_KEY = (6 << 3) | 1;
+    protected static final int PROTO_DURATION_KEY = (7 << 3);
+    protected static final int PROTO_LOCAL_ENDPOINT_KEY = (8 << 3) | 2;
+    protected static final int PROTO_TAG_KEY = (11 << 3) | 2;
+    protected static final int PROTO_ENDPOINT_SERVICE_NAME_KEY = (1 << 3) | 2;
+    protected static final int PROTO_MAP_ENTRY_KEY_KEY = (1 << 3) | 2;
+    protected static final int PROTO_MAP_ENTRY_VALUE_KEY = (2 << 3) | 2;
+
+    // The tags WingtipsToZipkinSpanConverterDefaultImpl adds, sorted by name since that's how zipkin2.Span orders them.
+    protected static final String[] MEASUREMENT_TAG_NAMES = {
+        Span.ALLOCATED_BYTES_FIELD,
+        Span.ASYNC_TASK_COUNT_FIELD,
+        Span.BLOCKED_TIME_MILLIS_FIELD,
+        Span.CPU_TIME_NANOS_FIELD,
+        Span.GC_PAUSE_MICROS_FIELD,
+        Span.WAITED_TIME_MILLIS_FIELD
+    };
+
+    protected final Encoding encoding;
+    protected final String serviceName;
+    protected final byte[] encodedLocalEndpoint;
+
+    /**
+     * @param encoding The encoding to write - must be {@link Encoding#JSON} (Zipkin v2 JSON) or {@link
+     * Encoding#PROTO3}.
+     * @param serviceName The name of this service. This is used as the {@code localEndpoint.serviceName} of every
+     * encoded span. Cannot be null.
+     */
+    public WingtipsToZipkinSpanBytesEncoder(Encoding encoding, String serviceName) {
+        if (encoding != Encoding.JSON && encoding != Encoding.PROTO3)
+            throw new IllegalArgumentException("Unsupported encoding: " + encoding + ". Only JSON and PROTO3 are supported.");
+
+        if (serviceName == null)
+            throw new IllegalArgumentException("serviceName cannot be null");
+
+        this.encoding = encoding;
+        this.serviceName = serviceName.toLowerCase(Locale.ROOT);
+        this.encodedLocalEndpoint = (encoding == Encoding.JSON)
+                                    ? encodeJsonLocalEndpoint(this.serviceName)
+                                    : encodeProtoLocalEndpoint(this.serviceName);
+    }
+
+    @Override
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    @Override
+    public int sizeInBytes(Span span) {
+        return (encoding == Encoding.JSON) ? jsonSizeInBytes(span) : protoSizeInBytes(span);
+    }
+
+    @Override
+    public byte[] encode(Span span) {
+        byte[] result = new byte[sizeInBytes(span)];
+        write(span, result, 0);
+        return result;
+    }
+
+    @Override
+    public byte[] encodeList(List<Span> spans) {
+        int numSpans = spans.size();
+        boolean json = (encoding == Encoding.JSON);
+        if (numSpans == 0)
+            return json ? new byte[] {'[', ']'} : new byte[0];
+
+        int totalSize = json ? 2 + (numSpans - 1) : 0;
+        for (int i = 0; i < numSpans; i++) {
+            totalSize += sizeInBytes(spans.get(i));
+        }
+
+        byte[] result = new byte[totalSize];
+        int pos = 0;
+        if (json)
+            result[pos++] = '[';
+        for (int i = 0; i < numSpans; i++) {
+            if (json && i > 0)
+                result[pos++] = ',';
+            pos = write(spans.get(i), result, pos);
+        }
+        if (json)
+            result[pos] = ']';
+
+        return result;
+    }
+
+    /**
+     * Writes the given span to the given buffer at the given position.
+     *
+     * @return The position immediately after the written span.
+     */
+    protected int write(Span span, byte[] buffer, int pos) {
+        return (encoding == Encoding.JSON) ? writeJson(span, buffer, pos) : writeProto(span, buffer, pos);
+    }
+
+    // ====================== JSON ======================
+
+    protected int jsonSizeInBytes(Span span) {
+        String parentId = span.getParentSpanId();
+        String kind = zipkinKindName(span.getSpanPurpose());
+        long timestamp = span.getSpanStartTimeEpochMicros();
+        long duration = durationMicros(span);
+
+        int size = "{\"traceId\":\"".length() + normalizedTraceIdLength(span.getTraceId()) + 1;
+        if (parentId != null)
+            size += ",\"parentId\":\"".length() + 16 + 1;
+        size += ",\"id\":\"".length() + 16 + 1;
+        if (kind != null)
+            size += ",\"kind\":\"".length() + kind.length() + 1;
+        String name = spanNameOrNull(span);
+        if (name != null)
+            size += ",\"name\":\"".length() + jsonEscapedUtf8Length(name) + 1;
+        if (timestamp != 0)
+            size += ",\"timestamp\":".length() + asciiSizeInBytes(timestamp);
+        if (duration != 0)
+            size += ",\"duration\":".length() + asciiSizeInBytes(duration);
+        size += encodedLocalEndpoint.length;
+        int numTags = 0;
+        for (String tagName : MEASUREMENT_TAG_NAMES) {
+            if (hasMeasurementTag(span, tagName)) {
+                // "name":"value" plus a leading comma for all but the first tag.
+                size += tagName.length() + asciiSizeInBytes(measurementTagValue(span, tagName)) + 5;
+                if (numTags++ > 0)
+                    size++;
+            }
+        }
+        if (numTags > 0)
+            size += ",\"tags\":{".length() + 1;
+        size += 1; // closing brace
+
+        return size;
+    }
+
+    protected int writeJson(Span span, byte[] b, int pos) {
+        String parentId = span.getParentSpanId();
+        String kind = zipkinKindName(span.getSpanPurpose());
+        long timestamp = span.getSpanStartTimeEpochMicros();
+        long duration = durationMicros(span);
+
+        pos = writeAscii("{\"traceId\":\"", b, pos);
+        pos = writePaddedHexId(span.getTraceId(), normalizedTraceIdLength(span.getTraceId()), b, pos);
+        b[pos++] = '"';
+        if (parentId != null) {
+            pos = writeAscii(",\"parentId\":\"", b, pos);
+            pos = writePaddedHexId(parentId, 16, b, pos);
+            b[pos++] = '"';
+        }
+        pos = writeAscii(",\"id\":\"", b, pos);
+        pos = writePaddedHexId(span.getSpanId(), 16, b, pos);
+        b[pos++] = '"';
+        if (kind != null) {
+            pos = writeAscii(",\"kind\":\"", b, pos);
+            pos = writeAscii(kind, b, pos);
+            b[pos++] = '"';
+        }
+        String name = spanNameOrNull(span);
+        if (name != null) {
+            pos = writeAscii(",\"name\":\"", b, pos);
+            pos = writeJsonEscapedUtf8(name, b, pos);
+            b[pos++] = '"';
+        }
+        if (timestamp != 0) {
+            pos = writeAscii(",\"timestamp\":", b, pos);
+            pos = writeAsciiLong(timestamp, b, pos);
+        }
+        if (duration != 0) {
+            pos = writeAscii(",\"duration\":", b, pos);
+            pos = writeAsciiLong(duration, b, pos);
+        }
+        System.arraycopy(encodedLocalEndpoint, 0, b, pos, encodedLocalEndpoint.length);
+        pos += encodedLocalEndpoint.length;
+        boolean firstTag = true;
+        for (String tagName : MEASUREMENT_TAG_NAMES) {
+            if (hasMeasurementTag(span, tagName)) {
+                pos = writeAscii(firstTag ? ",\"tags\":{\"" : ",\"", b, pos);
+                pos = writeAscii(tagName, b, pos);
+                pos = writeAscii("\":\"", b, pos);
+                pos = writeAsciiLong(measurementTagValue(span, tagName), b, pos);
+                b[pos++] = '"';
+                firstTag = false;
+            }
+        }
+        if (!firstTag)
+            b[pos++] = '}';
+        b[pos++] = '}';
+
+        return pos;
+    }
+
+    protected static byte[] encodeJsonLocalEndpoint(String serviceName) {
+        // An empty service name means an empty endpoint, which Zipkin leaves out entirely.
+        if (serviceName.isEmpty())
+            return new byte[0];
+
+        String prefix = ",\"localEndpoint\":{\"serviceName\":\"";
+        byte[] result = new byte[prefix.length() + jsonEscapedUtf8Length(serviceName) + 2];
+        int pos = writeAscii(prefix, result, 0);
+        pos = writeJsonEscapedUtf8(serviceName, result, pos);
+        result[pos++] = '"';
+        result[pos] = '}';
+        return result;
+    }
+
+    // ====================== PROTO3 ======================
+
+    protected int protoSizeInBytes(Span span) {
+        int spanSize = protoSpanFieldsSizeInBytes(span);
+        return 1 + varintSizeInBytes(spanSize) + spanSize;
+    }
+
+    protected int protoSpanFieldsSizeInBytes(Span span) {
+        String parentId = span.getParentSpanId();
+        int kind = zipkinKindProtoValue(span.getSpanPurpose());
+        long timestamp = span.getSpanStartTimeEpochMicros();
+        long duration = durationMicros(span);
+
+        int size = 1 + 1 + (normalizedTraceIdLength(span.getTraceId()) / 2);
+        if (parentId != null)
+            size += 1 + 1 + 8;
+        size += 1 + 1 + 8;
+        if (kind != 0)
+            size += 1 + 1;
+        String name = spanNameOrNull(span);
+        if (name != null) {
+            int nameSize = utf8SizeInBytes(name);
+            size += 1 + varintSizeInBytes(nameSize) + nameSize;
+        }
+        if (timestamp != 0)
+            size += 1 + 8;
+        if (duration != 0)
+            size += 1 + varintSizeInBytes(duration);
+        size += encodedLocalEndpoint.length;
+        for (String tagName : MEASUREMENT_TAG_NAMES) {
+            if (hasMeasurementTag(span, tagName)) {
+                int entrySize = protoTagEntrySizeInBytes(tagName, measurementTagValue(span, tagName));
+                size += 1 + varintSizeInBytes(entrySize) + entrySize;
+            }
+        }
+
+        return size;
+    }
+
+    protected int writeProto(Span span, byte[] b, int pos) {
+        String parentId = span.getParentSpanId();
+        int kind = zipkinKindProtoValue(span.getSpanPurpose());
+        long timestamp = span.getSpanStartTimeEpochMicros();
+        long duration = durationMicros(span);
+
+        b[pos++] = (byte) PROTO_LIST_OF_SPANS_SPAN_KEY;
+        pos = writeVarint(protoSpanFieldsSizeInBytes(span), b, pos);
+
+        int traceIdLength = normalizedTraceIdLength(span.getTraceId());
+        b[pos++] = (byte) PROTO_TRACE_ID_KEY;
+        b[pos++] = (byte) (traceIdLength / 2);
+        pos = writePaddedHexIdAsBytes(span.getTraceId(), traceIdLength, b, pos);
+        if (parentId != null) {
+            b[pos++] = (byte) PROTO_PARENT_ID_KEY;
+            b[pos++] = 8;
+            pos = writePaddedHexIdAsBytes(parentId, 16, b, pos);
+        }
+        b[pos++] = (byte) PROTO_ID_KEY;
+        b[pos++] = 8;
+        pos = writePaddedHexIdAsBytes(span.getSpanId(), 16, b, pos);
+        if (kind != 0) {
+            b[pos++] = (byte) PROTO_KIND_KEY;
+            b[pos++] = (byte) kind;
+        }
+        String name = spanNameOrNull(span);
+        if (name != null) {
+            b[pos++] = (byte) PROTO_NAME_KEY;
+            pos = writeVarint(utf8SizeInBytes(name), b, pos);
+            pos = writeUtf8(name, b, pos);
+        }
+        if (timestamp != 0) {
+            b[pos++] = (byte) PROTO_TIMESTAMP_KEY;
+            pos = writeLongLittleEndian(timestamp, b, pos);
+        }
+        if (duration != 0) {
+            b[pos++] = (byte) PROTO_DURATION_KEY;
+            pos = writeVarint(duration, b, pos);
+        }
+        System.arraycopy(encodedLocalEndpoint, 0, b, pos, encodedLocalEndpoint.length);
+        pos += encodedLocalEndpoint.length;
+        for (String tagName : MEASUREMENT_TAG_NAMES) {
+            if (hasMeasurementTag(span, tagName)) {
+                long value = measurementTagValue(span, tagName);
+                b[pos++] = (byte) PROTO_TAG_KEY;
+                pos = writeVarint(protoTagEntrySizeInBytes(tagName, value), b, pos);
+                b[pos++] = (byte) PROTO_MAP_ENTRY_KEY_KEY;
+                pos = writeVarint(tagName.length(), b, pos);
+                pos = writeAscii(tagName, b, pos);
+                b[pos++] = (byte) PROTO_MAP_ENTRY_VALUE_KEY;
+                pos = writeVarint(asciiSizeInBytes(value), b, pos);
+                pos = writeAsciiLong(value, b, pos);
+            }
+        }
+
+        return pos;
+    }
+
+    protected static int protoTagEntrySizeInBytes(String tagName, long value) {
+        int valueSize = asciiSizeInBytes(value);
+        return 1 + varintSizeInBytes(tagName.length()) + tagName.length() + 1 + varintSizeInBytes(valueSize) + valueSize;
+    }
+
+    protected static byte[] encodeProtoLocalEndpoint(String serviceName) {
+        // An empty service name means an empty endpoint, which Zipkin leaves out entirely.
+        if (serviceName.isEmpty())
+            return new byte[0];
+
+        int serviceNameSize = utf8SizeInBytes(serviceName);
+        int endpointSize = 1 + varintSizeInBytes(serviceNameSize) + serviceNameSize;
+        byte[] result = new byte[1 + varintSizeInBytes(endpointSize) + endpointSize];
+        int pos = 0;
+        result[pos++] = (byte) PROTO_LOCAL_ENDPOINT_KEY;
+        pos = writeVarint(endpointSize, result, pos);
+        result[pos++] = (byte) PROTO_ENDPOINT_SERVICE_NAME_KEY;
+        pos = writeVarint(serviceNameSize, result, pos);
+        writeUtf8(serviceName, result, pos);
+        return result;
+    }
+
+    // ====================== Span field helpers ======================
+
+    protected static String spanNameOrNull(Span span) {
+        String name = span.getSpanName();
+        if (name == null || name.isEmpty())
+            return null;
+
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return true if {@link WingtipsToZipkinSpanConverterDefaultImpl} would add the given measurement tag (one of
+     * {@link #MEASUREMENT_TAG_NAMES}) for the given span, false otherwise.
+     */
+    protected static boolean hasMeasurementTag(Span span, String tagName) {
+        if (Span.GC_PAUSE_MICROS_FIELD.equals(tagName))
+            return span.getGcPauseMicros() != null;
+
+        SpanResourceUsage resourceUsage = span.getResourceUsage();
+        if (resourceUsage == null)
+            return false;
+
+        if (Span.ASYNC_TASK_COUNT_FIELD.equals(tagName))
+            return resourceUsage.getAsyncTaskCount() > 0;
+
+        return measurementTagValue(span, tagName) != ThreadResourceSnapshot.NOT_MEASURED;
+    }
+
+    /**
+     * @return The value of the given measurement tag (one of {@link #MEASUREMENT_TAG_NAMES}) for the given span. Only
+     * meaningful when {@link #hasMeasurementTag(Span, String)} is true.
+     */
+    protected static long measurementTagValue(Span span, String tagName) {
+        if (Span.GC_PAUSE_MICROS_FIELD.equals(tagName))
+            return span.getGcPauseMicros();
+
+        SpanResourceUsage resourceUsage = span.getResourceUsage();
+        switch (tagName) {
+            case Span.ALLOCATED_BYTES_FIELD: return resourceUsage.getAllocatedBytes();
+            case Span.ASYNC_TASK_COUNT_FIELD: return resourceUsage.getAsyncTaskCount();
+            case Span.BLOCKED_TIME_MILLIS_FIELD: return resourceUsage.getBlockedTimeMillis();
+            case Span.CPU_TIME_NANOS_FIELD: return resourceUsage.getCpuTimeNanos();
+            case Span.WAITED_TIME_MILLIS_FIELD: return resourceUsage.getWaitedTimeMillis();
+            default: throw new IllegalArgumentException("Unknown measurement tag: " + tagName);
+        }
+    }
+
+    protected static long durationMicros(Span span) {
+        Long durationNanos = span.getDurationNanos();
+        return (durationNanos == null) ? 0 : TimeUnit.NANOSECONDS.toMicros(durationNanos);
+    }
+
+    protected static String zipkinKindName(SpanPurpose spanPurpose) {
+        if (SpanPurpose.SERVER == spanPurpose)
+            return "SERVER";
+        if (SpanPurpose.CLIENT == spanPurpose)
+            return "CLIENT";
+
+        return null;
+    }
+
+    protected static int zipkinKindProtoValue(SpanPurpose spanPurpose) {
+        if (SpanPurpose.CLIENT == spanPurpose)
+            return 1;
+        if (SpanPurpose.SERVER == spanPurpose)
+            return 2;
+
+        return 0;
+    }
+
+    /**
+     * @return 16 if the given trace ID is 16 characters or fewer, 32 if it's between 17 and 32 characters. Throws
+     * {@link IllegalArgumentException} if it's empty or longer than 32 characters.
+     */
+    protected static int normalizedTraceIdLength(String traceId) {
+        int length = traceId.length();
+        if (length == 0 || length > 32)
+            throw new IllegalArgumentException("traceId should be a 1 to 32 character hex string: " + traceId);
+
+        return (length > 16) ? 32 : 16;
+    }
+
+    // ====================== Low level writers ======================
+
+    protected static int hexValue(String id, int index) {
+        char c = id.charAt(index);
+        int value = (c < 128) ? HEX_DIGITS_TO_VALUES[c] : -1;
+        if (value == -1)
+            throw new IllegalArgumentException(id + " should be a lower-hex string with no prefix");
+
+        return value;
+    }
+
+    protected static int writePaddedHexId(String id, int paddedLength, byte[] b, int pos) {
+        int length = id.length();
+        if (length == 0 || length > paddedLength)
+            throw new IllegalArgumentException(id + " should be a 1 to " + paddedLength + " character lower-hex string");
+
+        for (int i = length; i < paddedLength; i++) {
+            b[pos++] = '0';
+        }
+        for (int i = 0; i < length; i++) {
+            hexValue(id, i);
+            b[pos++] = (byte) id.charAt(i);
+        }
+
+        return pos;
+    }
+
+    protected static int writePaddedHexIdAsBytes(String id, int paddedLength, byte[] b, int pos) {
+        int length = id.length();
+        if (length == 0 || length > paddedLength)
+            throw new IllegalArgumentException(id + " should be a 1 to " + paddedLength + " character lower-hex string");
+
+        int padding = paddedLength - length;
+        for (int i = 0; i < paddedLength; i += 2) {
+            int high = (i < padding) ? 0 : hexValue(id, i - padding);
+            int low = (i + 1 < padding) ? 0 : hexValue(id, i + 1 - padding);
+            b[pos++] = (byte) ((high << 4) | low);
+        }
+
+        return pos;
+    }
+
+    protected static int writeAscii(String value, byte[] b, int pos) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            b[pos++] = (byte) value.charAt(i);
+        }
+
+        return pos;
+    }
+
+    protected static int asciiSizeInBytes(long value) {
+        if (value == 0)
+            return 1;
+        if (value == Long.MIN_VALUE)
+            return 20;
+
+        int size = 0;
+        if (value < 0) {
+            size++;
+            value = -value;
+        }
+        while (value > 0) {
+            size++;
+            value /= 10;
+        }
+
+        return size;
+    }
+
+    protected static int writeAsciiLong(long value, byte[] b, int pos) {
+        if (value == Long.MIN_VALUE)
+            return writeAscii(Long.toString(value), b, pos);
+
+        int size = asciiSizeInBytes(value);
+        int end = pos + size;
+        if (value < 0) {
+            b[pos] = '-';
+            value = -value;
+        }
+        int i = end;
+        do {
+            b[--i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        return end;
+    }
+
+    protected static int varintSizeInBytes(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+
+        return size;
+    }
+
+    protected static int writeVarint(long value, byte[] b, int pos) {
+        while ((value & ~0x7FL) != 0) {
+            b[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        b[pos++] = (byte) value;
+
+        return pos;
+    }
+
+    protected static int writeLongLittleEndian(long value, byte[] b, int pos) {
+        for (int i = 0; i < 8; i++) {
+            b[pos++] = (byte) (value & 0xff);
+            value >>= 8;
+        }
+
+        return pos;
+    }
+
+    protected static int utf8SizeInBytes(String value) {
+        int size = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size++;
+            }
+            else if (c < 0x800) {
+                size += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c)) {
+                // Malformed surrogate - written as '?' like String.getBytes(UTF_8) does.
+                size++;
+            }
+            else {
+                size += 3;
+            }
+        }
+
+        return size;
+    }
+
+    protected static int writeUtf8(String value, byte[] b, int pos) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                b[pos++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                b[pos++] = (byte) (0xc0 | (c >> 6));
+                b[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                b[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                b[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                b[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                b[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            }
+            else if (Character.isSurrogate(c)) {
+                b[pos++] = '?';
+            }
+            else {
+                b[pos++] = (byte) (0xe0 | (c >> 12));
+                b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                b[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * @return The JSON escape sequence for the given character, or null if it doesn't need escaping. Control
+     * characters, quotes, backslashes, and the U+2028/U+2029 line separators are escaped.
+     */
+    protected static String jsonEscape(char c) {
+        switch (c) {
+            case '"': return "\\\"";
+            case '\\': return "\\\\";
+            case '\t': return "\\t";
+            case '\b': return "\\b";
+            case '\n': return "\\n";
+            case '\r': return "\\r";
+            case '\f': return "\\f";
+            case '\u2028': return "\\u2028";
+            case '\u2029': return "\\u2029";
+            default:
+                if (c < 0x20)
+                    return String.format("\\u%04x", (int) c);
+
+                return null;
+        }
+    }
+
+    protected static int jsonEscapedUtf8Length(String value) {
+        int size = 0;
+        int unescapedStart = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            String escape = jsonEscape(value.charAt(i));
+            if (escape != null) {
+                size += utf8SizeInBytes(value.substring(unescapedStart, i)) + escape.length();
+                unescapedStart = i + 1;
+            }
+        }
+
+        if (unescapedStart == 0)
+            return utf8SizeInBytes(value);
+
+        return size + utf8SizeInBytes(value.substring(unescapedStart));
+    }
+
+    protected static int writeJsonEscapedUtf8(String value, byte[] b, int pos) {
+        int unescapedStart = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            String escape = jsonEscape(value.charAt(i));
+            if (escape != null) {
+                pos = writeUtf8(value.substring(unescapedStart, i), b, pos);
+                pos = writeAscii(escape, b, pos);
+                unescapedStart = i + 1;
+            }
+        }
+
+        if (unescapedStart == 0)
+            return writeUtf8(value, b, pos);
+
+        return writeUtf8(value.substring(unescapedStart), b, pos);
+    }
+}
@@ -2,6 +2,8 @@ package com.nike.wingtips.zipkin2.util;
 
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,7 +26,7 @@ public class WingtipsToZipkinSpanConverterDefaultImpl implements WingtipsToZipki
     public zipkin2.Span convertWingtipsSpanToZipkinSpan(Span wingtipsSpan, Endpoint zipkinEndpoint) {
         long durationMicros = TimeUnit.NANOSECONDS.toMicros(wingtipsSpan.getDurationNanos());
 
-        return zipkin2.Span
+        zipkin2.Span.Builder builder = zipkin2.Span
             .newBuilder()
             .id(wingtipsSpan.getSpanId())
             .name(wingtipsSpan.getSpanName())
@@ -33,8 +35,28 @@ public class WingtipsToZipkinSpanConverterDefaultImpl implements WingtipsToZipki
             .timestamp(wingtipsSpan.getSpanStartTimeEpochMicros())
             .duration(durationMicros)
             .localEndpoint(zipkinEndpoint)
-            .kind(determineZipkinKind(wingtipsSpan))
-            .build();
+            .kind(determineZipkinKind(wingtipsSpan));
+
+        SpanResourceUsage resourceUsage = wingtipsSpan.getResourceUsage();
+        if (resourceUsage != null) {
+            addMeasurementTag(builder, Span.CPU_TIME_NANOS_FIELD, resourceUsage.getCpuTimeNanos());
+            addMeasurementTag(builder, Span.ALLOCATED_BYTES_FIELD, resourceUsage.getAllocatedBytes());
+            addMeasurementTag(builder, Span.BLOCKED_TIME_MILLIS_FIELD, resourceUsage.getBlockedTimeMillis());
+            addMeasurementTag(builder, Span.WAITED_TIME_MILLIS_FIELD, resourceUsage.getWaitedTimeMillis());
+            if (resourceUsage.getAsyncTaskCount() > 0)
+                builder.putTag(Span.ASYNC_TASK_COUNT_FIELD, String.valueOf(resourceUsage.getAsyncTaskCount()));
+        }
+
+        if (wingtipsSpan.getGcPauseMicros() != null)
+            builder.putTag(Span.GC_PAUSE_MICROS_FIELD, String.valueOf(wingtipsSpan.getGcPauseMicros()));
+
+        return builder.build();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    protected void addMeasurementTag(zipkin2.Span.Builder builder, String tagName, long value) {
+        if (value != ThreadResourceSnapshot.NOT_MEASURED)
+            builder.putTag(tagName, String.valueOf(value));
     }
 
     @SuppressWarnings("WeakerAccess")
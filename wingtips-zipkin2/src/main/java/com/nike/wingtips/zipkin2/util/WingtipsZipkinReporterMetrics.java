@@ -0,0 +1,212 @@
+package com.nike.wingtips.zipkin2.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.ReporterMetrics;
+
+/**
+ * Collects Zipkin {@link ReporterMetrics} (spans, bytes, messages, drops, and queue depth) for one or more {@link
+ * AsyncReporter}s that together make up a reporting pipeline, so you can see whether the pipeline is keeping up and
+ * size its queues and sender threads accordingly. Counters are shared by all reporters, while the queue depth gauges
+ * are tracked per reporter and summed - each {@link AsyncReporter} reports its own absolute queue depth, so sharing a
+ * single gauge between several reporters would only ever show the last one to update it.
+ *
+ * <p>Pass {@link #forReporter(int)} to {@link AsyncReporter.Builder#metrics(ReporterMetrics)} for each reporter in the
+ * pipeline, using a different index for each. Zipkin's {@link ReporterMetrics} doesn't cover how long sends take - wrap
+ * each reporter's {@code Sender} in a {@link TimedSender} that reports to this instance if you want send latency too.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsZipkinReporterMetrics {
+
+    protected final AtomicLong messages = new AtomicLong();
+    protected final AtomicLong messageBytes = new AtomicLong();
+    protected final AtomicLong messagesDropped = new AtomicLong();
+    protected final AtomicLong spans = new AtomicLong();
+    protected final AtomicLong spanBytes = new AtomicLong();
+    protected final AtomicLong spansDropped = new AtomicLong();
+    protected final AtomicIntegerArray queuedSpansPerReporter;
+    protected final AtomicIntegerArray queuedBytesPerReporter;
+    protected final AtomicLong sends = new AtomicLong();
+    protected final AtomicLong sendFailures = new AtomicLong();
+    protected final AtomicLong sendNanos = new AtomicLong();
+    protected final AtomicLong maxSendNanos = new AtomicLong();
+
+    /**
+     * @param numReporters The number of {@link AsyncReporter}s that will report to this instance. Must be at least 1.
+     */
+    public WingtipsZipkinReporterMetrics(int numReporters) {
+        if (numReporters < 1)
+            throw new IllegalArgumentException("numReporters must be at least 1. Invalid value: " + numReporters);
+
+        this.queuedSpansPerReporter = new AtomicIntegerArray(numReporters);
+        this.queuedBytesPerReporter = new AtomicIntegerArray(numReporters);
+    }
+
+    /**
+     * @param reporterIndex The index of the reporter that will use the returned {@link ReporterMetrics}, between 0
+     * (inclusive) and the number of reporters this instance was created with (exclusive).
+     * @return The {@link ReporterMetrics} that the given reporter should use.
+     */
+    public ReporterMetrics forReporter(final int reporterIndex) {
+        if (reporterIndex < 0 || reporterIndex >= queuedSpansPerReporter.length()) {
+            throw new IllegalArgumentException(
+                "reporterIndex must be between 0 and " + (queuedSpansPerReporter.length() - 1) + ". Invalid value: "
+                + reporterIndex
+            );
+        }
+
+        return new ReporterMetrics() {
+            @Override
+            public void incrementMessages() {
+                messages.incrementAndGet();
+            }
+
+            @Override
+            public void incrementMessagesDropped(Throwable cause) {
+                messagesDropped.incrementAndGet();
+            }
+
+            @Override
+            public void incrementSpans(int quantity) {
+                spans.addAndGet(quantity);
+            }
+
+            @Override
+            public void incrementSpanBytes(int quantity) {
+                spanBytes.addAndGet(quantity);
+            }
+
+            @Override
+            public void incrementMessageBytes(int quantity) {
+                messageBytes.addAndGet(quantity);
+            }
+
+            @Override
+            public void incrementSpansDropped(int quantity) {
+                spansDropped.addAndGet(quantity);
+            }
+
+            @Override
+            public void updateQueuedSpans(int update) {
+                queuedSpansPerReporter.set(reporterIndex, update);
+            }
+
+            @Override
+            public void updateQueuedBytes(int update) {
+                queuedBytesPerReporter.set(reporterIndex, update);
+            }
+        };
+    }
+
+    /**
+     * @return The number of messages (batches of spans) that were sent, successfully or not.
+     */
+    public long getMessages() {
+        return messages.get();
+    }
+
+    /**
+     * @return The number of bytes in the messages that were sent.
+     */
+    public long getMessageBytes() {
+        return messageBytes.get();
+    }
+
+    /**
+     * @return The number of messages that failed to send.
+     */
+    public long getMessagesDropped() {
+        return messagesDropped.get();
+    }
+
+    /**
+     * @return The number of spans reported.
+     */
+    public long getSpans() {
+        return spans.get();
+    }
+
+    /**
+     * @return The number of encoded bytes of the spans reported.
+     */
+    public long getSpanBytes() {
+        return spanBytes.get();
+    }
+
+    /**
+     * @return The number of spans that were dropped, either because the queue was full or because sending failed.
+     */
+    public long getSpansDropped() {
+        return spansDropped.get();
+    }
+
+    /**
+     * @return The number of spans currently waiting to be sent, across all reporters.
+     */
+    public long getQueuedSpans() {
+        return sum(queuedSpansPerReporter);
+    }
+
+    /**
+     * @return The number of encoded bytes currently waiting to be sent, across all reporters.
+     */
+    public long getQueuedBytes() {
+        return sum(queuedBytesPerReporter);
+    }
+
+    /**
+     * Records a send of a message to Zipkin. Called by {@link TimedSender}.
+     *
+     * @param durationNanos How long the send took.
+     * @param success Whether the send succeeded.
+     */
+    public void recordSend(long durationNanos, boolean success) {
+        sends.incrementAndGet();
+        if (!success)
+            sendFailures.incrementAndGet();
+        sendNanos.addAndGet(durationNanos);
+
+        long currentMax = maxSendNanos.get();
+        while (durationNanos > currentMax && !maxSendNanos.compareAndSet(currentMax, durationNanos)) {
+            currentMax = maxSendNanos.get();
+        }
+    }
+
+    /**
+     * @return The number of sends recorded via {@link #recordSend(long, boolean)}, successful or not.
+     */
+    public long getSends() {
+        return sends.get();
+    }
+
+    /**
+     * @return The number of sends recorded via {@link #recordSend(long, boolean)} that failed.
+     */
+    public long getSendFailures() {
+        return sendFailures.get();
+    }
+
+    /**
+     * @return The total time spent in the sends recorded via {@link #recordSend(long, boolean)}.
+     */
+    public long getSendNanos() {
+        return sendNanos.get();
+    }
+
+    /**
+     * @return The longest send recorded via {@link #recordSend(long, boolean)}.
+     */
+    public long getMaxSendNanos() {
+        return maxSendNanos.get();
+    }
+
+    protected static long sum(AtomicIntegerArray values) {
+        long total = 0;
+        for (int i = 0; i < values.length(); i++) {
+            total += values.get(i);
+        }
+        return total;
+    }
+}
@@ -1,6 +1,7 @@
 package com.nike.wingtips.zipkin2;
 
 import com.nike.wingtips.Span;
+import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanBytesEncoder;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverter;
 import com.nike.wingtips.zipkin2.util.WingtipsToZipkinSpanConverterDefaultImpl;
 
@@ -18,6 +19,7 @@ import java.net.URL;
 import java.util.UUID;
 
 import zipkin2.Endpoint;
+import zipkin2.codec.Encoding;
 import zipkin2.reporter.AsyncReporter;
 import zipkin2.reporter.Reporter;
 import zipkin2.reporter.urlconnection.URLConnectionSender;
@@ -196,4 +198,91 @@ public class WingtipsToZipkinLifecycleListenerTest {
         // Also verify that the lastSpanHandlingErrorLogTimeEpochMillis value was *not* updated.
         assertThat((long)Whitebox.getInternalState(listener, "lastSpanHandlingErrorLogTimeEpochMillis")).isEqualTo(lastLogTimeToSet);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void direct_reporter_constructor_sets_fields_as_expected() {
+        // given
+        Reporter<Span> wingtipsSpanReporterMock = mock(Reporter.class);
+
+        // when
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, wingtipsSpanReporterMock
+        );
+
+        // then
+        assertThat(listener.serviceName).isEqualTo(serviceName);
+        assertThat(listener.zipkinEndpoint.serviceName()).isEqualTo(serviceName);
+        assertThat(listener.wingtipsSpanReporter).isSameAs(wingtipsSpanReporterMock);
+        assertThat(listener.zipkinSpanConverter).isNull();
+        assertThat(listener.zipkinSpanReporter).isNull();
+    }
+
+    @Test
+    public void direct_reporter_constructor_throws_IllegalArgumentException_if_passed_null_reporter() {
+        // when
+        Throwable ex = catchThrowable(() -> new WingtipsToZipkinLifecycleListener(serviceName, (Reporter<Span>) null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "JSON",
+        "PROTO3"
+    })
+    @Test
+    public void generateBasicDirectEncodingZipkinReporter_creates_reporter_with_matching_sender_and_encoder(
+        Encoding encoding
+    ) throws MalformedURLException {
+        // when
+        Reporter<Span> reporter = WingtipsToZipkinLifecycleListener.generateBasicDirectEncodingZipkinReporter(
+            "http://localhost:4242", serviceName, encoding
+        );
+
+        // then
+        assertThat(reporter).isInstanceOf(AsyncReporter.class);
+        Object spanSender = Whitebox.getInternalState(reporter, "sender");
+        assertThat(spanSender).isInstanceOf(URLConnectionSender.class);
+        assertThat(((URLConnectionSender) spanSender).encoding()).isEqualTo(encoding);
+        assertThat(Whitebox.getInternalState(spanSender, "endpoint"))
+            .isEqualTo(new URL("http://localhost:4242/api/v2/spans"));
+        Object encoder = Whitebox.getInternalState(reporter, "encoder");
+        assertThat(encoder).isInstanceOf(WingtipsToZipkinSpanBytesEncoder.class);
+        assertThat(((WingtipsToZipkinSpanBytesEncoder) encoder).encoding()).isEqualTo(encoding);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void spanCompleted_passes_wingtips_span_directly_to_wingtipsSpanReporter_when_using_direct_path() {
+        // given
+        Reporter<Span> wingtipsSpanReporterMock = mock(Reporter.class);
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, wingtipsSpanReporterMock
+        );
+
+        // when
+        listener.spanCompleted(spanMock);
+
+        // then
+        verify(wingtipsSpanReporterMock).report(spanMock);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void spanCompleted_does_not_propagate_exceptions_generated_by_wingtipsSpanReporter() {
+        // given
+        Reporter<Span> wingtipsSpanReporterMock = mock(Reporter.class);
+        doThrow(new RuntimeException("kaboom")).when(wingtipsSpanReporterMock).report(any(Span.class));
+        WingtipsToZipkinLifecycleListener listener = new WingtipsToZipkinLifecycleListener(
+            serviceName, wingtipsSpanReporterMock
+        );
+
+        // when
+        Throwable ex = catchThrowable(() -> listener.spanCompleted(spanMock));
+
+        // then
+        assertThat(ex).isNull();
+        assertThat(listener.spanHandlingErrorCounter.get()).isEqualTo(1);
+    }
+}
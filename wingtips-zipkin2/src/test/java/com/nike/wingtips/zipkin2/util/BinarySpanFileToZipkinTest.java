@@ -0,0 +1,95 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.util.spanfile.BinarySpanFileWriter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import zipkin2.codec.Encoding;
+import zipkin2.codec.SpanBytesDecoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link BinarySpanFileToZipkin}.
+ */
+public class BinarySpanFileToZipkinTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File dir;
+    private List<Span> spans;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream errBytes;
+    private PrintStream err;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        dir = tempFolder.newFolder();
+        spans = Arrays.asList(
+            Span.newBuilder("span1", SpanPurpose.SERVER).withDurationNanos(1000L).build(),
+            Span.newBuilder("span2", SpanPurpose.CLIENT).withParentSpanId("0123456789abcdef")
+                .withDurationNanos(2000L).build()
+        );
+        BinarySpanFileWriter writer = new BinarySpanFileWriter(dir);
+        for (Span span : spans) {
+            writer.spanCompleted(span);
+        }
+        writer.close();
+
+        out = new ByteArrayOutputStream();
+        errBytes = new ByteArrayOutputStream();
+        err = new PrintStream(errBytes, true, "UTF-8");
+    }
+
+    @Test
+    public void convert_matches_direct_encoding_of_the_spans() throws IOException {
+        // given
+        WingtipsToZipkinSpanBytesEncoder encoder = new WingtipsToZipkinSpanBytesEncoder(Encoding.PROTO3, "some-service");
+
+        // when
+        byte[] result = BinarySpanFileToZipkin.convert(dir, "some-service", Encoding.PROTO3);
+
+        // then
+        assertThat(result).isEqualTo(encoder.encodeList(spans));
+        assertThat(SpanBytesDecoder.PROTO3.decodeList(result)).hasSize(2);
+    }
+
+    @Test
+    public void run_writes_json_by_default() throws IOException {
+        // when
+        int exitCode = BinarySpanFileToZipkin.run(new String[] { dir.getAbsolutePath(), "some-service" }, out, err);
+
+        // then
+        assertThat(exitCode).isZero();
+        List<zipkin2.Span> zipkinSpans = SpanBytesDecoder.JSON_V2.decodeList(out.toByteArray());
+        assertThat(zipkinSpans).hasSize(2);
+        assertThat(zipkinSpans.get(0).name()).isEqualTo("span1");
+        assertThat(zipkinSpans.get(1).localServiceName()).isEqualTo("some-service");
+        assertThat(errBytes.size()).isZero();
+    }
+
+    @Test
+    public void run_returns_error_exit_code_for_bad_args() throws IOException {
+        // expect
+        assertThat(BinarySpanFileToZipkin.run(new String[] { dir.getAbsolutePath() }, out, err)).isEqualTo(1);
+        assertThat(BinarySpanFileToZipkin.run(new String[] { dir.getAbsolutePath(), "svc", "thrift" }, out, err))
+            .isEqualTo(1);
+        assertThat(BinarySpanFileToZipkin.run(new String[] { new File(dir, "nope").getAbsolutePath(), "svc" }, out, err))
+            .isEqualTo(1);
+        assertThat(out.size()).isZero();
+        assertThat(errBytes.toString("UTF-8")).contains("Usage", "thrift", "nope");
+    }
+}
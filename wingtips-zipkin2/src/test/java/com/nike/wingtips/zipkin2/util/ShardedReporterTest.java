@@ -0,0 +1,150 @@
+package com.nike.wingtips.zipkin2.util;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import zipkin2.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests the functionality of {@link ShardedReporter}.
+ */
+public class ShardedReporterTest {
+
+    private interface ClosableFlushableReporter extends Reporter<String>, Flushable, Closeable { }
+
+    @Test
+    public void constructor_copies_delegates() {
+        // given
+        List<Reporter<String>> delegates = new ArrayList<>();
+        delegates.add(mock(ClosableFlushableReporter.class));
+        delegates.add(mock(ClosableFlushableReporter.class));
+
+        // when
+        ShardedReporter<String> reporter = new ShardedReporter<>(delegates);
+        delegates.clear();
+
+        // then
+        assertThat(reporter.getDelegates()).hasSize(2);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_delegates() {
+        // when
+        Throwable ex = catchThrowable(() -> new ShardedReporter<String>(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_empty_delegates() {
+        // when
+        Throwable ex = catchThrowable(() -> new ShardedReporter<>(Collections.<Reporter<String>>emptyList()));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_delegate_entry() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new ShardedReporter<>(Arrays.asList(mock(ClosableFlushableReporter.class), null))
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void report_sends_span_to_delegate_chosen_by_current_thread_id() {
+        // given
+        ClosableFlushableReporter first = mock(ClosableFlushableReporter.class);
+        ClosableFlushableReporter second = mock(ClosableFlushableReporter.class);
+        ShardedReporter<String> reporter = new ShardedReporter<>(Arrays.asList(first, second));
+        boolean expectFirst = (Thread.currentThread().getId() % 2) == 0;
+
+        // when
+        reporter.report("foo");
+
+        // then
+        if (expectFirst) {
+            verify(first).report("foo");
+            verifyZeroInteractions(second);
+        }
+        else {
+            verify(second).report("foo");
+            verifyZeroInteractions(first);
+        }
+    }
+
+    @Test
+    public void flush_flushes_all_flushable_delegates() throws IOException {
+        // given
+        ClosableFlushableReporter first = mock(ClosableFlushableReporter.class);
+        ClosableFlushableReporter second = mock(ClosableFlushableReporter.class);
+        @SuppressWarnings("unchecked")
+        Reporter<String> notFlushable = mock(Reporter.class);
+        ShardedReporter<String> reporter = new ShardedReporter<>(Arrays.asList(first, notFlushable, second));
+
+        // when
+        reporter.flush();
+
+        // then
+        verify(first).flush();
+        verify(second).flush();
+        verifyZeroInteractions(notFlushable);
+    }
+
+    @Test
+    public void close_closes_all_delegates_and_rethrows_first_exception() throws IOException {
+        // given
+        ClosableFlushableReporter first = mock(ClosableFlushableReporter.class);
+        ClosableFlushableReporter second = mock(ClosableFlushableReporter.class);
+        ClosableFlushableReporter third = mock(ClosableFlushableReporter.class);
+        IOException firstEx = new IOException("intentional test exception 1");
+        doThrow(firstEx).when(first).close();
+        doThrow(new IOException("intentional test exception 2")).when(second).close();
+        ShardedReporter<String> reporter = new ShardedReporter<>(Arrays.asList(first, second, third));
+
+        // when
+        Throwable ex = catchThrowable(reporter::close);
+
+        // then
+        assertThat(ex).isSameAs(firstEx);
+        verify(first).close();
+        verify(second).close();
+        verify(third).close();
+    }
+
+    @Test
+    public void close_rethrows_RuntimeException_after_closing_all_delegates() throws IOException {
+        // given
+        ClosableFlushableReporter first = mock(ClosableFlushableReporter.class);
+        ClosableFlushableReporter second = mock(ClosableFlushableReporter.class);
+        RuntimeException runtimeEx = new RuntimeException("intentional test exception");
+        doThrow(runtimeEx).when(first).close();
+        ShardedReporter<String> reporter = new ShardedReporter<>(Arrays.asList(first, second));
+
+        // when
+        Throwable ex = catchThrowable(reporter::close);
+
+        // then
+        assertThat(ex).isSameAs(runtimeEx);
+        verify(second).close();
+    }
+}
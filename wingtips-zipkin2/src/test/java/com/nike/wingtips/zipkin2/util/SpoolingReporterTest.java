@@ -0,0 +1,201 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.util.MappedFileSpool;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import zipkin2.codec.SpanBytesDecoder;
+import zipkin2.codec.SpanBytesEncoder;
+import zipkin2.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests the functionality of {@link SpoolingReporter}.
+ */
+public class SpoolingReporterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private interface ClosableFlushableReporter extends Reporter<zipkin2.Span>, Flushable, Closeable { }
+
+    private ClosableFlushableReporter delegateMock;
+    private WingtipsZipkinReporterMetrics metrics;
+    private MappedFileSpool spool;
+    private SpoolingReporter reporter;
+    private zipkin2.Span span;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        delegateMock = mock(ClosableFlushableReporter.class);
+        metrics = new WingtipsZipkinReporterMetrics(1);
+        spool = new MappedFileSpool(
+            tempFolder.newFolder(), MappedFileSpool.MIN_SEGMENT_SIZE_BYTES, MappedFileSpool.MIN_SEGMENT_SIZE_BYTES
+        );
+        reporter = reporterWithoutSpoolWriterThread(SpoolingReporter.DEFAULT_SPOOL_HANDOFF_QUEUE_CAPACITY);
+        span = zipkin2.Span.newBuilder().traceId("1234").id("5678").name("foo").build();
+    }
+
+    private SpoolingReporter reporterWithoutSpoolWriterThread(int spoolHandoffQueueCapacity) {
+        return new SpoolingReporter(
+            delegateMock, metrics, 10, SpanBytesEncoder.JSON_V2, spool, spoolHandoffQueueCapacity
+        ) {
+            @Override
+            protected ExecutorService configureSpoolWriter() {
+                return mock(ExecutorService.class);
+            }
+        };
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new SpoolingReporter(null, metrics, 10, SpanBytesEncoder.JSON_V2, spool)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingReporter(delegateMock, null, 10, SpanBytesEncoder.JSON_V2, spool)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingReporter(delegateMock, metrics, 0, SpanBytesEncoder.JSON_V2, spool)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingReporter(delegateMock, metrics, 10, null, spool)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingReporter(delegateMock, metrics, 10, SpanBytesEncoder.JSON_V2, null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingReporter(delegateMock, metrics, 10, SpanBytesEncoder.JSON_V2, spool, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void report_passes_span_to_delegate_when_queue_is_below_threshold() {
+        // given
+        metrics.forReporter(0).updateQueuedSpans(9);
+
+        // when
+        reporter.report(span);
+
+        // then
+        verify(delegateMock).report(span);
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void report_hands_span_off_for_spooling_without_touching_the_spool_when_queue_is_at_threshold() {
+        // given
+        metrics.forReporter(0).updateQueuedSpans(10);
+
+        // when
+        reporter.report(span);
+
+        // then
+        verifyZeroInteractions(delegateMock);
+        assertThat(reporter.spoolHandoffQueue).containsExactly(span);
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void report_passes_span_to_delegate_when_spool_handoff_queue_is_full() {
+        // given
+        reporter = reporterWithoutSpoolWriterThread(1);
+        metrics.forReporter(0).updateQueuedSpans(10);
+        zipkin2.Span otherSpan = span.toBuilder().id("9abc").build();
+
+        // when
+        reporter.report(span);
+        reporter.report(otherSpan);
+
+        // then
+        assertThat(reporter.spoolHandoffQueue).containsExactly(span);
+        verify(delegateMock).report(otherSpan);
+        verify(delegateMock, never()).report(span);
+    }
+
+    @Test
+    public void flush_writes_handed_off_spans_to_the_spool() throws IOException {
+        // given
+        metrics.forReporter(0).updateQueuedSpans(10);
+        reporter.report(span);
+
+        // when
+        reporter.flush();
+
+        // then
+        verify(delegateMock, never()).report(span);
+        assertThat(reporter.spoolHandoffQueue).isEmpty();
+        byte[] spooled = spool.peek(Integer.MAX_VALUE).get(0);
+        assertThat(SpanBytesDecoder.JSON_V2.decodeOne(spooled)).isEqualTo(span);
+    }
+
+    @Test
+    public void spool_writer_thread_writes_handed_off_spans_to_the_spool() throws Exception {
+        // given
+        reporter = new SpoolingReporter(delegateMock, metrics, 10, SpanBytesEncoder.JSON_V2, spool);
+        metrics.forReporter(0).updateQueuedSpans(10);
+
+        // when
+        reporter.report(span);
+
+        // then
+        long deadline = System.currentTimeMillis() + 5000;
+        while (spool.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        verifyZeroInteractions(delegateMock);
+        byte[] spooled = spool.peek(Integer.MAX_VALUE).get(0);
+        assertThat(SpanBytesDecoder.JSON_V2.decodeOne(spooled)).isEqualTo(span);
+        reporter.close();
+    }
+
+    @Test
+    public void handed_off_span_is_passed_to_delegate_when_it_cannot_be_spooled() throws IOException {
+        // given
+        metrics.forReporter(0).updateQueuedSpans(10);
+        spool.close();
+        reporter.report(span);
+
+        // when
+        reporter.flush();
+
+        // then
+        verify(delegateMock).report(span);
+    }
+
+    @Test
+    public void close_stops_the_spool_writer_and_spools_handed_off_spans() throws IOException {
+        // given
+        metrics.forReporter(0).updateQueuedSpans(10);
+        reporter.report(span);
+
+        // when
+        reporter.close();
+
+        // then
+        verify(reporter.spoolWriter).shutdownNow();
+        verify(delegateMock, never()).report(span);
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void flush_and_close_pass_through_to_delegate() throws IOException {
+        // when
+        reporter.flush();
+        reporter.close();
+
+        // then
+        verify(delegateMock).flush();
+        verify(delegateMock).close();
+        assertThat(spool.append(new byte[1])).isTrue();
+    }
+}
@@ -0,0 +1,270 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.util.MappedFileSpool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link SpoolingSender}.
+ */
+public class SpoolingSenderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private RecordingSender delegate;
+    private MappedFileSpool spool;
+    private SpoolingSender sender;
+
+    /**
+     * A fake {@link Sender} that records what it was asked to send, and can be told to fail.
+     */
+    private static class RecordingSender extends Sender {
+        public final List<List<String>> sentMessages = new ArrayList<>();
+        public volatile boolean failSends;
+        public int messageMaxBytes = 1000;
+
+        @Override
+        public Encoding encoding() {
+            return Encoding.JSON;
+        }
+
+        @Override
+        public int messageMaxBytes() {
+            return messageMaxBytes;
+        }
+
+        @Override
+        public int messageSizeInBytes(List<byte[]> encodedSpans) {
+            return Encoding.JSON.listSizeInBytes(encodedSpans);
+        }
+
+        @Override
+        public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+            if (failSends)
+                return failingCall();
+
+            List<String> message = new ArrayList<>();
+            for (byte[] encodedSpan : encodedSpans) {
+                message.add(new String(encodedSpan, StandardCharsets.UTF_8));
+            }
+            sentMessages.add(message);
+            return Call.create(null);
+        }
+    }
+
+    private static Call<Void> failingCall() {
+        return new Call.Base<Void>() {
+            @Override
+            protected Void doExecute() throws IOException {
+                throw new IOException("kaboom");
+            }
+
+            @Override
+            protected void doEnqueue(Callback<Void> callback) {
+                callback.onError(new IOException("kaboom"));
+            }
+
+            @Override
+            public Call<Void> clone() {
+                return failingCall();
+            }
+        };
+    }
+
+    @Before
+    public void beforeMethod() throws IOException {
+        delegate = new RecordingSender();
+        spool = new MappedFileSpool(
+            tempFolder.newFolder(), MappedFileSpool.MIN_SEGMENT_SIZE_BYTES, MappedFileSpool.MIN_SEGMENT_SIZE_BYTES * 4
+        );
+        // A long replay interval so the background replay thread doesn't interfere with the tests.
+        sender = new SpoolingSender(delegate, spool, Long.MAX_VALUE / 2);
+    }
+
+    @After
+    public void afterMethod() throws IOException {
+        sender.close();
+    }
+
+    private static List<byte[]> encodedSpans(String... spans) {
+        List<byte[]> result = new ArrayList<>();
+        for (String span : spans) {
+            result.add(span.getBytes(StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new SpoolingSender(null, spool))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingSender(delegate, null))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new SpoolingSender(delegate, spool, 0))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void encoding_and_message_size_methods_delegate() {
+        // given
+        List<byte[]> spans = encodedSpans("{\"a\":1}", "{\"b\":2}");
+
+        // expect
+        assertThat(sender.encoding()).isEqualTo(delegate.encoding());
+        assertThat(sender.messageMaxBytes()).isEqualTo(delegate.messageMaxBytes());
+        assertThat(sender.messageSizeInBytes(spans)).isEqualTo(delegate.messageSizeInBytes(spans));
+        assertThat(sender.getDelegate()).isSameAs(delegate);
+        assertThat(sender.getSpool()).isSameAs(spool);
+    }
+
+    @Test
+    public void check_delegates() {
+        // given
+        Sender delegateMock = mock(Sender.class);
+        CheckResult result = CheckResult.failed(new RuntimeException("kaboom"));
+        doReturn(result).when(delegateMock).check();
+        SpoolingSender mockDelegatingSender = new SpoolingSender(delegateMock, spool, Long.MAX_VALUE / 2);
+
+        // expect
+        assertThat(mockDelegatingSender.check()).isSameAs(result);
+    }
+
+    @Test
+    public void sendSpans_sends_with_delegate_when_it_succeeds() throws IOException {
+        // when
+        sender.sendSpans(encodedSpans("span1", "span2")).execute();
+
+        // then
+        assertThat(delegate.sentMessages).containsExactly(Arrays.asList("span1", "span2"));
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(sender.collectorUnreachable).isFalse();
+    }
+
+    @Test
+    public void sendSpans_spools_spans_when_delegate_fails_and_then_skips_delegate() throws IOException {
+        // given
+        Sender delegateMock = mock(Sender.class);
+        doReturn(failingCall()).when(delegateMock).sendSpans(anyListOf(byte[].class));
+        SpoolingSender mockDelegatingSender = new SpoolingSender(delegateMock, spool, Long.MAX_VALUE / 2);
+
+        // when
+        mockDelegatingSender.sendSpans(encodedSpans("span1", "span2")).execute();
+
+        // then
+        assertThat(mockDelegatingSender.collectorUnreachable).isTrue();
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(2);
+        assertThat(mockDelegatingSender.getSpooledSpanCount()).isEqualTo(2);
+
+        // and when
+        mockDelegatingSender.sendSpans(encodedSpans("span3")).execute();
+
+        // then
+        verify(delegateMock).sendSpans(anyListOf(byte[].class));
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void sendSpans_throws_when_spans_cannot_be_spooled() {
+        // given
+        sender.collectorUnreachable = true;
+        List<byte[]> tooBigToSpool = new ArrayList<>();
+        tooBigToSpool.add(new byte[spool.maxRecordSizeBytes() + 1]);
+
+        // when
+        Throwable ex = catchThrowable(() -> sender.sendSpans(tooBigToSpool).execute());
+
+        // then
+        assertThat(ex).isInstanceOf(IOException.class);
+        assertThat(sender.getSpooledSpanCount()).isZero();
+    }
+
+    @Test
+    public void replaySpooledSpans_sends_spooled_spans_in_order_and_removes_them() {
+        // given
+        for (String span : Arrays.asList("span1", "span2", "span3")) {
+            spool.append(span.getBytes(StandardCharsets.UTF_8));
+        }
+        sender.collectorUnreachable = true;
+
+        // when
+        sender.replaySpooledSpans();
+
+        // then
+        assertThat(delegate.sentMessages).containsExactly(Arrays.asList("span1", "span2", "span3"));
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(sender.getReplayedSpanCount()).isEqualTo(3);
+        assertThat(sender.collectorUnreachable).isFalse();
+    }
+
+    @Test
+    public void replaySpooledSpans_splits_spooled_spans_into_messages_that_fit_messageMaxBytes() {
+        // given
+        delegate.messageMaxBytes = 10;
+        for (String span : Arrays.asList("aaaa", "bbbb", "cccc")) {
+            spool.append(span.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // when
+        sender.replaySpooledSpans();
+
+        // then
+        assertThat(delegate.sentMessages).containsExactly(
+            Arrays.asList("aaaa"), Arrays.asList("bbbb"), Arrays.asList("cccc")
+        );
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void replaySpooledSpans_leaves_spans_in_spool_when_delegate_still_fails() {
+        // given
+        spool.append("span1".getBytes(StandardCharsets.UTF_8));
+        delegate.failSends = true;
+
+        // when
+        sender.replaySpooledSpans();
+
+        // then
+        assertThat(spool.getSpooledRecordCount()).isEqualTo(1);
+        assertThat(sender.getReplayedSpanCount()).isZero();
+        assertThat(sender.collectorUnreachable).isTrue();
+    }
+
+    @Test
+    public void close_closes_delegate_and_spool() throws IOException {
+        // given
+        Sender delegateMock = mock(Sender.class);
+        SpoolingSender mockDelegatingSender = new SpoolingSender(delegateMock, spool, Long.MAX_VALUE / 2);
+
+        // when
+        mockDelegatingSender.close();
+
+        // then
+        verify(delegateMock).close();
+        assertThat(mockDelegatingSender.replayScheduler.isShutdown()).isTrue();
+        assertThat(spool.append(new byte[1])).isFalse();
+        verify(delegateMock, never()).sendSpans(anyListOf(byte[].class));
+    }
+}
@@ -0,0 +1,170 @@
+package com.nike.wingtips.zipkin2.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link TimedSender}.
+ */
+public class TimedSenderTest {
+
+    private Sender delegateMock;
+    private WingtipsZipkinReporterMetrics metrics;
+    private TimedSender sender;
+    private List<byte[]> encodedSpans;
+
+    @Before
+    public void beforeMethod() {
+        delegateMock = mock(Sender.class);
+        metrics = new WingtipsZipkinReporterMetrics(1);
+        sender = new TimedSender(delegateMock, metrics);
+        encodedSpans = Collections.singletonList(new byte[] { 1, 2, 3 });
+    }
+
+    private static Call<Void> failingCall() {
+        return new Call.Base<Void>() {
+            @Override
+            protected Void doExecute() throws IOException {
+                throw new IOException("kaboom");
+            }
+
+            @Override
+            protected void doEnqueue(Callback<Void> callback) {
+                callback.onError(new IOException("kaboom"));
+            }
+
+            @Override
+            public Call<Void> clone() {
+                return failingCall();
+            }
+        };
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_args() {
+        // expect
+        assertThat(catchThrowable(() -> new TimedSender(null, metrics))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new TimedSender(delegateMock, null)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void simple_methods_pass_through_to_delegate() throws IOException {
+        // given
+        doReturn(Encoding.PROTO3).when(delegateMock).encoding();
+        doReturn(1234).when(delegateMock).messageMaxBytes();
+        doReturn(42).when(delegateMock).messageSizeInBytes(encodedSpans);
+        doReturn(CheckResult.OK).when(delegateMock).check();
+
+        // expect
+        assertThat(sender.encoding()).isEqualTo(Encoding.PROTO3);
+        assertThat(sender.messageMaxBytes()).isEqualTo(1234);
+        assertThat(sender.messageSizeInBytes(encodedSpans)).isEqualTo(42);
+        assertThat(sender.check()).isSameAs(CheckResult.OK);
+        assertThat(sender.getDelegate()).isSameAs(delegateMock);
+
+        // and when
+        sender.close();
+
+        // then
+        verify(delegateMock).close();
+    }
+
+    @Test
+    public void execute_records_successful_send() throws IOException {
+        // given
+        doReturn(Call.create(null)).when(delegateMock).sendSpans(encodedSpans);
+
+        // when
+        sender.sendSpans(encodedSpans).execute();
+
+        // then
+        assertThat(metrics.getSends()).isEqualTo(1);
+        assertThat(metrics.getSendFailures()).isZero();
+        assertThat(metrics.getSendNanos()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void execute_records_failed_send_and_rethrows() {
+        // given
+        doReturn(failingCall()).when(delegateMock).sendSpans(encodedSpans);
+
+        // when
+        Throwable ex = catchThrowable(() -> sender.sendSpans(encodedSpans).execute());
+
+        // then
+        assertThat(ex).isInstanceOf(IOException.class).hasMessage("kaboom");
+        assertThat(metrics.getSends()).isEqualTo(1);
+        assertThat(metrics.getSendFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueue_records_send_result_before_calling_callback() {
+        // given
+        doReturn(Call.create(null)).doReturn(failingCall()).when(delegateMock).sendSpans(encodedSpans);
+        final AtomicReference<Long> sendsSeenBySuccessCallback = new AtomicReference<>();
+        final AtomicReference<Throwable> errorSeenByCallback = new AtomicReference<>();
+
+        // when
+        sender.sendSpans(encodedSpans).enqueue(new Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                sendsSeenBySuccessCallback.set(metrics.getSends());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError("Should not be called");
+            }
+        });
+        sender.sendSpans(encodedSpans).enqueue(new Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                throw new AssertionError("Should not be called");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errorSeenByCallback.set(t);
+            }
+        });
+
+        // then
+        assertThat(sendsSeenBySuccessCallback.get()).isEqualTo(1L);
+        assertThat(errorSeenByCallback.get()).hasMessage("kaboom");
+        assertThat(metrics.getSends()).isEqualTo(2);
+        assertThat(metrics.getSendFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void clone_wraps_a_clone_of_the_delegate_call() throws IOException {
+        // given
+        doReturn(Call.create(null)).when(delegateMock).sendSpans(encodedSpans);
+        Call<Void> call = sender.sendSpans(encodedSpans);
+
+        // when
+        Call<Void> clone = call.clone();
+        clone.execute();
+
+        // then
+        assertThat(clone).isInstanceOf(TimedSender.TimedCall.class).isNotSameAs(call);
+        assertThat(metrics.getSends()).isEqualTo(1);
+    }
+}
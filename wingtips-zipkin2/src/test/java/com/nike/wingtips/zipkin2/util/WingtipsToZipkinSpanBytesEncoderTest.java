@@ -0,0 +1,216 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import zipkin2.Endpoint;
+import zipkin2.codec.Encoding;
+import zipkin2.codec.SpanBytesDecoder;
+import zipkin2.codec.SpanBytesEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link WingtipsToZipkinSpanBytesEncoder}. The main check is that the bytes are identical
+ * to converting with {@link WingtipsToZipkinSpanConverterDefaultImpl} and encoding with Zipkin's own {@link
+ * SpanBytesEncoder}.
+ */
+@RunWith(DataProviderRunner.class)
+public class WingtipsToZipkinSpanBytesEncoderTest {
+
+    private static final String SERVICE_NAME = "Some-Service";
+
+    private final WingtipsToZipkinSpanConverter converter = new WingtipsToZipkinSpanConverterDefaultImpl();
+    private final Endpoint endpoint = Endpoint.newBuilder().serviceName(SERVICE_NAME).build();
+
+    private enum EncodingScenario {
+        JSON(Encoding.JSON, SpanBytesEncoder.JSON_V2),
+        PROTO3(Encoding.PROTO3, SpanBytesEncoder.PROTO3);
+
+        public final Encoding encoding;
+        public final SpanBytesEncoder zipkinEncoder;
+
+        EncodingScenario(Encoding encoding, SpanBytesEncoder zipkinEncoder) {
+            this.encoding = encoding;
+            this.zipkinEncoder = zipkinEncoder;
+        }
+    }
+
+    @DataProvider
+    public static Object[][] spanScenarioDataProvider() {
+        List<Span> spans = Arrays.asList(
+            // Root span with no kind.
+            completedSpan(Span.newBuilder("root", SpanPurpose.LOCAL_ONLY)),
+            // Child server span.
+            completedSpan(Span.newBuilder("GET /foo", SpanPurpose.SERVER)
+                              .withParentSpanId(TraceAndSpanIdGenerator.generateId())),
+            // Client span with 128 bit trace ID.
+            completedSpan(Span.newBuilder("client call", SpanPurpose.CLIENT)
+                              .withTraceId(TraceAndSpanIdGenerator.generateId() + TraceAndSpanIdGenerator.generateId())),
+            // Short IDs that need padding.
+            completedSpan(Span.newBuilder("padded", SpanPurpose.UNKNOWN)
+                              .withTraceId("abc").withSpanId("1").withParentSpanId("ff")),
+            // Parent ID equal to span ID is passed through as-is.
+            completedSpan(Span.newBuilder("circular", SpanPurpose.SERVER)
+                              .withSpanId("0000000000000042").withParentSpanId("0000000000000042")),
+            // Name that needs JSON escaping and multi-byte UTF-8.
+            completedSpan(Span.newBuilder("quote\" backslash\\ newline\n tab\t ctrl\u0001 \u00e9\u4e2d \ud83d\ude00",
+                                          SpanPurpose.CLIENT)),
+            // Every resource usage measurement, including huge values.
+            measuredSpan("measured", SpanPurpose.SERVER,
+                         "\"cpuTimeNanos\":\"9223372036854775807\",\"allocatedBytes\":\"1048576\","
+                         + "\"blockedTimeMillis\":\"0\",\"waitedTimeMillis\":\"12\",\"asyncTaskCount\":\"3\","
+                         + "\"gcPauseMicros\":\"1500\""),
+            // Some measurements missing (NOT_MEASURED) and no async tasks.
+            measuredSpan("partly measured", SpanPurpose.CLIENT,
+                         "\"cpuTimeNanos\":\"-2\",\"allocatedBytes\":\"-1\",\"waitedTimeMillis\":\"7\","
+                         + "\"asyncTaskCount\":\"0\""),
+            // Resource usage with nothing measured at all.
+            measuredSpan("nothing measured", SpanPurpose.LOCAL_ONLY, "\"asyncTaskCount\":\"0\""),
+            // A GC pause with no resource usage, and a zero GC pause.
+            measuredSpan("gc pause only", SpanPurpose.SERVER, "\"gcPauseMicros\":\"250\""),
+            measuredSpan("zero gc pause", SpanPurpose.CLIENT, "\"cpuTimeNanos\":\"99\",\"gcPauseMicros\":\"0\"")
+        );
+
+        List<Object[]> result = new ArrayList<>();
+        for (EncodingScenario encodingScenario : EncodingScenario.values()) {
+            for (Span span : spans) {
+                result.add(new Object[] {encodingScenario, span});
+            }
+        }
+        return result.toArray(new Object[0][]);
+    }
+
+    private static Span completedSpan(Span.Builder builder) {
+        return builder.withSpanStartTimeEpochMicros(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()))
+                      .withDurationNanos(TimeUnit.MILLISECONDS.toNanos(42) + 123456)
+                      .build();
+    }
+
+    private static Span measuredSpan(String spanName, SpanPurpose spanPurpose, String measurementFieldsJson) {
+        Span span = Span.fromJSON(
+            "{\"traceId\":\"" + TraceAndSpanIdGenerator.generateId() + "\",\"parentSpanId\":\"null\","
+            + "\"spanId\":\"" + TraceAndSpanIdGenerator.generateId() + "\",\"spanName\":\"" + spanName + "\","
+            + "\"sampleable\":\"true\",\"userId\":\"null\",\"spanPurpose\":\"" + spanPurpose.name() + "\","
+            + "\"startTimeEpochMicros\":\"" + TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) + "\","
+            + "\"durationNanos\":\"42123456\"," + measurementFieldsJson + "}"
+        );
+        assertThat(span.getResourceUsage() != null || span.getGcPauseMicros() != null).isTrue();
+        return span;
+    }
+
+    @Test
+    @UseDataProvider("spanScenarioDataProvider")
+    public void encode_matches_zipkin_converter_and_encoder_output(EncodingScenario scenario, Span span) {
+        // given
+        WingtipsToZipkinSpanBytesEncoder encoder = new WingtipsToZipkinSpanBytesEncoder(scenario.encoding, SERVICE_NAME);
+        byte[] expected = scenario.zipkinEncoder.encode(converter.convertWingtipsSpanToZipkinSpan(span, endpoint));
+
+        // when
+        byte[] result = encoder.encode(span);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+        assertThat(encoder.sizeInBytes(span)).isEqualTo(expected.length);
+    }
+
+    @DataProvider(value = {
+        "JSON",
+        "PROTO3"
+    })
+    @Test
+    public void encodeList_matches_zipkin_converter_and_encoder_output(EncodingScenario scenario) {
+        // given
+        WingtipsToZipkinSpanBytesEncoder encoder = new WingtipsToZipkinSpanBytesEncoder(scenario.encoding, SERVICE_NAME);
+        List<Span> spans = new ArrayList<>();
+        List<zipkin2.Span> zipkinSpans = new ArrayList<>();
+        for (Object[] spanScenario : spanScenarioDataProvider()) {
+            if (spanScenario[0] == scenario) {
+                Span span = (Span) spanScenario[1];
+                spans.add(span);
+                zipkinSpans.add(converter.convertWingtipsSpanToZipkinSpan(span, endpoint));
+            }
+        }
+
+        // when
+        byte[] result = encoder.encodeList(spans);
+
+        // then
+        assertThat(result).isEqualTo(scenario.zipkinEncoder.encodeList(zipkinSpans));
+        assertThat(SpanBytesDecoder.valueOf(scenario.zipkinEncoder.name()).decodeList(result)).isEqualTo(zipkinSpans);
+    }
+
+    @DataProvider(value = {
+        "JSON",
+        "PROTO3"
+    })
+    @Test
+    public void encodeList_handles_empty_list(EncodingScenario scenario) {
+        // given
+        WingtipsToZipkinSpanBytesEncoder encoder = new WingtipsToZipkinSpanBytesEncoder(scenario.encoding, SERVICE_NAME);
+
+        // expect
+        assertThat(encoder.encodeList(Collections.<Span>emptyList()))
+            .isEqualTo(scenario.zipkinEncoder.encodeList(Collections.<zipkin2.Span>emptyList()));
+    }
+
+    @Test
+    public void constructor_sets_fields_and_lowercases_service_name() {
+        // when
+        WingtipsToZipkinSpanBytesEncoder encoder = new WingtipsToZipkinSpanBytesEncoder(Encoding.PROTO3, SERVICE_NAME);
+
+        // then
+        assertThat(encoder.encoding()).isEqualTo(Encoding.PROTO3);
+        assertThat(encoder.getServiceName()).isEqualTo("some-service");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_unsupported_encoding() {
+        // when
+        Throwable ex = catchThrowable(() -> new WingtipsToZipkinSpanBytesEncoder(Encoding.THRIFT, SERVICE_NAME));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_service_name() {
+        // when
+        Throwable ex = catchThrowable(() -> new WingtipsToZipkinSpanBytesEncoder(Encoding.JSON, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "JSON",
+        "PROTO3"
+    })
+    @Test
+    public void encode_throws_IllegalArgumentException_for_non_hex_ids(EncodingScenario scenario) {
+        // given
+        WingtipsToZipkinSpanBytesEncoder encoder = new WingtipsToZipkinSpanBytesEncoder(scenario.encoding, SERVICE_NAME);
+        Span span = completedSpan(Span.newBuilder("foo", SpanPurpose.SERVER).withTraceId("not-hex"));
+
+        // when
+        Throwable ex = catchThrowable(() -> encoder.encode(span));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -2,6 +2,8 @@ package com.nike.wingtips.zipkin2.util;
 
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.resourceusage.SpanResourceUsage;
+import com.nike.wingtips.resourceusage.ThreadResourceSnapshot;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -177,6 +179,49 @@ public class WingtipsToZipkinSpanConverterDefaultImplTest {
         assertThat(ex).isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    public void convertWingtipsSpanToZipkinSpan_adds_measured_resource_usage_as_tags() {
+        // given
+        Endpoint zipkinEndpoint = Endpoint.newBuilder().serviceName(UUID.randomUUID().toString()).build();
+        Span wingtipsSpan = Span.newBuilder("foo", SpanPurpose.SERVER)
+                                .withSpanStartTimeEpochMicros(Math.abs(random.nextLong()))
+                                .withDurationNanos(Math.abs(random.nextLong()))
+                                .build();
+        Whitebox.setInternalState(
+            wingtipsSpan, "resourceUsage",
+            SpanResourceUsage.fromTotals(1234, 5678, ThreadResourceSnapshot.NOT_MEASURED, 42, 3)
+        );
+        Whitebox.setInternalState(wingtipsSpan, "gcPauseMicros", 8000L);
+
+        // when
+        zipkin2.Span zipkinSpan = impl.convertWingtipsSpanToZipkinSpan(wingtipsSpan, zipkinEndpoint);
+
+        // then
+        assertThat(zipkinSpan.tags())
+            .containsEntry(Span.CPU_TIME_NANOS_FIELD, "1234")
+            .containsEntry(Span.ALLOCATED_BYTES_FIELD, "5678")
+            .containsEntry(Span.WAITED_TIME_MILLIS_FIELD, "42")
+            .containsEntry(Span.ASYNC_TASK_COUNT_FIELD, "3")
+            .containsEntry(Span.GC_PAUSE_MICROS_FIELD, "8000")
+            .doesNotContainKey(Span.BLOCKED_TIME_MILLIS_FIELD);
+    }
+
+    @Test
+    public void convertWingtipsSpanToZipkinSpan_adds_no_tags_when_resource_usage_was_not_measured() {
+        // given
+        Endpoint zipkinEndpoint = Endpoint.newBuilder().serviceName(UUID.randomUUID().toString()).build();
+        Span wingtipsSpan = Span.newBuilder("foo", SpanPurpose.SERVER)
+                                .withSpanStartTimeEpochMicros(Math.abs(random.nextLong()))
+                                .withDurationNanos(Math.abs(random.nextLong()))
+                                .build();
+
+        // when
+        zipkin2.Span zipkinSpan = impl.convertWingtipsSpanToZipkinSpan(wingtipsSpan, zipkinEndpoint);
+
+        // then
+        assertThat(zipkinSpan.tags()).isEmpty();
+    }
+
     @SuppressWarnings("unused")
     private enum WingtipsSpanPurposeToZipkinKindScenario {
         SERVER(SpanPurpose.SERVER, zipkin2.Span.Kind.SERVER),
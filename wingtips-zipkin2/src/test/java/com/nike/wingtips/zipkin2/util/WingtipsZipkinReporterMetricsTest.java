@@ -0,0 +1,113 @@
+package com.nike.wingtips.zipkin2.util;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import zipkin2.reporter.ReporterMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link WingtipsZipkinReporterMetrics}.
+ */
+@RunWith(DataProviderRunner.class)
+public class WingtipsZipkinReporterMetricsTest {
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_less_than_one_reporter(int numReporters) {
+        // when
+        Throwable ex = catchThrowable(() -> new WingtipsZipkinReporterMetrics(numReporters));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "-1",
+        "2"
+    })
+    @Test
+    public void forReporter_throws_IllegalArgumentException_for_out_of_range_index(int reporterIndex) {
+        // given
+        WingtipsZipkinReporterMetrics metrics = new WingtipsZipkinReporterMetrics(2);
+
+        // when
+        Throwable ex = catchThrowable(() -> metrics.forReporter(reporterIndex));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void counters_are_shared_across_reporters() {
+        // given
+        WingtipsZipkinReporterMetrics metrics = new WingtipsZipkinReporterMetrics(2);
+        ReporterMetrics first = metrics.forReporter(0);
+        ReporterMetrics second = metrics.forReporter(1);
+
+        // when
+        first.incrementMessages();
+        second.incrementMessages();
+        first.incrementMessageBytes(100);
+        second.incrementMessageBytes(50);
+        second.incrementMessagesDropped(new RuntimeException("intentional test exception"));
+        first.incrementSpans(3);
+        second.incrementSpans(4);
+        first.incrementSpanBytes(30);
+        second.incrementSpanBytes(40);
+        first.incrementSpansDropped(2);
+        second.incrementSpansDropped(5);
+
+        // then
+        assertThat(metrics.getMessages()).isEqualTo(2);
+        assertThat(metrics.getMessageBytes()).isEqualTo(150);
+        assertThat(metrics.getMessagesDropped()).isEqualTo(1);
+        assertThat(metrics.getSpans()).isEqualTo(7);
+        assertThat(metrics.getSpanBytes()).isEqualTo(70);
+        assertThat(metrics.getSpansDropped()).isEqualTo(7);
+    }
+
+    @Test
+    public void queue_gauges_are_tracked_per_reporter_and_summed() {
+        // given
+        WingtipsZipkinReporterMetrics metrics = new WingtipsZipkinReporterMetrics(2);
+        ReporterMetrics first = metrics.forReporter(0);
+        ReporterMetrics second = metrics.forReporter(1);
+
+        // when
+        first.updateQueuedSpans(10);
+        second.updateQueuedSpans(5);
+        first.updateQueuedBytes(1000);
+        second.updateQueuedBytes(500);
+        first.updateQueuedSpans(3);
+
+        // then
+        assertThat(metrics.getQueuedSpans()).isEqualTo(8);
+        assertThat(metrics.getQueuedBytes()).isEqualTo(1500);
+    }
+
+    @Test
+    public void recordSend_tracks_sends_failures_and_latency() {
+        // given
+        WingtipsZipkinReporterMetrics metrics = new WingtipsZipkinReporterMetrics(1);
+
+        // when
+        metrics.recordSend(100, true);
+        metrics.recordSend(500, false);
+        metrics.recordSend(200, true);
+
+        // then
+        assertThat(metrics.getSends()).isEqualTo(3);
+        assertThat(metrics.getSendFailures()).isEqualTo(1);
+        assertThat(metrics.getSendNanos()).isEqualTo(800);
+        assertThat(metrics.getMaxSendNanos()).isEqualTo(500);
+    }
+}